@@ -18,7 +18,7 @@ import script.Conversions;
 import script.ScriptEnvironment;
 import script.exceptions.InternalException;
 import script.exceptions.ScriptException;
-import script.operations.ScriptExecutable_CallFunction;
+import script.operations.FunctionCallSite;
 import script.values.ScriptTemplate_Abstract;
 import script.values.ScriptValue;
 
@@ -33,6 +33,7 @@ public class Scheduler implements ActionListener {
 	private long gameTime;
 	private double compression;
 	private boolean inProgress;
+	private final FunctionCallSite iterate = new FunctionCallSite("iterate");
 
 	public Scheduler(ScriptEnvironment env) {
 		this.environment = env;
@@ -62,7 +63,7 @@ public class Scheduler implements ActionListener {
 					params.clear();
 					params.add(Conversions.wrapLong(this.getEnvironment(), differential));
 					params.add(Conversions.wrapAsset(this.getEnvironment(), event.getAsset()));
-					ScriptExecutable_CallFunction.callFunction(this.getEnvironment(), null, listener, "iterate", params);
+					this.iterate.call(this.getEnvironment(), null, listener, params);
 					assert Logs.closeNode();
 					iter.remove();
 				}
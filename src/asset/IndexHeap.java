@@ -0,0 +1,130 @@
+package asset;
+
+import java.util.Arrays;
+
+/**
+ * A binary min-heap of non-negative integer indices, ordered by a priority
+ * given for each index. Every index remembers its position in the heap, so
+ * the priority of a queued index can be lowered without searching for it.
+ * All state is kept in primitive arrays that grow as larger indices are
+ * pushed.
+ */
+final class IndexHeap {
+	private static final int UNQUEUED = -1;
+
+	private int[] heap = new int[16];
+	private int[] positions = new int[16];
+	private double[] priorities = new double[16];
+	private int size;
+
+	IndexHeap() {
+		Arrays.fill(this.positions, UNQUEUED);
+	}
+
+	boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	int size() {
+		return this.size;
+	}
+
+	/**
+	 * Returns whether the given index is in this heap.
+	 */
+	boolean contains(int index) {
+		return index < this.positions.length && this.positions[index] != UNQUEUED;
+	}
+
+	/**
+	 * Adds the given index to this heap, or changes its priority if it is
+	 * already queued.
+	 */
+	void push(int index, double priority) {
+		if (index >= this.positions.length) {
+			int capacity = Math.max(index + 1, this.positions.length * 2);
+			int length = this.positions.length;
+			this.positions = Arrays.copyOf(this.positions, capacity);
+			Arrays.fill(this.positions, length, capacity, UNQUEUED);
+			this.priorities = Arrays.copyOf(this.priorities, capacity);
+		}
+		if (this.positions[index] != UNQUEUED) {
+			double previous = this.priorities[index];
+			this.priorities[index] = priority;
+			if (priority < previous) {
+				this.siftUp(this.positions[index]);
+			} else {
+				this.siftDown(this.positions[index]);
+			}
+			return;
+		}
+		if (this.size == this.heap.length) {
+			this.heap = Arrays.copyOf(this.heap, this.size * 2);
+		}
+		this.priorities[index] = priority;
+		this.heap[this.size] = index;
+		this.positions[index] = this.size;
+		this.siftUp(this.size++);
+	}
+
+	/**
+	 * Removes and returns the index with the lowest priority.
+	 *
+	 * @throws IllegalStateException
+	 *             if this heap is empty
+	 */
+	int pop() {
+		if (this.size == 0) {
+			throw new IllegalStateException("The heap is empty");
+		}
+		int top = this.heap[0];
+		int last = this.heap[--this.size];
+		this.positions[top] = UNQUEUED;
+		if (this.size > 0) {
+			this.heap[0] = last;
+			this.positions[last] = 0;
+			this.siftDown(0);
+		}
+		return top;
+	}
+
+	private void siftUp(int position) {
+		int index = this.heap[position];
+		double priority = this.priorities[index];
+		while (position > 0) {
+			int parent = (position - 1) >>> 1;
+			int parentIndex = this.heap[parent];
+			if (this.priorities[parentIndex] <= priority) {
+				break;
+			}
+			this.heap[position] = parentIndex;
+			this.positions[parentIndex] = position;
+			position = parent;
+		}
+		this.heap[position] = index;
+		this.positions[index] = position;
+	}
+
+	private void siftDown(int position) {
+		int index = this.heap[position];
+		double priority = this.priorities[index];
+		while (true) {
+			int child = 2 * position + 1;
+			if (child >= this.size) {
+				break;
+			}
+			if (child + 1 < this.size && this.priorities[this.heap[child + 1]] < this.priorities[this.heap[child]]) {
+				child++;
+			}
+			int childIndex = this.heap[child];
+			if (this.priorities[childIndex] >= priority) {
+				break;
+			}
+			this.heap[position] = childIndex;
+			this.positions[childIndex] = position;
+			position = child;
+		}
+		this.heap[position] = index;
+		this.positions[index] = position;
+	}
+}
@@ -0,0 +1,119 @@
+package asset;
+
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import geom.DiscreteRegion;
+import geom.DiscreteRegionBSPSnapshot;
+import script.Conversions;
+import script.ScriptEnvironment;
+import script.exceptions.ScriptException;
+import script.operations.FunctionCallSite;
+import script.values.ScriptTemplate_Abstract;
+import script.values.ScriptValue;
+
+/**
+ * Remembers the movement cost of each region for one asset, as evaluated by a
+ * script's {@code evaluateMovementCost} function. A region's cost is only
+ * evaluated again once the region's version changes, which it does whenever
+ * its points or properties change.
+ * <p>
+ * Regions are compared by identity, since a region's hash code changes along
+ * with its points. Costs of regions that are no longer in the terrestrial's
+ * snapshot are dropped whenever a new snapshot is seen.
+ * <p>
+ * Caches are kept in a map weakly keyed by their asset, so the asset itself is
+ * only held weakly.
+ */
+final class MovementCostCache implements MovementCosts {
+	private static final FunctionCallSite MOVEMENT_COST = new FunctionCallSite("evaluateMovementCost");
+	private static final FunctionCallSite MINIMUM_MOVEMENT_COST = new FunctionCallSite("getMinimumMovementCost");
+
+	private static final class Entry {
+		int version;
+		double cost;
+	}
+
+	private final ScriptEnvironment environment;
+	private final ScriptTemplate_Abstract evaluator;
+	private final WeakReference<Asset> asset;
+	private final Map<DiscreteRegion, Entry> costs = new IdentityHashMap<DiscreteRegion, Entry>();
+	private DiscreteRegionBSPSnapshot snapshot;
+	// Never above any cost that is cached, though possibly below all of them
+	private double lowestCost = Double.POSITIVE_INFINITY;
+
+	MovementCostCache(ScriptEnvironment env, ScriptTemplate_Abstract evaluator, Asset asset) {
+		this.environment = env;
+		this.evaluator = evaluator;
+		this.asset = new WeakReference<Asset>(asset);
+	}
+
+	/**
+	 * Returns whether this cache holds costs evaluated by the given evaluator.
+	 */
+	boolean isFor(ScriptEnvironment env, ScriptTemplate_Abstract evaluator) {
+		return this.environment == env && this.evaluator == evaluator;
+	}
+
+	@Override
+	public synchronized double getCost(DiscreteRegion region) throws ScriptException {
+		Entry entry = this.costs.get(region);
+		if (entry == null) {
+			entry = new Entry();
+			this.costs.put(region, entry);
+		} else if (entry.version == region.getVersion()) {
+			return entry.cost;
+		}
+		List<ScriptValue> params = new LinkedList<ScriptValue>();
+		params.add(Conversions.wrapDiscreteRegion(this.environment, region));
+		params.add(Conversions.wrapAsset(this.environment, this.asset.get()));
+		entry.cost = Conversions.getDouble(this.environment, MOVEMENT_COST.call(this.environment, null, this.evaluator, params));
+		entry.version = region.getVersion();
+		this.lowestCost = Math.min(this.lowestCost, entry.cost);
+		return entry.cost;
+	}
+
+	/**
+	 * Returns a cost that no region in the given snapshot goes below, or zero
+	 * if that cost would be negative. Multiplying a distance by this cost
+	 * never overestimates the cost of travelling that distance over the
+	 * snapshot.
+	 * <p>
+	 * The cost is the evaluator's {@code getMinimumMovementCost}, lowered to
+	 * any cost evaluated so far that is below it, so no region is evaluated
+	 * to find it. Evaluators that do not declare a minimum get zero. Costs of
+	 * regions that are not in the snapshot are dropped once it is first
+	 * seen.
+	 */
+	synchronized double getMinimumCost(DiscreteRegionBSPSnapshot snapshot) throws ScriptException {
+		if (this.snapshot != snapshot) {
+			List<DiscreteRegion> regions = snapshot.getRegionList();
+			Set<DiscreteRegion> current = Collections.newSetFromMap(new IdentityHashMap<DiscreteRegion, Boolean>(regions.size()));
+			current.addAll(regions);
+			this.costs.keySet().retainAll(current);
+			this.lowestCost = Double.POSITIVE_INFINITY;
+			for (Entry entry : this.costs.values()) {
+				this.lowestCost = Math.min(this.lowestCost, entry.cost);
+			}
+			this.snapshot = snapshot;
+		}
+		double minimum = Math.min(this.getDeclaredMinimumCost(), this.lowestCost);
+		if (!(minimum > 0) || Double.isInfinite(minimum)) {
+			return 0;
+		}
+		return minimum;
+	}
+
+	private double getDeclaredMinimumCost() throws ScriptException {
+		List<ScriptValue> params = new LinkedList<ScriptValue>();
+		if (this.evaluator.getFunction(MINIMUM_MOVEMENT_COST.getName(), params) == null) {
+			return 0;
+		}
+		return Conversions.getDouble(this.environment, MINIMUM_MOVEMENT_COST.call(this.environment, null, this.evaluator, params));
+	}
+}
@@ -0,0 +1,14 @@
+package asset;
+
+import geom.DiscreteRegion;
+import script.exceptions.ScriptException;
+
+/**
+ * Gives the cost of moving through a region. Crossing a region costs the
+ * distance travelled times the region's cost.
+ *
+ * @see RegionPathfinder
+ */
+interface MovementCosts {
+	double getCost(DiscreteRegion region) throws ScriptException;
+}
@@ -0,0 +1,194 @@
+package asset;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import geom.DiscreteRegion;
+import geom.Polygons;
+import geom.points.Point;
+import geom.points.PointPath;
+import geom.points.Points;
+import logging.Logs;
+import script.exceptions.ScriptException;
+
+/**
+ * Finds the cheapest route between two points using A* over the graph of
+ * neighboring regions. A route enters each region at the point on the shared
+ * edge that is nearest to where it entered the previous region, and crossing
+ * a region costs the distance travelled times that region's movement cost.
+ * <p>
+ * The estimate of the remaining cost is the straight-line distance to the
+ * destination times the lowest movement cost of any region, so it never
+ * overestimates. The open set is an {@link IndexHeap} of region indices, with
+ * every region's state kept in parallel primitive arrays.
+ */
+final class RegionPathfinder {
+	private final MovementCosts costs;
+	private final DiscreteRegion destination;
+	private final Point destinationPoint;
+	private final double heuristicCost;
+
+	private final Map<DiscreteRegion, Integer> indices = new IdentityHashMap<DiscreteRegion, Integer>();
+	private DiscreteRegion[] regions = new DiscreteRegion[16];
+	private Point[] entries = new Point[16];
+	private double[] regionCosts = new double[16];
+	private double[] distances = new double[16];
+	private int[] parents = new int[16];
+	private boolean[] closed = new boolean[16];
+	private int size;
+
+	private final IndexHeap open = new IndexHeap();
+
+	RegionPathfinder(MovementCosts costs, DiscreteRegion destination, Point destinationPoint, double heuristicCost) {
+		this.costs = costs;
+		this.destination = destination;
+		this.destinationPoint = destinationPoint;
+		this.heuristicCost = heuristicCost;
+	}
+
+	/**
+	 * Finds the cheapest route from the given point in the given region.
+	 *
+	 * @return the route, or {@code null} if the destination cannot be reached
+	 */
+	PointPath findPath(Scenario scenario, DiscreteRegion start, Point startPoint) throws ScriptException {
+		int last = this.search(start, startPoint);
+		if (last == -1) {
+			return null;
+		}
+		int[] route = this.getRoute(last);
+		PointPath path = new PointPath(scenario);
+		for (int index : route) {
+			path.addPoint(this.entries[index], this.regionCosts[index]);
+		}
+		path.addPoint(this.destinationPoint, this.regionCosts[last]);
+		return path;
+	}
+
+	/**
+	 * Finds the cheapest route from the given point in the given region, and
+	 * returns the regions it crosses in order.
+	 *
+	 * @return the regions, or {@code null} if the destination cannot be
+	 *         reached
+	 */
+	List<DiscreteRegion> findRegions(DiscreteRegion start, Point startPoint) throws ScriptException {
+		int last = this.search(start, startPoint);
+		if (last == -1) {
+			return null;
+		}
+		List<DiscreteRegion> regions = new ArrayList<DiscreteRegion>();
+		for (int index : this.getRoute(last)) {
+			regions.add(this.regions[index]);
+		}
+		return regions;
+	}
+
+	/**
+	 * Returns the index of the destination once the cheapest route to it is
+	 * known, or -1 if it cannot be reached.
+	 */
+	private int search(DiscreteRegion start, Point startPoint) throws ScriptException {
+		int startIndex = this.add(start, startPoint, -1, 0);
+		this.open.push(startIndex, this.getPriority(startIndex));
+		int expanded = 0;
+		while (!this.open.isEmpty()) {
+			int current = this.open.pop();
+			if (this.regions[current] == this.destination) {
+				assert Logs.addNode("Pathfinding", "Destination reached after expanding " + expanded + " region(s)");
+				return current;
+			}
+			this.closed[current] = true;
+			expanded++;
+			this.expand(current);
+		}
+		assert Logs.addNode("Pathfinding", "Destination unreachable after expanding " + expanded + " region(s)");
+		return -1;
+	}
+
+	private void expand(int current) throws ScriptException {
+		DiscreteRegion region = this.regions[current];
+		Point entry = this.entries[current];
+		for (DiscreteRegion neighbor : region.getNeighbors()) {
+			Integer existing = this.indices.get(neighbor);
+			if (existing != null && this.closed[existing]) {
+				continue;
+			}
+			Point[] edge = Polygons.getAdjacentEdge(region, neighbor);
+			if (edge == null) {
+				continue;
+			}
+			Point point = Polygons.getMinimumPointBetweenLine(edge[0], edge[1], entry);
+			double distance = this.distances[current] + Points.getDistance(entry, point) * this.regionCosts[current];
+			if (Double.isNaN(distance) || Double.isInfinite(distance)) {
+				continue;
+			}
+			int index;
+			if (existing == null) {
+				index = this.add(neighbor, point, current, distance);
+			} else if (distance < this.distances[existing]) {
+				index = existing;
+				this.entries[index] = point;
+				this.parents[index] = current;
+				this.distances[index] = distance;
+			} else {
+				continue;
+			}
+			this.open.push(index, this.getPriority(index));
+		}
+	}
+
+	private int add(DiscreteRegion region, Point entry, int parent, double distance) throws ScriptException {
+		if (this.size == this.regions.length) {
+			int capacity = this.size * 2;
+			this.regions = Arrays.copyOf(this.regions, capacity);
+			this.entries = Arrays.copyOf(this.entries, capacity);
+			this.regionCosts = Arrays.copyOf(this.regionCosts, capacity);
+			this.distances = Arrays.copyOf(this.distances, capacity);
+			this.parents = Arrays.copyOf(this.parents, capacity);
+			this.closed = Arrays.copyOf(this.closed, capacity);
+		}
+		int index = this.size++;
+		this.indices.put(region, index);
+		this.regions[index] = region;
+		this.entries[index] = entry;
+		this.regionCosts[index] = this.costs.getCost(region);
+		this.distances[index] = distance;
+		this.parents[index] = parent;
+		return index;
+	}
+
+	/**
+	 * Returns the priority of the given region. The destination's priority is
+	 * the exact cost of the route ending there, so it is only reached once no
+	 * cheaper route could remain.
+	 */
+	private double getPriority(int index) {
+		double remaining = Points.getDistance(this.entries[index], this.destinationPoint);
+		if (this.regions[index] == this.destination) {
+			remaining *= this.regionCosts[index];
+		} else {
+			remaining *= this.heuristicCost;
+		}
+		return this.distances[index] + remaining;
+	}
+
+	/**
+	 * Returns the indices of the regions on the route ending at the given
+	 * region, starting with the first.
+	 */
+	private int[] getRoute(int last) {
+		int length = 0;
+		for (int index = last; index != -1; index = this.parents[index]) {
+			length++;
+		}
+		int[] route = new int[length];
+		for (int index = last; index != -1; index = this.parents[index]) {
+			route[--length] = index;
+		}
+		return route;
+	}
+}
@@ -1,28 +1,27 @@
 package asset;
 
 import java.io.Serializable;
+import java.util.Collections;
 import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
-import java.util.Set;
-import java.util.Stack;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import geom.DiscreteRegion;
 import geom.DiscreteRegionBSPNode;
+import geom.DiscreteRegionBSPSnapshot;
 import geom.PolygonPipeline;
 import geom.Polygons;
-import geom.SplitterThread;
+import geom.RegionAdjacencyIndex;
 import geom.points.Point;
 import geom.points.PointPath;
-import geom.points.Points;
 import logging.Logs;
-import script.Conversions;
 import script.ScriptEnvironment;
 import script.exceptions.ScriptException;
-import script.operations.ScriptExecutable_CallFunction;
 import script.values.ScriptTemplate_Abstract;
-import script.values.ScriptValue;
 import asset.Asset;
 
 public class Terrestrial implements Serializable {
@@ -32,161 +31,177 @@ public class Terrestrial implements Serializable {
 	private static final long serialVersionUID = -5769369184511259491L;
 	private double radius;
 	private DiscreteRegionBSPNode tree;
-	private volatile int openThreads = 0;
+	// Completes once every region added so far has been inserted into the tree
+	private transient volatile CompletableFuture<Void> treeReady;
+	private transient volatile DiscreteRegionBSPSnapshot snapshot;
+	// Set whenever the tree changes after the current snapshot was taken
+	private transient volatile boolean snapshotStale;
+	private transient RegionAdjacencyIndex adjacencyIndex;
+	private transient Map<Asset, MovementCostCache> movementCosts;
 
 	public Terrestrial(double radius) {
 		this.radius = radius;
 	}
 
-	public void add(DiscreteRegion region) {
-		this.openThreads++;
-		PolygonPipeline pipeline = new PolygonPipeline(this, region);
-		pipeline.start();
+	/**
+	 * Adds the given region to this terrestrial's tree. The region is
+	 * processed in the background, but regions are inserted into the tree one
+	 * at a time, in the order they were added.
+	 *
+	 * @see #getTreeReady()
+	 */
+	public synchronized void add(DiscreteRegion region) {
+		CompletableFuture<List<DiscreteRegion>> polygons = PolygonPipeline.process(region).exceptionally(ex -> {
+			// The region is left out, like a degenerate region would be
+			printFailure(ex);
+			return Collections.emptyList();
+		});
+		CompletableFuture<Void> ready = this.getTreeReady().thenAcceptBothAsync(polygons, (previous, regions) -> this.addValidatedRegions(regions), PolygonPipeline.getPool()).exceptionally(ex -> {
+			// Later regions are still inserted into whatever tree remains
+			printFailure(ex);
+			return null;
+		});
+		this.treeReady = ready;
+		ready.thenRun(() -> this.publishIfLatest(ready));
+	}
+
+	/**
+	 * Publishes a snapshot once the given insertion has finished, unless more
+	 * regions were added after it. A bulk load therefore publishes once, after
+	 * its last region is inserted, rather than once per region.
+	 */
+	private synchronized void publishIfLatest(CompletableFuture<Void> ready) {
+		if (this.treeReady == ready && this.snapshotStale) {
+			this.publishSnapshot();
+		}
+	}
+
+	private static void printFailure(Throwable ex) {
+		if (ex instanceof Exception) {
+			Logs.printException((Exception) ex);
+		} else {
+			Logs.printException(new CompletionException(ex));
+		}
 	}
 
 	public synchronized void addValidatedRegions(List<DiscreteRegion> regions) {
 		if (regions == null || regions.size() == 0) {
 			return;
 		}
+		try {
+			this.insertRegions(regions);
+		} finally {
+			this.snapshotStale = true;
+		}
+	}
+
+	private void insertRegions(List<DiscreteRegion> regions) {
 		assert Logs.openNode("Validated Region Additions", "Adding Validated Regions (" + regions.size() + " region(s))");
 		if (this.getTree() == null) {
 			this.setTree(new DiscreteRegionBSPNode(regions.get(0)));
 			if (regions.size() == 1) {
 				assert Logs.closeNode();
-				this.decrementOpenThreads();
 				return;
 			}
 		}
-		SplitterThread thread = new SplitterThread(this, this.getTree(), regions, true);
-		thread.start();
-		assert Logs.closeNode();
+		DiscreteRegionBSPNode root = this.getTree();
+		for (DiscreteRegion region : new HashSet<DiscreteRegion>(regions)) {
+			root = Polygons.removeOverlappingPolygons(root, region, true);
+		}
+		root.clearTempList();
+		assert Logs.closeNode(root);
 	}
 
-	public void decrementOpenThreads() {
-		this.openThreads--;
+	/**
+	 * Returns a future that completes once every region that has been added
+	 * so far is in this terrestrial's tree.
+	 */
+	public synchronized CompletableFuture<Void> getTreeReady() {
+		if (this.treeReady == null) {
+			this.treeReady = CompletableFuture.completedFuture(null);
+		}
+		return this.treeReady;
 	}
 
-	public PointPath getPath(ScriptEnvironment env, Scenario scenario, ScriptTemplate_Abstract evaluator, Asset asset, Point currentPoint, Point destinationPoint) throws ScriptException {
-		while (this.openThreads != 0) {
-			try {
-				Thread.sleep(100);
-			} catch (InterruptedException ex) {
-			}
+	/**
+	 * Waits for every region that has been added so far to be inserted, and
+	 * returns the resulting tree.
+	 */
+	public DiscreteRegionBSPNode awaitTree() {
+		this.getTreeReady().join();
+		return this.getTree();
+	}
+
+	/**
+	 * Returns the most recently published snapshot of this terrestrial's tree.
+	 * Snapshots are published once every pending insertion has finished, and
+	 * can be queried from any thread without waiting for insertions that are
+	 * still running. If the tree has changed since the last snapshot and no
+	 * insertions are pending, a new snapshot is taken first.
+	 */
+	public DiscreteRegionBSPSnapshot getSnapshot() {
+		DiscreteRegionBSPSnapshot snapshot = this.snapshot;
+		CompletableFuture<Void> ready = this.treeReady;
+		// Snapshots are not serialized
+		if (snapshot == null || this.snapshotStale && (ready == null || ready.isDone())) {
+			snapshot = this.publishSnapshot();
 		}
+		return snapshot;
+	}
+
+	/**
+	 * Takes a snapshot of the tree, updates the neighbors of any regions that
+	 * changed since the last snapshot, and publishes the snapshot. Does
+	 * nothing if the published snapshot is still current.
+	 */
+	private synchronized DiscreteRegionBSPSnapshot publishSnapshot() {
+		if (this.snapshot != null && !this.snapshotStale) {
+			return this.snapshot;
+		}
+		this.snapshotStale = false;
+		DiscreteRegionBSPNode tree = this.getTree();
+		DiscreteRegionBSPSnapshot snapshot = tree == null ? DiscreteRegionBSPSnapshot.EMPTY : tree.snapshot();
+		if (this.adjacencyIndex == null) {
+			this.adjacencyIndex = new RegionAdjacencyIndex();
+		}
+		this.adjacencyIndex.update(snapshot.getRegionList());
+		this.snapshot = snapshot;
+		return snapshot;
+	}
+
+	public PointPath getPath(ScriptEnvironment env, Scenario scenario, ScriptTemplate_Abstract evaluator, Asset asset, Point currentPoint, Point destinationPoint) throws ScriptException {
+		this.awaitTree();
 		assert Logs.openNode("Pathfinding", "Getting path (" + currentPoint + " to " + destinationPoint + ")");
-		PointPath path = new PointPath(scenario);
-		DiscreteRegion startingRegion;
 		assert this.getTree() != null : "BSP Tree is null!";
-		DiscreteRegion currentRegion = startingRegion = this.getTree().getRegion(currentPoint);
-		DiscreteRegion destination = this.getTree().getRegion(destinationPoint);
-		List<ScriptValue> params = new LinkedList<ScriptValue>();
-		params.add(Conversions.wrapDiscreteRegion(env, currentRegion));
-		params.add(Conversions.wrapAsset(env, asset));
-		path.addPoint(currentPoint, Conversions.getDouble(env, ScriptExecutable_CallFunction.callFunction(env, null, evaluator, "evaluateMovementCost", params)));
-		int ticker = 0;
-		Stack<DiscreteRegion> regionPath = new Stack<DiscreteRegion>();
-		regionPath.push(currentRegion);
-		Set<DiscreteRegion> used = new HashSet<DiscreteRegion>();
-		List<DiscreteRegion> availableNeighbors = new LinkedList<DiscreteRegion>();
-		List<Point> nearestNeighborPoints = new LinkedList<Point>();
-		List<Double> movementCosts = new LinkedList<Double>();
-		while (!currentRegion.equals(destination)) {
-			if (ticker > 100) {
-				throw new IllegalStateException("Pathfinder iteration tolerance exceeded.");
-			} else {
-				ticker++;
-			}
-			assert Logs.openNode("Pathfinder iteration " + ticker);
-			assert Logs.addSnapNode("Current region", currentRegion);
-			if (currentRegion.getNeighbors().size() == 0) {
-				assert Logs.closeNode("Current region has no neighbors, returning null list");
-				path = null;
-				break;
-			}
-			availableNeighbors.clear();
-			nearestNeighborPoints.clear();
-			assert Logs.openNode("Current region's neighbors (" + currentRegion.getNeighbors().size() + " neighbor(s))");
-			for (DiscreteRegion neighbor : currentRegion.getNeighbors()) {
-				assert Logs.openNode("Discrete Region (" + neighbor.getPoints().size() + " point(s))");
-				assert Logs.addSnapNode("Properties", neighbor.getProperties());
-				assert Logs.addSnapNode("Points", neighbor.getPoints());
-				assert Logs.closeNode();
-			}
-			assert Logs.closeNode();
-			assert Logs.openNode("Getting valid neighbors");
-			for (DiscreteRegion neighbor : currentRegion.getNeighbors()) {
-				if (used.contains(neighbor)) {
-					continue;
-				}
-				assert Logs.addSnapNode("Placing neighbor in neighbors list", neighbor);
-				assert Logs.openNode("Retrieving nearest colinear point");
-				Point[] line = Polygons.getAdjacentEdge(currentRegion, neighbor);
-				Point point = Polygons.getMinimumPointBetweenLine(line[0], line[1], currentPoint);
-				assert Logs.addNode("Adding neighbor and point (" + point + ")", neighbor);
-				availableNeighbors.add(neighbor);
-				nearestNeighborPoints.add(point);
-				assert Logs.closeNode();
-			}
-			assert Logs.closeNode("Available neighbors (" + availableNeighbors.size() + " neighbor(s))", availableNeighbors);
-			if (availableNeighbors.isEmpty()) {
-				assert Logs.addNode("Stepping back");
-				if (currentRegion.equals(startingRegion)) {
-					assert Logs.closeNode("No route available.");
-					path = null;
-					break;
-				}
-				path.removeLastPoint();
-				used.add(currentRegion);
-				assert regionPath.size() != 0;
-				currentRegion = regionPath.pop();
-				assert Logs.closeNode("No neighbors available, stepping back");
-				continue;
-			}
-			movementCosts.clear();
-			assert Logs.openNode("Getting movement costs (" + availableNeighbors.size() + " neighbor(s))");
-			for (DiscreteRegion region : availableNeighbors) {
-				params.clear();
-				params.add(Conversions.wrapDiscreteRegion(env, region));
-				params.add(Conversions.wrapAsset(env, asset));
-				movementCosts.add(Conversions.getDouble(env, ScriptExecutable_CallFunction.callFunction(env, null, evaluator, "evaluateMovementCost", params)));
-			}
-			assert Logs.closeNode("Movement costs", movementCosts);
-			double minimumValue = Double.POSITIVE_INFINITY;
-			int optimum = -1;
-			assert Logs.openNode("Getting optimum region (" + availableNeighbors.size() + " option(s))");
-			for (int i = 0; i < availableNeighbors.size(); i++) {
-				double value = Points.getDistance(currentPoint, nearestNeighborPoints.get(i)) * path.getLastMovementCost();
-				assert Logs.addNode("Movement cost from current location to border of current region (" + value + ")");
-				value += Points.getDistance(nearestNeighborPoints.get(i), destinationPoint) * movementCosts.get(i);
-				assert Logs.addSnapNode("Current neighbor (Total movement cost: " + value + ")", availableNeighbors.get(i));
-				if (Points.isLessThan(value, minimumValue)) {
-					assert Logs.addNode("Value is less than current minimum, setting as new value (" + minimumValue + " to " + value + ")");
-					minimumValue = value;
-					optimum = i;
-				}
-			}
-			assert Logs.closeNode();
-			currentPoint = nearestNeighborPoints.get(optimum);
-			path.addPoint(currentPoint, movementCosts.get(optimum));
-			used.add(currentRegion);
-			currentRegion = availableNeighbors.get(optimum);
-			assert Logs.addSnapNode("New optimum region (At optimum point: " + currentPoint + ")", currentRegion);
-			regionPath.push(currentRegion);
-			assert Logs.addSnapNode("Region Path", regionPath);
-			assert Logs.closeNode("Current path", path);
-		}
-		if (path != null) {
-			params.clear();
-			params.add(Conversions.wrapDiscreteRegion(env, destination));
-			params.add(Conversions.wrapAsset(env, asset));
-			path.addPoint(destinationPoint, Conversions.getDouble(env, ScriptExecutable_CallFunction.callFunction(env, null, evaluator, "evaluateMovementCost", params)));
-			assert Logs.closeNode("Path", path);
-		} else {
+		DiscreteRegionBSPSnapshot snapshot = this.getSnapshot();
+		DiscreteRegion startingRegion = snapshot.getRegion(currentPoint);
+		DiscreteRegion destination = snapshot.getRegion(destinationPoint);
+		MovementCostCache costs = this.getMovementCosts(env, evaluator, asset);
+		RegionPathfinder pathfinder = new RegionPathfinder(costs, destination, destinationPoint, costs.getMinimumCost(snapshot));
+		PointPath path = pathfinder.findPath(scenario, startingRegion, currentPoint);
+		if (path == null) {
+			assert Logs.closeNode("No route available.");
 			throw new NoSuchElementException("No route available");
 		}
+		assert Logs.closeNode("Path", path);
 		return path;
 	}
 
+	/**
+	 * Returns the movement costs that have been evaluated for the given asset.
+	 */
+	private synchronized MovementCostCache getMovementCosts(ScriptEnvironment env, ScriptTemplate_Abstract evaluator, Asset asset) {
+		if (this.movementCosts == null) {
+			this.movementCosts = new WeakHashMap<Asset, MovementCostCache>();
+		}
+		MovementCostCache costs = this.movementCosts.get(asset);
+		if (costs == null || !costs.isFor(env, evaluator)) {
+			costs = new MovementCostCache(env, evaluator, asset);
+			this.movementCosts.put(asset, costs);
+		}
+		return costs;
+	}
+
 	public double getRadius() {
 		return this.radius;
 	}
@@ -195,7 +210,8 @@ public class Terrestrial implements Serializable {
 		return this.tree;
 	}
 
-	public void setTree(DiscreteRegionBSPNode tree) {
+	public synchronized void setTree(DiscreteRegionBSPNode tree) {
 		this.tree = tree;
+		this.snapshotStale = true;
 	}
 }
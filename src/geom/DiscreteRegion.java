@@ -2,6 +2,7 @@ package geom;
 
 import java.awt.Color;
 import java.awt.Graphics2D;
+import java.awt.Polygon;
 import java.awt.Rectangle;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -15,6 +16,7 @@ import java.util.Set;
 import geom.points.Point;
 import geom.points.EuclideanPoint;
 import inspect.Nodeable;
+import logging.LogCategory;
 import logging.Logs;
 import script.ScriptEnvironment;
 
@@ -42,21 +44,24 @@ import script.ScriptEnvironment;
  * 
  */
 public class DiscreteRegion implements Nodeable {
+	private static final LogCategory POINT_ADDITIONS = LogCategory.get("Discrete Region Point Additions");
+
 	public static void paint(Graphics2D g2d, DiscreteRegion transformedRegion, Rectangle bounds, boolean fill) {
 		assert Logs.openNode("Discrete-Region Painting", "Painting Discrete Region");
 		assert Logs.addNode(transformedRegion);
 		Polygons.optimizePolygon(transformedRegion);
-		transformedRegion = Polygons.clip(transformedRegion, Polygons.convertToRegion(transformedRegion.getEnvironment(), bounds));
-		if (transformedRegion != null) {
+		PackedPolygon clipped = PackedPolygon.fromRegion(transformedRegion);
+		clipped.clip(PackedPolygon.fromRectangle(bounds), clipped);
+		if (clipped.size() >= 3) {
 			// Draw transformed line
-			assert Logs.addSnapNode("Clipped Region", transformedRegion);
+			assert Logs.addSnapNode("Clipped Region", clipped);
 			if (fill) {
 				if (transformedRegion.getProperty("Color") != null) {
 					g2d.setColor((Color) transformedRegion.getProperty("Color"));
 				} else {
 					g2d.setColor(Color.WHITE);
 				}
-				g2d.fillPolygon(Polygons.convertToPolygon(transformedRegion));
+				g2d.fillPolygon(clipped.toPolygon(new Polygon()));
 			} else {
 				if (transformedRegion.getProperty("BorderColor") != null) {
 					g2d.setColor((Color) transformedRegion.getProperty("BorderColor"));
@@ -65,7 +70,7 @@ public class DiscreteRegion implements Nodeable {
 				} else {
 					g2d.setColor(Color.WHITE);
 				}
-				g2d.drawPolygon(Polygons.convertToPolygon(transformedRegion));
+				g2d.drawPolygon(clipped.toPolygon(new Polygon()));
 			}
 		}
 		assert Logs.closeNode();
@@ -99,7 +104,8 @@ public class DiscreteRegion implements Nodeable {
 	}
 
 	private final List<Point> points = new ArrayList<Point>();
-	private final Set<DiscreteRegion> neighbors = new HashSet<DiscreteRegion>();
+	// Replaced rather than changed, so it can be read from any thread
+	private volatile Set<DiscreteRegion> neighbors = Collections.emptySet();
 	private final Map<DiscreteRegion, Integer> intersectionMap = new HashMap<DiscreteRegion, Integer>();
 	private double leftExtreme, rightExtreme, topExtreme, bottomExtreme;
 	private Point midPoint, interiorPoint;
@@ -153,27 +159,36 @@ public class DiscreteRegion implements Nodeable {
 			return;
 		}
 		assert Logs.addSnapNode("Discrete Region Neighbor Additions", "Adding this region as a neighbor", region);
-		this.neighbors.add(region);
+		this.putNeighbor(region);
+	}
+
+	private synchronized void putNeighbor(DiscreteRegion region) {
+		if (this.neighbors.contains(region)) {
+			return;
+		}
+		Set<DiscreteRegion> neighbors = new HashSet<DiscreteRegion>(this.neighbors);
+		neighbors.add(region);
+		this.neighbors = Collections.unmodifiableSet(neighbors);
 	}
 
 	public void addPoint(Point point) {
 		if (point == null) {
 			return;
 		}
-		assert Logs.openNode("Discrete Region Point Additions", "Adding point to discrete region (" + point + ")");
+		Logs.openNode(POINT_ADDITIONS, "Adding point to discrete region (%s)", point);
 		this.testExtrema(point);
 		this.points.add(point);
 		this.resetIntersectionMap();
-		assert Logs.closeNode(this);
+		Logs.closeNode(POINT_ADDITIONS, this);
 	}
 
 	public void addPointAt(int location, Point point) {
-		assert Logs.openNode("Discrete Region Point Additions", "Adding point to discrete region (" + point + ") at index (" + location + ")");
+		Logs.openNode(POINT_ADDITIONS, "Adding point to discrete region (%s) at index (%d)", point, location);
 		this.testExtrema(point);
 		this.points.add(location, point);
-		assert Logs.addSnapNode("New point list", this.points);
+		Logs.addSnapNode(POINT_ADDITIONS, "New point list", this.points);
 		this.resetIntersectionMap();
-		assert Logs.closeNode();
+		Logs.closeNode(POINT_ADDITIONS);
 	}
 
 	public void addRegionNeighbor(DiscreteRegion region) {
@@ -183,6 +198,18 @@ public class DiscreteRegion implements Nodeable {
 		assert Logs.openNode("Discrete Region Neighbor Evaluations", "Checking for neighbor status");
 		assert Logs.addSnapNode("This region", this);
 		assert Logs.addSnapNode("Potential neighbor", region);
+		if (this.isAdjacent(region)) {
+			region.addNeighbor(this);
+			this.putNeighbor(region);
+		}
+		assert Logs.closeNode();
+	}
+
+	/**
+	 * Returns whether an edge of the given region is colinear with and
+	 * touches an edge of this region.
+	 */
+	private boolean isAdjacent(DiscreteRegion region) {
 		List<Point> regionPoints = region.getPoints();
 		for (int i = 0; i < this.points.size(); i++) {
 			Point pointA = this.points.get(i);
@@ -196,11 +223,10 @@ public class DiscreteRegion implements Nodeable {
 				if (!Polygons.getBoundingRectIntersection(pointA, pointB, testPoint, otherTestPoint)) {
 					continue;
 				}
-				region.addNeighbor(this);
-				this.neighbors.add(region);
+				return true;
 			}
 		}
-		assert Logs.closeNode();
+		return false;
 	}
 
 	public void addRegionNeighbors(Collection<DiscreteRegion> regions) {
@@ -263,8 +289,12 @@ public class DiscreteRegion implements Nodeable {
 		return this.leftExtreme;
 	}
 
+	/**
+	 * Returns this region's neighbors. The returned set cannot be modified,
+	 * and is not affected by later changes to this region's neighbors.
+	 */
 	public Set<DiscreteRegion> getNeighbors() {
-		return new HashSet<DiscreteRegion>(this.neighbors);
+		return this.neighbors;
 	}
 
 	public List<Point> getPoints() {
@@ -320,9 +350,10 @@ public class DiscreteRegion implements Nodeable {
 		assert Logs.closeNode();
 		assert Logs.addNode("Version: " + this.version);
 		assert Logs.addNode("Optimized: " + this.isOptimized);
-		if (this.neighbors != null && this.neighbors.size() > 0) {
-			assert Logs.openNode("Neighbors (" + this.neighbors.size() + " neighbor(s))");
-			for (DiscreteRegion region : this.neighbors) {
+		Set<DiscreteRegion> neighbors = this.neighbors;
+		if (neighbors.size() > 0) {
+			assert Logs.openNode("Neighbors (" + neighbors.size() + " neighbor(s))");
+			for (DiscreteRegion region : neighbors) {
 				assert Logs.openNode("Discrete Region (" + region.getPoints().size() + " point(s))");
 				assert Logs.addSnapNode("Points (" + region.getPoints().size() + " point(s))", this.points);
 				if (this.properties.size() == 1) {
@@ -351,9 +382,14 @@ public class DiscreteRegion implements Nodeable {
 	}
 
 	public void recheckNeighbors() {
-		Set<DiscreteRegion> neighbors = new HashSet<DiscreteRegion>(this.neighbors);
-		this.neighbors.clear();
-		this.addRegionNeighbors(neighbors);
+		Set<DiscreteRegion> neighbors = new HashSet<DiscreteRegion>();
+		for (DiscreteRegion region : this.neighbors) {
+			if (!region.equals(this) && this.isAdjacent(region)) {
+				region.addNeighbor(this);
+				neighbors.add(region);
+			}
+		}
+		this.setNeighbors(neighbors);
 	}
 
 	public void removePoint(int pointNum) {
@@ -375,8 +411,13 @@ public class DiscreteRegion implements Nodeable {
 		assert Logs.closeNode();
 	}
 
-	public void removeRegionNeighbor(DiscreteRegion region) {
-		this.neighbors.remove(region);
+	public synchronized void removeRegionNeighbor(DiscreteRegion region) {
+		if (!this.neighbors.contains(region)) {
+			return;
+		}
+		Set<DiscreteRegion> neighbors = new HashSet<DiscreteRegion>(this.neighbors);
+		neighbors.remove(region);
+		this.neighbors = Collections.unmodifiableSet(neighbors);
 	}
 
 	private void resetExtrema() {
@@ -396,8 +437,8 @@ public class DiscreteRegion implements Nodeable {
 		this.recheckNeighbors();
 	}
 
-	public void resetNeighbors() {
-		this.neighbors.clear();
+	public synchronized void resetNeighbors() {
+		this.neighbors = Collections.emptySet();
 	}
 
 	public void reversePoints() {
@@ -405,6 +446,16 @@ public class DiscreteRegion implements Nodeable {
 		Collections.reverse(this.points);
 	}
 
+	/**
+	 * Replaces this region's neighbors with the given regions in a single
+	 * step, so that other threads never see a partly updated set.
+	 */
+	public synchronized void setNeighbors(Collection<DiscreteRegion> regions) {
+		Set<DiscreteRegion> neighbors = new HashSet<DiscreteRegion>(regions);
+		neighbors.remove(this);
+		this.neighbors = neighbors.isEmpty() ? Collections.<DiscreteRegion> emptySet() : Collections.unmodifiableSet(neighbors);
+	}
+
 	public void setOptimized(boolean optimized) {
 		this.isOptimized = optimized;
 	}
@@ -423,10 +474,12 @@ public class DiscreteRegion implements Nodeable {
 	public void setProperties(Map<String, Object> prop) {
 		this.properties.clear();
 		this.properties.putAll(prop);
+		this.version++;
 	}
 
 	public void setProperty(String name, Object prop) {
 		this.properties.put(name, prop);
+		this.version++;
 	}
 
 	private void testExtrema(Point point) {
@@ -256,32 +256,31 @@ public class DiscreteRegionBSPNode implements Nodeable {
 		assert Logs.openNode("BSP Polygon Retrievals", "Finding polygon by point: " + point);
 		double value = Polygons.testPointAgainstLine(point, this.pointA, this.pointB);
 		assert Logs.addNode("Point-side test result: " + value);
+		if (Points.isGreaterThan(value, 0.0d) && this.rightNode != null) {
+			assert Logs.addNode("Value is greater than zero.");
+			assert Logs.openNode("Deferring to right node");
+			Set<DiscreteRegion> set = this.rightNode.getRegions(point);
+			assert Logs.closeNode();
+			assert Logs.closeNode("Returning region set (" + set.size() + " region(s))", set);
+			return set;
+		}
+		if (Points.isLessThan(value, 0.0d) && this.leftNode != null) {
+			assert Logs.addNode("Value is less than zero.");
+			assert Logs.openNode("Deferring to left node");
+			Set<DiscreteRegion> set = this.leftNode.getRegions(point);
+			assert Logs.closeNode();
+			assert Logs.closeNode("Returning region set (" + set.size() + " region(s))", set);
+			return set;
+		}
+		// Only the node that answers the query creates a set
 		Set<DiscreteRegion> polyList = new HashSet<DiscreteRegion>();
 		if (Points.isGreaterThan(value, 0.0d)) {
-			assert Logs.addNode("Value is greater than zero.");
-			if (this.rightNode != null) {
-				assert Logs.openNode("Deferring to right node");
-				Set<DiscreteRegion> set = this.rightNode.getRegions(point);
-				assert Logs.closeNode();
-				assert Logs.closeNode("Returning region set (" + set.size() + " region(s))", set);
-				return set;
-			} else {
-				assert Logs.addSnapNode("Adding all right neighbors.", this.rightNeighbors);
-				polyList.addAll(this.rightNeighbors);
-			}
+			assert Logs.addSnapNode("Value is greater than zero, adding all right neighbors.", this.rightNeighbors);
+			polyList.addAll(this.rightNeighbors);
 		}
 		if (Points.isLessThan(value, 0.0d)) {
-			assert Logs.addNode("Value is less than zero.");
-			if (this.leftNode != null) {
-				assert Logs.openNode("Deferring to left node");
-				Set<DiscreteRegion> set = this.leftNode.getRegions(point);
-				assert Logs.closeNode();
-				assert Logs.closeNode("Returning region set (" + set.size() + " region(s))", set);
-				return set;
-			} else {
-				assert Logs.addSnapNode("Adding all left neighbors.", this.leftNeighbors);
-				polyList.addAll(this.leftNeighbors);
-			}
+			assert Logs.addSnapNode("Value is less than zero, adding all left neighbors.", this.leftNeighbors);
+			polyList.addAll(this.leftNeighbors);
 		}
 		if (Points.areEqual(Point.System.EUCLIDEAN, value, 0.0d)) {
 			assert Logs.addNode("Value is equal to zero, adding both lists.");
@@ -314,6 +313,20 @@ public class DiscreteRegionBSPNode implements Nodeable {
 		assert Logs.closeNode();
 	}
 
+	/**
+	 * Returns an immutable copy of this node and its descendants, which can be
+	 * queried without locking.
+	 */
+	public synchronized DiscreteRegionBSPSnapshot snapshot() {
+		return new DiscreteRegionBSPSnapshot(this.snapshotNode());
+	}
+
+	private synchronized DiscreteRegionBSPSnapshot.Node snapshotNode() {
+		DiscreteRegionBSPSnapshot.Node left = this.leftNode == null ? null : this.leftNode.snapshotNode();
+		DiscreteRegionBSPSnapshot.Node right = this.rightNode == null ? null : this.rightNode.snapshotNode();
+		return new DiscreteRegionBSPSnapshot.Node(this.pointA, this.pointB, left, right, this.leftNeighbors, this.rightNeighbors);
+	}
+
 	public synchronized void removeFromTempList(DiscreteRegion region) {
 		assert Logs.addSnapNode("Temporary Region List Removals", "Removing region from temporary region list", region);
 		this.tempList.remove(region);
@@ -0,0 +1,267 @@
+package geom;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import geom.points.Point;
+import geom.points.Points;
+
+/**
+ * An immutable copy of a {@link DiscreteRegionBSPNode} tree. A snapshot can
+ * be read from any number of threads without locking, while the tree it was
+ * taken from continues to change.
+ * <p>
+ * Every list that a query can return is built when the snapshot is taken, so
+ * locating a point allocates nothing. The regions themselves are shared with
+ * the tree.
+ *
+ * @see DiscreteRegionBSPNode#snapshot()
+ */
+public final class DiscreteRegionBSPSnapshot {
+	public static final DiscreteRegionBSPSnapshot EMPTY = new DiscreteRegionBSPSnapshot(null);
+
+	static final class Node {
+		private final double ax, ay, bx, by;
+		private final Node leftNode, rightNode;
+		private final List<DiscreteRegion> leftNeighbors, rightNeighbors, allNeighbors;
+
+		Node(Point pointA, Point pointB, Node leftNode, Node rightNode, Collection<DiscreteRegion> leftNeighbors, Collection<DiscreteRegion> rightNeighbors) {
+			this.ax = pointA.getX();
+			this.ay = pointA.getY();
+			this.bx = pointB.getX();
+			this.by = pointB.getY();
+			this.leftNode = leftNode;
+			this.rightNode = rightNode;
+			this.leftNeighbors = freeze(leftNeighbors);
+			this.rightNeighbors = freeze(rightNeighbors);
+			Set<DiscreteRegion> all = new HashSet<DiscreteRegion>(leftNeighbors);
+			all.addAll(rightNeighbors);
+			this.allNeighbors = freeze(all);
+		}
+
+		/**
+		 * @see Polygons#testPointAgainstLine(Point, Point, Point)
+		 */
+		double test(double x, double y) {
+			return -1 * ((y - this.ay) * (this.bx - this.ax) - (x - this.ax) * (this.by - this.ay));
+		}
+
+		void addRegions(Set<DiscreteRegion> regions) {
+			regions.addAll(this.leftNeighbors);
+			regions.addAll(this.rightNeighbors);
+			if (this.leftNode != null) {
+				this.leftNode.addRegions(regions);
+			}
+			if (this.rightNode != null) {
+				this.rightNode.addRegions(regions);
+			}
+		}
+	}
+
+	private static List<DiscreteRegion> freeze(Collection<DiscreteRegion> regions) {
+		if (regions.isEmpty()) {
+			return Collections.emptyList();
+		}
+		return Collections.unmodifiableList(Arrays.asList(regions.toArray(new DiscreteRegion[regions.size()])));
+	}
+
+	private final Node root;
+	private final List<DiscreteRegion> regionList;
+
+	DiscreteRegionBSPSnapshot(Node root) {
+		this.root = root;
+		Set<DiscreteRegion> regions = new HashSet<DiscreteRegion>();
+		if (this.root != null) {
+			this.root.addRegions(regions);
+		}
+		this.regionList = freeze(regions);
+	}
+
+	/**
+	 * Returns the only region at the given point.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if more than one region is at the point
+	 * @throws IllegalStateException
+	 *             if no region is at the point
+	 * @see DiscreteRegionBSPNode#getRegion(Point)
+	 */
+	public DiscreteRegion getRegion(Point point) {
+		List<DiscreteRegion> regions = this.getRegions(point);
+		if (regions.size() > 1) {
+			throw new IllegalArgumentException("More than one polygon found for supposedly single-polygon query (" + point + ")");
+		} else if (regions.isEmpty()) {
+			throw new IllegalStateException("No polygon found at location (" + point + ")");
+		}
+		return regions.get(0);
+	}
+
+	/**
+	 * Returns every region in this snapshot.
+	 */
+	public List<DiscreteRegion> getRegionList() {
+		return this.regionList;
+	}
+
+	/**
+	 * Returns the regions at the given point. The returned list is shared and
+	 * cannot be modified.
+	 *
+	 * @see DiscreteRegionBSPNode#getRegions(Point)
+	 */
+	public List<DiscreteRegion> getRegions(Point point) {
+		double x = point.getX();
+		double y = point.getY();
+		Node node = this.root;
+		while (node != null) {
+			double value = node.test(x, y);
+			if (Points.isGreaterThan(value, 0.0d)) {
+				if (node.rightNode == null) {
+					return node.rightNeighbors;
+				}
+				node = node.rightNode;
+			} else if (Points.isLessThan(value, 0.0d)) {
+				if (node.leftNode == null) {
+					return node.leftNeighbors;
+				}
+				node = node.leftNode;
+			} else if (Points.areEqual(Point.System.EUCLIDEAN, value, 0.0d)) {
+				return node.allNeighbors;
+			} else {
+				break;
+			}
+		}
+		return Collections.emptyList();
+	}
+
+	/**
+	 * Returns the regions whose bounding rectangles intersect the given
+	 * rectangle. Only the parts of the tree that the rectangle reaches are
+	 * visited, so the cost of the query depends on how many regions are near
+	 * the rectangle rather than on how many regions there are.
+	 * 
+	 * @see Polygons#getBoundingRectIntersection(double, double, double,
+	 *      double, Point, boolean)
+	 */
+	public List<DiscreteRegion> getRegions(double xMin, double xMax, double yMin, double yMax) {
+		List<DiscreteRegion> regions = new ArrayList<DiscreteRegion>();
+		if (this.root == null) {
+			return regions;
+		}
+		Set<DiscreteRegion> visited = Collections.newSetFromMap(new IdentityHashMap<DiscreteRegion, Boolean>());
+		collect(this.root, xMin, xMax, yMin, yMax, visited, regions);
+		return regions;
+	}
+
+	private static void collect(Node node, double xMin, double xMax, double yMin, double yMax, Set<DiscreteRegion> visited, List<DiscreteRegion> regions) {
+		// A side is reached if any corner of the rectangle is on it or on the line
+		boolean left = false;
+		boolean right = false;
+		for (int corner = 0; corner < 4; corner++) {
+			double value = node.test(corner < 2 ? xMin : xMax, corner % 2 == 0 ? yMin : yMax);
+			left |= !Points.isGreaterThan(value, 0.0d);
+			right |= !Points.isLessThan(value, 0.0d);
+		}
+		if (left) {
+			if (node.leftNode == null) {
+				addIntersecting(node.leftNeighbors, xMin, xMax, yMin, yMax, visited, regions);
+			} else {
+				collect(node.leftNode, xMin, xMax, yMin, yMax, visited, regions);
+			}
+		}
+		if (right) {
+			if (node.rightNode == null) {
+				addIntersecting(node.rightNeighbors, xMin, xMax, yMin, yMax, visited, regions);
+			} else {
+				collect(node.rightNode, xMin, xMax, yMin, yMax, visited, regions);
+			}
+		}
+	}
+
+	private static void addIntersecting(List<DiscreteRegion> candidates, double xMin, double xMax, double yMin, double yMax, Set<DiscreteRegion> visited, List<DiscreteRegion> regions) {
+		for (DiscreteRegion region : candidates) {
+			if (!visited.add(region)) {
+				continue;
+			}
+			if (region.getRightExtreme() < xMin || region.getLeftExtreme() > xMax || region.getTopExtreme() < yMin || region.getBottomExtreme() > yMax) {
+				continue;
+			}
+			regions.add(region);
+		}
+	}
+
+	/**
+	 * Locates every given point in a single traversal of this snapshot. At
+	 * each node, the points are partitioned by the side of the node's line
+	 * they are on, so each node is visited once no matter how many points
+	 * descend through it.
+	 *
+	 * @return the regions at each point, in the same order as the points
+	 * @see #getRegions(Point)
+	 */
+	public List<List<DiscreteRegion>> getRegions(List<? extends Point> points) {
+		int size = points.size();
+		double[] xs = new double[size];
+		double[] ys = new double[size];
+		int[] order = new int[size];
+		for (int i = 0; i < size; i++) {
+			Point point = points.get(i);
+			xs[i] = point.getX();
+			ys[i] = point.getY();
+			order[i] = i;
+		}
+		List<List<DiscreteRegion>> results = new ArrayList<List<DiscreteRegion>>(Collections.nCopies(size, Collections.<DiscreteRegion> emptyList()));
+		if (this.root != null) {
+			locate(this.root, xs, ys, order, 0, size, results);
+		}
+		return results;
+	}
+
+	/**
+	 * Locates the points in {@code order[from, to)}, moving those that descend
+	 * left to the front of the range and those that descend right to the back.
+	 */
+	private static void locate(Node node, double[] xs, double[] ys, int[] order, int from, int to, List<List<DiscreteRegion>> results) {
+		int left = from;
+		int right = to;
+		int i = from;
+		while (i < right) {
+			int index = order[i];
+			double value = node.test(xs[index], ys[index]);
+			if (Points.isGreaterThan(value, 0.0d)) {
+				if (node.rightNode == null) {
+					results.set(index, node.rightNeighbors);
+					i++;
+				} else {
+					order[i] = order[--right];
+					order[right] = index;
+				}
+			} else if (Points.isLessThan(value, 0.0d)) {
+				if (node.leftNode == null) {
+					results.set(index, node.leftNeighbors);
+				} else {
+					order[i] = order[left];
+					order[left++] = index;
+				}
+				i++;
+			} else {
+				if (Points.areEqual(Point.System.EUCLIDEAN, value, 0.0d)) {
+					results.set(index, node.allNeighbors);
+				}
+				i++;
+			}
+		}
+		if (left > from) {
+			locate(node.leftNode, xs, ys, order, from, left, results);
+		}
+		if (right < to) {
+			locate(node.rightNode, xs, ys, order, right, to, results);
+		}
+	}
+}
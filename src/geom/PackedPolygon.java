@@ -0,0 +1,467 @@
+package geom;
+
+import java.awt.Polygon;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import geom.points.Point;
+import geom.points.Points;
+
+/**
+ * A polygon whose vertices are packed into arrays of coordinates.
+ * <p>
+ * {@link DiscreteRegion} keeps its vertices as a list of {@link Point}
+ * objects, so every test against it chases a pointer per vertex, and most of
+ * the tests in {@link Polygons} allocate as they go. The tests here read
+ * their coordinates straight from the arrays and allocate nothing, and a
+ * polygon can be refilled with {@link #set(DiscreteRegion)} and reused, so
+ * hot loops can convert a region once and then test it as often as they
+ * like.
+ * <p>
+ * Only the x and y coordinates of each vertex are kept.
+ *
+ * @see Polygons
+ */
+public final class PackedPolygon {
+	/**
+	 * Flags returned by {@link #getSides(double, double, double, double)}.
+	 * They correspond to the left, right, and indeterminate lists of a
+	 * {@link PointSideStruct}.
+	 */
+	public static final int LEFT = 1, RIGHT = 2, COLINEAR = 4;
+
+	private static final double INSIGNIFICANT_WEIGHT = 1e-5;
+
+	private double[] xs;
+	private double[] ys;
+	private int size;
+
+	// Holds intermediate results while clipping
+	private PackedPolygon buffer;
+
+	public PackedPolygon() {
+		this(8);
+	}
+
+	public PackedPolygon(int capacity) {
+		this.xs = new double[Math.max(capacity, 1)];
+		this.ys = new double[Math.max(capacity, 1)];
+	}
+
+	public static PackedPolygon fromRegion(DiscreteRegion region) {
+		return new PackedPolygon(region.getPoints().size()).set(region);
+	}
+
+	public static PackedPolygon fromRectangle(Rectangle rect) {
+		return new PackedPolygon(4).setRectangle(rect);
+	}
+
+	/**
+	 * Replaces this polygon's vertices with those of the given region.
+	 *
+	 * @return this polygon
+	 */
+	public PackedPolygon set(DiscreteRegion region) {
+		List<Point> points = region.getPoints();
+		this.size = 0;
+		this.ensureCapacity(points.size());
+		for (int i = 0; i < points.size(); i++) {
+			Point point = points.get(i);
+			this.xs[i] = point.getX();
+			this.ys[i] = point.getY();
+		}
+		this.size = points.size();
+		return this;
+	}
+
+	/**
+	 * Replaces this polygon's vertices with the corners of the given
+	 * rectangle, in the same order as
+	 * {@link Polygons#convertToRegion(script.ScriptEnvironment, Rectangle)}.
+	 *
+	 * @return this polygon
+	 */
+	public PackedPolygon setRectangle(Rectangle rect) {
+		this.clear();
+		this.add(rect.getX(), rect.getY());
+		this.add(rect.getX(), rect.getY() + rect.getHeight());
+		this.add(rect.getX() + rect.getWidth(), rect.getY() + rect.getHeight());
+		this.add(rect.getX() + rect.getWidth(), rect.getY());
+		return this;
+	}
+
+	/**
+	 * Replaces this polygon's vertices with those of the given polygon.
+	 *
+	 * @return this polygon
+	 */
+	public PackedPolygon set(PackedPolygon other) {
+		if (other == this) {
+			return this;
+		}
+		this.size = 0;
+		this.ensureCapacity(other.size);
+		System.arraycopy(other.xs, 0, this.xs, 0, other.size);
+		System.arraycopy(other.ys, 0, this.ys, 0, other.size);
+		this.size = other.size;
+		return this;
+	}
+
+	public void add(double x, double y) {
+		this.ensureCapacity(this.size + 1);
+		this.xs[this.size] = x;
+		this.ys[this.size] = y;
+		this.size++;
+	}
+
+	public void clear() {
+		this.size = 0;
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	public double getX(int index) {
+		if (index < 0 || index >= this.size) {
+			throw new IndexOutOfBoundsException("index must be less than " + this.size + ", but was " + index);
+		}
+		return this.xs[index];
+	}
+
+	public double getY(int index) {
+		if (index < 0 || index >= this.size) {
+			throw new IndexOutOfBoundsException("index must be less than " + this.size + ", but was " + index);
+		}
+		return this.ys[index];
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity > this.xs.length) {
+			int length = Math.max(capacity, this.xs.length * 2);
+			this.xs = Arrays.copyOf(this.xs, length);
+			this.ys = Arrays.copyOf(this.ys, length);
+		}
+	}
+
+	/**
+	 * Creates a region with this polygon's vertices, and with the environment
+	 * and properties of the given region. The vertices are created as the
+	 * same kind of point as the given region's first point.
+	 */
+	public DiscreteRegion toRegion(DiscreteRegion template) {
+		List<Point> points = template.getPoints();
+		Point referencePoint = points.isEmpty() ? null : points.get(0);
+		List<Point> packedPoints = new ArrayList<Point>(this.size);
+		for (int i = 0; i < this.size; i++) {
+			packedPoints.add(Polygons.createPoint(referencePoint, null, this.xs[i], this.ys[i], 0.0d));
+		}
+		DiscreteRegion region = new DiscreteRegion(template.getEnvironment(), template.getProperties());
+		region.setPointList(packedPoints);
+		return region;
+	}
+
+	/**
+	 * Replaces the points of the given polygon with this polygon's vertices,
+	 * truncated to integers as in {@link Polygons#convertToPolygon(DiscreteRegion)}.
+	 *
+	 * @return the given polygon
+	 */
+	public Polygon toPolygon(Polygon polygon) {
+		polygon.reset();
+		for (int i = 0; i < this.size; i++) {
+			polygon.addPoint((int) this.xs[i], (int) this.ys[i]);
+		}
+		return polygon;
+	}
+
+	/**
+	 * Returns the signed area of this polygon, which is positive if its
+	 * vertices run counter-clockwise when the y-axis points up.
+	 */
+	public double getSignedArea() {
+		double area = 0;
+		for (int i = 0, j = this.size - 1; i < this.size; j = i++) {
+			area += this.xs[j] * this.ys[i] - this.xs[i] * this.ys[j];
+		}
+		return area / 2;
+	}
+
+	/**
+	 * Returns whether this polygon is convex, in the same sense as
+	 * {@link Polygons#isPolygonConvex(DiscreteRegion)}: every vertex must lie
+	 * on the same side of, or on, the line through every edge.
+	 * <p>
+	 * Most polygons are decided by checking that they never turn the other
+	 * way and wind around only once. Only polygons that repeat a vertex,
+	 * double back on themselves, or wind around more than once are tested
+	 * vertex by edge.
+	 */
+	public boolean isConvex() {
+		if (this.size < 3) {
+			return true;
+		}
+		int turns = 0;
+		int firstDirection = 0;
+		int lastDirection = 0;
+		int reversals = 0;
+		boolean degenerate = false;
+		for (int i = 0; i < this.size; i++) {
+			int previous = (i + this.size - 1) % this.size;
+			int next = (i + 1) % this.size;
+			double inX = this.xs[i] - this.xs[previous];
+			double inY = this.ys[i] - this.ys[previous];
+			double outX = this.xs[next] - this.xs[i];
+			double outY = this.ys[next] - this.ys[i];
+			double turn = inX * outY - inY * outX;
+			if (turn > 0) {
+				if (turns < 0) {
+					return false;
+				}
+				turns = 1;
+			} else if (turn < 0) {
+				if (turns > 0) {
+					return false;
+				}
+				turns = -1;
+			} else if (inX * outX + inY * outY <= 0) {
+				// The polygon doubles back on itself, or repeats a vertex
+				degenerate = true;
+			}
+			// A polygon that winds around more than once reverses its
+			// horizontal direction more than twice
+			int direction = outX > 0 ? 1 : (outX < 0 ? -1 : 0);
+			if (direction != 0) {
+				if (firstDirection == 0) {
+					firstDirection = direction;
+				} else if (direction != lastDirection) {
+					reversals++;
+				}
+				lastDirection = direction;
+			}
+		}
+		if (lastDirection != firstDirection) {
+			reversals++;
+		}
+		if (!degenerate && reversals <= 2) {
+			return true;
+		}
+		return this.isConvexAgainstEveryEdge();
+	}
+
+	private boolean isConvexAgainstEveryEdge() {
+		int sign = 0;
+		for (int i = 0, j = this.size - 1; i < this.size; j = i++) {
+			double edgeX = this.xs[i] - this.xs[j];
+			double edgeY = this.ys[i] - this.ys[j];
+			for (int k = 0; k < this.size; k++) {
+				double value = (this.ys[k] - this.ys[j]) * edgeX - (this.xs[k] - this.xs[j]) * edgeY;
+				if (value > 0) {
+					if (sign < 0) {
+						return false;
+					}
+					sign = 1;
+				} else if (value < 0) {
+					if (sign > 0) {
+						return false;
+					}
+					sign = -1;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns which sides of the line through the given points this polygon's
+	 * vertices lie on, as a combination of {@link #LEFT}, {@link #RIGHT}, and
+	 * {@link #COLINEAR}. Sides are decided as in
+	 * {@link Polygons#getPointSideList(DiscreteRegion, Point, Point)}, and a
+	 * side whose vertices are insignificantly far from the line is dropped.
+	 */
+	public int getSides(double ax, double ay, double bx, double by) {
+		double leftWeight = 0;
+		double rightWeight = 0;
+		boolean left = false, right = false, colinear = false;
+		for (int i = 0; i < this.size; i++) {
+			double value = -((this.ys[i] - ay) * (bx - ax) - (this.xs[i] - ax) * (by - ay));
+			if (Points.areEqual(Point.System.EUCLIDEAN, value, 0.0d)) {
+				colinear = true;
+			} else if (Points.isGreaterThan(value, 0.0d)) {
+				right = true;
+				rightWeight += value;
+			} else {
+				left = true;
+				leftWeight += value;
+			}
+		}
+		int sides = 0;
+		if (left && Math.abs(leftWeight) >= INSIGNIFICANT_WEIGHT) {
+			sides |= LEFT;
+		}
+		if (right && Math.abs(rightWeight) >= INSIGNIFICANT_WEIGHT) {
+			sides |= RIGHT;
+		}
+		if (colinear) {
+			sides |= COLINEAR;
+		}
+		return sides;
+	}
+
+	/**
+	 * Returns how many of this polygon's edges cross the ray running from the
+	 * given point towards positive x. A vertex on the ray is counted once, for
+	 * the edge that leaves it upwards or arrives at it from above.
+	 */
+	public int getCrosses(double x, double y) {
+		int crosses = 0;
+		for (int i = 0, j = this.size - 1; i < this.size; j = i++) {
+			if ((this.ys[i] > y) != (this.ys[j] > y)) {
+				double crossX = this.xs[j] + (y - this.ys[j]) * (this.xs[i] - this.xs[j]) / (this.ys[i] - this.ys[j]);
+				if (x < crossX) {
+					crosses++;
+				}
+			}
+		}
+		return crosses;
+	}
+
+	public boolean contains(double x, double y) {
+		return (this.getCrosses(x, y) & 1) != 0;
+	}
+
+	/**
+	 * Returns whether the bounding rectangles of this polygon and the given
+	 * polygon overlap by more than a shared border.
+	 */
+	public boolean isBoundingRectIntersecting(PackedPolygon other) {
+		if (this.size == 0 || other.size == 0) {
+			return false;
+		}
+		double left = Double.POSITIVE_INFINITY, right = Double.NEGATIVE_INFINITY;
+		double bottom = Double.POSITIVE_INFINITY, top = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < this.size; i++) {
+			left = Math.min(left, this.xs[i]);
+			right = Math.max(right, this.xs[i]);
+			bottom = Math.min(bottom, this.ys[i]);
+			top = Math.max(top, this.ys[i]);
+		}
+		double otherLeft = Double.POSITIVE_INFINITY, otherRight = Double.NEGATIVE_INFINITY;
+		double otherBottom = Double.POSITIVE_INFINITY, otherTop = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < other.size; i++) {
+			otherLeft = Math.min(otherLeft, other.xs[i]);
+			otherRight = Math.max(otherRight, other.xs[i]);
+			otherBottom = Math.min(otherBottom, other.ys[i]);
+			otherTop = Math.max(otherTop, other.ys[i]);
+		}
+		return left < otherRight && otherLeft < right && bottom < otherTop && otherBottom < top;
+	}
+
+	/**
+	 * Finds where the segment from a to b crosses the segment from c to d.
+	 * Touching endpoints count as crossing, but parallel segments never
+	 * cross.
+	 *
+	 * @param intersection
+	 *            receives the x and y coordinates of the intersection, if any
+	 * @return {@code true} if the segments cross
+	 */
+	public static boolean getIntersection(double ax, double ay, double bx, double by, double cx, double cy, double dx, double dy, double[] intersection) {
+		double abX = bx - ax;
+		double abY = by - ay;
+		double cdX = dx - cx;
+		double cdY = dy - cy;
+		double denominator = abX * cdY - abY * cdX;
+		if (denominator == 0) {
+			return false;
+		}
+		double acX = cx - ax;
+		double acY = cy - ay;
+		double t = (acX * cdY - acY * cdX) / denominator;
+		double u = (acX * abY - acY * abX) / denominator;
+		if (t < 0 || t > 1 || u < 0 || u > 1) {
+			return false;
+		}
+		intersection[0] = ax + t * abX;
+		intersection[1] = ay + t * abY;
+		return true;
+	}
+
+	/**
+	 * Clips this polygon against the given convex polygon, which may wind in
+	 * either direction. Vertices on the clip's border are kept.
+	 * <p>
+	 * The result may be this polygon. Once the result has clipped a polygon
+	 * of a similar size, clipping into it again allocates nothing.
+	 *
+	 * @param clip
+	 *            the convex polygon to clip against
+	 * @param result
+	 *            receives the clipped polygon, which is empty if this polygon
+	 *            lies outside the clip
+	 * @return the result
+	 */
+	public PackedPolygon clip(PackedPolygon clip, PackedPolygon result) {
+		double orientation = Math.signum(clip.getSignedArea());
+		if (orientation == 0 || !this.isBoundingRectIntersecting(clip)) {
+			result.clear();
+			return result;
+		}
+		result.set(this);
+		if (result.buffer == null) {
+			result.buffer = new PackedPolygon(this.size + clip.size);
+		}
+		PackedPolygon output = result.buffer;
+		for (int i = 0, j = clip.size - 1; i < clip.size && result.size > 0; j = i++) {
+			double edgeX = clip.xs[i] - clip.xs[j];
+			double edgeY = clip.ys[i] - clip.ys[j];
+			output.clear();
+			double previousX = result.xs[result.size - 1];
+			double previousY = result.ys[result.size - 1];
+			double previousSide = orientation * (edgeX * (previousY - clip.ys[j]) - edgeY * (previousX - clip.xs[j]));
+			for (int k = 0; k < result.size; k++) {
+				double x = result.xs[k];
+				double y = result.ys[k];
+				double side = orientation * (edgeX * (y - clip.ys[j]) - edgeY * (x - clip.xs[j]));
+				if ((previousSide > 0 && side < 0) || (previousSide < 0 && side > 0)) {
+					double t = previousSide / (previousSide - side);
+					output.add(previousX + t * (x - previousX), previousY + t * (y - previousY));
+				}
+				if (side >= 0) {
+					output.add(x, y);
+				}
+				previousX = x;
+				previousY = y;
+				previousSide = side;
+			}
+			result.swap(output);
+		}
+		return result;
+	}
+
+	private void swap(PackedPolygon other) {
+		double[] xs = this.xs;
+		double[] ys = this.ys;
+		int size = this.size;
+		this.xs = other.xs;
+		this.ys = other.ys;
+		this.size = other.size;
+		other.xs = xs;
+		other.ys = ys;
+		other.size = size;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder("PackedPolygon[");
+		for (int i = 0; i < this.size; i++) {
+			if (i > 0) {
+				builder.append(", ");
+			}
+			builder.append('(').append(this.xs[i]).append(", ").append(this.ys[i]).append(')');
+		}
+		return builder.append(']').toString();
+	}
+}
@@ -0,0 +1,248 @@
+package geom;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import geom.points.Point;
+import logging.Logs;
+
+/**
+ * Joins convex polygons that share an edge into larger convex polygons.
+ * <p>
+ * Every edge is filed under its pair of endpoints, so the polygons sharing an
+ * edge are found without comparing every pair of polygons. Candidate joins
+ * wait in a queue ordered by their combined area, largest first. Joining two
+ * polygons only queues the new polygon's candidates, and candidates involving
+ * a polygon that has since been joined are skipped, so no work is repeated.
+ *
+ * @see Polygons#joinPolygons(List)
+ */
+class PolygonJoiner {
+
+	private static final class EdgeKey {
+		private final Point pointA, pointB;
+
+		EdgeKey(Point pointA, Point pointB) {
+			this.pointA = pointA;
+			this.pointB = pointB;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof EdgeKey)) {
+				return false;
+			}
+			EdgeKey other = (EdgeKey) o;
+			return (this.pointA.equals(other.pointA) && this.pointB.equals(other.pointB)) || (this.pointA.equals(other.pointB) && this.pointB.equals(other.pointA));
+		}
+
+		@Override
+		public int hashCode() {
+			return this.pointA.hashCode() ^ this.pointB.hashCode();
+		}
+	}
+
+	private static final class Piece {
+		private final DiscreteRegion region;
+		private final List<Point> points;
+		private final double area;
+		private boolean joined;
+
+		Piece(DiscreteRegion region) {
+			this.region = region;
+			this.points = region.getPoints();
+			this.area = getSignedArea(this.points);
+		}
+	}
+
+	private static final class Candidate implements Comparable<Candidate> {
+		private final Piece first, second;
+		private final double area;
+		private final long order;
+
+		Candidate(Piece first, Piece second, long order) {
+			this.first = first;
+			this.second = second;
+			this.area = Math.abs(first.area) + Math.abs(second.area);
+			this.order = order;
+		}
+
+		@Override
+		public int compareTo(Candidate other) {
+			int comparison = Double.compare(other.area, this.area);
+			if (comparison != 0) {
+				return comparison;
+			}
+			return Long.compare(this.order, other.order);
+		}
+	}
+
+	private static double getSignedArea(List<Point> points) {
+		double area = 0;
+		for (int i = 0; i < points.size(); i++) {
+			Point pointA = points.get(i);
+			Point pointB = points.get((i + 1) % points.size());
+			area += pointA.getX() * pointB.getY() - pointB.getX() * pointA.getY();
+		}
+		return area / 2;
+	}
+
+	private static double cross(Point origin, Point pointA, Point pointB) {
+		return (pointA.getX() - origin.getX()) * (pointB.getY() - origin.getY()) - (pointA.getY() - origin.getY()) * (pointB.getX() - origin.getX());
+	}
+
+	private final List<Piece> pieces = new ArrayList<Piece>();
+	private final Map<EdgeKey, List<Piece>> edges = new HashMap<EdgeKey, List<Piece>>();
+	private final PriorityQueue<Candidate> candidates = new PriorityQueue<Candidate>();
+	private long candidateCount = 0;
+
+	PolygonJoiner(List<DiscreteRegion> regions) {
+		for (DiscreteRegion region : regions) {
+			Piece piece = new Piece(region);
+			this.pieces.add(piece);
+			this.addEdges(piece);
+		}
+	}
+
+	/**
+	 * Joins polygons until no two polygons that share an edge can be joined
+	 * into a convex polygon.
+	 *
+	 * @return the remaining polygons, which are the original regions that were
+	 *         not joined followed by the joined regions
+	 */
+	List<DiscreteRegion> join() {
+		assert Logs.openNode("Polygon Joins", "Joining polygons (" + this.pieces.size() + " polygon(s), " + this.candidates.size() + " candidate(s))");
+		int joins = 0;
+		while (!this.candidates.isEmpty()) {
+			Candidate candidate = this.candidates.poll();
+			if (candidate.first.joined || candidate.second.joined) {
+				continue;
+			}
+			DiscreteRegion region = this.join(candidate.first, candidate.second);
+			if (region == null) {
+				continue;
+			}
+			candidate.first.joined = true;
+			candidate.second.joined = true;
+			this.removeEdges(candidate.first);
+			this.removeEdges(candidate.second);
+			Piece piece = new Piece(region);
+			this.pieces.add(piece);
+			this.addEdges(piece);
+			joins++;
+		}
+		List<DiscreteRegion> regions = new LinkedList<DiscreteRegion>();
+		for (Piece piece : this.pieces) {
+			if (!piece.joined) {
+				regions.add(piece.region);
+			}
+		}
+		assert Logs.closeNode("Joined " + joins + " time(s), leaving " + regions.size() + " polygon(s)");
+		return regions;
+	}
+
+	/**
+	 * Files the piece's edges, queueing a candidate for every other piece that
+	 * shares one of them.
+	 */
+	private void addEdges(Piece piece) {
+		List<Point> points = piece.points;
+		for (int i = 0; i < points.size(); i++) {
+			EdgeKey key = new EdgeKey(points.get(i), points.get((i + 1) % points.size()));
+			List<Piece> sharing = this.edges.get(key);
+			if (sharing == null) {
+				sharing = new ArrayList<Piece>(2);
+				this.edges.put(key, sharing);
+			}
+			for (Piece other : sharing) {
+				if (other != piece) {
+					this.candidates.add(new Candidate(other, piece, this.candidateCount++));
+				}
+			}
+			sharing.add(piece);
+		}
+	}
+
+	private void removeEdges(Piece piece) {
+		List<Point> points = piece.points;
+		for (int i = 0; i < points.size(); i++) {
+			EdgeKey key = new EdgeKey(points.get(i), points.get((i + 1) % points.size()));
+			List<Piece> sharing = this.edges.get(key);
+			if (sharing == null) {
+				continue;
+			}
+			sharing.remove(piece);
+			if (sharing.isEmpty()) {
+				this.edges.remove(key);
+			}
+		}
+	}
+
+	/**
+	 * Joins the two pieces along an edge they share.
+	 *
+	 * @return the joined region, or {@code null} if the pieces share no edge
+	 *         or joining them would not be convex
+	 */
+	private DiscreteRegion join(Piece first, Piece second) {
+		List<Point> firstPoints = first.points;
+		List<Point> secondPoints = second.points;
+		int firstSize = firstPoints.size();
+		int secondSize = secondPoints.size();
+		for (int i = 0; i < firstSize; i++) {
+			Point pointA = firstPoints.get(i);
+			Point pointB = firstPoints.get((i + 1) % firstSize);
+			for (int j = 0; j < secondSize; j++) {
+				Point pointC = secondPoints.get(j);
+				Point pointD = secondPoints.get((j + 1) % secondSize);
+				boolean opposite = pointA.equals(pointD) && pointB.equals(pointC);
+				if (!opposite && !(pointA.equals(pointC) && pointB.equals(pointD))) {
+					continue;
+				}
+				// Walk the first piece from the end of the shared edge around to
+				// its start, then the rest of the second piece back to the end
+				List<Point> points = new ArrayList<Point>(firstSize + secondSize - 2);
+				for (int k = 1; k <= firstSize; k++) {
+					points.add(firstPoints.get((i + k) % firstSize));
+				}
+				for (int k = 2; k < secondSize; k++) {
+					if (opposite) {
+						points.add(secondPoints.get((j + k) % secondSize));
+					} else {
+						points.add(secondPoints.get((j + 1 - k + secondSize) % secondSize));
+					}
+				}
+				if (!this.isConvexAt(points, firstSize - 1, first.area) || !this.isConvexAt(points, 0, first.area)) {
+					return null;
+				}
+				DiscreteRegion region = new DiscreteRegion(first.region.getEnvironment(), first.region.getProperties());
+				region.setPointList(points);
+				if (!Polygons.isPolygonConvex(region)) {
+					return null;
+				}
+				return region;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns whether the polygon turns the same way as a polygon with the
+	 * given signed area, or goes straight, at the given point. Only the two
+	 * points where the pieces were joined need testing, since the pieces were
+	 * already convex everywhere else.
+	 */
+	private boolean isConvexAt(List<Point> points, int index, double area) {
+		int size = points.size();
+		double turn = cross(points.get(index), points.get((index + 1) % size), points.get((index - 1 + size) % size));
+		if (area > 0) {
+			return !(turn < 0);
+		}
+		return !(turn > 0);
+	}
+}
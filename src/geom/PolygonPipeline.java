@@ -1,43 +1,79 @@
 package geom;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 
-import asset.Terrestrial;
 import logging.Logs;
 
-public class PolygonPipeline extends Thread {
+/**
+ * Turns regions into the convex polygons that are added to a BSP tree. Each
+ * region is converted to convex polygons, joined, and optimized, with each
+ * step run as its own task.
+ * <p>
+ * Every pipeline shares one fork-join pool with a worker per processor, so
+ * adding thousands of regions never starts more than a handful of threads.
+ */
+public class PolygonPipeline {
 	public static final String POLYGONPIPELINESTRING = "Polygon Pipeline";
-	private static int threadNum = 0;
 
-	private final DiscreteRegion region;
-	private final Terrestrial terrestrial;
+	private static final ForkJoinPool POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), pool -> {
+		ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+		thread.setName(POLYGONPIPELINESTRING + " " + thread.getPoolIndex());
+		return thread;
+	}, null, false);
 
-	public PolygonPipeline(final Terrestrial panel, final DiscreteRegion region) {
-		super(POLYGONPIPELINESTRING + " " + threadNum++);
-		if (panel == null) {
-			throw new NullPointerException("panel must not be null");
-		}
+	public static ForkJoinPool getPool() {
+		return POOL;
+	}
+
+	/**
+	 * Processes the given region on the pipeline's pool.
+	 *
+	 * @return the region's convex polygons, which are empty if the region was
+	 *         degenerate
+	 */
+	public static CompletableFuture<List<DiscreteRegion>> process(final DiscreteRegion region) {
 		if (region == null) {
 			throw new NullPointerException("region must not be null");
 		}
-		this.terrestrial = panel;
-		this.region = region;
+		return CompletableFuture.supplyAsync(() -> convertToConvex(region), POOL)
+				.thenApplyAsync(PolygonPipeline::join, POOL)
+				.thenApplyAsync(PolygonPipeline::optimize, POOL);
 	}
 
-	@Override
-	public void run() {
-		Logs.hitStopWatch();
+	private static List<DiscreteRegion> convertToConvex(DiscreteRegion region) {
 		assert Logs.openNode("Polygon Pipeline Executions", "Executing Polygon Pipeline");
-		assert Logs.addNode(this.region);
-		List<DiscreteRegion> polygonList = Polygons.convertPolyToConvex(this.region);
-		if (polygonList == null) {
-			assert Logs.closeNode("Region was degenerate");
-			return;
+		assert Logs.addNode(region);
+		try {
+			List<DiscreteRegion> polygonList = Polygons.convertPolyToConvex(region);
+			if (polygonList == null) {
+				assert Logs.addNode("Region was degenerate");
+				return Collections.emptyList();
+			}
+			return polygonList;
+		} finally {
+			assert Logs.closeNode();
+		}
+	}
+
+	private static List<DiscreteRegion> join(List<DiscreteRegion> polygonList) {
+		if (polygonList.isEmpty()) {
+			return polygonList;
 		}
-		polygonList = Polygons.joinPolygons(polygonList);
-		polygonList = Polygons.optimizePolygons(polygonList);
-		this.terrestrial.addValidatedRegions(polygonList);
-		assert Logs.closeNode();
-		Logs.hitStopWatch();
+		return Polygons.joinPolygons(polygonList);
+	}
+
+	private static List<DiscreteRegion> optimize(List<DiscreteRegion> polygonList) {
+		if (polygonList.isEmpty()) {
+			return polygonList;
+		}
+		return Polygons.optimizePolygons(polygonList);
+	}
+
+	private PolygonPipeline() {
+		throw new AssertionError("Instantiation is not allowed");
 	}
 }
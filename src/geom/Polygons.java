@@ -12,11 +12,14 @@ import geom.points.Point;
 import geom.points.EuclideanPoint;
 import geom.points.PolarPoint;
 import geom.points.Points;
+import logging.LogCategory;
 import logging.Logs;
 import script.ScriptEnvironment;
 import asset.Archetype;
 
 public class Polygons {
+	private static final LogCategory POINT_SIDE_TESTS = LogCategory.get("Point-Side Tests");
+
 	public static boolean areSlopesEqual(Point pointA, Point pointB, Point testPointA, Point testPointB) {
 		if (Points.areEqual(pointA, pointB.getX(), pointA.getX())) {
 			if (Points.areEqual(testPointA, testPointA.getX(), testPointB.getX())) {
@@ -47,38 +50,25 @@ public class Polygons {
 		}
 	}
 
+	/**
+	 * Clips the given region against the given convex clip.
+	 * 
+	 * @return the clipped region, with the properties of the given region, or
+	 *         {@code null} if the region lies entirely outside the clip
+	 * @see PackedPolygon#clip(PackedPolygon, PackedPolygon)
+	 */
 	public static DiscreteRegion clip(DiscreteRegion region, DiscreteRegion clip) {
 		assert Logs.openNode("Clipping operations", "Clipping region");
 		assert Logs.addSnapNode("Clip", clip);
 		assert Logs.addSnapNode("Unclipped Region", region);
-		DiscreteRegion clippedRegion = new DiscreteRegion(region);
-		optimizePolygon(clippedRegion);
-		optimizePolygon(clip);
-		if (!getBoundingRectIntersection(clippedRegion, clip)) {
-			assert Logs.closeNode("Region is entirely outside the clip,returning null.");
-			return null;
-		}
-		List<Point> points = clip.getPoints();
-		for (int i = 0; i < points.size(); i++) {
-			PointSideStruct struct = getPointSideList(clippedRegion, points.get(i), points.get((i + 1) % points.size()));
-			if (struct.getLeftPoints().size() != 0 && struct.getRightPoints().size() != 0) {
-				DiscreteRegion interim = splitPolygonUsingEdge(clippedRegion, points.get(i), points.get((i + 1) % points.size()), true);
-				if (interim != null) {
-					assert Logs.openNode("Testing for polygon which is still valid");
-					struct = getPointSideList(clippedRegion, points.get(i), points.get((i + 1) % points.size()));
-					assert Logs.closeNode();
-					if (struct.getLeftPoints().size() != 0) {
-						clippedRegion = interim;
-					}
-					assert Logs.addSnapNode("Valid polygon", clippedRegion);
-				}
-			}
-		}
-		if (!getBoundingRectIntersection(clippedRegion, clip)) {
+		PackedPolygon clipped = PackedPolygon.fromRegion(region);
+		clipped.clip(PackedPolygon.fromRegion(clip), clipped);
+		if (clipped.size() < 3) {
 			assert Logs.closeNode("Region is entirely outside the clip,returning null.");
 			return null;
 		}
-		assert Logs.closeNode();
+		DiscreteRegion clippedRegion = clipped.toRegion(region);
+		assert Logs.closeNode("Clipped region", clippedRegion);
 		return clippedRegion;
 	}
 
@@ -825,9 +815,9 @@ public class Polygons {
 
 	public static PointSideStruct getPointSideList(DiscreteRegion region, Point testPoint) {
 		List<Point> pointList = region.getPoints();
-		assert Logs.openNode("Point-Side Tests", "Point-Side Test (Point vs. Region)");
-		assert Logs.addNode("Test-Point: " + testPoint);
-		assert Logs.addSnapNode("Testing-Region", region);
+		Logs.openNode(POINT_SIDE_TESTS, "Point-Side Test (Point vs. Region)");
+		Logs.addNode(POINT_SIDE_TESTS, "Test-Point: %s", testPoint);
+		Logs.addSnapNode(POINT_SIDE_TESTS, "Testing-Region", region);
 		PointSideStruct struct = new PointSideStruct();
 		for (int k = 0; k < pointList.size(); k++) {
 			Point linePointA = pointList.get(k);
@@ -839,14 +829,14 @@ public class Polygons {
 			doPointSideTest(struct, testPoint, Polygons.testPointAgainstLine(testPoint, linePointA, linePointB));
 		}
 		struct.validate();
-		assert Logs.closeNode(struct);
+		Logs.closeNode(POINT_SIDE_TESTS, struct);
 		return struct;
 	}
 
 	public static PointSideStruct getPointSideList(DiscreteRegion region, Point linePointA, Point linePointB) {
-		assert Logs.openNode("Point-Side Tests", "Point-Side Test (Region vs. Line)");
-		assert Logs.addSnapNode("Test-Line", linePointA + ", " + linePointB);
-		assert Logs.addSnapNode("Region", region);
+		Logs.openNode(POINT_SIDE_TESTS, "Point-Side Test (Region vs. Line)");
+		Logs.addSnapNode(POINT_SIDE_TESTS, "Test-Line", "%s, %s", linePointA, linePointB);
+		Logs.addSnapNode(POINT_SIDE_TESTS, "Region", region);
 		List<Point> pointList = region.getPoints();
 		PointSideStruct struct = new PointSideStruct();
 		for (int k = 0; k < pointList.size(); k++) {
@@ -858,14 +848,14 @@ public class Polygons {
 			doPointSideTest(struct, testPoint, Polygons.testPointAgainstLine(testPoint, linePointA, linePointB));
 		}
 		struct.validate();
-		assert Logs.closeNode(struct);
+		Logs.closeNode(POINT_SIDE_TESTS, struct);
 		return struct;
 	}
 
 	public static PointSideStruct getPointSideList(Point linePointA, Point linePointB, Point testPointA, Point testPointB) {
-		assert Logs.openNode("Point-Side Tests", "Point-Side Test (Line vs. Line)");
-		assert Logs.addSnapNode("First-Line", linePointA + ", " + linePointB);
-		assert Logs.addSnapNode("Test-Line", testPointA + ", " + testPointB);
+		Logs.openNode(POINT_SIDE_TESTS, "Point-Side Test (Line vs. Line)");
+		Logs.addSnapNode(POINT_SIDE_TESTS, "First-Line", "%s, %s", linePointA, linePointB);
+		Logs.addSnapNode(POINT_SIDE_TESTS, "Test-Line", "%s, %s", testPointA, testPointB);
 		PointSideStruct struct = new PointSideStruct();
 		if (Polygons.testForColinearity(linePointA, linePointB, testPointA)) {
 			struct.addIndeterminate(testPointA);
@@ -878,7 +868,7 @@ public class Polygons {
 			doPointSideTest(struct, testPointB, Polygons.testPointAgainstLine(testPointB, linePointA, linePointB));
 		}
 		struct.validate();
-		assert Logs.closeNode(struct);
+		Logs.closeNode(POINT_SIDE_TESTS, struct);
 		return struct;
 	}
 
@@ -903,41 +893,10 @@ public class Polygons {
 	 * @param region
 	 *            the tested region
 	 * @return {@code true} if the region is convex
+	 * @see PackedPolygon#isConvex()
 	 */
 	public static boolean isPolygonConvex(DiscreteRegion region) {
-		List<Point> pointList = region.getPoints();
-		Boolean myBool = null;
-		for (int i = 0; i < pointList.size(); i++) {
-			Point linePointA = pointList.get(i);
-			Point linePointB = pointList.get((i + 1) % pointList.size());
-			for (int k = 0; k < pointList.size(); k++) {
-				Point testPoint = pointList.get(k);
-				//(y - y0) (x1 - x0) - (x - x0) (y1 - y0)
-				double value = (testPoint.getY() - linePointA.getY()) * (linePointB.getX() - linePointA.getX()) - (testPoint.getX() - linePointA.getX()) * (linePointB.getY() - linePointA.getY());
-				if (myBool == null) {
-					if (value > 0) {
-						myBool = new Boolean(true);
-					} else if (value < 0) {
-						myBool = new Boolean(false);
-					}
-				} else {
-					if (value > 0) {
-						if (myBool.booleanValue() == true) {
-							continue;
-						}
-						return false;
-					} else if (value < 0) {
-						if (myBool.booleanValue() == false) {
-							continue;
-						}
-						return false;
-					} else {
-						continue;
-					}
-				}
-			}
-		}
-		return true;
+		return PackedPolygon.fromRegion(region).isConvex();
 	}
 
 	/**
@@ -947,72 +906,10 @@ public class Polygons {
 	 * @param originals
 	 *            the list of original convex polygons.
 	 * @return a list of convex polygons, joined where applicable
+	 * @see PolygonJoiner
 	 */
 	public static List<DiscreteRegion> joinPolygons(List<DiscreteRegion> originals) {
-		List<DiscreteRegion> optimizedList = new LinkedList<DiscreteRegion>();
-		for (int i = 0; i < originals.size(); i++) {
-			for (int j = 0; j < originals.size(); j++) {
-				if (i == j) {
-					continue;
-				}
-				DiscreteRegion firstRegion = originals.get(i);
-				DiscreteRegion secondRegion = originals.get(j);
-				for (int q = 0; q < firstRegion.getPoints().size(); q++) {
-					for (int x = 0; x < secondRegion.getPoints().size(); x++) {
-						if (!firstRegion.getPoints().get(q).equals(secondRegion.getPoints().get(x)) && !firstRegion.getPoints().get((q + 1) % firstRegion.getPoints().size()).equals(secondRegion.getPoints().get(x))) {
-							continue;
-						}
-						if (!firstRegion.getPoints().get(q).equals(secondRegion.getPoints().get((x + 1) % secondRegion.getPoints().size())) && !firstRegion.getPoints().get((q + 1) % firstRegion.getPoints().size()).equals(secondRegion.getPoints().get((x + 1) % secondRegion.getPoints().size()))) {
-							continue;
-						}
-						DiscreteRegion testRegion = new DiscreteRegion(firstRegion.getEnvironment(), firstRegion.getProperties());
-						PointSideStruct struct = Polygons.getPointSideList(firstRegion, firstRegion.getPoints().get(q), firstRegion.getPoints().get((q + 1) % firstRegion.getPoints().size()));
-						if (struct.getLeftPoints().isEmpty()) {
-							int firstPoint = q;
-							if (q > (q + 1) % firstRegion.getPoints().size()) {
-								firstPoint = (q + 1) % firstRegion.getPoints().size();
-							}
-							for (int offsetPoint = 0; offsetPoint < firstRegion.getPoints().size(); offsetPoint++) {
-								testRegion.addPoint(firstRegion.getPoints().get((firstPoint + offsetPoint) % firstRegion.getPoints().size()));
-							}
-							firstPoint = x;
-							if (x > (x + 1) % secondRegion.getPoints().size()) {
-								firstPoint = (x + 1) % secondRegion.getPoints().size();
-							}
-							for (int offsetPoint = 1; offsetPoint < secondRegion.getPoints().size(); offsetPoint++) {
-								testRegion.addPoint(secondRegion.getPoints().get((firstPoint + offsetPoint) % secondRegion.getPoints().size()));
-							}
-						} else {
-							int firstPoint = x;
-							if (x > (x + 1) % secondRegion.getPoints().size()) {
-								firstPoint = (x + 1) % secondRegion.getPoints().size();
-							}
-							for (int offsetPoint = 0; offsetPoint < secondRegion.getPoints().size(); offsetPoint++) {
-								testRegion.addPoint(secondRegion.getPoints().get((firstPoint + offsetPoint) % secondRegion.getPoints().size()));
-							}
-							firstPoint = q;
-							if (q > (q + 1) % firstRegion.getPoints().size()) {
-								firstPoint = (q + 1) % firstRegion.getPoints().size();
-							}
-							for (int offsetPoint = 1; offsetPoint < firstRegion.getPoints().size(); offsetPoint++) {
-								testRegion.addPoint(firstRegion.getPoints().get((firstPoint + offsetPoint) % firstRegion.getPoints().size()));
-							}
-						}
-						if (!Polygons.isPolygonConvex(testRegion)) {
-							continue;
-						}
-						optimizedList.add(testRegion);
-						// XXX I would love to make originals be unmodified by this operation, but I can't guarantee
-						// these removals aren't necessary.
-						originals.remove(firstRegion);
-						originals.remove(secondRegion);
-						optimizedList.addAll(originals);
-						return Polygons.joinPolygons(optimizedList);
-					}
-				}
-			}
-		}
-		return originals;
+		return new PolygonJoiner(originals).join();
 	}
 
 	/**
@@ -0,0 +1,251 @@
+package geom;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import geom.points.Point;
+import geom.points.Points;
+import logging.Logs;
+
+/**
+ * Keeps the neighbors of a set of regions up to date. Two regions are
+ * neighbors if an edge of one is colinear with and touches an edge of the
+ * other, as in {@link DiscreteRegion#addRegionNeighbor(DiscreteRegion)}.
+ * <p>
+ * Every edge is filed under the line it lies on, with the line's angle and
+ * offset snapped to {@link Points#DOUBLE_MIN}, so only edges on the same line
+ * are ever compared. Edges are keyed by line rather than by their endpoints
+ * because splitting a region leaves its neighbors sharing only part of an
+ * edge.
+ * <p>
+ * The index remembers the version of every region it has seen. Updating it
+ * only examines regions that were added, removed, or changed since the last
+ * update, along with their neighbors.
+ */
+public class RegionAdjacencyIndex {
+	private static final long ANGLE_BUCKETS = Math.round(Math.PI / Points.DOUBLE_MIN);
+
+	private static final class LineKey {
+		private final long angle;
+		private final long offset;
+
+		LineKey(long angle, long offset) {
+			this.angle = angle;
+			this.offset = offset;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof LineKey)) {
+				return false;
+			}
+			LineKey other = (LineKey) o;
+			return this.angle == other.angle && this.offset == other.offset;
+		}
+
+		@Override
+		public int hashCode() {
+			return (int) (this.angle ^ (this.angle >>> 32)) * 31 + (int) (this.offset ^ (this.offset >>> 32));
+		}
+	}
+
+	private static final class Edge {
+		private final DiscreteRegion region;
+		private final double ax, ay, bx, by;
+		// The unit direction of this edge, pointing into the upper half-plane
+		private final double ux, uy;
+		private final long angle, offset;
+
+		Edge(DiscreteRegion region, Point pointA, Point pointB) {
+			this.region = region;
+			this.ax = pointA.getX();
+			this.ay = pointA.getY();
+			this.bx = pointB.getX();
+			this.by = pointB.getY();
+			double dx = this.bx - this.ax;
+			double dy = this.by - this.ay;
+			if (dy < 0 || (dy == 0 && dx < 0)) {
+				dx = -dx;
+				dy = -dy;
+			}
+			double length = Math.sqrt(dx * dx + dy * dy);
+			this.ux = dx / length;
+			this.uy = dy / length;
+			long angle = Math.round(Math.atan2(this.uy, this.ux) / Points.DOUBLE_MIN);
+			long offset = Math.round((this.ux * this.ay - this.uy * this.ax) / Points.DOUBLE_MIN);
+			if (angle >= ANGLE_BUCKETS) {
+				// A half turn is the same line, pointing the other way
+				angle -= ANGLE_BUCKETS;
+				offset = -offset;
+			}
+			this.angle = angle;
+			this.offset = offset;
+		}
+
+		LineKey getKey() {
+			return new LineKey(this.angle, this.offset);
+		}
+
+		/**
+		 * Returns whether the given edge, which is on this edge's line, overlaps
+		 * or touches this edge.
+		 */
+		boolean touches(Edge other) {
+			double start = this.ux * this.ax + this.uy * this.ay;
+			double end = this.ux * this.bx + this.uy * this.by;
+			double otherStart = this.ux * other.ax + this.uy * other.ay;
+			double otherEnd = this.ux * other.bx + this.uy * other.by;
+			return !Points.isLessThan(Math.max(otherStart, otherEnd), Math.min(start, end)) && !Points.isGreaterThan(Math.min(otherStart, otherEnd), Math.max(start, end));
+		}
+	}
+
+	private static final class Entry {
+		private final int version;
+		private final List<Edge> edges;
+
+		Entry(int version, List<Edge> edges) {
+			this.version = version;
+			this.edges = edges;
+		}
+	}
+
+	private static Set<DiscreteRegion> createIdentitySet() {
+		return Collections.newSetFromMap(new IdentityHashMap<DiscreteRegion, Boolean>());
+	}
+
+	private final Map<LineKey, List<Edge>> lines = new HashMap<LineKey, List<Edge>>();
+	private final Map<DiscreteRegion, Entry> entries = new IdentityHashMap<DiscreteRegion, Entry>();
+
+	/**
+	 * Updates this index so that it holds exactly the given regions, and
+	 * updates the neighbors of every region whose neighbors have changed.
+	 */
+	public synchronized void update(Collection<DiscreteRegion> regions) {
+		Set<DiscreteRegion> current = createIdentitySet();
+		List<DiscreteRegion> changed = new ArrayList<DiscreteRegion>();
+		for (DiscreteRegion region : regions) {
+			current.add(region);
+			Entry entry = this.entries.get(region);
+			if (entry == null || entry.version != region.getVersion()) {
+				changed.add(region);
+			}
+		}
+		List<DiscreteRegion> removed = new ArrayList<DiscreteRegion>();
+		for (DiscreteRegion region : this.entries.keySet()) {
+			if (!current.contains(region)) {
+				removed.add(region);
+			}
+		}
+		if (changed.isEmpty() && removed.isEmpty()) {
+			return;
+		}
+		assert Logs.openNode("Adjacency Index Updates", "Updating adjacency index (" + changed.size() + " changed region(s), " + removed.size() + " removed region(s))");
+		// Any region that was a neighbor of a changed region may no longer be
+		Set<DiscreteRegion> affected = createIdentitySet();
+		List<DiscreteRegion> stale = new ArrayList<DiscreteRegion>(changed);
+		stale.addAll(removed);
+		for (DiscreteRegion region : stale) {
+			affected.add(region);
+			affected.addAll(region.getNeighbors());
+			affected.addAll(this.findNeighbors(region));
+			this.removeEdges(region);
+		}
+		for (DiscreteRegion region : changed) {
+			this.addEdges(region);
+		}
+		for (DiscreteRegion region : changed) {
+			affected.addAll(this.findNeighbors(region));
+		}
+		for (DiscreteRegion region : affected) {
+			if (this.entries.containsKey(region)) {
+				region.setNeighbors(this.findNeighbors(region));
+			} else if (!current.contains(region)) {
+				region.resetNeighbors();
+			}
+		}
+		assert Logs.closeNode("Updated neighbors (" + affected.size() + " region(s))", affected);
+	}
+
+	private void addEdges(DiscreteRegion region) {
+		List<Point> points = region.getPoints();
+		List<Edge> edges = new ArrayList<Edge>(points.size());
+		for (int i = 0; i < points.size(); i++) {
+			Point pointA = points.get(i);
+			Point pointB = points.get((i + 1) % points.size());
+			if (Points.areEqual(Point.System.EUCLIDEAN, pointA.getX(), pointB.getX()) && Points.areEqual(Point.System.EUCLIDEAN, pointA.getY(), pointB.getY())) {
+				continue;
+			}
+			Edge edge = new Edge(region, pointA, pointB);
+			edges.add(edge);
+			LineKey key = edge.getKey();
+			List<Edge> line = this.lines.get(key);
+			if (line == null) {
+				line = new ArrayList<Edge>(2);
+				this.lines.put(key, line);
+			}
+			line.add(edge);
+		}
+		this.entries.put(region, new Entry(region.getVersion(), edges));
+	}
+
+	private void removeEdges(DiscreteRegion region) {
+		Entry entry = this.entries.remove(region);
+		if (entry == null) {
+			return;
+		}
+		for (Edge edge : entry.edges) {
+			LineKey key = edge.getKey();
+			List<Edge> line = this.lines.get(key);
+			line.remove(edge);
+			if (line.isEmpty()) {
+				this.lines.remove(key);
+			}
+		}
+	}
+
+	/**
+	 * Returns the indexed regions that share an edge with the given region,
+	 * using the edges that were indexed for it.
+	 */
+	private Set<DiscreteRegion> findNeighbors(DiscreteRegion region) {
+		Set<DiscreteRegion> neighbors = createIdentitySet();
+		Entry entry = this.entries.get(region);
+		if (entry == null) {
+			return neighbors;
+		}
+		for (Edge edge : entry.edges) {
+			// Neighboring keys are checked too, in case rounding separated two
+			// edges on the same line
+			for (long angleStep = -1; angleStep <= 1; angleStep++) {
+				long angle = edge.angle + angleStep;
+				long offset = edge.offset;
+				// Directions wrap around at half a turn, which flips the offset
+				if (angle < 0) {
+					angle += ANGLE_BUCKETS;
+					offset = -offset;
+				} else if (angle >= ANGLE_BUCKETS) {
+					angle -= ANGLE_BUCKETS;
+					offset = -offset;
+				}
+				for (long offsetStep = -1; offsetStep <= 1; offsetStep++) {
+					List<Edge> line = this.lines.get(new LineKey(angle, offset + offsetStep));
+					if (line == null) {
+						continue;
+					}
+					for (Edge other : line) {
+						if (other.region != region && edge.touches(other)) {
+							neighbors.add(other.region);
+						}
+					}
+				}
+			}
+		}
+		return neighbors;
+	}
+}
@@ -11,7 +11,7 @@ import gui.logging.LogViewer;
 import gui.script.ScriptEditor;
 import logging.BufferedTreeLog;
 import logging.Logs;
-import logging.TreeLogServer;
+import logging.NioTreeLogServer;
 
 import logic.adapters.Adapters;
 
@@ -68,7 +68,7 @@ public class EditorRunner implements Runnable {
 
 	private void createLogServer(LogViewer<Object> viewer) {
 		try {
-			TreeLogServer server = new TreeLogServer(loggingPort());
+			NioTreeLogServer server = new NioTreeLogServer(loggingPort());
 			server.setSink(viewer);
 
 			new Thread(server).start();
@@ -3,6 +3,7 @@ package gui;
 import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
 import java.awt.RenderingHints;
 import java.awt.event.ComponentAdapter;
 import java.awt.event.ComponentEvent;
@@ -53,6 +54,7 @@ public class Interface extends JPanel {
 	private int lastIteration;
 	private int iterations;
 	private boolean emergencyStop;
+	private Rectangle fpsBounds;
 	private final JFrame frame = new JFrame("Requiem for Empire");
 
 	/**
@@ -75,10 +77,11 @@ public class Interface extends JPanel {
 		this.painting.scheduleAtFixedRate(new Runnable() {
 			@Override
 			public void run() {
-				frontBuffer.getGraphics().drawImage(backBuffer, 0, 0, null);
 				flushQueue();
-				updateBufferedImage();
-				repaint();
+				Rectangle damage = updateBufferedImage();
+				if (damage != null) {
+					presentBufferedImage(damage);
+				}
 			}
 		}, 0, 1000 / 60, TimeUnit.MILLISECONDS);
 
@@ -175,6 +178,9 @@ public class Interface extends JPanel {
 	private void recreateBufferedImages() {
 		this.frontBuffer = (BufferedImage) this.createImage(getWidth(), getHeight());
 		this.backBuffer = (BufferedImage) this.createImage(getWidth(), getHeight());
+		if (this.rootElement != null) {
+			this.rootElement.repaint();
+		}
 	}
 
 	private void flushQueue() {
@@ -199,9 +205,22 @@ public class Interface extends JPanel {
 		this.paint(g);
 	}
 
-	private void updateBufferedImage() {
+	/**
+	 * Repaints the damaged part of the interface into the back buffer.
+	 * 
+	 * @return the repainted area, or {@code null} if nothing was repainted
+	 * @see InterfaceElement_Root#takeDamage()
+	 */
+	private Rectangle updateBufferedImage() {
 		if (this.emergencyStop) {
-			return;
+			return null;
+		}
+		if (this.backBuffer == null) {
+			return null;
+		}
+		Rectangle damage = this.rootElement.takeDamage();
+		if (damage == null) {
+			return null;
 		}
 		if (this.secondBegin == 0) {
 			this.secondBegin = System.currentTimeMillis();
@@ -212,15 +231,40 @@ public class Interface extends JPanel {
 			this.iterations = 0;
 		}
 		this.iterations++;
-		if (this.backBuffer == null) {
-			return;
-		}
 		Graphics2D g2d = (Graphics2D) this.backBuffer.getGraphics();
 		g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
-		this.rootElement.paint(g2d);
+		this.rootElement.paint(g2d, damage);
+		g2d.dispose();
+		return damage;
+	}
+
+	/**
+	 * Copies the given area of the back buffer to the front buffer, draws the
+	 * frame rate over it, and repaints that area of this panel. The frame
+	 * rate only counts frames in which something was repainted.
+	 */
+	private void presentBufferedImage(Rectangle damage) {
+		Rectangle area = new Rectangle(damage);
+		if (this.fpsBounds != null) {
+			area.add(this.fpsBounds);
+		}
+		Graphics2D g2d = (Graphics2D) this.frontBuffer.getGraphics();
+		g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+		g2d.setClip(area);
+		g2d.drawImage(this.backBuffer, 0, 0, null);
+		String fps = "" + this.lastIteration + " fps";
+		int x = this.getWidth() / 2;
+		int y = 20;
+		g2d.setClip(null);
 		g2d.setColor(Color.WHITE);
-		g2d.drawString("" + this.lastIteration + " fps", this.getWidth() / 2, 20);
+		g2d.drawString(fps, x, y);
+		Rectangle textBounds = g2d.getFontMetrics().getStringBounds(fps, g2d).getBounds();
+		textBounds.translate(x, y);
+		textBounds.grow(1, 1);
 		g2d.dispose();
+		this.fpsBounds = textBounds;
+		area.add(textBounds);
+		this.repaint(area);
 	}
 
 }
@@ -4,6 +4,8 @@ import java.awt.Color;
 import java.awt.Font;
 import java.awt.Graphics2D;
 import java.awt.Rectangle;
+import java.util.EnumMap;
+import java.util.Map;
 
 import gui.style.Stylesheet;
 import gui.style.StylesheetBackgroundColorElement;
@@ -27,6 +29,9 @@ public class InterfaceElement implements Nodeable, GraphicalElement {
 	private int xAnchor, yAnchor;
 	private Interface_Container parent;
 	private ScriptEnvironment environment;
+	private final Map<StylesheetProperty, Object> resolvedStyles = new EnumMap<StylesheetProperty, Object>(StylesheetProperty.class);
+	private int resolvedGeneration = -1;
+	private Rectangle paintedBounds;
 
 	public InterfaceElement(ScriptEnvironment environment, Stylesheet uniqueStylesheet, Stylesheet classStylesheet) {
 		this.environment = environment;
@@ -172,7 +177,35 @@ public class InterfaceElement implements Nodeable, GraphicalElement {
 		return this.getParent().getContainerElement().getRoot();
 	}
 
+	/**
+	 * Returns the given style of this element, from its own stylesheets or
+	 * else from its parent's. Resolved styles are kept until any stylesheet
+	 * changes.
+	 * 
+	 * @see Stylesheet#getGeneration()
+	 */
 	public Object getStyleElement(StylesheetProperty code) {
+		int generation = Stylesheet.getGeneration();
+		synchronized (this.resolvedStyles) {
+			if (this.resolvedGeneration != generation) {
+				this.resolvedStyles.clear();
+				this.resolvedGeneration = generation;
+			}
+			Object element = this.resolvedStyles.get(code);
+			if (element != null) {
+				return element;
+			}
+		}
+		Object element = this.resolveStyleElement(code);
+		synchronized (this.resolvedStyles) {
+			if (this.resolvedGeneration == generation && element != null) {
+				this.resolvedStyles.put(code, element);
+			}
+		}
+		return element;
+	}
+
+	private Object resolveStyleElement(StylesheetProperty code) {
 		Object element = null;
 		if (this.getUniqueStylesheet() != null) {
 			element = this.getUniqueStylesheet().getElement(code);
@@ -234,8 +267,76 @@ public class InterfaceElement implements Nodeable, GraphicalElement {
 		assert Logs.closeNode();
 	}
 
+	/**
+	 * Returns the area this element covers, including its margins, borders,
+	 * and padding. This is only meaningful once the element has been placed,
+	 * and before it is painted.
+	 */
+	public Rectangle getFullBounds() {
+		return new Rectangle(this.xAnchor, this.yAnchor, this.getFullWidth(), this.getFullHeight());
+	}
+
+	/**
+	 * Returns the area this element covered when it was last painted, or
+	 * {@code null} if it has not been painted.
+	 */
+	public Rectangle getPaintedBounds() {
+		return this.paintedBounds;
+	}
+
+	/**
+	 * Returns whether this element has changed in a way that its root cannot
+	 * otherwise notice, since this method was last called. Elements that
+	 * draw content owned by something else, like
+	 * {@link InterfaceElement_Panel}, override this so that they are
+	 * repainted when that content changes.
+	 */
+	public boolean hasChanged() {
+		return false;
+	}
+
+	/**
+	 * Marks this element as needing to be repainted.
+	 */
+	public void repaint() {
+		InterfaceElement_Root root = this.getRoot();
+		if (root != null) {
+			root.repaint(this);
+		}
+	}
+
+	/**
+	 * Marks this element as needing to be repainted after a change to its
+	 * content. If the change resized this element, the elements laid out
+	 * after it move as well, so the entire interface is repainted.
+	 */
+	protected void repaintContent() {
+		InterfaceElement_Root root = this.getRoot();
+		if (root == null) {
+			return;
+		}
+		Rectangle painted = this.getPaintedBounds();
+		if (painted != null && painted.width == this.getFullWidth() && painted.height == this.getFullHeight()) {
+			root.repaint(this);
+		} else {
+			root.repaint();
+		}
+	}
+
+	/**
+	 * Places this element as {@link #paint(Graphics2D)} would, without
+	 * painting it. Its root uses this for elements outside the area being
+	 * repainted.
+	 */
+	void skipPaint() {
+		this.paintedBounds = this.getFullBounds();
+		this.addXAnchor(this.getLeftFluffMagnitude());
+		this.addYAnchor(this.getTopFluffMagnitude());
+	}
+
 	@Override
 	public void paint(Graphics2D g2d) {
+		this.paintedBounds = this.getFullBounds();
 		if (!((StylesheetBorderElement) this.getStyleElement(StylesheetProperty.BORDERLEFT)).getStyle().equals(ScriptKeywordType.none)) {
 			g2d.setColor(((StylesheetBorderElement) this.getStyleElement(StylesheetProperty.BORDERLEFT)).getColor());
 			int xPos = this.getXAnchor() + this.getLeftMarginMagnitude();
@@ -278,11 +379,13 @@ public class InterfaceElement implements Nodeable, GraphicalElement {
 
 	public void setClassStylesheet(Stylesheet sheet) {
 		this.classStylesheet = sheet;
+		Stylesheet.invalidateResolvedStyles();
 	}
 
 	@Override
 	public void setParent(Interface_Container container) {
 		this.parent = container;
+		Stylesheet.invalidateResolvedStyles();
 	}
 
 	@Override
@@ -298,6 +401,7 @@ public class InterfaceElement implements Nodeable, GraphicalElement {
 
 	public void setUniqueStylesheet(Stylesheet sheet) {
 		this.uniqueStylesheet = sheet;
+		Stylesheet.invalidateResolvedStyles();
 	}
 
 	@Override
@@ -60,6 +60,10 @@ public class InterfaceElement_Label extends InterfaceElement implements Nodeable
 	}
 
 	public void setString(String string) {
+		if (string.equals(this.string)) {
+			return;
+		}
 		this.string = string;
+		this.repaintContent();
 	}
 }
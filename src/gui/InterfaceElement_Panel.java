@@ -2,10 +2,12 @@ package gui;
 
 import java.awt.Color;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.geom.Path2D;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Set;
 
 import geom.DiscreteRegion;
 import geom.points.Point;
@@ -45,6 +47,8 @@ public class InterfaceElement_Panel extends InterfaceElement implements ScriptCo
 	private Terrestrial terrestrial;
 	private ScriptTemplate_Abstract dali;
 	private Graphics2D graphics;
+	private final RegionRenderCache renderCache = new RegionRenderCache();
+	private long contentStamp;
 
 	public InterfaceElement_Panel(ScriptEnvironment env, Stylesheet uniqueStyle, Stylesheet classStyle) {
 		super(env, uniqueStyle, classStyle);
@@ -74,6 +78,9 @@ public class InterfaceElement_Panel extends InterfaceElement implements ScriptCo
 	@Override
 	public void clear() {
 		this.elements.clear();
+		if (this.getRoot() != null) {
+			this.getRoot().repaint();
+		}
 	}
 
 	// ScriptConvertible implementation
@@ -85,7 +92,7 @@ public class InterfaceElement_Panel extends InterfaceElement implements ScriptCo
 	}
 
 	public void drawRegion(DiscreteRegion region) {
-		DiscreteRegion.paint(this.getGraphics(), DiscreteRegion.transform(region, this.getOffset(), this.getDrawingBounds(), true), this.getDrawingBounds(), false);
+		this.paintRegion(region, true, false);
 	}
 
 	public void drawString(String string, Color color, Point location) {
@@ -97,15 +104,15 @@ public class InterfaceElement_Panel extends InterfaceElement implements ScriptCo
 	}
 
 	public void drawTransformedRegion(DiscreteRegion region) {
-		DiscreteRegion.paint(this.getGraphics(), DiscreteRegion.transform(region, this.getOffset(), this.getDrawingBounds(), false), this.getDrawingBounds(), false);
+		this.paintRegion(region, false, false);
 	}
 
 	public void fillRegion(DiscreteRegion region) {
-		DiscreteRegion.paint(this.getGraphics(), DiscreteRegion.transform(region, this.getOffset(), this.getDrawingBounds(), true), this.getDrawingBounds(), true);
+		this.paintRegion(region, true, true);
 	}
 
 	public void fillTransformedRegion(DiscreteRegion region) {
-		DiscreteRegion.paint(this.getGraphics(), DiscreteRegion.transform(region, this.getOffset(), this.getDrawingBounds(), false), this.getDrawingBounds(), true);
+		this.paintRegion(region, false, true);
 	}
 
 	@Override
@@ -127,11 +134,69 @@ public class InterfaceElement_Panel extends InterfaceElement implements ScriptCo
 		return this.offset;
 	}
 
+	/**
+	 * Returns the regions within this panel's drawing bounds. Painting never
+	 * waits for regions that are still being inserted.
+	 * <p>
+	 * Regions can be drawn either zoomed or unzoomed, and both views are
+	 * centered on the offset, so the regions are culled against whichever of
+	 * the two views is wider.
+	 */
+	private List<DiscreteRegion> getVisibleRegions() {
+		Rectangle bounds = this.getDrawingBounds();
+		double scale = Math.min(1, Math.pow(2, this.offset.getZ()));
+		double centerX = bounds.getX() + (bounds.getWidth() - bounds.getX()) / 2;
+		double centerY = bounds.getY() + (bounds.getHeight() - bounds.getY()) / 2;
+		double xMin = (bounds.getX() - centerX) / scale + this.offset.getX();
+		double xMax = (bounds.getX() + bounds.getWidth() - centerX) / scale + this.offset.getX();
+		double yMin = (bounds.getY() - centerY) / scale + this.offset.getY();
+		double yMax = (bounds.getY() + bounds.getHeight() - centerY) / scale + this.offset.getY();
+		return this.terrestrial.getSnapshot().getRegions(xMin, xMax, yMin, yMax);
+	}
+
 	@Inspectable
 	public Terrestrial getTerrestrial() {
 		return this.terrestrial;
 	}
 
+	/**
+	 * Returns whether anything this panel draws has changed: its view, the
+	 * regions within that view, their colors, or the locations of their
+	 * assets. Regions and assets don't report their changes, so they are
+	 * compared against the last time this was called.
+	 */
+	@Override
+	public boolean hasChanged() {
+		Rectangle bounds = this.getDrawingBounds();
+		long stamp = bounds.hashCode();
+		stamp = 31 * stamp + Double.doubleToLongBits(this.offset.getX());
+		stamp = 31 * stamp + Double.doubleToLongBits(this.offset.getY());
+		stamp = 31 * stamp + Double.doubleToLongBits(this.offset.getZ());
+		if (this.terrestrial != null) {
+			stamp = 31 * stamp + System.identityHashCode(this.terrestrial.getSnapshot());
+			for (DiscreteRegion region : this.getVisibleRegions()) {
+				stamp = 31 * stamp + region.getVersion();
+				stamp = 31 * stamp + System.identityHashCode(region.getProperty("Color"));
+				stamp = 31 * stamp + System.identityHashCode(region.getProperty("BorderColor"));
+				if (region.getProperty("Archetypes") == null) {
+					continue;
+				}
+				for (Asset asset : ((ArchetypeMapNode) region.getProperty("Archetypes")).getAllAssets()) {
+					Point location = asset.getLocation();
+					if (location != null) {
+						stamp = 31 * stamp + Double.doubleToLongBits(location.getX());
+						stamp = 31 * stamp + Double.doubleToLongBits(location.getY());
+					}
+				}
+			}
+		}
+		if (stamp == this.contentStamp) {
+			return false;
+		}
+		this.contentStamp = stamp;
+		return true;
+	}
+
 	@Override
 	public boolean isFocusable() {
 		return true;
@@ -139,18 +204,18 @@ public class InterfaceElement_Panel extends InterfaceElement implements ScriptCo
 
 	@Override
 	public void paint(Graphics2D g2d) {
-		Set<DiscreteRegion> regions;
 		this.graphics = g2d;
-		if (this.terrestrial.getTree() == null) {
-			regions = Collections.emptySet();
-		} else {
-			regions = this.terrestrial.getTree().getRegionList();
-		}
-		assert Logs.openNode("Painting Panel Elements (" + this.elements.size() + " element(s), " + regions.size() + " region(s))");
+		assert Logs.openNode("Painting Panel Elements (" + this.elements.size() + " element(s))");
 		super.paint(g2d);
+		// Painting moves this panel's anchors, so its bounds are only known now
+		Rectangle bounds = this.getDrawingBounds();
+		List<DiscreteRegion> regions = this.getVisibleRegions();
+		assert Logs.addNode("Visible regions: " + regions.size());
 		assert Logs.addNode("X-offset: " + this.offset.getX());
 		assert Logs.addNode("Y-offset: " + this.offset.getY());
 		assert Logs.addNode("Zoom factor: " + this.offset.getZ());
+		Shape clip = g2d.getClip();
+		g2d.clip(bounds);
 		try {
 			List<ScriptValue> params = new LinkedList<ScriptValue>();
 			params.add(this.convert(this.getEnvironment()));
@@ -171,6 +236,9 @@ public class InterfaceElement_Panel extends InterfaceElement implements ScriptCo
 			}
 		} catch (ScriptException exception) {
 			throw new InternalException(this.getEnvironment(), exception);
+		} finally {
+			g2d.setClip(clip);
+			this.renderCache.sweep();
 		}
 		for (GraphicalElement elem : this.elements) {
 			elem.paint(g2d);
@@ -180,6 +248,34 @@ public class InterfaceElement_Panel extends InterfaceElement implements ScriptCo
 		assert Logs.closeNode();
 	}
 
+	/**
+	 * Draws the given region with its cached outline. Painting clips to the
+	 * drawing bounds, so the outline itself is not clipped.
+	 * 
+	 * @see DiscreteRegion#paint(Graphics2D, DiscreteRegion, Rectangle, boolean)
+	 */
+	private void paintRegion(DiscreteRegion region, boolean zoom, boolean fill) {
+		Path2D path = this.renderCache.getPath(region, this.getOffset(), this.getDrawingBounds(), zoom);
+		Graphics2D g2d = this.getGraphics();
+		if (fill) {
+			if (region.getProperty("Color") != null) {
+				g2d.setColor((Color) region.getProperty("Color"));
+			} else {
+				g2d.setColor(Color.WHITE);
+			}
+			g2d.fill(path);
+		} else {
+			if (region.getProperty("BorderColor") != null) {
+				g2d.setColor((Color) region.getProperty("BorderColor"));
+			} else if (region.getProperty("Color") != null) {
+				g2d.setColor((Color) region.getProperty("Color"));
+			} else {
+				g2d.setColor(Color.WHITE);
+			}
+			g2d.draw(path);
+		}
+	}
+
 	@Override
 	public void riffMouseEvent(RiffInterface_MouseEvent event) {
 		if (event instanceof RiffInterface_DragEvent) {
@@ -199,10 +295,12 @@ public class InterfaceElement_Panel extends InterfaceElement implements ScriptCo
 
 	public void setRiffDali(ScriptTemplate_Abstract dali) {
 		this.dali = dali;
+		this.repaint();
 	}
 
 	public void setTerrestrial(Terrestrial terrestrial) {
 		this.terrestrial = terrestrial;
+		this.repaint();
 	}
 
 	public int size() {
@@ -30,6 +30,9 @@ public class InterfaceElement_Root extends InterfaceElement implements Interface
 	private final List<RiffInterface_MouseListener> mouseListeners = new LinkedList<RiffInterface_MouseListener>();
 	private GraphicalElement focusedElement;
 	private final List<GraphicalElement> elements = new LinkedList<GraphicalElement>();
+	private Rectangle damage;
+	private boolean fullyDamaged = true;
+	private int styleGeneration = -1;
 
 	public InterfaceElement_Root(ScriptEnvironment environment, JPanel drawingPanel) {
 		super(environment, null, null);
@@ -43,6 +46,7 @@ public class InterfaceElement_Root extends InterfaceElement implements Interface
 		assert Logs.addSnapNode("Added Element", element);
 		this.elements.add(element);
 		element.setParent(this);
+		this.repaint();
 		assert Logs.closeNode();
 	}
 
@@ -56,6 +60,7 @@ public class InterfaceElement_Root extends InterfaceElement implements Interface
 	@Override
 	public void clear() {
 		this.elements.clear();
+		this.repaint();
 	}
 
 	public void dispatchEvent(RiffInterface_Event rawEvent) {
@@ -66,6 +71,7 @@ public class InterfaceElement_Root extends InterfaceElement implements Interface
 			}
 			if (this.focusedElement instanceof RiffInterface_KeyListener) {
 				((RiffInterface_KeyListener) this.focusedElement).riffKeyEvent(event);
+				this.repaint(this.focusedElement);
 			}
 		} else if (rawEvent instanceof KeyEvent_KeyDown) {
 			KeyEvent_KeyDown event = (KeyEvent_KeyDown) rawEvent;
@@ -74,6 +80,7 @@ public class InterfaceElement_Root extends InterfaceElement implements Interface
 			}
 			if (this.focusedElement instanceof RiffInterface_KeyListener) {
 				((RiffInterface_KeyListener) this.focusedElement).riffKeyEvent(event);
+				this.repaint(this.focusedElement);
 			}
 		} else if (rawEvent instanceof RiffInterface_MouseDownEvent) {
 			RiffInterface_MouseDownEvent event = (RiffInterface_MouseDownEvent) rawEvent;
@@ -87,6 +94,7 @@ public class InterfaceElement_Root extends InterfaceElement implements Interface
 			}
 			if (element instanceof RiffInterface_MouseListener) {
 				((RiffInterface_MouseListener) element).riffMouseEvent(event);
+				this.repaint(element);
 			}
 		} else if (rawEvent instanceof RiffInterface_MouseUpEvent) {
 			RiffInterface_MouseUpEvent event = (RiffInterface_MouseUpEvent) rawEvent;
@@ -96,6 +104,7 @@ public class InterfaceElement_Root extends InterfaceElement implements Interface
 			}
 			if (element instanceof RiffInterface_MouseListener) {
 				((RiffInterface_MouseListener) element).riffMouseEvent(event);
+				this.repaint(element);
 			}
 		} else if (rawEvent instanceof RiffInterface_ClickEvent) {
 			RiffInterface_ClickEvent event = (RiffInterface_ClickEvent) rawEvent;
@@ -109,6 +118,7 @@ public class InterfaceElement_Root extends InterfaceElement implements Interface
 			}
 			if (element instanceof RiffInterface_MouseListener) {
 				((RiffInterface_MouseListener) element).riffMouseEvent(event);
+				this.repaint(element);
 			}
 		} else if (rawEvent instanceof RiffInterface_DragEvent) {
 			RiffInterface_DragEvent event = (RiffInterface_DragEvent) rawEvent;
@@ -117,6 +127,7 @@ public class InterfaceElement_Root extends InterfaceElement implements Interface
 			}
 			if (this.focusedElement instanceof RiffInterface_MouseListener) {
 				((RiffInterface_MouseListener) this.focusedElement).riffMouseEvent(event);
+				this.repaint(this.focusedElement);
 			}
 		} else {
 			assert Logs.addNode("No applicable listener found");
@@ -197,7 +208,21 @@ public class InterfaceElement_Root extends InterfaceElement implements Interface
 
 	@Override
 	public void paint(Graphics2D g2d) {
-		assert Logs.openNode("Paint Operations", "Painting operation: " + this.getElements().size() + " element(s)");
+		this.paint(g2d, null);
+	}
+
+	/**
+	 * Paints the part of the interface within the given area. Elements
+	 * outside the area are placed but not painted.
+	 * 
+	 * @param area
+	 *            the area to paint, or {@code null} to paint everything
+	 */
+	public void paint(Graphics2D g2d, Rectangle area) {
+		assert Logs.openNode("Paint Operations", "Painting operation: " + this.getElements().size() + " element(s), area: " + area);
+		if (area != null) {
+			g2d.clip(area);
+		}
 		this.setXAnchor(0);
 		this.setYAnchor(0);
 		super.paint(g2d);
@@ -222,12 +247,97 @@ public class InterfaceElement_Root extends InterfaceElement implements Interface
 			if (nextLineAnchorOffset < rect.getHeight()) {
 				nextLineAnchorOffset = (int) rect.getHeight();
 			}
-			element.paint(g2d);
+			if (area == null) {
+				element.paint(g2d);
+			} else if (element instanceof InterfaceElement) {
+				InterfaceElement interfaceElement = (InterfaceElement) element;
+				if (area.intersects(interfaceElement.getFullBounds())) {
+					interfaceElement.paint(g2d);
+				} else {
+					interfaceElement.skipPaint();
+				}
+			} else if (area.intersects(element.getDrawingBounds())) {
+				element.paint(g2d);
+			}
 		}
 		assert Logs.closeNode();
 	}
 
-	public void repaint() {
-		this.drawingPanel.repaint();
+	/**
+	 * Marks the entire interface as needing to be repainted.
+	 */
+	@Override
+	public synchronized void repaint() {
+		this.fullyDamaged = true;
+	}
+
+	/**
+	 * Marks the area last painted by the given element as needing to be
+	 * repainted. This only covers the element if it has not moved or resized
+	 * since then; otherwise, repaint the entire interface.
+	 *
+	 * @see InterfaceElement#repaintContent()
+	 */
+	public void repaint(GraphicalElement element) {
+		Rectangle bounds;
+		if (element instanceof InterfaceElement) {
+			bounds = ((InterfaceElement) element).getPaintedBounds();
+		} else {
+			bounds = element.getDrawingBounds();
+		}
+		if (bounds == null) {
+			this.repaint();
+		} else {
+			this.repaint(bounds);
+		}
+	}
+
+	/**
+	 * Marks the given area as needing to be repainted.
+	 */
+	public synchronized void repaint(Rectangle area) {
+		if (this.damage == null) {
+			this.damage = new Rectangle(area);
+		} else {
+			this.damage.add(area);
+		}
+	}
+
+	/**
+	 * Returns the area that needs to be repainted, and forgets it. Besides
+	 * the areas that were marked, everything needs repainting after any
+	 * stylesheet changes, and elements are repainted if they report that
+	 * they have changed.
+	 * 
+	 * @return the area to repaint, or {@code null} if nothing has changed
+	 * @see InterfaceElement#hasChanged()
+	 */
+	public Rectangle takeDamage() {
+		this.findChangedElements(this);
+		synchronized (this) {
+			int generation = Stylesheet.getGeneration();
+			if (generation != this.styleGeneration) {
+				this.styleGeneration = generation;
+				this.fullyDamaged = true;
+			}
+			Rectangle area = this.damage;
+			if (this.fullyDamaged) {
+				area = new Rectangle(0, 0, this.drawingPanel.getWidth(), this.drawingPanel.getHeight());
+			}
+			this.damage = null;
+			this.fullyDamaged = false;
+			return area;
+		}
+	}
+
+	private void findChangedElements(Interface_Container container) {
+		for (GraphicalElement element : container.getElements()) {
+			if (element instanceof InterfaceElement && ((InterfaceElement) element).hasChanged()) {
+				this.repaint(element);
+			}
+			if (element instanceof Interface_Container) {
+				this.findChangedElements((Interface_Container) element);
+			}
+		}
 	}
 }
@@ -0,0 +1,101 @@
+package gui;
+
+import java.awt.Rectangle;
+import java.awt.geom.Path2D;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import geom.DiscreteRegion;
+import geom.points.Point;
+
+/**
+ * Caches the screen-space outline of each region a panel draws. An outline is
+ * rebuilt only when its region changes, or when the panel's offset, zoom, or
+ * drawing bounds change, so a still view draws every region from the cache.
+ * <p>
+ * Regions are held by identity, since a region's hash code changes with its
+ * points. Outlines that were not drawn since the last call to
+ * {@link #sweep()} are discarded by it.
+ *
+ * @see DiscreteRegion#transformPoint(script.ScriptEnvironment, Point, Point,
+ *      Rectangle, boolean)
+ */
+final class RegionRenderCache {
+	private static final class Entry {
+		private int version;
+		private double offsetX, offsetY, scale;
+		private int boundsX, boundsY, boundsWidth, boundsHeight;
+		private Path2D.Double path;
+		private boolean used;
+
+		boolean matches(DiscreteRegion region, double offsetX, double offsetY, double scale, Rectangle bounds) {
+			return this.version == region.getVersion() && this.offsetX == offsetX && this.offsetY == offsetY && this.scale == scale && this.boundsX == bounds.x && this.boundsY == bounds.y && this.boundsWidth == bounds.width && this.boundsHeight == bounds.height;
+		}
+	}
+
+	private final Map<DiscreteRegion, Entry> entries = new IdentityHashMap<DiscreteRegion, Entry>();
+
+	/**
+	 * Returns the outline of the given region as it is drawn on the screen.
+	 * The returned path is shared and must not be modified.
+	 */
+	synchronized Path2D getPath(DiscreteRegion region, Point offset, Rectangle bounds, boolean zoom) {
+		double offsetX = offset.getX();
+		double offsetY = offset.getY();
+		double scale = zoom ? Math.pow(2, offset.getZ()) : 1;
+		Entry entry = this.entries.get(region);
+		if (entry == null) {
+			entry = new Entry();
+			this.entries.put(region, entry);
+		} else if (entry.matches(region, offsetX, offsetY, scale, bounds)) {
+			entry.used = true;
+			return entry.path;
+		}
+		List<Point> points = region.getPoints();
+		double centerX = bounds.getX() + (bounds.getWidth() - bounds.getX()) / 2;
+		double centerY = bounds.getY() + (bounds.getHeight() - bounds.getY()) / 2;
+		Path2D.Double path = new Path2D.Double(Path2D.WIND_EVEN_ODD, points.size());
+		for (int i = 0; i < points.size(); i++) {
+			Point point = points.get(i);
+			double x = (point.getX() - offsetX) * scale + centerX;
+			double y = (point.getY() - offsetY) * scale + centerY;
+			if (i == 0) {
+				path.moveTo(x, y);
+			} else {
+				path.lineTo(x, y);
+			}
+		}
+		if (!points.isEmpty()) {
+			path.closePath();
+		}
+		entry.version = region.getVersion();
+		entry.offsetX = offsetX;
+		entry.offsetY = offsetY;
+		entry.scale = scale;
+		entry.boundsX = bounds.x;
+		entry.boundsY = bounds.y;
+		entry.boundsWidth = bounds.width;
+		entry.boundsHeight = bounds.height;
+		entry.path = path;
+		entry.used = true;
+		return path;
+	}
+
+	/**
+	 * Discards the outlines of regions that were not drawn since the last
+	 * sweep.
+	 */
+	synchronized void sweep() {
+		Iterator<Entry> iter = this.entries.values().iterator();
+		while (iter.hasNext()) {
+			Entry entry = iter.next();
+			if (entry.used) {
+				entry.used = false;
+			} else {
+				iter.remove();
+			}
+		}
+	}
+}
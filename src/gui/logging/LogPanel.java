@@ -5,7 +5,6 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.KeyEvent;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.regex.Pattern;
 
@@ -18,7 +17,6 @@ import javax.swing.JTree;
 import javax.swing.SwingUtilities;
 import javax.swing.event.TreeModelEvent;
 import javax.swing.event.TreeModelListener;
-import javax.swing.tree.DefaultMutableTreeNode;
 import javax.swing.tree.TreePath;
 
 import logic.predicates.Predicate;
@@ -26,11 +24,13 @@ import swing.Dialogs;
 import swing.Dialogs.CancelledException;
 import logging.BufferedTreeLog;
 import logging.CompositeTreeLog;
+import logging.LazyTreeModel;
 import logging.LogMessage;
+import logging.MappedLogStore;
 import logging.ProxyTreeLog;
-import logging.ReplayableTreeLog;
+import logging.SamplingTreeLog;
 import logging.ScopeGuardedTreeLog;
-import logging.TreeBuildingTreeLog;
+import logging.StoredLogMessage;
 import logging.TreeLog;
 import logging.LogName;
 
@@ -93,7 +93,7 @@ public class LogPanel<Message> extends JPanel {
 
 	private final JTree logTree = new JTree();
 
-	private TreeBuildingTreeLog<Message> treeBuilder;
+	private LazyTreeModel<Message> treeModel;
 	private LogPanelName name;
 
 	private LogPanel<Message> parent;
@@ -107,7 +107,11 @@ public class LogPanel<Message> extends JPanel {
 
 	private CompositeTreeLog<Message> log = new CompositeTreeLog<>();
 
-	private ReplayableTreeLog<Message> replayLog = new ReplayableTreeLog<>();
+	/**
+	 * Every event we've received, so that child panels can be replayed from
+	 * disk rather than from memory.
+	 */
+	private final MappedLogStore<Message> store;
 
 	public LogPanel(LogViewer<Message> viewer, BufferedTreeLog<? extends Message> source) {
 		this(viewer, source, "<untitled>");
@@ -125,6 +129,9 @@ public class LogPanel<Message> extends JPanel {
 		this.viewer = viewer;
         this.name = new LogPanelName(this, name);
 
+		store = new MappedLogStore<>(viewer.getMessageParser());
+		store.setSink(log);
+
 		setLayout(new BorderLayout());
 
 		add(buildButtons(), BorderLayout.NORTH);
@@ -133,8 +140,6 @@ public class LogPanel<Message> extends JPanel {
 		setParent(parent);
 		setSource(source);
 
-		log.addListener(replayLog);
-
 		createTreeBuilder();
 
 	}
@@ -149,28 +154,43 @@ public class LogPanel<Message> extends JPanel {
 		}
 		sourceLog = source;
 		if (sourceLog != null) {
-			sourceLog.setSink(log);
+			if (hasParent()) {
+				// Our parent has already sampled everything we'll receive.
+				sourceLog.setSink(store);
+			} else {
+				SamplingTreeLog<Message> sampler = new SamplingTreeLog<>(viewer.getSamplingPolicies());
+				sampler.setSink(store);
+				sourceLog.setSink(sampler);
+			}
+			final BufferedTreeLog<? extends Message> flushedLog = sourceLog;
 			sourceLog.setNotifier(new Runnable() {
 				@Override
 				public void run() {
-					SwingUtilities.invokeLater(sourceLog);
+					SwingUtilities.invokeLater(new Runnable() {
+						@Override
+						public void run() {
+							flushedLog.run();
+							// Notify the tree once for the whole batch, rather than once per message.
+							treeModel.flush();
+						}
+					});
 				}
 			});
 		}
 	}
 
 	private void createTreeBuilder() {
-		if (treeBuilder != null) {
-			log.removeListener(treeBuilder);
+		if (treeModel != null) {
+			log.removeListener(treeModel);
 			logTree.setModel(null);
 		}
 
-		treeBuilder = new TreeBuildingTreeLog<Message>(name);
-		logTree.setModel(treeBuilder.getModel());
+		treeModel = new LazyTreeModel<Message>(name, store);
+		logTree.setModel(treeModel);
 
 		// Clean up the display of the root node.
 		logTree.setRootVisible(false);
-		treeBuilder.getModel().addTreeModelListener(new TreeModelListener() {
+		treeModel.addTreeModelListener(new TreeModelListener() {
 
 			@Override
 			public void treeStructureChanged(TreeModelEvent arg0) {
@@ -205,10 +225,19 @@ public class LogPanel<Message> extends JPanel {
 			}
 		});
 
-		log.addListener(treeBuilder);
+		log.addListener(treeModel);
 	}
 
 	private LogPanel<Message> createLogPanel(ProxyTreeLog<Message> childSource, String name) {
+		return createLogPanel(childSource, name, store.getStartAddress(), -1);
+	}
+
+	/**
+	 * Create a child panel that is fed by the specified source. Our stored
+	 * events between the specified addresses are replayed to the source
+	 * before it starts receiving new events.
+	 */
+	private LogPanel<Message> createLogPanel(ProxyTreeLog<Message> childSource, String name, long from, long to) {
 		BufferedTreeLog<Message> bufferedLog = new BufferedTreeLog<>();
 		childSource.setSink(bufferedLog);
 
@@ -217,21 +246,82 @@ public class LogPanel<Message> extends JPanel {
 		children.add(panel);
 		viewer.addLogPanel(panel);
 
-		replayLog.play(childSource);
+		// The replay runs on the thread that drains the buffer, so the buffer
+		// is flushed as it fills rather than overwriting replayed events
+		childSource.setSink(new FlushingTreeLog<Message>(bufferedLog));
+		try {
+			store.play(childSource, from, to);
+		} finally {
+			childSource.setSink(bufferedLog);
+		}
 		log.addListener(childSource);
 
 		return panel;
 	}
 
-	@SuppressWarnings("unchecked")
-	private void expandTree(DefaultMutableTreeNode node, int depth) {
+	/**
+	 * Forwards events to a {@link BufferedTreeLog}, flushing it whenever half
+	 * of its buffer has been filled. It must only be used from the thread
+	 * that drains the buffer.
+	 */
+	private static final class FlushingTreeLog<Message> extends ProxyTreeLog<Message> {
+		private final BufferedTreeLog<Message> bufferedLog;
+		private final int flushInterval;
+		private int pending = 0;
+
+		FlushingTreeLog(BufferedTreeLog<Message> bufferedLog) {
+			this.bufferedLog = bufferedLog;
+			this.flushInterval = Math.max(1, bufferedLog.getBuffer().getCapacity() / 2);
+			setSink(bufferedLog);
+		}
+
+		private void forwarded() {
+			if (++pending >= flushInterval) {
+				pending = 0;
+				bufferedLog.flush();
+			}
+		}
+
+		@Override
+		public void log(LogMessage<? extends Message> message) {
+			super.log(message);
+			forwarded();
+		}
+
+		@Override
+		public void metadata(LogMessage<? extends Message> message) {
+			super.metadata(message);
+			forwarded();
+		}
+
+		@Override
+		public void enter(LogMessage<? extends Message> scope) {
+			super.enter(scope);
+			forwarded();
+		}
+
+		@Override
+		public void leave() {
+			super.leave();
+			forwarded();
+		}
+
+		@Override
+		public void reset() {
+			super.reset();
+			forwarded();
+		}
+	}
+
+	private void expandTree(LazyTreeModel.Node node, int depth) {
 		if (node == null) {
 			return;
 		}
-		logTree.scrollPathToVisible(new TreePath(node.getPath()));
+		logTree.scrollPathToVisible(treeModel.getPathToRoot(node));
 		if (depth > 0) {
-			for (Object child : Collections.list(node.children())) {
-				expandTree((DefaultMutableTreeNode) child, depth - 1);
+			int childCount = treeModel.getChildCount(node);
+			for (int i = 0; i < childCount; ++i) {
+				expandTree((LazyTreeModel.Node) treeModel.getChild(node, i), depth - 1);
 			}
 		}
 	}
@@ -285,7 +375,18 @@ public class LogPanel<Message> extends JPanel {
 					}
 				});
 
-				viewer.setSelectedLogPanel(createLogPanel(guard, selectedMessage.toString()));
+				long from = store.getStartAddress();
+				long to = -1;
+				if (selectedMessage instanceof StoredLogMessage && ((StoredLogMessage<?>) selectedMessage).getStore() == store) {
+					// Only the selected scope needs to be read back from the store.
+					from = ((StoredLogMessage<?>) selectedMessage).getAddress();
+					int scope = store.getScope(from);
+					if (scope >= 0) {
+						to = store.getScopeEnd(scope);
+					}
+				}
+
+				viewer.setSelectedLogPanel(createLogPanel(guard, selectedMessage.toString(), from, to));
 			}
 		});
 		buttons.add(filterBySubtree);
@@ -309,7 +410,10 @@ public class LogPanel<Message> extends JPanel {
 							return false;
 						}
 
-						if (selectedMessage.getMessage() != null && selectedMessage.getMessage().equals(candidate.getMessage())) {
+						// Messages that are replayed from the store have been converted to text and back, so
+						// compare them as text.
+						if (selectedMessage.getMessage() != null && candidate.getMessage() != null
+								&& selectedMessage.getMessage().toString().equals(candidate.getMessage().toString())) {
 							return true;
 						}
 
@@ -415,9 +519,7 @@ public class LogPanel<Message> extends JPanel {
 		clear.addActionListener(new ActionListener() {
 			@Override
 			public void actionPerformed(ActionEvent e) {
-				log.removeListener(replayLog);
-				replayLog = new ReplayableTreeLog<>();
-				log.addListener(replayLog);
+				store.clear();
 				createTreeBuilder();
 			}
 		});
@@ -426,12 +528,12 @@ public class LogPanel<Message> extends JPanel {
 		return buttons;
 	}
 
-	public DefaultMutableTreeNode getSelectedNode() {
+	public LazyTreeModel.Node getSelectedNode() {
 		TreePath path = logTree.getSelectionPath();
 		if (path == null) {
 			return null;
 		}
-		return (DefaultMutableTreeNode) path.getLastPathComponent();
+		return (LazyTreeModel.Node) path.getLastPathComponent();
 	}
 
 	@SuppressWarnings("unchecked")
@@ -440,18 +542,18 @@ public class LogPanel<Message> extends JPanel {
 		if (path == null) {
 			return null;
 		}
-		DefaultMutableTreeNode lastComponent = (DefaultMutableTreeNode) path.getLastPathComponent();
+		LazyTreeModel.Node lastComponent = (LazyTreeModel.Node) path.getLastPathComponent();
 		if (lastComponent == null) {
 			return null;
 		}
-		return (LogMessage<? extends Message>) lastComponent.getUserObject();
+		return (LogMessage<? extends Message>) treeModel.getMessage(lastComponent);
 	}
 
-	private DefaultMutableTreeNode getNodeFor(LogMessage<? extends Message> message) {
+	private LazyTreeModel.Node getNodeFor(LogMessage<? extends Message> message) {
 		if (message == null) {
 			throw new NullPointerException("Message must not be null");
 		}
-		DefaultMutableTreeNode node = treeBuilder.getNodeFor(message);
+		LazyTreeModel.Node node = treeModel.getNodeFor(message);
 		if (node == null) {
 			throw new IllegalArgumentException("The specified message does not have a corresponding node.");
 		}
@@ -459,7 +561,7 @@ public class LogPanel<Message> extends JPanel {
 	}
 
 	public void showNode(LogMessage<? extends Message> message) {
-		TreePath path = new TreePath(treeBuilder.getModel().getPathToRoot(getNodeFor(message)));
+		TreePath path = treeModel.getPathToRoot(getNodeFor(message));
 		logTree.expandPath(path);
 		logTree.setSelectionPath(path);
 		logTree.scrollPathToVisible(path);
@@ -469,6 +571,11 @@ public class LogPanel<Message> extends JPanel {
 		for (LogPanel<Message> child : children) {
 			child.setParent(this.parent);
 		}
+		if (children.isEmpty()) {
+			// Nothing depends on our events, so we can release our store.
+			setSource(null);
+			store.close();
+		}
 	}
 
 	public boolean isRoot() {
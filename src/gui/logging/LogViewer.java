@@ -26,9 +26,11 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.KeyEvent;
 import java.awt.event.WindowEvent;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import java.io.File;
 import java.io.FileInputStream;
@@ -45,9 +47,14 @@ import javax.swing.KeyStroke;
 
 import logging.BufferedTreeLog;
 import logging.LogParser;
+import logging.LogMessage;
+import logging.RingBufferTreeLog;
+import logging.SamplingPolicy;
 import logging.StreamLog;
 
 import logic.adapters.Adapter;
+import swing.Dialogs;
+import swing.Dialogs.CancelledException;
 
 /**
  * @author Aaron Faanes
@@ -66,8 +73,19 @@ public class LogViewer<Message> extends JFrame {
 
 	final Map<String, List<LogPanel<Message>>> filteredOutputMap = new HashMap<String, List<LogPanel<Message>>>();
 
+	/**
+	 * The sampling policies of every root {@link LogPanel}, keyed by category.
+	 */
+	/**
+	 * Converts stored messages back from text.
+	 */
+	private final Adapter<String, Message> messageParser;
+
+	private final Map<String, SamplingPolicy> samplingPolicies = new ConcurrentHashMap<String, SamplingPolicy>();
+
 	public LogViewer(Adapter<String, Message> messageParser) {
 		super();
+		this.messageParser = messageParser;
 
 		this.getContentPane().setLayout(new BorderLayout());
 		this.getContentPane().add(this.logPanelTabs);
@@ -88,7 +106,8 @@ public class LogViewer<Message> extends JFrame {
                 if (result == JFileChooser.APPROVE_OPTION) {
                     try {
                         File selectedFile = fileChooser.getSelectedFile();
-                        var log = new BufferedTreeLog<Message>();
+                        var log = new BufferedTreeLog<Message>(new RingBufferTreeLog<Message>(
+                                RingBufferTreeLog.DEFAULT_CAPACITY, RingBufferTreeLog.OverflowPolicy.BLOCK));
                         var name = selectedFile.getName();
                         new Thread(new StreamLog(log, new FileInputStream(selectedFile), name, v->v)).start();
                         addLogPanel(log, name);
@@ -140,6 +159,76 @@ public class LogViewer<Message> extends JFrame {
 			}
 		});
 		listenerMenu.add(quit);
+
+		JMenu samplingMenu = new JMenu("Sampling");
+		this.menuBar.add(samplingMenu);
+		samplingMenu.setMnemonic('S');
+
+		JMenuItem setPolicy = new JMenuItem("Set category policy...", 'P');
+		setPolicy.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				try {
+					editSamplingPolicy();
+				} catch (CancelledException ex) {
+					return;
+				}
+			}
+		});
+		samplingMenu.add(setPolicy);
+
+		JMenuItem clearPolicies = new JMenuItem("Clear all policies", 'C');
+		clearPolicies.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				samplingPolicies.clear();
+			}
+		});
+		samplingMenu.add(clearPolicies);
+	}
+
+	private void editSamplingPolicy() throws CancelledException {
+		String defaultCategory = null;
+		LogPanel<? extends Message> panel = getSelectedLogPanel();
+		if (panel != null) {
+			LogMessage<? extends Message> selected = panel.getSelectedMessage();
+			if (selected != null) {
+				defaultCategory = selected.getCategory();
+			}
+		}
+		String category = Dialogs.getString("Enter the category to sample", defaultCategory);
+
+		final String keepAll = "Keep everything";
+		List<String> options = Arrays.asList(
+				keepAll,
+				"Keep 1 in N scopes",
+				"Keep N scopes per second",
+				"Keep the first N children");
+		String choice = Dialogs.getSelection("Choose how \"" + category + "\" is sampled", options, "Sampling Policy");
+		if (choice == keepAll) {
+			samplingPolicies.remove(category);
+			return;
+		}
+		int limit = Dialogs.getInteger("Enter N");
+		SamplingPolicy.Kind kind = SamplingPolicy.Kind.values()[options.indexOf(choice) - 1];
+		try {
+			samplingPolicies.put(category, new SamplingPolicy(kind, limit));
+		} catch (IllegalArgumentException ex) {
+			JOptionPane.showMessageDialog(LogViewer.this, ex.getMessage());
+		}
+	}
+
+	public Adapter<String, Message> getMessageParser() {
+		return messageParser;
+	}
+
+	/**
+	 * Returns the sampling policies that are shared by every root
+	 * {@link LogPanel}. Changes take effect for scopes that are entered
+	 * afterwards.
+	 */
+	public Map<String, SamplingPolicy> getSamplingPolicies() {
+		return samplingPolicies;
 	}
 
 	@SuppressWarnings("unchecked")
@@ -26,7 +26,10 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.KeyEvent;
 import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.swing.JFrame;
 import javax.swing.JLabel;
@@ -41,6 +44,8 @@ import script.CompileRunnable;
 import script.ExecutionThread;
 import script.ScriptEnvironment;
 import script.exceptions.ScriptException;
+import script.parsing.PreparseCache;
+import script.parsing.PreparsedFile;
 import strings.ExtensionFilter;
 
 /**
@@ -77,6 +82,8 @@ public class ScriptEditor extends JFrame {
 
 	private ScriptEnvironment scriptEnvironment;
 
+	private final PreparseCache preparseCache = new PreparseCache();
+
 	public ScriptEditor() {
 		super("RFE Script Editor");
 
@@ -247,14 +254,26 @@ public class ScriptEditor extends JFrame {
 		new Thread(job, job.getName()).start();
 	}
 
-	public boolean compileAll() {
-		boolean succeeded = true;
+	/**
+	 * Preparses every open script, naming each by its path so that scripts
+	 * with the same filename stay apart. Scripts that have not changed since
+	 * the last compilation are not preparsed again.
+	 * 
+	 * @return the preparsed scripts
+	 */
+	public List<PreparsedFile> compileAll() {
+		Map<String, String> sources = new LinkedHashMap<String, String>();
+		for (int i = 0; i < scriptElements.getComponentCount(); ++i) {
+			ScriptPanel panel = (ScriptPanel) scriptElements.getComponentAt(i);
+			sources.put(panel.getPath(), panel.getText());
+		}
+		Map<String, PreparsedFile> files = this.preparseCache.preparseAll(this.scriptEnvironment, sources);
 		for (int i = 0; i < scriptElements.getComponentCount(); ++i) {
 			ScriptPanel panel = (ScriptPanel) scriptElements.getComponentAt(i);
-			succeeded = panel.compile(this.scriptEnvironment) && succeeded;
+			panel.compile(files.get(panel.getPath()));
 			resetTitle(panel);
 		}
-		return succeeded;
+		return new ArrayList<PreparsedFile>(files.values());
 	}
 
 	/**
@@ -286,7 +305,7 @@ public class ScriptEditor extends JFrame {
 	public ScriptPanel getReferenced(String name) {
 		for (int i = 0; i < this.scriptElements.getComponentCount(); ++i) {
 			ScriptPanel element = (ScriptPanel) this.scriptElements.getComponentAt(i);
-			if (element.getFilename().equals(name)) {
+			if (element.getPath().equals(name)) {
 				return element;
 			}
 		}
@@ -8,12 +8,10 @@ import java.awt.event.ComponentListener;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.io.BufferedInputStream;
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Stack;
@@ -32,16 +30,16 @@ import javax.swing.event.UndoableEditEvent;
 import javax.swing.event.UndoableEditListener;
 import javax.swing.undo.CompoundEdit;
 
-import script.ScriptEnvironment;
 import script.exceptions.InternalException;
 import script.exceptions.ScriptException;
-import script.parsing.Parser;
+import script.parsing.PreparsedFile;
 import strings.ExtensionFilter;
 
 public class ScriptPanel extends JPanel implements UndoableEditListener, ListSelectionListener, ComponentListener, MouseListener {
 	private File file;
 	private boolean hasChanged, isValid;
 	private static int fileNumber = 1;
+	private String untitledName;
 	private ScriptEditor debugger;
 	private JTextArea textArea;
 	private Stack<CompoundEdit> edits = new Stack<CompoundEdit>();
@@ -114,17 +112,18 @@ public class ScriptPanel extends JPanel implements UndoableEditListener, ListSel
 		return this.saveFile();
 	}
 
-	public boolean compile(ScriptEnvironment env) {
+	/**
+	 * Shows the result of preparsing this panel's script.
+	 *
+	 * @return true if the script was preparsed without errors
+	 */
+	public boolean compile(PreparsedFile file) {
 		this.width = this.getWidth();
 		this.splitPane.setRightComponent(new JScrollPane(this.errors = new JList<String>()));
 		this.splitPane.setDividerLocation(this.getWidth() - 200);
 		this.errors.addListSelectionListener(this);
 		this.errors.addMouseListener(this);
-		try {
-			this.exceptions = Parser.preparseFile(env, this.getFilename(), new BufferedReader(new StringReader(this.textArea.getText())));
-		} catch (IOException e) {
-			throw new AssertionError("IOExceptions should never occur with StringReader");
-		}
+		this.exceptions = new ArrayList<Exception>(file.getExceptions());
 		this.displayedExceptions = new ArrayList<String>();
 		if (this.exceptions.size() == 0) {
 			this.errors.setBorder(BorderFactory.createTitledBorder("Compiled Successfully"));
@@ -169,11 +168,34 @@ public class ScriptPanel extends JPanel implements UndoableEditListener, ListSel
 	public void componentShown(ComponentEvent x) {
 	}
 
+	public String getText() {
+		return this.textArea.getText();
+	}
+
 	public String getFilename() {
 		if (this.file != null) {
 			return this.file.getName();
 		}
-		return "Untitled " + fileNumber++;
+		return this.getUntitledName();
+	}
+
+	/**
+	 * Returns the name that identifies this panel's script among every open
+	 * script. This is the absolute path of its file, or its untitled name if
+	 * it has no file.
+	 */
+	public String getPath() {
+		if (this.file != null) {
+			return this.file.getAbsolutePath();
+		}
+		return this.getUntitledName();
+	}
+
+	private String getUntitledName() {
+		if (this.untitledName == null) {
+			this.untitledName = "Untitled " + fileNumber++;
+		}
+		return this.untitledName;
 	}
 
 	@Override
@@ -5,6 +5,7 @@ import java.util.EnumMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import inspect.Inspectable;
 import logging.Logs;
@@ -23,6 +24,24 @@ public class Stylesheet extends FauxTemplate implements ScriptValue, ScriptConve
 	private final Map<StylesheetProperty, Object> styleElements = new EnumMap<StylesheetProperty, Object>(StylesheetProperty.class);
 	public static final String STYLESHEETSTRING = "Stylesheet";
 
+	private static final AtomicInteger generation = new AtomicInteger();
+
+	/**
+	 * Returns a number that changes whenever any stylesheet changes. Elements
+	 * keep the styles they have resolved until this number changes.
+	 */
+	public static int getGeneration() {
+		return generation.get();
+	}
+
+	/**
+	 * Discards every element's resolved styles. This must be called when an
+	 * element changes which stylesheets it inherits from.
+	 */
+	public static void invalidateResolvedStyles() {
+		generation.incrementAndGet();
+	}
+
 	public Stylesheet(ScriptEnvironment env) {
 		super(env, ScriptValueType.createType(env, STYLESHEETSTRING), ScriptValueType.getObjectType(env), new LinkedList<ScriptValueType>(), false);
 	}
@@ -36,6 +55,7 @@ public class Stylesheet extends FauxTemplate implements ScriptValue, ScriptConve
 		assert Logs.addNode(this);
 		assert Logs.addNode(element);
 		this.styleElements.put(type, element);
+		invalidateResolvedStyles();
 		assert Logs.closeNode();
 	}
 
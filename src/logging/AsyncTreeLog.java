@@ -0,0 +1,329 @@
+/**
+ * Copyright (c) 2013 Aaron Faanes
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package logging;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import logging.RingBufferTreeLog.OverflowPolicy;
+
+/**
+ * A {@link TreeLog} that moves the work of logging off of the calling thread.
+ * <p>
+ * Each calling thread only appends events to its own
+ * {@link RingBufferTreeLog}. A single background dispatcher thread drains
+ * those buffers in batches and sends their events to the sink, so every
+ * thread's events arrive in the order, and with the nesting, that they were
+ * logged in. Messages are delivered as-is, so a message that is mutated after
+ * it is logged may be seen in its mutated state.
+ * <p>
+ * Subclasses may capture some context on each calling thread, and restore it
+ * on the dispatcher thread around each batch from that thread. {@link Logs}
+ * uses this to send each thread's events to that thread's log.
+ * 
+ * @param <Message>
+ *            the type of log message
+ * @see Logs#setAsync(boolean)
+ */
+public class AsyncTreeLog<Message> implements TreeLog<Message> {
+
+	/**
+	 * The number of events delivered from one thread before the dispatcher
+	 * moves on to the next.
+	 */
+	private static final int BATCH_SIZE = 256;
+
+	private static final int QUEUE_CAPACITY = 1 << 14;
+
+	/**
+	 * How long an idle dispatcher sleeps before checking for events that
+	 * arrived without waking it.
+	 */
+	private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+	private static final long FLUSH_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	private static class Queue<Message> {
+		final Thread thread;
+		final Object context;
+		final RingBufferTreeLog<Message> events = new RingBufferTreeLog<>(QUEUE_CAPACITY, OverflowPolicy.BLOCK);
+
+		Queue(Thread thread, Object context) {
+			this.thread = thread;
+			this.context = context;
+		}
+	}
+
+	private final TreeLog<? super Message> sink;
+
+	private final List<Queue<Message>> queues = new CopyOnWriteArrayList<>();
+
+	private final ThreadLocal<Queue<Message>> queue = new ThreadLocal<Queue<Message>>() {
+		@Override
+		protected Queue<Message> initialValue() {
+			Queue<Message> created = new Queue<>(Thread.currentThread(), captureContext());
+			queues.add(created);
+			return created;
+		}
+	};
+
+	private final Thread dispatcher;
+
+	private volatile boolean idle;
+
+	private volatile boolean running = true;
+
+	public AsyncTreeLog(TreeLog<? super Message> sink) {
+		if (sink == null) {
+			throw new NullPointerException("sink must not be null");
+		}
+		this.sink = new SafeTreeLog<Message>(sink);
+		this.dispatcher = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				dispatch();
+			}
+		}, "AsyncTreeLog dispatcher");
+		dispatcher.setDaemon(true);
+		dispatcher.start();
+	}
+
+	/**
+	 * Called on a logging thread the first time it logs to this log.
+	 * 
+	 * @return the context that will be passed to
+	 *         {@link #enterContext(Object)} before that thread's events are
+	 *         delivered
+	 */
+	protected Object captureContext() {
+		return null;
+	}
+
+	/**
+	 * Called on the dispatcher thread before delivering a batch of events.
+	 * 
+	 * @param context
+	 *            the context that was captured on the logging thread
+	 */
+	protected void enterContext(Object context) {
+		// Do nothing by default.
+	}
+
+	/**
+	 * Called on the dispatcher thread after delivering a batch of events.
+	 * 
+	 * @param context
+	 *            the context that was captured on the logging thread
+	 */
+	protected void leaveContext(Object context) {
+		// Do nothing by default.
+	}
+
+	/**
+	 * Returns whether the current thread is this log's dispatcher. Code that
+	 * runs on the dispatcher must not log to this log, since it would be
+	 * waiting on itself.
+	 */
+	public boolean isDispatchThread() {
+		return Thread.currentThread() == dispatcher;
+	}
+
+	/**
+	 * Wait until every event that has been logged so far has been delivered.
+	 * This does nothing if called from the dispatcher thread.
+	 */
+	public void flush() {
+		while (!awaitQuiescence(1, TimeUnit.SECONDS)) {
+			// Keep waiting.
+		}
+	}
+
+	/**
+	 * Wait until no thread has undelivered events.
+	 * 
+	 * @param timeout
+	 *            the maximum time to wait
+	 * @param unit
+	 *            the unit of the timeout
+	 * @return {@code true} if every event was delivered, or {@code false} if
+	 *         the timeout elapsed first
+	 */
+	public boolean awaitQuiescence(long timeout, TimeUnit unit) {
+		if (isDispatchThread()) {
+			return true;
+		}
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		while (!isQuiescent()) {
+			if (System.nanoTime() - deadline >= 0) {
+				return false;
+			}
+			LockSupport.unpark(dispatcher);
+			LockSupport.parkNanos(FLUSH_PARK_NANOS);
+		}
+		return true;
+	}
+
+	/**
+	 * Deliver every pending event, then stop the dispatcher thread. Events
+	 * logged after this call are never delivered.
+	 */
+	public void close() {
+		flush();
+		running = false;
+		LockSupport.unpark(dispatcher);
+	}
+
+	private boolean isQuiescent() {
+		for (Queue<Message> candidate : queues) {
+			if (!candidate.events.isEmpty()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void dispatch() {
+		while (running) {
+			boolean delivered = false;
+			for (Queue<Message> candidate : queues) {
+				if (candidate.events.isEmpty()) {
+					if (!candidate.thread.isAlive()) {
+						queues.remove(candidate);
+					}
+					continue;
+				}
+				enterContext(candidate.context);
+				try {
+					delivered |= candidate.events.drain(sink, BATCH_SIZE) > 0;
+				} finally {
+					leaveContext(candidate.context);
+				}
+			}
+			if (!delivered) {
+				idle = true;
+				if (isQuiescent()) {
+					LockSupport.parkNanos(IDLE_PARK_NANOS);
+				}
+				idle = false;
+			}
+		}
+	}
+
+	private RingBufferTreeLog<Message> events() {
+		return queue.get().events;
+	}
+
+	private void wake() {
+		if (idle) {
+			LockSupport.unpark(dispatcher);
+		}
+	}
+
+	@Override
+	public void log(LogMessage<? extends Message> message) {
+		events().log(message);
+		wake();
+	}
+
+	@Override
+	public void metadata(LogMessage<? extends Message> message) {
+		events().metadata(message);
+		wake();
+	}
+
+	@Override
+	public void enter(LogMessage<? extends Message> scope) {
+		events().enter(scope);
+		wake();
+	}
+
+	@Override
+	public void leave() {
+		events().leave();
+		wake();
+	}
+
+	@Override
+	public void reset() {
+		events().reset();
+		wake();
+	}
+
+	/**
+	 * Keeps a misbehaving sink from killing the dispatcher, or from causing a
+	 * batch to be delivered twice.
+	 */
+	private static class SafeTreeLog<Message> implements TreeLog<Message> {
+		private final TreeLog<? super Message> sink;
+
+		SafeTreeLog(TreeLog<? super Message> sink) {
+			this.sink = sink;
+		}
+
+		@Override
+		public void log(LogMessage<? extends Message> message) {
+			try {
+				sink.log(message);
+			} catch (RuntimeException e) {
+				e.printStackTrace();
+			}
+		}
+
+		@Override
+		public void metadata(LogMessage<? extends Message> message) {
+			try {
+				sink.metadata(message);
+			} catch (RuntimeException e) {
+				e.printStackTrace();
+			}
+		}
+
+		@Override
+		public void enter(LogMessage<? extends Message> scope) {
+			try {
+				sink.enter(scope);
+			} catch (RuntimeException e) {
+				e.printStackTrace();
+			}
+		}
+
+		@Override
+		public void leave() {
+			try {
+				sink.leave();
+			} catch (RuntimeException e) {
+				e.printStackTrace();
+			}
+		}
+
+		@Override
+		public void reset() {
+			try {
+				sink.reset();
+			} catch (RuntimeException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+}
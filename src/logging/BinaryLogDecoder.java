@@ -0,0 +1,144 @@
+/**
+ * Copyright (c) 2013 Aaron Faanes
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package logging;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decodes frames of the binary {@link TreeLog} protocol into the same
+ * {@link LogMessage} stream that {@link LogParser} produces for the textual
+ * protocol.
+ * <p>
+ * A decoder holds the string table and timestamp base of a single
+ * connection, so each connection needs its own decoder.
+ *
+ * @see BinaryLogProtocol
+ * @see BinaryTreeLogWriter
+ */
+public class BinaryLogDecoder {
+
+	private final List<String> strings = new ArrayList<String>();
+
+	private long lastTimestamp = 0;
+
+	private byte[] scratch = new byte[256];
+
+	/**
+	 * Decode a single frame and send its event to the specified log.
+	 *
+	 * @param log
+	 *            the log that will receive the event
+	 * @param frame
+	 *            a buffer whose remaining bytes are exactly one frame, without
+	 *            its length prefix. The buffer's position is advanced past the
+	 *            frame.
+	 * @return {@code false} if the frame closed the session
+	 * @throws IllegalArgumentException
+	 *             if the frame is malformed
+	 */
+	public boolean decodeFrame(TreeLog<? super String> log, ByteBuffer frame) {
+		byte op = frame.get();
+		switch (op) {
+		case BinaryLogProtocol.ENTER:
+			log.enter(readMessage(frame));
+			break;
+		case BinaryLogProtocol.LOG:
+			log.log(readMessage(frame));
+			break;
+		case BinaryLogProtocol.METADATA:
+			log.metadata(readMessage(frame));
+			break;
+		case BinaryLogProtocol.LEAVE:
+			log.leave();
+			break;
+		case BinaryLogProtocol.RESET:
+			log.reset();
+			break;
+		case BinaryLogProtocol.CLOSE:
+			return false;
+		default:
+			throw new IllegalArgumentException("Unknown op: " + op);
+		}
+		if (frame.hasRemaining()) {
+			throw new IllegalArgumentException("Trailing bytes in frame for op " + op);
+		}
+		return true;
+	}
+
+	private LogMessage<String> readMessage(ByteBuffer frame) {
+		long timestamp = lastTimestamp + BinaryLogProtocol.unZigZag(BinaryLogProtocol.readVarLong(frame));
+		lastTimestamp = timestamp;
+
+		String category = readInterned(frame);
+
+		Object sender = readInterned(frame);
+		if (sender != null) {
+			long id = BinaryLogProtocol.readVarLong(frame);
+			if (id != 0) {
+				sender = new SenderReference(Long.toHexString(id - 1), sender);
+			}
+		}
+
+		String message = null;
+		int length = BinaryLogProtocol.readVarInt(frame);
+		if (length > 0) {
+			message = readString(frame, length - 1);
+		}
+
+		return new LogMessage<String>(timestamp, sender, category, message);
+	}
+
+	private String readInterned(ByteBuffer frame) {
+		int index = BinaryLogProtocol.readVarInt(frame);
+		if (index == 0) {
+			return null;
+		}
+		if (index <= strings.size()) {
+			return strings.get(index - 1);
+		}
+		if (index != strings.size() + 1) {
+			throw new IllegalArgumentException("String index out of sequence: " + index);
+		}
+		String value = readString(frame, BinaryLogProtocol.readVarInt(frame));
+		strings.add(value);
+		return value;
+	}
+
+	private String readString(ByteBuffer frame, int length) {
+		if (length > frame.remaining()) {
+			throw new IllegalArgumentException("String overruns frame");
+		}
+		if (frame.hasArray()) {
+			String value = new String(frame.array(), frame.arrayOffset() + frame.position(), length, StandardCharsets.UTF_8);
+			frame.position(frame.position() + length);
+			return value;
+		}
+		if (scratch.length < length) {
+			scratch = new byte[Math.max(length, scratch.length * 2)];
+		}
+		frame.get(scratch, 0, length);
+		return new String(scratch, 0, length, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,182 @@
+/**
+ * Copyright (c) 2013 Aaron Faanes
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package logging;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Constants and primitive codecs for the binary {@link TreeLog} wire
+ * protocol.
+ * <p>
+ * A binary session begins with the four byte header {@code 00 'T' 'L'
+ * version}. Since no textual log line begins with a NUL byte, a server can
+ * tell the two protocols apart from the first byte of a connection, and
+ * textual producers keep working unchanged.
+ * <p>
+ * After the header, the stream is a sequence of frames. Each frame is a
+ * varint length, followed by that many bytes: an op byte and the op's
+ * payload. {@link #ENTER}, {@link #LOG} and {@link #METADATA} carry a message:
+ * <ul>
+ * <li>the timestamp, as a zig-zag varint delta from the connection's previous
+ * timestamp
+ * <li>the category, as an interned string
+ * <li>the sender's name, as an interned string. If it is not null, it is
+ * followed by a varint that is zero if the sender has no id, or the id plus
+ * one.
+ * <li>the message, as a varint of its UTF-8 length plus one (zero for null)
+ * and its bytes
+ * </ul>
+ * An interned string is a varint index into the connection's string table,
+ * where zero is null. An index one past the end of the table defines a new
+ * entry, and is followed by the string's UTF-8 length and bytes.
+ *
+ * @see BinaryTreeLogWriter
+ * @see BinaryLogDecoder
+ */
+public final class BinaryLogProtocol {
+
+	private BinaryLogProtocol() {
+		// Suppress default constructor to ensure non-instantiability.
+		throw new AssertionError("Instantiation not allowed");
+	}
+
+	/**
+	 * The first byte of every binary session.
+	 */
+	public static final byte MAGIC = 0;
+
+	/**
+	 * The binary protocol version produced by {@link BinaryTreeLogWriter}.
+	 * The textual protocol is implicitly version zero.
+	 */
+	public static final byte VERSION = 1;
+
+	public static final int HEADER_LENGTH = 4;
+
+	public static final byte ENTER = 1;
+	public static final byte LEAVE = 2;
+	public static final byte RESET = 3;
+	public static final byte METADATA = 4;
+	public static final byte LOG = 5;
+	public static final byte CLOSE = 6;
+
+	/**
+	 * The largest frame a decoder will accept.
+	 */
+	public static final int MAX_FRAME_LENGTH = 64 * 1024 * 1024;
+
+	public static byte[] header() {
+		return new byte[] { MAGIC, 'T', 'L', VERSION };
+	}
+
+	/**
+	 * Returns the protocol version named by the header at the start of the
+	 * specified buffer.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the buffer does not begin with a binary header
+	 */
+	public static int readVersion(ByteBuffer buffer, int offset) {
+		if (buffer.get(offset) != MAGIC || buffer.get(offset + 1) != 'T' || buffer.get(offset + 2) != 'L') {
+			throw new IllegalArgumentException("Not a binary log header");
+		}
+		return buffer.get(offset + 3);
+	}
+
+	/**
+	 * Read the varint that begins at the specified absolute offset, without
+	 * modifying the buffer's position.
+	 *
+	 * @return the decoded value, or -1 if the varint is not yet complete
+	 */
+	public static int peekVarInt(ByteBuffer buffer, int offset, int limit) {
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			if (offset >= limit) {
+				return -1;
+			}
+			byte b = buffer.get(offset++);
+			value |= (b & 0x7f) << shift;
+			if (b >= 0) {
+				if (value < 0) {
+					throw new IllegalArgumentException("Negative varint");
+				}
+				return value;
+			}
+		}
+		throw new IllegalArgumentException("Malformed varint");
+	}
+
+	/**
+	 * Returns the number of bytes the specified value occupies as a varint.
+	 */
+	public static int varIntLength(long value) {
+		int length = 1;
+		while ((value & ~0x7fL) != 0) {
+			value >>>= 7;
+			++length;
+		}
+		return length;
+	}
+
+	public static long readVarLong(ByteBuffer buffer) {
+		long value = 0;
+		for (int shift = 0; shift < 70; shift += 7) {
+			byte b = buffer.get();
+			value |= (long) (b & 0x7f) << shift;
+			if (b >= 0) {
+				return value;
+			}
+		}
+		throw new IllegalArgumentException("Malformed varint");
+	}
+
+	public static int readVarInt(ByteBuffer buffer) {
+		long value = readVarLong(buffer);
+		if (value < 0 || value > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("varint out of range: " + value);
+		}
+		return (int) value;
+	}
+
+	/**
+	 * Write the specified value as a varint.
+	 *
+	 * @return the offset following the written value
+	 */
+	public static int writeVarLong(byte[] bytes, int offset, long value) {
+		while ((value & ~0x7fL) != 0) {
+			bytes[offset++] = (byte) ((value & 0x7f) | 0x80);
+			value >>>= 7;
+		}
+		bytes[offset++] = (byte) value;
+		return offset;
+	}
+
+	public static long zigZag(long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+
+	public static long unZigZag(long value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+}
@@ -0,0 +1,229 @@
+/**
+ * Copyright (c) 2013 Aaron Faanes
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package logging;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A {@link TreeLog} that writes the binary protocol to a stream, typically a
+ * socket connected to a {@link NioTreeLogServer}.
+ * <p>
+ * Categories and sender names are sent once per connection and referred to
+ * by index afterwards, and timestamps are sent as deltas, so chatty producers
+ * send a small fraction of what the textual protocol would. Senders other
+ * than strings are identified by their identity hash code, the same way the
+ * textual protocol's {@code [sender]@0xid} notation does.
+ * <p>
+ * Like {@link java.io.PrintStream}, this writer never throws
+ * {@link IOException} from its logging methods. Once an error occurs, further
+ * events are discarded and {@link #checkError()} returns true.
+ *
+ * @param <T>
+ *            the type of message
+ * @see BinaryLogProtocol
+ * @see BinaryLogDecoder
+ */
+public class BinaryTreeLogWriter<T> implements TreeLog<T>, Flushable, Closeable {
+
+	/**
+	 * Room reserved at the front of each frame for its length.
+	 */
+	private static final int LENGTH_PREFIX = 5;
+
+	private final OutputStream out;
+
+	private final Map<String, Integer> strings = new HashMap<String, Integer>();
+
+	private long lastTimestamp = 0;
+
+	private byte[] frame = new byte[256];
+	private int length;
+
+	private IOException error;
+
+	/**
+	 * Create a writer and immediately send the protocol header.
+	 *
+	 * @param out
+	 *            the stream that will receive frames. Callers should provide
+	 *            a buffered stream.
+	 */
+	public BinaryTreeLogWriter(OutputStream out) {
+		this.out = out;
+		try {
+			out.write(BinaryLogProtocol.header());
+		} catch (IOException e) {
+			error = e;
+		}
+	}
+
+	@Override
+	public synchronized void log(LogMessage<? extends T> message) {
+		writeMessage(BinaryLogProtocol.LOG, message);
+	}
+
+	@Override
+	public synchronized void metadata(LogMessage<? extends T> message) {
+		writeMessage(BinaryLogProtocol.METADATA, message);
+	}
+
+	@Override
+	public synchronized void enter(LogMessage<? extends T> scope) {
+		writeMessage(BinaryLogProtocol.ENTER, scope);
+	}
+
+	@Override
+	public synchronized void leave() {
+		begin(BinaryLogProtocol.LEAVE);
+		end();
+	}
+
+	@Override
+	public synchronized void reset() {
+		begin(BinaryLogProtocol.RESET);
+		end();
+	}
+
+	@Override
+	public synchronized void flush() throws IOException {
+		out.flush();
+	}
+
+	/**
+	 * Tell the server that the session is over, then close the underlying
+	 * stream.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		begin(BinaryLogProtocol.CLOSE);
+		end();
+		out.close();
+	}
+
+	/**
+	 * Returns whether this writer has encountered an {@link IOException}.
+	 */
+	public synchronized boolean checkError() {
+		return error != null;
+	}
+
+	public synchronized IOException getError() {
+		return error;
+	}
+
+	private void writeMessage(byte op, LogMessage<? extends T> message) {
+		if (message == null) {
+			message = new LogMessage<T>(null);
+		}
+		begin(op);
+
+		long timestamp = message.getTimestamp();
+		writeVarLong(BinaryLogProtocol.zigZag(timestamp - lastTimestamp));
+		lastTimestamp = timestamp;
+
+		writeInterned(message.getCategory());
+
+		Object sender = message.getSender();
+		if (sender == null) {
+			writeInterned(null);
+		} else {
+			writeInterned(sender.toString());
+			if (sender instanceof String) {
+				writeVarLong(0);
+			} else {
+				writeVarLong((System.identityHashCode(sender) & 0xffffffffL) + 1);
+			}
+		}
+
+		if (message.getMessage() == null) {
+			writeVarLong(0);
+		} else {
+			byte[] bytes = message.getMessage().toString().getBytes(StandardCharsets.UTF_8);
+			writeVarLong(bytes.length + 1);
+			writeBytes(bytes);
+		}
+
+		end();
+	}
+
+	private void writeInterned(String value) {
+		if (value == null) {
+			writeVarLong(0);
+			return;
+		}
+		Integer index = strings.get(value);
+		if (index != null) {
+			writeVarLong(index);
+			return;
+		}
+		index = strings.size() + 1;
+		strings.put(value, index);
+		writeVarLong(index);
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		writeVarLong(bytes.length);
+		writeBytes(bytes);
+	}
+
+	private void begin(byte op) {
+		length = LENGTH_PREFIX;
+		frame[length++] = op;
+	}
+
+	private void end() {
+		if (error != null) {
+			return;
+		}
+		int payload = length - LENGTH_PREFIX;
+		int start = LENGTH_PREFIX - BinaryLogProtocol.varIntLength(payload);
+		BinaryLogProtocol.writeVarLong(frame, start, payload);
+		try {
+			out.write(frame, start, length - start);
+		} catch (IOException e) {
+			error = e;
+		}
+	}
+
+	private void ensureCapacity(int extra) {
+		if (length + extra > frame.length) {
+			byte[] grown = new byte[Math.max(length + extra, frame.length * 2)];
+			System.arraycopy(frame, 0, grown, 0, length);
+			frame = grown;
+		}
+	}
+
+	private void writeVarLong(long value) {
+		ensureCapacity(10);
+		length = BinaryLogProtocol.writeVarLong(frame, length, value);
+	}
+
+	private void writeBytes(byte[] bytes) {
+		ensureCapacity(bytes.length);
+		System.arraycopy(bytes, 0, frame, length, bytes.length);
+		length += bytes.length;
+	}
+}
@@ -27,19 +27,39 @@ import logic.runnables.Runnables;
  * @author Aaron Faanes
  * @param <Message>
  *            the type of log message
- * @see ReplayableTreeLog
+ * @see RingBufferTreeLog
  */
 public class BufferedTreeLog<Message> extends ProxyTreeLog<Message> implements Runnable {
 
-	private ReplayableTreeLog<Message> buffer = new ReplayableTreeLog<>();
+	private final RingBufferTreeLog<Message> buffer;
 
 	private Runnable notifier;
 
-	private boolean hasNotified;
+	private volatile boolean hasNotified;
 	private boolean alwaysNotify;
 
 	private int flushSize = 0;
 
+	public BufferedTreeLog() {
+		this(new RingBufferTreeLog<Message>());
+	}
+
+	/**
+	 * @param buffer
+	 *            the buffer that holds events until they are flushed. Only
+	 *            one thread may log to it.
+	 */
+	public BufferedTreeLog(RingBufferTreeLog<Message> buffer) {
+		if (buffer == null) {
+			throw new NullPointerException("buffer must not be null");
+		}
+		this.buffer = buffer;
+	}
+
+	public RingBufferTreeLog<Message> getBuffer() {
+		return this.buffer;
+	}
+
 	public void setFlushSize(int flushSize) {
 		this.flushSize = flushSize;
 	}
@@ -49,7 +69,7 @@ public class BufferedTreeLog<Message> extends ProxyTreeLog<Message> implements R
 	}
 
 	public synchronized int flush(int maxFlushed) {
-		int actuallyRemoved = buffer.remove(buffer.play(getSink(), maxFlushed));
+		int actuallyRemoved = buffer.drain(getSink(), maxFlushed);
 
 		hasNotified = false;
 		if (!isEmpty()) {
@@ -0,0 +1,75 @@
+/**
+ * Copyright (c) 2013 Aaron Faanes
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package logging;
+
+import java.util.Arrays;
+import java.util.IllegalFormatException;
+
+/**
+ * A log message that is not formatted until it is displayed.
+ * <p>
+ * The {@link Logs} methods that accept a {@link LogCategory} and a format
+ * use this class, so the string concatenation that their call sites used to
+ * perform is deferred until a viewer, or some other handler, asks for the
+ * text. Arguments are captured when the message is logged, so they should be
+ * immutable; primitives are captured by value.
+ * 
+ * @see String#format(String, Object...)
+ */
+public final class FormattedMessage {
+
+	private final String format;
+
+	private final Object[] args;
+
+	private String text;
+
+	public FormattedMessage(String format, Object... args) {
+		if (format == null) {
+			throw new NullPointerException("format must not be null");
+		}
+		this.format = format;
+		this.args = args;
+	}
+
+	public String getFormat() {
+		return format;
+	}
+
+	public Object[] getArgs() {
+		return args.clone();
+	}
+
+	@Override
+	public String toString() {
+		String formatted = text;
+		if (formatted == null) {
+			try {
+				formatted = String.format(format, args);
+			} catch (IllegalFormatException e) {
+				formatted = format + " " + Arrays.toString(args);
+			}
+			text = formatted;
+		}
+		return formatted;
+	}
+}
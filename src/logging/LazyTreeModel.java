@@ -0,0 +1,562 @@
+/**
+ * Copyright (c) 2013 Aaron Faanes
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package logging;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
+import javax.swing.tree.TreeModel;
+import javax.swing.tree.TreePath;
+
+/**
+ * A {@link TreeLog} that is also a {@link TreeModel}, keeping its tree in
+ * parallel primitive arrays rather than as {@code DefaultMutableTreeNode}s.
+ * <p>
+ * Each node is an index into arrays of parent, first child, last child, next
+ * sibling, previous sibling and child count. A node's message is referenced
+ * by its {@link MappedLogStore} address and read back when it is displayed,
+ * so the heap cost of a node is a few dozen bytes regardless of its message.
+ * Messages that did not come from the store, such as the group nodes created
+ * when consecutive scopes share a category, are kept in memory.
+ * <p>
+ * The {@link Node} handles that are given to the {@link javax.swing.JTree}
+ * are created on demand, and the children of recently expanded nodes are
+ * cached. Model events are not fired as messages arrive. Instead, each call
+ * to {@link #flush()} fires one insertion event for each node that gained
+ * children since the previous flush, or one structure-changed event if its
+ * children were rearranged. A viewer should flush once per batch of events.
+ * <p>
+ * Scopes are grouped in the same way as {@link TreeBuildingTreeLog}'s
+ * default inserter. This class must only be used from a single thread,
+ * usually the Swing event dispatch thread.
+ * 
+ * @param <Message>
+ *            the type of message
+ * @see MappedLogStore
+ */
+public class LazyTreeModel<Message> implements TreeModel, TreeLog<Message> {
+
+	/**
+	 * A handle to a node of a {@link LazyTreeModel}. Handles are equal if
+	 * they refer to the same node of the same model.
+	 */
+	public static final class Node {
+		private final LazyTreeModel<?> model;
+
+		private final int id;
+
+		private Node(LazyTreeModel<?> model, int id) {
+			this.model = model;
+			this.id = id;
+		}
+
+		public int getId() {
+			return id;
+		}
+
+		public LogMessage<?> getMessage() {
+			return model.getMessage(id);
+		}
+
+		@Override
+		public int hashCode() {
+			return id;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (obj == this) {
+				return true;
+			}
+			if (!(obj instanceof Node)) {
+				return false;
+			}
+			Node other = (Node) obj;
+			return model == other.model && id == other.id;
+		}
+
+		@Override
+		public String toString() {
+			if (id == ROOT) {
+				return String.valueOf(model.rootName);
+			}
+			return String.valueOf(getMessage());
+		}
+	}
+
+	private static final int ROOT = 0;
+
+	private static final int NONE = -1;
+
+	private static final int CACHED_CHILD_LISTS = 16;
+
+	private static final int CACHED_MESSAGES = 4096;
+
+	private final MappedLogStore<?> store;
+
+	private final LogName name;
+
+	private String rootName;
+
+	private int nodeCount;
+
+	private int[] parents = new int[1024];
+
+	private int[] firstChildren = new int[1024];
+
+	private int[] lastChildren = new int[1024];
+
+	private int[] nextSiblings = new int[1024];
+
+	private int[] previousSiblings = new int[1024];
+
+	private int[] childCounts = new int[1024];
+
+	/**
+	 * The store address of each node's message, or -1 if the message is kept
+	 * in {@link #heldMessages}.
+	 */
+	private long[] addresses = new long[1024];
+
+	/**
+	 * The addresses of stored nodes, and those nodes, in ascending order of
+	 * address, so that a stored message's node can be found by binary search.
+	 */
+	private long[] storedAddresses = new long[1024];
+
+	private int[] storedNodes = new int[1024];
+
+	private int storedCount;
+
+	private final Map<Integer, LogMessage<? extends Message>> heldMessages = new HashMap<>();
+
+	private final Map<LogMessage<? extends Message>, Integer> heldNodes = new HashMap<>();
+
+	private int cursor = ROOT;
+
+	private int level = 0;
+
+	/**
+	 * The grouping state of each level, equivalent to a stack of
+	 * {@code MergingInserter}s.
+	 */
+	private String[] levelGroups = new String[64];
+
+	private boolean[] levelMerged = new boolean[64];
+
+	/**
+	 * The nodes that have gained children since the last flush, mapped to
+	 * their child count at the last flush.
+	 */
+	private final Map<Integer, Integer> insertedParents = new LinkedHashMap<>();
+
+	private final List<Integer> restructuredParents = new ArrayList<>();
+
+	private final List<TreeModelListener> listeners = new ArrayList<>();
+
+	private final Map<Integer, int[]> childLists = new LinkedHashMap<Integer, int[]>(CACHED_CHILD_LISTS, .75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Integer, int[]> eldest) {
+			return size() > CACHED_CHILD_LISTS;
+		}
+	};
+
+	private final Map<Integer, LogMessage<?>> messageCache = new LinkedHashMap<Integer, LogMessage<?>>(CACHED_MESSAGES, .75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Integer, LogMessage<?>> eldest) {
+			return size() > CACHED_MESSAGES;
+		}
+	};
+
+	/**
+	 * Create a model that reads the messages of the specified store back on
+	 * demand.
+	 * 
+	 * @param name
+	 *            the name of the log, which is updated by {@code title}
+	 *            metadata
+	 * @param store
+	 *            the store that messages are read from, or null to keep every
+	 *            message in memory
+	 */
+	public LazyTreeModel(LogName name, MappedLogStore<?> store) {
+		this.name = name;
+		this.store = store;
+		nodeCount = 1;
+		parents[ROOT] = NONE;
+		firstChildren[ROOT] = NONE;
+		lastChildren[ROOT] = NONE;
+		nextSiblings[ROOT] = NONE;
+		previousSiblings[ROOT] = NONE;
+		addresses[ROOT] = -1;
+	}
+
+	public void setName(String name) {
+		rootName = name;
+		if (this.name != null) {
+			this.name.setName(name);
+		}
+	}
+
+	public int getNodeCount() {
+		return nodeCount;
+	}
+
+	public int getLevel() {
+		return level;
+	}
+
+	@Override
+	public void log(LogMessage<? extends Message> message) {
+		enter(message);
+		leave();
+	}
+
+	@Override
+	public void metadata(LogMessage<? extends Message> message) {
+		if (message.getCategory() == null) {
+			return;
+		}
+		if (message.getCategory().equals("title")) {
+			setName(message.getMessage() != null ? message.getMessage().toString() : null);
+		}
+	}
+
+	@Override
+	public void enter(LogMessage<? extends Message> scope) {
+		if (level == levelGroups.length) {
+			levelGroups = Arrays.copyOf(levelGroups, level * 2);
+			levelMerged = Arrays.copyOf(levelMerged, level * 2);
+		}
+		String group = scope.getCategory();
+		if (group == null || group.equals("") || !group.equals(levelGroups[level]) || childCounts[cursor] == 0) {
+			levelGroups[level] = group;
+			levelMerged[level] = false;
+			cursor = append(cursor, scope);
+		} else if (levelMerged[level]) {
+			cursor = append(lastChildren[cursor], scope);
+		} else {
+			levelMerged[level] = true;
+			int previous = lastChildren[cursor];
+			unlinkLastChild(cursor);
+			int groupNode = append(cursor, scope.changeSender(null, null));
+			link(groupNode, previous);
+			cursor = append(groupNode, scope);
+			restructured(parents[groupNode]);
+		}
+		++level;
+	}
+
+	@Override
+	public void leave() {
+		if (cursor == ROOT) {
+			// Just like TreeBuildingTreeLog, a spurious leave is recorded rather than thrown.
+			log(new LogMessage<Message>("Leave was called while at the root node", null));
+			return;
+		}
+		--level;
+		cursor = parents[cursor];
+		if (levelMerged[level]) {
+			cursor = parents[cursor];
+		}
+	}
+
+	@Override
+	public void reset() {
+		while (level > 1) {
+			leave();
+		}
+	}
+
+	/**
+	 * Create a node for the specified message as the last child of the
+	 * specified parent.
+	 */
+	private int append(int parent, LogMessage<? extends Message> message) {
+		if (nodeCount == parents.length) {
+			int capacity = nodeCount * 2;
+			parents = Arrays.copyOf(parents, capacity);
+			firstChildren = Arrays.copyOf(firstChildren, capacity);
+			lastChildren = Arrays.copyOf(lastChildren, capacity);
+			nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+			previousSiblings = Arrays.copyOf(previousSiblings, capacity);
+			childCounts = Arrays.copyOf(childCounts, capacity);
+			addresses = Arrays.copyOf(addresses, capacity);
+		}
+		int node = nodeCount++;
+		firstChildren[node] = NONE;
+		lastChildren[node] = NONE;
+		childCounts[node] = 0;
+		if (message instanceof StoredLogMessage && store != null && ((StoredLogMessage<?>) message).getStore() == store) {
+			long address = ((StoredLogMessage<?>) message).getAddress();
+			addresses[node] = address;
+			if (storedCount == storedAddresses.length) {
+				storedAddresses = Arrays.copyOf(storedAddresses, storedCount * 2);
+				storedNodes = Arrays.copyOf(storedNodes, storedCount * 2);
+			}
+			storedAddresses[storedCount] = address;
+			storedNodes[storedCount++] = node;
+		} else {
+			addresses[node] = -1;
+			heldMessages.put(node, message);
+			heldNodes.put(message, node);
+		}
+		link(parent, node);
+		return node;
+	}
+
+	private void link(int parent, int child) {
+		if (!insertedParents.containsKey(parent)) {
+			insertedParents.put(parent, childCounts[parent]);
+		}
+		parents[child] = parent;
+		nextSiblings[child] = NONE;
+		previousSiblings[child] = lastChildren[parent];
+		if (lastChildren[parent] == NONE) {
+			firstChildren[parent] = child;
+		} else {
+			nextSiblings[lastChildren[parent]] = child;
+		}
+		lastChildren[parent] = child;
+		++childCounts[parent];
+	}
+
+	private void unlinkLastChild(int parent) {
+		int child = lastChildren[parent];
+		int previous = previousSiblings[child];
+		lastChildren[parent] = previous;
+		if (previous == NONE) {
+			firstChildren[parent] = NONE;
+		} else {
+			nextSiblings[previous] = NONE;
+		}
+		--childCounts[parent];
+		parents[child] = NONE;
+		previousSiblings[child] = NONE;
+	}
+
+	private void restructured(int parent) {
+		if (!restructuredParents.contains(parent)) {
+			restructuredParents.add(parent);
+		}
+		childLists.clear();
+	}
+
+	/**
+	 * Fire the model events for every change since the last flush.
+	 */
+	public void flush() {
+		if (insertedParents.isEmpty() && restructuredParents.isEmpty()) {
+			return;
+		}
+		for (int parent : restructuredParents) {
+			insertedParents.remove(parent);
+			fireTreeStructureChanged(new TreeModelEvent(this, getPath(parent)));
+		}
+		restructuredParents.clear();
+		for (Map.Entry<Integer, Integer> entry : insertedParents.entrySet()) {
+			int parent = entry.getKey();
+			int reported = entry.getValue();
+			int inserted = childCounts[parent] - reported;
+			if (inserted <= 0) {
+				continue;
+			}
+			int[] indices = new int[inserted];
+			Object[] children = new Object[inserted];
+			int child = lastChildren[parent];
+			for (int i = inserted - 1; i >= 0; --i) {
+				indices[i] = reported + i;
+				children[i] = new Node(this, child);
+				child = previousSiblings[child];
+			}
+			fireTreeNodesInserted(new TreeModelEvent(this, getPath(parent), indices, children));
+		}
+		insertedParents.clear();
+	}
+
+	private TreePath getPath(int node) {
+		int depth = 0;
+		for (int n = node; n != NONE; n = parents[n]) {
+			++depth;
+		}
+		Object[] path = new Object[depth];
+		for (int n = node; n != NONE; n = parents[n]) {
+			path[--depth] = new Node(this, n);
+		}
+		return new TreePath(path);
+	}
+
+	/**
+	 * Returns the path from the root to the specified node.
+	 */
+	public TreePath getPathToRoot(Node node) {
+		return getPath(node.getId());
+	}
+
+	/**
+	 * Returns the node that was created for the specified message. If the
+	 * message came from another store, the stores it was forwarded from are
+	 * searched as well, so a message from a child's store can be found in
+	 * its parent's model.
+	 * 
+	 * @return the node, or null if the message was never logged to this model
+	 */
+	public Node getNodeFor(LogMessage<?> message) {
+		while (message != null) {
+			if (message instanceof StoredLogMessage && store != null && ((StoredLogMessage<?>) message).getStore() == store) {
+				int index = Arrays.binarySearch(storedAddresses, 0, storedCount, ((StoredLogMessage<?>) message).getAddress());
+				return index >= 0 ? new Node(this, storedNodes[index]) : null;
+			}
+			Integer node = heldNodes.get(message);
+			if (node != null) {
+				return new Node(this, node);
+			}
+			if (!(message instanceof StoredLogMessage)) {
+				break;
+			}
+			message = ((StoredLogMessage<?>) message).getSource();
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the message of the specified node, reading it from the store if
+	 * necessary.
+	 */
+	public LogMessage<?> getMessage(Node node) {
+		return getMessage(node.getId());
+	}
+
+	private LogMessage<?> getMessage(int node) {
+		if (node == ROOT) {
+			return null;
+		}
+		long address = addresses[node];
+		if (address < 0) {
+			return heldMessages.get(node);
+		}
+		LogMessage<?> message = messageCache.get(node);
+		if (message == null) {
+			message = store.read(address);
+			messageCache.put(node, message);
+		}
+		return message;
+	}
+
+	private int[] getChildList(int parent) {
+		int[] children = childLists.get(parent);
+		if (children != null && children.length == childCounts[parent]) {
+			return children;
+		}
+		children = new int[childCounts[parent]];
+		int i = 0;
+		for (int child = firstChildren[parent]; child != NONE; child = nextSiblings[child]) {
+			children[i++] = child;
+		}
+		childLists.put(parent, children);
+		return children;
+	}
+
+	private static int idOf(Object node) {
+		return ((Node) node).getId();
+	}
+
+	@Override
+	public Object getRoot() {
+		return new Node(this, ROOT);
+	}
+
+	@Override
+	public Object getChild(Object parent, int index) {
+		int[] children = getChildList(idOf(parent));
+		if (index < 0 || index >= children.length) {
+			return null;
+		}
+		return new Node(this, children[index]);
+	}
+
+	@Override
+	public int getChildCount(Object parent) {
+		return childCounts[idOf(parent)];
+	}
+
+	@Override
+	public boolean isLeaf(Object node) {
+		return childCounts[idOf(node)] == 0;
+	}
+
+	@Override
+	public void valueForPathChanged(TreePath path, Object newValue) {
+		// Log messages are immutable.
+	}
+
+	@Override
+	public int getIndexOfChild(Object parent, Object child) {
+		if (parent == null || child == null) {
+			return -1;
+		}
+		int parentId = idOf(parent);
+		int childId = idOf(child);
+		if (parents[childId] != parentId) {
+			return -1;
+		}
+		int[] children = getChildList(parentId);
+		for (int i = 0; i < children.length; ++i) {
+			if (children[i] == childId) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public void addTreeModelListener(TreeModelListener listener) {
+		listeners.add(listener);
+	}
+
+	@Override
+	public void removeTreeModelListener(TreeModelListener listener) {
+		listeners.remove(listener);
+	}
+
+	private void fireTreeNodesInserted(TreeModelEvent event) {
+		for (TreeModelListener listener : new ArrayList<>(listeners)) {
+			listener.treeNodesInserted(event);
+		}
+	}
+
+	private void fireTreeStructureChanged(TreeModelEvent event) {
+		for (TreeModelListener listener : new ArrayList<>(listeners)) {
+			listener.treeStructureChanged(event);
+		}
+	}
+}
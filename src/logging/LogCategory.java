@@ -0,0 +1,194 @@
+/**
+ * Copyright (c) 2013 Aaron Faanes
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package logging;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A named group of log messages that can be switched on and off at runtime.
+ * <p>
+ * The {@link Logs} methods that accept a category check it before they
+ * build anything, so a call site in a hot loop costs a single volatile read
+ * while its category is disabled. Categories are shared by name, so call sites
+ * should keep the category in a {@code static final} field:
+ * 
+ * <pre>
+ * private static final LogCategory RETRIEVALS = LogCategory.get(&quot;Variable Retrievals&quot;);
+ * 
+ * Logs.openNode(RETRIEVALS, &quot;Retrieving Variable (%s)&quot;, name);
+ * </pre>
+ * <p>
+ * A new category is enabled only if assertions are enabled for this package,
+ * which matches the cost of the {@code assert Logs.openNode(...)} calls it
+ * replaces. Each thread records which of its scopes were actually opened, so
+ * a category may be toggled while one of its scopes is open without leaving
+ * that scope unbalanced.
+ * 
+ * @see Logs#openNode(LogCategory, String)
+ */
+public final class LogCategory {
+
+	private static final ConcurrentMap<String, LogCategory> categories = new ConcurrentHashMap<>();
+
+	private static final boolean DEFAULT_ENABLED = LogCategory.class.desiredAssertionStatus();
+
+	/**
+	 * Returns the category with the specified name, creating it if necessary.
+	 * 
+	 * @param name
+	 *            the name of the category, which is also used as the category
+	 *            of its {@link LogMessage}s
+	 * @return the category with the specified name. It is never null.
+	 */
+	public static LogCategory get(String name) {
+		if (name == null) {
+			throw new NullPointerException("name must not be null");
+		}
+		LogCategory category = categories.get(name);
+		if (category != null) {
+			return category;
+		}
+		return categories.computeIfAbsent(name, LogCategory::new);
+	}
+
+	/**
+	 * Returns a snapshot of every category that has been created.
+	 */
+	public static Collection<LogCategory> getCategories() {
+		return new ArrayList<>(categories.values());
+	}
+
+	/**
+	 * Enable or disable every category that has been created.
+	 */
+	public static void setAllEnabled(boolean enabled) {
+		for (LogCategory category : categories.values()) {
+			category.setEnabled(enabled);
+		}
+	}
+
+	/**
+	 * Whether each of a thread's open scopes in this category was actually
+	 * opened, innermost last.
+	 */
+	private static final class ScopeStack {
+		private boolean[] opened = new boolean[8];
+		private int size = 0;
+
+		void push(boolean value) {
+			if (size == opened.length) {
+				opened = Arrays.copyOf(opened, size * 2);
+			}
+			opened[size++] = value;
+		}
+
+		boolean isEmpty() {
+			return size == 0;
+		}
+
+		boolean pop() {
+			return opened[--size];
+		}
+	}
+
+	private final String name;
+
+	private volatile boolean enabled = DEFAULT_ENABLED;
+
+	/**
+	 * The number of scopes recorded on every thread's stack. While it is
+	 * zero, no thread has a record, so disabled scopes need not be recorded.
+	 */
+	private final AtomicInteger recordedScopes = new AtomicInteger();
+
+	private final ThreadLocal<ScopeStack> scopes = new ThreadLocal<ScopeStack>() {
+		@Override
+		protected ScopeStack initialValue() {
+			return new ScopeStack();
+		}
+	};
+
+	private LogCategory(String name) {
+		this.name = name;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	/**
+	 * Record that the calling thread is opening a scope in this category.
+	 * <p>
+	 * A disabled scope only needs a record if it is nested within a recorded
+	 * scope, so that it is not mistaken for that scope when it is closed. If
+	 * no scope is recorded, the matching {@link #closeScope()} finds the
+	 * thread's stack empty anyway.
+	 * 
+	 * @return {@code true} if the scope should be opened
+	 */
+	boolean openScope() {
+		boolean opened = this.enabled;
+		if (!opened && recordedScopes.get() == 0) {
+			return false;
+		}
+		scopes.get().push(opened);
+		recordedScopes.incrementAndGet();
+		return opened;
+	}
+
+	/**
+	 * Record that the calling thread is closing its innermost scope in this
+	 * category.
+	 * 
+	 * @return {@code true} if the matching {@link #openScope()} opened the
+	 *         scope, so it should be closed
+	 */
+	boolean closeScope() {
+		if (recordedScopes.get() == 0) {
+			return false;
+		}
+		ScopeStack stack = scopes.get();
+		if (stack.isEmpty()) {
+			return false;
+		}
+		recordedScopes.decrementAndGet();
+		return stack.pop();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("LogCategory[%s, %s]", name, enabled ? "enabled" : "disabled");
+	}
+}
@@ -3,42 +3,6 @@ package logging;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-class SenderReference {
-	private final Object reference;
-	private final Object name;
-
-	public SenderReference(Object reference, Object name) {
-		this.reference = reference;
-		this.name = name;
-	}
-
-	public Object getReference() {
-		return reference;
-	}
-
-	@Override
-	public String toString() {
-		return name.toString();
-	}
-
-	@Override
-	public int hashCode() {
-		return reference.hashCode();
-	}
-
-	@Override
-	public boolean equals(Object obj) {
-		if (obj == this) {
-			return true;
-		}
-		if (!(obj instanceof SenderReference)) {
-			return false;
-		}
-		SenderReference other = (SenderReference) obj;
-		return reference.equals(other.getReference());
-	}
-}
-
 public class LogParser {
 	private static final String space = "\\s*";
     // >>> timestamp (category) [sender]@0x123abc message
@@ -68,7 +32,7 @@ public class LogParser {
         METADATA
 	};
 
-	public boolean readLine(TreeLog log, String line) {
+	public boolean readLine(TreeLog<? super String> log, String line) {
 		Matcher matcher = PATTERN.matcher(line);
 		if (!matcher.matches()) {
             throw new IllegalArgumentException("log line failed to parse");
@@ -84,7 +48,6 @@ public class LogParser {
 		Object senderId = matcher.group(SENDER_ID);
 
 		String message = matcher.group(MESSAGE);
-		ScopeAction action = ScopeAction.NONE;
 
 		if (matcher.group(TIMESTAMP) != null) {
 			timestamp = Long.valueOf(matcher.group(TIMESTAMP));
@@ -94,26 +57,47 @@ public class LogParser {
 			sender = new SenderReference(senderId, sender);
 		}
 
+		char scope = 0;
 		if (matcher.group(SCOPE) != null) {
-			switch (matcher.group(SCOPE).charAt(0)) {
-			case '>':
-				action = ScopeAction.ENTER;
-				break;
-			case '<':
-				action = ScopeAction.LEAVE;
-				break;
-			case '!':
-				action = ScopeAction.RESET;
-				break;
-			case '@':
-				action = ScopeAction.METADATA;
-				break;
-			default:
-				throw new AssertionError("Impossible (I probably botched the regex)");
-			}
+			scope = matcher.group(SCOPE).charAt(0);
 		}
 
-		LogMessage<String> logMessage = new LogMessage<String>(timestamp, sender, category, message);
+		dispatch(log, scope, new LogMessage<String>(timestamp, sender, category, message));
+
+        return true;
+	}
+
+	/**
+	 * Send a parsed message to the specified log.
+	 * 
+	 * @param log
+	 *            the log that will receive the message
+	 * @param scope
+	 *            the first character of the line's scope marker, or zero if
+	 *            the line had no scope marker
+	 * @param logMessage
+	 *            the parsed message
+	 */
+	protected void dispatch(TreeLog<? super String> log, char scope, LogMessage<String> logMessage) {
+		ScopeAction action = ScopeAction.NONE;
+		switch (scope) {
+		case 0:
+			break;
+		case '>':
+			action = ScopeAction.ENTER;
+			break;
+		case '<':
+			action = ScopeAction.LEAVE;
+			break;
+		case '!':
+			action = ScopeAction.RESET;
+			break;
+		case '@':
+			action = ScopeAction.METADATA;
+			break;
+		default:
+			throw new AssertionError("Impossible (I probably botched the regex)");
+		}
 
 		switch (action) {
 		case ENTER:
@@ -126,19 +110,17 @@ public class LogParser {
 			log.log(logMessage);
 			break;
 		case LEAVE:
-			if (category != null || message != null) {
+			if (logMessage.getCategory() != null || logMessage.getMessage() != null) {
 				log.log(logMessage);
 			}
 			log.leave();
 			break;
 		case RESET:
-			if (category != null || message != null) {
+			if (logMessage.getCategory() != null || logMessage.getMessage() != null) {
 				log.log(logMessage);
 			}
 			log.reset();
 			break;
 		}
-
-        return true;
 	}
 }
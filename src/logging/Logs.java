@@ -6,6 +6,8 @@ package logging;
 import java.text.NumberFormat;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 import logic.actors.Actor;
 import logic.handlers.ChainedHandler;
@@ -26,6 +28,8 @@ public final class Logs {
 
 	private static HandledTreeLog<Object> masterLog;
 
+	private static volatile AsyncTreeLog<Object> asyncLog;
+
 	private static boolean initialized = false;
 
 	private static synchronized void initialize() {
@@ -65,6 +69,95 @@ public final class Logs {
 		return threadLocalLog;
 	}
 
+	/**
+	 * Returns the log that new events should be sent to. In asynchronous mode,
+	 * this is the calling thread's queue, unless the caller is the dispatcher
+	 * itself, such as a {@link inspect.Nodeable} that is logging its own
+	 * contents.
+	 */
+	private static TreeLog<Object> getEntryLog() {
+		AsyncTreeLog<Object> async = asyncLog;
+		if (async == null || async.isDispatchThread()) {
+			return getMasterLog();
+		}
+		return async;
+	}
+
+	/**
+	 * Choose whether logging calls run the handler chain on the calling thread,
+	 * or only enqueue their event for a background dispatcher.
+	 * <p>
+	 * In asynchronous mode, each thread's events still arrive in that thread's
+	 * log in the order they were sent. Use {@link #flush()} to wait for them.
+	 * 
+	 * @param async
+	 *            {@code true} to dispatch events in the background
+	 */
+	public static synchronized void setAsync(boolean async) {
+		initialize();
+		if (async == isAsync()) {
+			return;
+		}
+		if (async) {
+			asyncLog = new AsyncTreeLog<Object>(masterLog) {
+				@Override
+				protected Object captureContext() {
+					return threadLocalLog.getCurrentLog();
+				}
+
+				@SuppressWarnings("unchecked")
+				@Override
+				protected void enterContext(Object context) {
+					threadLocalLog.impersonate((BufferedTreeLog<Object>) context);
+				}
+
+				@Override
+				protected void leaveContext(Object context) {
+					threadLocalLog.stopImpersonating();
+				}
+			};
+		} else {
+			AsyncTreeLog<Object> old = asyncLog;
+			asyncLog = null;
+			old.close();
+		}
+	}
+
+	public static boolean isAsync() {
+		return asyncLog != null;
+	}
+
+	/**
+	 * Wait until every event that has been logged so far has reached its
+	 * thread's log. This does nothing unless logging is
+	 * {@link #setAsync(boolean) asynchronous}.
+	 */
+	public static void flush() {
+		AsyncTreeLog<Object> async = asyncLog;
+		if (async != null) {
+			async.flush();
+		}
+	}
+
+	/**
+	 * Wait until the asynchronous dispatcher has no pending events.
+	 * 
+	 * @param timeout
+	 *            the maximum time to wait
+	 * @param unit
+	 *            the unit of the timeout
+	 * @return {@code false} if the timeout elapsed before all events were
+	 *         delivered
+	 * @see #flush()
+	 */
+	public static boolean awaitQuiescence(long timeout, TimeUnit unit) {
+		AsyncTreeLog<Object> async = asyncLog;
+		if (async == null) {
+			return true;
+		}
+		return async.awaitQuiescence(timeout, unit);
+	}
+
 	private static ChainedHandler<LogMessage<? extends Object>> getMasterHandler() {
 		initialize();
 		return masterHandler;
@@ -120,21 +213,21 @@ public final class Logs {
 	}
 
 	public static boolean openNode(String scope) {
-		openNode(null, scope);
+		openNode((String) null, scope);
 		return true;
 	}
 
 	public static boolean openNode(String scopeGroup, String scope) {
-		getMasterLog().enter(new LogMessage<Object>(scopeGroup, scope));
+		getEntryLog().enter(new LogMessage<Object>(scopeGroup, scope));
 		return true;
 	}
 
 	public static boolean addNode(Object message) {
-		return addNode(null, message);
+		return addNode((Object) null, message);
 	}
 
 	public static boolean addNode(Object scope, Object message) {
-		getMasterLog().log(new LogMessage<Object>(message));
+		getEntryLog().log(new LogMessage<Object>(message));
 		if (message instanceof Exception) {
 			registerHotspot((Exception) message);
 		}
@@ -161,7 +254,7 @@ public final class Logs {
 	}
 
 	public static boolean addSnapNode(String scope, Object message) {
-		return addSnapNode(null, scope, message);
+		return addSnapNode((String) null, scope, message);
 	}
 
 	public static boolean addSnapNode(String scopeGroup, String scope, Object message) {
@@ -172,7 +265,7 @@ public final class Logs {
 	}
 
 	public static boolean closeNode() {
-		getMasterLog().leave();
+		getEntryLog().leave();
 		return true;
 	}
 
@@ -188,6 +281,156 @@ public final class Logs {
 		return true;
 	}
 
+	/**
+	 * Open a scope in the specified category. Nothing is logged, and nothing
+	 * is allocated, if the category is disabled.
+	 * <p>
+	 * Every event logged within the scope should be logged using the same
+	 * category, so that the scope and its contents are skipped together. The
+	 * scope must be closed using {@link #closeNode(LogCategory)}, on the same
+	 * thread.
+	 * 
+	 * @param category
+	 *            the category of the scope
+	 * @param scope
+	 *            the message of the scope
+	 * @return {@code true}, so that this method can be used in assertions
+	 */
+	public static boolean openNode(LogCategory category, String scope) {
+		if (!category.openScope()) {
+			return true;
+		}
+		getEntryLog().enter(new LogMessage<Object>(category.getName(), scope));
+		return true;
+	}
+
+	/**
+	 * Open a scope in the specified category, whose message is formatted from
+	 * the specified format and argument only if it is displayed.
+	 * 
+	 * @see #openNode(LogCategory, String)
+	 * @see FormattedMessage
+	 */
+	public static boolean openNode(LogCategory category, String format, int arg) {
+		if (!category.openScope()) {
+			return true;
+		}
+		return openFormattedNode(category, new FormattedMessage(format, arg));
+	}
+
+	/**
+	 * @see #openNode(LogCategory, String, int)
+	 */
+	public static boolean openNode(LogCategory category, String format, long arg) {
+		if (!category.openScope()) {
+			return true;
+		}
+		return openFormattedNode(category, new FormattedMessage(format, arg));
+	}
+
+	/**
+	 * @see #openNode(LogCategory, String, int)
+	 */
+	public static boolean openNode(LogCategory category, String format, double arg) {
+		if (!category.openScope()) {
+			return true;
+		}
+		return openFormattedNode(category, new FormattedMessage(format, arg));
+	}
+
+	/**
+	 * @see #openNode(LogCategory, String, int)
+	 */
+	public static boolean openNode(LogCategory category, String format, Object arg) {
+		if (!category.openScope()) {
+			return true;
+		}
+		return openFormattedNode(category, new FormattedMessage(format, arg));
+	}
+
+	/**
+	 * @see #openNode(LogCategory, String, int)
+	 */
+	public static boolean openNode(LogCategory category, String format, Object first, Object second) {
+		if (!category.openScope()) {
+			return true;
+		}
+		return openFormattedNode(category, new FormattedMessage(format, first, second));
+	}
+
+	/**
+	 * Open a scope in the specified category, whose message is only computed
+	 * if the category is enabled.
+	 * 
+	 * @see #openNode(LogCategory, String)
+	 */
+	public static boolean openNode(LogCategory category, Supplier<?> scope) {
+		if (!category.openScope()) {
+			return true;
+		}
+		getEntryLog().enter(new LogMessage<Object>(category.getName(), scope.get()));
+		return true;
+	}
+
+	private static boolean openFormattedNode(LogCategory category, FormattedMessage scope) {
+		getEntryLog().enter(new LogMessage<Object>(category.getName(), scope));
+		return true;
+	}
+
+	public static boolean addNode(LogCategory category, Object message) {
+		if (!category.isEnabled()) {
+			return true;
+		}
+		return addNode(message);
+	}
+
+	public static boolean addNode(LogCategory category, String format, Object arg) {
+		if (!category.isEnabled()) {
+			return true;
+		}
+		return addNode(new FormattedMessage(format, arg));
+	}
+
+	public static boolean addNode(LogCategory category, Supplier<?> message) {
+		if (!category.isEnabled()) {
+			return true;
+		}
+		return addNode(message.get());
+	}
+
+	public static boolean addSnapNode(LogCategory category, String scope, Object message) {
+		if (!category.isEnabled()) {
+			return true;
+		}
+		return addSnapNode(scope, message);
+	}
+
+	public static boolean addSnapNode(LogCategory category, String scope, String format, Object first, Object second) {
+		if (!category.isEnabled()) {
+			return true;
+		}
+		return addSnapNode(scope, new FormattedMessage(format, first, second));
+	}
+
+	/**
+	 * Close a scope that was opened using
+	 * {@link #openNode(LogCategory, String)}. The scope is closed only if it
+	 * was actually opened, even if the category has been toggled since.
+	 */
+	public static boolean closeNode(LogCategory category) {
+		if (!category.closeScope()) {
+			return true;
+		}
+		return closeNode();
+	}
+
+	public static boolean closeNode(LogCategory category, Object message) {
+		if (!category.closeScope()) {
+			return true;
+		}
+		return closeNode(message);
+	}
+
 	public static void printException(Exception ex) {
 		System.err.println(ex);
 		if (ex instanceof ScriptException || ex instanceof InternalException) {
@@ -0,0 +1,751 @@
+/**
+ * Copyright (c) 2013 Aaron Faanes
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package logging;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import logic.adapters.Adapter;
+
+/**
+ * An append-only, file-backed {@link TreeLog} that forwards every event to
+ * its sink after it has been stored.
+ * <p>
+ * Events are written to a series of memory-mapped segment files, so a long
+ * capture costs address space rather than heap. Each event is given an
+ * address, and the messages that are forwarded to the sink are
+ * {@link StoredLogMessage}s that remember it. A compact side index records
+ * the start and end address, depth, and parent of every scope, so that:
+ * <ul>
+ * <li>the children of any scope can be listed without reading the rest of the
+ * log, allowing a tree to be materialized as it is expanded
+ * <li>a scope, or the whole log, can be replayed by streaming from the file,
+ * rather than by keeping every event in memory as {@link ReplayableTreeLog}
+ * does
+ * </ul>
+ * Records use the same primitives as {@link BinaryLogProtocol}, but
+ * timestamps are absolute so that any record can be decoded on its own.
+ * Categories and senders are interned in memory, since there are few of them,
+ * so replayed messages have the same senders as the originals. Messages are
+ * stored as text and converted back using the specified adapter. When a
+ * message was forwarded from another store, the stores and addresses it
+ * passed through are kept with it, so a replayed message can still be found
+ * in the stores it came from.
+ * <p>
+ * An address is a segment index in its upper 32 bits and an offset within
+ * that segment in its lower 32 bits, so addresses increase with each event.
+ * 
+ * @param <Message>
+ *            the type of message
+ * @see StoredLogMessage
+ */
+public class MappedLogStore<Message> extends ProxyTreeLog<Message> implements Closeable {
+
+	public static final int DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+
+	private final Adapter<String, Message> messageParser;
+
+	private final File directory;
+
+	private final boolean ownsDirectory;
+
+	private final int segmentSize;
+
+	private final List<MappedByteBuffer> segments = new ArrayList<>();
+
+	private final List<File> segmentFiles = new ArrayList<>();
+
+	private int[] segmentLengths = new int[4];
+
+	private final List<String> strings = new ArrayList<>();
+
+	private final Map<String, Integer> stringIds = new HashMap<>();
+
+	private final List<Object> senders = new ArrayList<>();
+
+	/**
+	 * The ids of senders that are compared by value, such as names and
+	 * {@link SenderReference}s, which are recreated for every event.
+	 */
+	private final Map<Object, Integer> senderValueIds = new HashMap<>();
+
+	/**
+	 * The ids of every other sender. Their hash codes may change, so they are
+	 * compared by identity.
+	 */
+	private final Map<Object, Integer> senderIdentityIds = new IdentityHashMap<>();
+
+	/**
+	 * The stores that forwarded messages to this store, compared by identity.
+	 */
+	private final List<MappedLogStore<?>> origins = new ArrayList<>();
+
+	private final Map<MappedLogStore<?>, Integer> originIds = new IdentityHashMap<>();
+
+	private long eventCount;
+
+	private int scopeCount;
+
+	private long[] scopeStarts = new long[1024];
+
+	private long[] scopeEnds = new long[1024];
+
+	private int[] scopeDepths = new int[1024];
+
+	private int[] scopeParents = new int[1024];
+
+	private int depth;
+
+	private int[] openScopes = new int[64];
+
+	private byte[] scratch = new byte[256];
+
+	private int scratchLength;
+
+	/**
+	 * The offset of the next byte to be read by the decoding methods.
+	 */
+	private int readOffset;
+
+	private boolean closed;
+
+	/**
+	 * Create a store whose segments are kept in a new temporary directory,
+	 * which is deleted when the store is closed.
+	 */
+	public MappedLogStore(Adapter<String, Message> messageParser) {
+		this(createTemporaryDirectory(), DEFAULT_SEGMENT_SIZE, messageParser, true);
+	}
+
+	public MappedLogStore(File directory, int segmentSize, Adapter<String, Message> messageParser) {
+		this(directory, segmentSize, messageParser, false);
+	}
+
+	private MappedLogStore(File directory, int segmentSize, Adapter<String, Message> messageParser, boolean ownsDirectory) {
+		if (directory == null) {
+			throw new NullPointerException("directory must not be null");
+		}
+		if (messageParser == null) {
+			throw new NullPointerException("messageParser must not be null");
+		}
+		if (segmentSize < 64) {
+			throw new IllegalArgumentException("segmentSize is too small. Size: " + segmentSize);
+		}
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+		this.messageParser = messageParser;
+		this.ownsDirectory = ownsDirectory;
+	}
+
+	private static File createTemporaryDirectory() {
+		try {
+			return Files.createTempDirectory("treelog").toFile();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void log(LogMessage<? extends Message> message) {
+		getSink().log(new StoredLogMessage<Message>(this, append(BinaryLogProtocol.LOG, message), message));
+	}
+
+	@Override
+	public void metadata(LogMessage<? extends Message> message) {
+		getSink().metadata(new StoredLogMessage<Message>(this, append(BinaryLogProtocol.METADATA, message), message));
+	}
+
+	@Override
+	public void enter(LogMessage<? extends Message> scope) {
+		getSink().enter(new StoredLogMessage<Message>(this, append(BinaryLogProtocol.ENTER, scope), scope));
+	}
+
+	@Override
+	public void leave() {
+		append(BinaryLogProtocol.LEAVE, null);
+		getSink().leave();
+	}
+
+	@Override
+	public void reset() {
+		append(BinaryLogProtocol.RESET, null);
+		getSink().reset();
+	}
+
+	/**
+	 * Write the specified event and update the scope index.
+	 * 
+	 * @return the address of the event
+	 */
+	private synchronized long append(byte op, LogMessage<? extends Message> message) {
+		if (closed) {
+			throw new IllegalStateException("Store is closed");
+		}
+		scratchLength = 0;
+		writeByte(op);
+		if (message != null) {
+			writeVarLong(BinaryLogProtocol.zigZag(message.getTimestamp()));
+			writeVarLong(intern(message.getCategory()));
+			writeVarLong(internSender(message.getSender()));
+			writeString(message.getMessage() == null ? null : message.getMessage().toString());
+			writeOrigins(message);
+		}
+
+		long address = reserve(scratchLength);
+		int segment = segmentOf(address);
+		MappedByteBuffer buffer = segments.get(segment);
+		buffer.position(offsetOf(address));
+		buffer.put(scratch, 0, scratchLength);
+		segmentLengths[segment] += scratchLength;
+		++eventCount;
+
+		switch (op) {
+		case BinaryLogProtocol.ENTER:
+			openScope(address);
+			break;
+		case BinaryLogProtocol.LEAVE:
+			if (depth > 0) {
+				scopeEnds[openScopes[--depth]] = getEndAddress();
+			}
+			break;
+		case BinaryLogProtocol.RESET:
+			while (depth > 0) {
+				scopeEnds[openScopes[--depth]] = getEndAddress();
+			}
+			break;
+		}
+		return address;
+	}
+
+	private void openScope(long address) {
+		if (scopeCount == scopeStarts.length) {
+			int capacity = scopeCount * 2;
+			scopeStarts = Arrays.copyOf(scopeStarts, capacity);
+			scopeEnds = Arrays.copyOf(scopeEnds, capacity);
+			scopeDepths = Arrays.copyOf(scopeDepths, capacity);
+			scopeParents = Arrays.copyOf(scopeParents, capacity);
+		}
+		scopeStarts[scopeCount] = address;
+		scopeEnds[scopeCount] = -1;
+		scopeDepths[scopeCount] = depth;
+		scopeParents[scopeCount] = depth > 0 ? openScopes[depth - 1] : -1;
+		if (depth == openScopes.length) {
+			openScopes = Arrays.copyOf(openScopes, depth * 2);
+		}
+		openScopes[depth++] = scopeCount++;
+	}
+
+	private long reserve(int length) {
+		int segment = segments.size() - 1;
+		if (segment < 0 || segmentLengths[segment] + length > segments.get(segment).capacity()) {
+			segment = newSegment(Math.max(segmentSize, length));
+		}
+		return address(segment, segmentLengths[segment]);
+	}
+
+	private int newSegment(int size) {
+		int segment = segments.size();
+		File file = new File(directory, "segment-" + segment + ".log");
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			// The mapping remains valid after its channel is closed.
+			segments.add(raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		segmentFiles.add(file);
+		if (segment == segmentLengths.length) {
+			segmentLengths = Arrays.copyOf(segmentLengths, segment * 2);
+		}
+		segmentLengths[segment] = 0;
+		return segment;
+	}
+
+	private int intern(String string) {
+		if (string == null) {
+			return 0;
+		}
+		Integer id = stringIds.get(string);
+		if (id == null) {
+			strings.add(string);
+			id = strings.size();
+			stringIds.put(string, id);
+		}
+		return id;
+	}
+
+	private int internSender(Object sender) {
+		if (sender == null) {
+			return 0;
+		}
+		Map<Object, Integer> ids = senderIdentityIds;
+		if (sender instanceof String || sender instanceof SenderReference) {
+			ids = senderValueIds;
+		}
+		Integer id = ids.get(sender);
+		if (id == null) {
+			senders.add(sender);
+			id = senders.size();
+			ids.put(sender, id);
+		}
+		return id;
+	}
+
+	/**
+	 * Write the stores and addresses that the specified message was forwarded
+	 * from, nearest first.
+	 */
+	private void writeOrigins(LogMessage<?> message) {
+		int count = 0;
+		for (LogMessage<?> m = message; m instanceof StoredLogMessage; m = ((StoredLogMessage<?>) m).getSource()) {
+			++count;
+		}
+		writeVarLong(count);
+		for (LogMessage<?> m = message; m instanceof StoredLogMessage; m = ((StoredLogMessage<?>) m).getSource()) {
+			StoredLogMessage<?> stored = (StoredLogMessage<?>) m;
+			writeVarLong(internOrigin(stored.getStore()));
+			writeVarLong(stored.getAddress());
+		}
+	}
+
+	private int internOrigin(MappedLogStore<?> store) {
+		Integer id = originIds.get(store);
+		if (id == null) {
+			origins.add(store);
+			id = origins.size() - 1;
+			originIds.put(store, id);
+		}
+		return id;
+	}
+
+	private void ensureScratch(int extra) {
+		if (scratchLength + extra > scratch.length) {
+			scratch = Arrays.copyOf(scratch, Math.max(scratch.length * 2, scratchLength + extra));
+		}
+	}
+
+	private void writeByte(byte value) {
+		ensureScratch(1);
+		scratch[scratchLength++] = value;
+	}
+
+	private void writeVarLong(long value) {
+		ensureScratch(10);
+		scratchLength = BinaryLogProtocol.writeVarLong(scratch, scratchLength, value);
+	}
+
+	private void writeString(String string) {
+		if (string == null) {
+			writeVarLong(0);
+			return;
+		}
+		byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+		writeVarLong(bytes.length + 1L);
+		ensureScratch(bytes.length);
+		System.arraycopy(bytes, 0, scratch, scratchLength, bytes.length);
+		scratchLength += bytes.length;
+	}
+
+	private static long address(int segment, int offset) {
+		return ((long) segment << 32) | offset;
+	}
+
+	private static int segmentOf(long address) {
+		return (int) (address >>> 32);
+	}
+
+	private static int offsetOf(long address) {
+		return (int) address;
+	}
+
+	/**
+	 * Returns the address that the next event will be written to, if it fits
+	 * in the current segment. Every stored event has a smaller address.
+	 */
+	public synchronized long getEndAddress() {
+		if (segments.isEmpty()) {
+			return 0;
+		}
+		int segment = segments.size() - 1;
+		return address(segment, segmentLengths[segment]);
+	}
+
+	/**
+	 * Returns the address of the first event, or {@link #getEndAddress()} if
+	 * the store is empty.
+	 */
+	public long getStartAddress() {
+		return 0;
+	}
+
+	public synchronized long getEventCount() {
+		return eventCount;
+	}
+
+	public synchronized int getScopeCount() {
+		return scopeCount;
+	}
+
+	public synchronized long getScopeStart(int scope) {
+		checkScope(scope);
+		return scopeStarts[scope];
+	}
+
+	/**
+	 * Returns the address following the event that closed the specified
+	 * scope, or -1 if the scope is still open.
+	 */
+	public synchronized long getScopeEnd(int scope) {
+		checkScope(scope);
+		return scopeEnds[scope];
+	}
+
+	/**
+	 * Returns the number of scopes that enclose the specified scope.
+	 */
+	public synchronized int getScopeDepth(int scope) {
+		checkScope(scope);
+		return scopeDepths[scope];
+	}
+
+	/**
+	 * Returns the scope that encloses the specified scope, or -1 if it is at
+	 * the root of the log.
+	 */
+	public synchronized int getScopeParent(int scope) {
+		checkScope(scope);
+		return scopeParents[scope];
+	}
+
+	private void checkScope(int scope) {
+		if (scope < 0 || scope >= scopeCount) {
+			throw new IndexOutOfBoundsException("Scope " + scope + " is out of range. Count: " + scopeCount);
+		}
+	}
+
+	/**
+	 * Returns the scope that was entered at the specified address.
+	 * 
+	 * @return the index of the scope, or -1 if no scope begins at the
+	 *         specified address
+	 */
+	public synchronized int getScope(long address) {
+		int scope = Arrays.binarySearch(scopeStarts, 0, scopeCount, address);
+		return scope >= 0 ? scope : -1;
+	}
+
+	/**
+	 * Returns the addresses of the logged messages and entered scopes that
+	 * are immediately within the specified scope. Nested scopes are skipped
+	 * using the index, so only the scope's direct children are read.
+	 * 
+	 * @param scope
+	 *            the scope whose children are listed, or -1 for the root of
+	 *            the log
+	 * @return the addresses of the children, in the order they were logged
+	 */
+	public synchronized long[] getChildren(int scope) {
+		long address;
+		long end;
+		if (scope < 0) {
+			address = getStartAddress();
+			end = getEndAddress();
+		} else {
+			checkScope(scope);
+			address = next(scopeStarts[scope]);
+			end = scopeEnds[scope] == -1 ? getEndAddress() : scopeEnds[scope];
+		}
+		long[] children = new long[16];
+		int count = 0;
+		while (address < end) {
+			address = normalize(address);
+			if (address >= end) {
+				break;
+			}
+			byte op = segments.get(segmentOf(address)).get(offsetOf(address));
+			if (op == BinaryLogProtocol.ENTER || op == BinaryLogProtocol.LOG) {
+				if (count == children.length) {
+					children = Arrays.copyOf(children, count * 2);
+				}
+				children[count++] = address;
+			}
+			if (op == BinaryLogProtocol.ENTER) {
+				long childEnd = scopeEnds[getScope(address)];
+				if (childEnd == -1) {
+					break;
+				}
+				address = childEnd;
+			} else if (scope >= 0 && (op == BinaryLogProtocol.LEAVE || op == BinaryLogProtocol.RESET)) {
+				break;
+			} else {
+				address = next(address);
+			}
+		}
+		return Arrays.copyOf(children, count);
+	}
+
+	/**
+	 * Read the message that was logged or entered at the specified address.
+	 * 
+	 * @return the message, or null if the event at the specified address has
+	 *         no message
+	 */
+	public synchronized StoredLogMessage<Message> read(long address) {
+		checkOpen();
+		address = normalize(address);
+		MappedByteBuffer buffer = segments.get(segmentOf(address));
+		readOffset = offsetOf(address);
+		byte op = buffer.get(readOffset++);
+		if (op == BinaryLogProtocol.LEAVE || op == BinaryLogProtocol.RESET) {
+			return null;
+		}
+		return readMessage(buffer, address);
+	}
+
+	/**
+	 * Stream every stored event to the specified log.
+	 * 
+	 * @return the number of events played
+	 */
+	public int play(TreeLog<? super Message> sink) {
+		return play(sink, getStartAddress(), -1);
+	}
+
+	/**
+	 * Stream the events of the specified scope, including its own enter and
+	 * leave, to the specified log.
+	 * 
+	 * @return the number of events played
+	 */
+	public int playScope(TreeLog<? super Message> sink, int scope) {
+		long start;
+		long end;
+		synchronized (this) {
+			start = getScopeStart(scope);
+			end = getScopeEnd(scope);
+		}
+		return play(sink, start, end);
+	}
+
+	/**
+	 * Stream the events between the specified addresses to the specified log.
+	 * 
+	 * @param from
+	 *            the address of the first event to play
+	 * @param to
+	 *            the address after the last event to play, or -1 to play every
+	 *            event that has been stored
+	 * @return the number of events played
+	 */
+	public synchronized int play(TreeLog<? super Message> sink, long from, long to) {
+		checkOpen();
+		if (to == -1) {
+			to = getEndAddress();
+		}
+		int played = 0;
+		long address = normalize(from);
+		while (address < to) {
+			MappedByteBuffer buffer = segments.get(segmentOf(address));
+			readOffset = offsetOf(address);
+			byte op = buffer.get(readOffset++);
+			switch (op) {
+			case BinaryLogProtocol.ENTER:
+				sink.enter(readMessage(buffer, address));
+				break;
+			case BinaryLogProtocol.LOG:
+				sink.log(readMessage(buffer, address));
+				break;
+			case BinaryLogProtocol.METADATA:
+				sink.metadata(readMessage(buffer, address));
+				break;
+			case BinaryLogProtocol.LEAVE:
+				sink.leave();
+				break;
+			case BinaryLogProtocol.RESET:
+				sink.reset();
+				break;
+			default:
+				throw new IllegalStateException("Corrupt record at address " + Long.toHexString(address) + ": op " + op);
+			}
+			++played;
+			address = normalize(address(segmentOf(address), readOffset));
+		}
+		return played;
+	}
+
+	/**
+	 * Returns the address of the event after the one at the specified
+	 * address.
+	 */
+	private long next(long address) {
+		address = normalize(address);
+		MappedByteBuffer buffer = segments.get(segmentOf(address));
+		readOffset = offsetOf(address);
+		byte op = buffer.get(readOffset++);
+		if (op != BinaryLogProtocol.LEAVE && op != BinaryLogProtocol.RESET) {
+			readMessage(buffer, address);
+		}
+		return normalize(address(segmentOf(address), readOffset));
+	}
+
+	/**
+	 * Move an address that lies past the end of its segment to the start of
+	 * the following segment.
+	 */
+	private long normalize(long address) {
+		int segment = segmentOf(address);
+		if (segment < segments.size() - 1 && offsetOf(address) >= segmentLengths[segment]) {
+			return address(segment + 1, 0);
+		}
+		return address;
+	}
+
+	private StoredLogMessage<Message> readMessage(MappedByteBuffer buffer, long address) {
+		long timestamp = BinaryLogProtocol.unZigZag(readVarLong(buffer));
+		String category = readInterned(buffer);
+		Object sender = null;
+		int senderId = (int) readVarLong(buffer);
+		if (senderId != 0) {
+			sender = senders.get(senderId - 1);
+		}
+		Message message = messageParser.adapt(readString(buffer));
+		int originCount = (int) readVarLong(buffer);
+		if (originCount == 0) {
+			return new StoredLogMessage<Message>(this, address, timestamp, sender, category, message);
+		}
+		MappedLogStore<?>[] originStores = new MappedLogStore<?>[originCount];
+		long[] originAddresses = new long[originCount];
+		for (int i = 0; i < originCount; ++i) {
+			originStores[i] = origins.get((int) readVarLong(buffer));
+			originAddresses[i] = readVarLong(buffer);
+		}
+		StoredLogMessage<Message> source = null;
+		for (int i = originCount - 1; i >= 0; --i) {
+			source = new StoredLogMessage<Message>(originStores[i], originAddresses[i], timestamp, sender, category, message, source);
+		}
+		return new StoredLogMessage<Message>(this, address, timestamp, sender, category, message, source);
+	}
+
+	private long readVarLong(MappedByteBuffer buffer) {
+		long value = 0;
+		for (int shift = 0; shift < 70; shift += 7) {
+			byte b = buffer.get(readOffset++);
+			value |= (long) (b & 0x7f) << shift;
+			if (b >= 0) {
+				return value;
+			}
+		}
+		throw new IllegalStateException("Corrupt varint at offset " + readOffset);
+	}
+
+	private String readInterned(MappedByteBuffer buffer) {
+		int id = (int) readVarLong(buffer);
+		if (id == 0) {
+			return null;
+		}
+		return strings.get(id - 1);
+	}
+
+	private String readString(MappedByteBuffer buffer) {
+		int length = (int) readVarLong(buffer) - 1;
+		if (length < 0) {
+			return null;
+		}
+		if (length > scratch.length) {
+			scratch = new byte[Math.max(length, scratch.length * 2)];
+		}
+		for (int i = 0; i < length; ++i) {
+			scratch[i] = buffer.get(readOffset++);
+		}
+		return new String(scratch, 0, length, StandardCharsets.UTF_8);
+	}
+
+	private void checkOpen() {
+		if (closed) {
+			throw new IllegalStateException("Store is closed");
+		}
+	}
+
+	/**
+	 * Discard every stored event. Scopes that are currently open are
+	 * forgotten, so their leaves will not be indexed.
+	 */
+	public synchronized void clear() {
+		checkOpen();
+		for (int i = 0; i < segments.size(); ++i) {
+			segmentLengths[i] = 0;
+		}
+		// Keep the first segment, since it will almost certainly be reused.
+		while (segments.size() > 1) {
+			segments.remove(segments.size() - 1);
+			segmentFiles.remove(segmentFiles.size() - 1).delete();
+		}
+		eventCount = 0;
+		scopeCount = 0;
+		depth = 0;
+		senders.clear();
+		senderValueIds.clear();
+		senderIdentityIds.clear();
+		origins.clear();
+		originIds.clear();
+	}
+
+	/**
+	 * Release the segments and delete their files. The store cannot be used
+	 * afterwards.
+	 */
+	@Override
+	public synchronized void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		segments.clear();
+		senders.clear();
+		senderValueIds.clear();
+		senderIdentityIds.clear();
+		origins.clear();
+		originIds.clear();
+		for (File file : segmentFiles) {
+			if (!file.delete()) {
+				// The file may still be mapped on some platforms.
+				file.deleteOnExit();
+			}
+		}
+		segmentFiles.clear();
+		if (ownsDirectory && !directory.delete()) {
+			directory.deleteOnExit();
+		}
+	}
+}
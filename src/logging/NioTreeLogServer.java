@@ -0,0 +1,476 @@
+/**
+ * Copyright (c) 2013 Aaron Faanes
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package logging;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import gui.logging.LogViewer;
+
+/**
+ * A {@link TreeLogServer} replacement that multiplexes every connection over a
+ * small, fixed number of {@link Selector} event loops, rather than dedicating
+ * a blocking {@link StreamLog} thread to each socket.
+ * <p>
+ * The textual wire protocol is unchanged: each connection sends
+ * newline-terminated lines that are fed through
+ * {@link LogParser#readLine(TreeLog, String)} into that connection's
+ * {@link BufferedTreeLog}, and a {@code CLOSE} line ends the session.
+ * Connections that begin with a {@link BinaryLogProtocol} header are decoded
+ * with a {@link BinaryLogDecoder} instead.
+ * <p>
+ * Socket reads land in direct {@link ByteBuffer}s that are borrowed from a
+ * shared pool. An idle connection holds no buffer at all; a connection only
+ * keeps its buffer between reads while it has a partial line pending.
+ *
+ * @see TreeLogServer
+ */
+public class NioTreeLogServer implements Runnable {
+
+	/**
+	 * The size of each pooled read buffer. Lines longer than this are
+	 * accumulated in a per-connection overflow array.
+	 */
+	private static final int BUFFER_SIZE = 16 * 1024;
+
+	private static final int DEFAULT_EVENT_LOOPS = 2;
+
+	private final ServerSocketChannel serverChannel;
+	private final EventLoop[] loops;
+	private final BufferPool pool = new BufferPool(BUFFER_SIZE);
+
+	private LogViewer<? super String> sink;
+
+	private volatile LogParser parser = new ScanningLogParser();
+
+	private int nextLoop = 0;
+
+	public NioTreeLogServer(int port) throws IOException {
+		this(port, DEFAULT_EVENT_LOOPS);
+	}
+
+	public NioTreeLogServer(int port, int eventLoops) throws IOException {
+		if (eventLoops < 1) {
+			throw new IllegalArgumentException("eventLoops must be at least one");
+		}
+		serverChannel = ServerSocketChannel.open();
+		serverChannel.bind(new InetSocketAddress(port));
+		loops = new EventLoop[eventLoops];
+		for (int i = 0; i < loops.length; ++i) {
+			loops[i] = new EventLoop(Selector.open());
+		}
+	}
+
+	private void serve(SocketChannel channel) throws IOException {
+		if (this.sink == null) {
+			channel.close();
+			return;
+		}
+		InetSocketAddress remote = (InetSocketAddress) channel.getRemoteAddress();
+		String name = String.format("%s:%d", remote.getAddress().getHostAddress(), remote.getPort());
+		channel.configureBlocking(false);
+
+		// The connection deletes this when it closes
+		File spillFile = File.createTempFile("treelog", ".spill");
+		BufferedTreeLog<String> log = new BufferedTreeLog<>(
+				new RingBufferTreeLog<String>(RingBufferTreeLog.DEFAULT_CAPACITY, spillFile, v -> v));
+		sink.addLogPanel(log, name);
+
+		Connection connection = new Connection(channel, log, name);
+
+		EventLoop loop = loops[nextLoop];
+		nextLoop = (nextLoop + 1) % loops.length;
+		loop.register(connection);
+	}
+
+	@Override
+	public void run() {
+		if (this.sink == null) {
+			return;
+		}
+		for (int i = 0; i < loops.length; ++i) {
+			Thread thread = new Thread(loops[i], "NioTreeLogServer event loop " + i);
+			thread.setDaemon(true);
+			thread.start();
+		}
+		try {
+			while (true) {
+				serve(serverChannel.accept());
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	public void setSink(LogViewer<? super String> sink) {
+		this.sink = sink;
+	}
+
+	public LogParser getParser() {
+		return this.parser;
+	}
+
+	/**
+	 * Set the parser used for every connection. The parser must be stateless,
+	 * since it is shared between event loops.
+	 *
+	 * @param parser
+	 *            the parser to use. It must not be null.
+	 */
+	public void setParser(LogParser parser) {
+		if (parser == null) {
+			throw new NullPointerException("parser must not be null");
+		}
+		this.parser = parser;
+	}
+
+	/**
+	 * A single selector thread that services its share of the connections.
+	 */
+	private class EventLoop implements Runnable {
+		private final Selector selector;
+		private final Queue<Connection> pending = new ConcurrentLinkedQueue<>();
+
+		/**
+		 * Scratch space used to turn a line's bytes into a {@link String}.
+		 */
+		private byte[] lineBytes = new byte[BUFFER_SIZE];
+
+		public EventLoop(Selector selector) {
+			this.selector = selector;
+		}
+
+		public void register(Connection connection) {
+			pending.add(connection);
+			selector.wakeup();
+		}
+
+		@Override
+		public void run() {
+			while (true) {
+				try {
+					selector.select();
+				} catch (IOException e) {
+					e.printStackTrace();
+					return;
+				}
+
+				Connection connection;
+				while ((connection = pending.poll()) != null) {
+					try {
+						connection.channel.register(selector, SelectionKey.OP_READ, connection);
+					} catch (IOException e) {
+						connection.close("StreamLog IOException: " + e.toString());
+					}
+				}
+
+				Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+				while (keys.hasNext()) {
+					SelectionKey key = keys.next();
+					keys.remove();
+					if (key.isValid() && key.isReadable()) {
+						read((Connection) key.attachment());
+					}
+				}
+			}
+		}
+
+		private void read(Connection connection) {
+			ByteBuffer buffer = connection.buffer;
+			if (buffer == null) {
+				buffer = pool.acquire();
+			}
+			try {
+				while (true) {
+					int read = connection.channel.read(buffer);
+					if (read < 0) {
+						pool.release(buffer);
+						connection.buffer = null;
+						connection.close("Connection was abruptly closed by peer.");
+						return;
+					}
+					if (read == 0) {
+						break;
+					}
+					buffer.flip();
+					if (!drain(connection, buffer)) {
+						pool.release(buffer);
+						connection.buffer = null;
+						return;
+					}
+					buffer.compact();
+					if (buffer.position() == buffer.capacity()) {
+						// A single line or frame has filled the whole buffer.
+						buffer.flip();
+						connection.overflow(buffer, buffer.remaining());
+						buffer.clear();
+					}
+				}
+			} catch (IOException e) {
+				pool.release(buffer);
+				connection.buffer = null;
+				connection.close("StreamLog IOException: " + e.toString());
+				return;
+			}
+
+			if (buffer.position() == 0) {
+				pool.release(buffer);
+				connection.buffer = null;
+			} else {
+				connection.buffer = buffer;
+			}
+		}
+
+		/**
+		 * Parse every complete line or frame in the specified buffer, leaving
+		 * any trailing partial one unconsumed.
+		 *
+		 * @return {@code false} if the connection was closed while parsing
+		 */
+		private boolean drain(Connection connection, ByteBuffer buffer) {
+			try {
+				if (connection.decoder == null && !connection.isText) {
+					if (!buffer.hasRemaining()) {
+						return true;
+					}
+					if (buffer.get(buffer.position()) != BinaryLogProtocol.MAGIC) {
+						connection.isText = true;
+					} else {
+						if (buffer.remaining() < BinaryLogProtocol.HEADER_LENGTH) {
+							return true;
+						}
+						int version = BinaryLogProtocol.readVersion(buffer, buffer.position());
+						if (version != BinaryLogProtocol.VERSION) {
+							connection.close("Unsupported log protocol version: " + version);
+							return false;
+						}
+						buffer.position(buffer.position() + BinaryLogProtocol.HEADER_LENGTH);
+						connection.decoder = new BinaryLogDecoder();
+					}
+				}
+				if (connection.isText) {
+					return drainLines(connection, buffer);
+				}
+				return drainFrames(connection, buffer);
+			} catch (Exception ex) {
+				connection.logString("Parser exception");
+				connection.logString(ex.toString());
+				connection.close(null);
+				return false;
+			}
+		}
+
+		private boolean drainLines(Connection connection, ByteBuffer buffer) {
+			int start = buffer.position();
+			int limit = buffer.limit();
+			for (int i = start; i < limit; ++i) {
+				if (buffer.get(i) != '\n') {
+					continue;
+				}
+				String line = toLine(connection, buffer, start, i);
+				start = i + 1;
+				buffer.position(start);
+				if (!getParser().readLine(connection.log, line)) {
+					connection.close("Connection closed on client request.");
+					return false;
+				}
+			}
+			buffer.position(start);
+			return true;
+		}
+
+		private boolean drainFrames(Connection connection, ByteBuffer buffer) {
+			if (connection.overflowLength > 0) {
+				// Finish the frame that was too large for a single buffer.
+				ByteBuffer overflow = ByteBuffer.wrap(connection.overflow, 0, connection.overflowLength);
+				int frameLength = checkFrameLength(BinaryLogProtocol.peekVarInt(overflow, 0, connection.overflowLength));
+				int prefix = BinaryLogProtocol.varIntLength(frameLength);
+				int missing = prefix + frameLength - connection.overflowLength;
+				if (missing > buffer.remaining()) {
+					connection.overflow(buffer, buffer.remaining());
+					return true;
+				}
+				connection.overflow(buffer, missing);
+				connection.overflowLength = 0;
+				if (!connection.decoder.decodeFrame(connection.log, ByteBuffer.wrap(connection.overflow, prefix, frameLength))) {
+					connection.close("Connection closed on client request.");
+					return false;
+				}
+			}
+
+			int limit = buffer.limit();
+			while (true) {
+				int start = buffer.position();
+				int frameLength = BinaryLogProtocol.peekVarInt(buffer, start, limit);
+				if (frameLength < 0) {
+					break;
+				}
+				checkFrameLength(frameLength);
+				int frameStart = start + BinaryLogProtocol.varIntLength(frameLength);
+				int frameEnd = frameStart + frameLength;
+				if (frameEnd > limit) {
+					break;
+				}
+				buffer.limit(frameEnd);
+				buffer.position(frameStart);
+				boolean open = connection.decoder.decodeFrame(connection.log, buffer);
+				buffer.limit(limit);
+				buffer.position(frameEnd);
+				if (!open) {
+					connection.close("Connection closed on client request.");
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private int checkFrameLength(int frameLength) {
+			if (frameLength < 1 || frameLength > BinaryLogProtocol.MAX_FRAME_LENGTH) {
+				throw new IllegalArgumentException("Invalid frame length: " + frameLength);
+			}
+			return frameLength;
+		}
+
+		private String toLine(Connection connection, ByteBuffer buffer, int start, int end) {
+			int length = connection.overflowLength + end - start;
+			if (lineBytes.length < length) {
+				lineBytes = new byte[Math.max(length, lineBytes.length * 2)];
+			}
+			System.arraycopy(connection.overflow, 0, lineBytes, 0, connection.overflowLength);
+			int offset = connection.overflowLength;
+			for (int i = start; i < end; ++i) {
+				lineBytes[offset++] = buffer.get(i);
+			}
+			connection.overflowLength = 0;
+			if (length > 0 && lineBytes[length - 1] == '\r') {
+				--length;
+			}
+			return new String(lineBytes, 0, length, StandardCharsets.UTF_8);
+		}
+	}
+
+	/**
+	 * The per-socket state for a single log producer.
+	 */
+	private static class Connection {
+		private static final byte[] NO_OVERFLOW = new byte[0];
+
+		private final SocketChannel channel;
+		private final BufferedTreeLog<String> log;
+
+		/**
+		 * The pooled buffer holding a partial line or frame, or null if this
+		 * connection is between them.
+		 */
+		private ByteBuffer buffer;
+
+		private byte[] overflow = NO_OVERFLOW;
+		private int overflowLength = 0;
+
+		/**
+		 * Whether this connection has been identified as using the textual
+		 * protocol.
+		 */
+		private boolean isText;
+
+		/**
+		 * The decoder for a connection using the binary protocol, or null if
+		 * it has not sent a binary header.
+		 */
+		private BinaryLogDecoder decoder;
+
+		public Connection(SocketChannel channel, BufferedTreeLog<String> log, String name) {
+			this.channel = channel;
+			this.log = log;
+			log.enter(new LogMessage<String>("Connection received from " + name));
+		}
+
+		public void logString(String msg) {
+			log.log(new LogMessage<String>(msg));
+		}
+
+		/**
+		 * Move bytes from the specified buffer into this connection's overflow
+		 * array.
+		 */
+		public void overflow(ByteBuffer buffer, int count) {
+			int needed = overflowLength + count;
+			if (overflow.length < needed) {
+				overflow = Arrays.copyOf(overflow, Math.max(needed, overflow.length * 2));
+			}
+			buffer.get(overflow, overflowLength, count);
+			overflowLength = needed;
+		}
+
+		public void close(String reason) {
+			if (reason != null) {
+				logString(reason);
+			}
+			try {
+				channel.close();
+			} catch (IOException e) {
+				logString("StreamLog IOException: " + e.toString());
+			}
+			overflow = NO_OVERFLOW;
+			overflowLength = 0;
+			log.leave();
+			// Nothing more is logged, so the spill file can go once it is drained
+			log.getBuffer().close();
+		}
+	}
+
+	/**
+	 * A simple free-list of direct buffers, shared by every event loop.
+	 */
+	private static class BufferPool {
+		private final int bufferSize;
+		private final Queue<ByteBuffer> free = new ConcurrentLinkedQueue<>();
+
+		public BufferPool(int bufferSize) {
+			this.bufferSize = bufferSize;
+		}
+
+		public ByteBuffer acquire() {
+			ByteBuffer buffer = free.poll();
+			if (buffer == null) {
+				return ByteBuffer.allocateDirect(bufferSize);
+			}
+			return buffer;
+		}
+
+		public void release(ByteBuffer buffer) {
+			buffer.clear();
+			free.add(buffer);
+		}
+	}
+}
@@ -0,0 +1,584 @@
+/**
+ * Copyright (c) 2013 Aaron Faanes
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package logging;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import logic.adapters.Adapter;
+
+/**
+ * A bounded, single-producer/single-consumer buffer of {@link TreeLog}
+ * events.
+ * <p>
+ * Events are stored as op codes, message references and scope depths in
+ * preallocated arrays, so logging an event allocates nothing and takes no
+ * locks. One thread may log to this buffer while another thread
+ * {@link #drain(TreeLog, int) drains} it; {@link BufferedTreeLog} uses this
+ * to hand events from a logging thread to the Swing EDT.
+ * <p>
+ * When the buffer is full, its {@link OverflowPolicy} decides what happens to
+ * the next event. Dropped events are counted, and the consumer rebalances
+ * scopes around a gap so that the drained stream always has matching enters
+ * and leaves.
+ *
+ * @param <Message>
+ *            the type of log message
+ * @see BufferedTreeLog
+ * @see ReplayableTreeLog
+ */
+public class RingBufferTreeLog<Message> implements TreeLog<Message>, Closeable {
+
+	/**
+	 * What a {@link RingBufferTreeLog} does with an event when it is full.
+	 */
+	public enum OverflowPolicy {
+		/**
+		 * Wait for the consumer to make room. The producer must never be the
+		 * consumer's thread.
+		 */
+		BLOCK,
+
+		/**
+		 * Overwrite the oldest undrained event.
+		 */
+		DROP_OLDEST,
+
+		/**
+		 * Append the event to a file using the {@link BinaryLogProtocol}, and
+		 * keep doing so until the consumer has caught up. Spilled messages are
+		 * read back in their string form.
+		 */
+		SPILL
+	}
+
+	public static final int DEFAULT_CAPACITY = 1 << 12;
+
+	private static final VarHandle MESSAGES = MethodHandles.arrayElementVarHandle(LogMessage[].class);
+
+	private static final long BLOCK_PARK_NANOS = 100000;
+
+	private final int capacity;
+	private final int mask;
+	private final OverflowPolicy policy;
+
+	private final byte[] ops;
+	private final LogMessage<? extends Message>[] messages;
+
+	/**
+	 * The producer's scope depth before each event.
+	 */
+	private final int[] depths;
+
+	/**
+	 * The index of the next event to be drained. Only the consumer writes
+	 * this.
+	 */
+	private final AtomicLong head = new AtomicLong();
+
+	/**
+	 * The index of the next event to be logged. Only the producer writes
+	 * this.
+	 */
+	private final AtomicLong tail = new AtomicLong();
+
+	/**
+	 * The producer's current scope depth.
+	 */
+	private int depth;
+
+	/**
+	 * The scope depth of the events the consumer has delivered so far.
+	 */
+	private int deliveredDepth;
+
+	private final AtomicLong dropped = new AtomicLong();
+	private final AtomicLong spilled = new AtomicLong();
+
+	private final File spillFile;
+	private final Adapter<String, Message> messageParser;
+	private final Object spillLock = new Object();
+	private volatile boolean spilling;
+	private boolean closed;
+	private FileChannel spillChannel;
+	private FileOutputStream spillOutput;
+	private BinaryTreeLogWriter<Object> spillWriter;
+	private BinaryLogDecoder spillDecoder;
+	private long spillRead;
+	private ByteBuffer spillBuffer;
+
+	public RingBufferTreeLog() {
+		this(DEFAULT_CAPACITY, OverflowPolicy.DROP_OLDEST);
+	}
+
+	/**
+	 * @param capacity
+	 *            the number of events this buffer holds. It is rounded up to
+	 *            a power of two.
+	 * @param policy
+	 *            what to do when the buffer is full. Use
+	 *            {@link #RingBufferTreeLog(int, File, Adapter)} to spill
+	 *            events to disk.
+	 */
+	public RingBufferTreeLog(int capacity, OverflowPolicy policy) {
+		this(capacity, policy, null, null);
+		if (policy == OverflowPolicy.SPILL) {
+			throw new IllegalArgumentException("Spilling requires a spill file");
+		}
+	}
+
+	/**
+	 * Create a buffer that spills to the specified file when it is full.
+	 * 
+	 * @param capacity
+	 *            the number of events kept in memory. It is rounded up to a
+	 *            power of two.
+	 * @param spillFile
+	 *            the file that holds overflowing events. It is overwritten,
+	 *            and deleted once this buffer is closed.
+	 * @param messageParser
+	 *            converts spilled messages back into messages
+	 */
+	public RingBufferTreeLog(int capacity, File spillFile, Adapter<String, Message> messageParser) {
+		this(capacity, OverflowPolicy.SPILL, spillFile, messageParser);
+		if (spillFile == null) {
+			throw new NullPointerException("spillFile must not be null");
+		}
+		if (messageParser == null) {
+			throw new NullPointerException("messageParser must not be null");
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private RingBufferTreeLog(int capacity, OverflowPolicy policy, File spillFile, Adapter<String, Message> messageParser) {
+		if (capacity < 1 || capacity > 1 << 30) {
+			throw new IllegalArgumentException("capacity out of range: " + capacity);
+		}
+		if (policy == null) {
+			throw new NullPointerException("policy must not be null");
+		}
+		int size = 1;
+		while (size < capacity) {
+			size <<= 1;
+		}
+		this.capacity = size;
+		this.mask = this.capacity - 1;
+		this.policy = policy;
+		this.spillFile = spillFile;
+		this.messageParser = messageParser;
+
+		ops = new byte[this.capacity];
+		messages = (LogMessage<? extends Message>[]) new LogMessage<?>[this.capacity];
+		depths = new int[this.capacity];
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	public OverflowPolicy getPolicy() {
+		return policy;
+	}
+
+	/**
+	 * Returns the number of events that have been lost to
+	 * {@link OverflowPolicy#DROP_OLDEST}.
+	 */
+	public long getDroppedCount() {
+		long pending = tail.get() - head.get() - capacity + 1;
+		if (policy != OverflowPolicy.DROP_OLDEST) {
+			pending = 0;
+		}
+		return dropped.get() + Math.max(0, pending);
+	}
+
+	/**
+	 * Returns the number of events that have been written to the spill file.
+	 */
+	public long getSpilledCount() {
+		return spilled.get();
+	}
+
+	public boolean isEmpty() {
+		return head.get() == tail.get() && !spilling;
+	}
+
+	@Override
+	public void log(LogMessage<? extends Message> message) {
+		publish(BinaryLogProtocol.LOG, message, depth);
+	}
+
+	@Override
+	public void metadata(LogMessage<? extends Message> message) {
+		publish(BinaryLogProtocol.METADATA, message, depth);
+	}
+
+	@Override
+	public void enter(LogMessage<? extends Message> scope) {
+		publish(BinaryLogProtocol.ENTER, scope, depth);
+		++depth;
+	}
+
+	@Override
+	public void leave() {
+		publish(BinaryLogProtocol.LEAVE, null, depth);
+		if (depth > 0) {
+			--depth;
+		}
+	}
+
+	@Override
+	public void reset() {
+		publish(BinaryLogProtocol.RESET, null, depth);
+		depth = 0;
+	}
+
+	private void publish(byte op, LogMessage<? extends Message> message, int depthBefore) {
+		if (spilling) {
+			spill(op, message);
+			return;
+		}
+		long t = tail.get();
+		if (t - head.get() >= capacity) {
+			switch (policy) {
+			case BLOCK:
+				while (t - head.get() >= capacity) {
+					LockSupport.parkNanos(BLOCK_PARK_NANOS);
+				}
+				break;
+			case DROP_OLDEST:
+				break;
+			case SPILL:
+				spill(op, message);
+				return;
+			}
+		}
+		int slot = (int) (t & mask);
+		ops[slot] = op;
+		messages[slot] = message;
+		depths[slot] = depthBefore;
+		tail.lazySet(t + 1);
+	}
+
+	/**
+	 * Deliver buffered events to the specified sink, removing them from this
+	 * buffer. Only one thread may drain a buffer at a time.
+	 * 
+	 * @param sink
+	 *            the log that will receive events
+	 * @param maxDrained
+	 *            the maximum number of events to deliver, or zero to deliver
+	 *            every available event
+	 * @return the number of events that were delivered
+	 */
+	public int drain(TreeLog<? super Message> sink, int maxDrained) {
+		int drained = 0;
+		long h = head.get();
+		long t = tail.get();
+		long gap = 0;
+		boolean drainSpill = false;
+		if (t - h >= capacity && policy == OverflowPolicy.DROP_OLDEST) {
+			// The oldest slot may be in the middle of being overwritten.
+			gap = t - capacity + 1 - h;
+			h += gap;
+		}
+		while (true) {
+			while (h < t && (maxDrained <= 0 || drained < maxDrained)) {
+				int slot = (int) (h & mask);
+				byte op = ops[slot];
+				LogMessage<? extends Message> message = messages[slot];
+				int depthBefore = depths[slot];
+				if (policy == OverflowPolicy.DROP_OLDEST) {
+					// The producer may have lapped us while we were reading.
+					VarHandle.loadLoadFence();
+					long latest = tail.get();
+					if (latest >= h + capacity) {
+						long skipTo = latest - capacity + 1;
+						gap += skipTo - h;
+						h = skipTo;
+						t = latest;
+						continue;
+					}
+					clearSlot(slot, message, h);
+				} else {
+					messages[slot] = null;
+				}
+				if (gap > 0) {
+					dropped.addAndGet(gap);
+					recoverFromGap(sink, gap, depthBefore);
+					gap = 0;
+				}
+				deliver(sink, op, message);
+				++drained;
+				++h;
+			}
+			if (policy != OverflowPolicy.SPILL || h != t || !spilling || (maxDrained > 0 && drained >= maxDrained)) {
+				break;
+			}
+			// The producer stops using the ring once it is spilling, so events
+			// it published after t was read are older than any spilled event.
+			long latest = tail.get();
+			if (latest == t) {
+				drainSpill = true;
+				break;
+			}
+			t = latest;
+		}
+		if (gap > 0) {
+			dropped.addAndGet(gap);
+		}
+		head.lazySet(h);
+
+		if (drainSpill) {
+			drained += drainSpill(sink, maxDrained <= 0 ? 0 : maxDrained - drained);
+		}
+		return drained;
+	}
+
+	/**
+	 * Forget the message of a drained event, so that it can be collected
+	 * before the producer overwrites its slot. The producer may overwrite the
+	 * slot at any time, so the message is only cleared if it is still there.
+	 * If the producer has since logged the same message into the slot, it is
+	 * put back.
+	 */
+	private void clearSlot(int slot, LogMessage<? extends Message> message, long index) {
+		if (message == null || !MESSAGES.compareAndSet(messages, slot, message, null)) {
+			return;
+		}
+		if (tail.get() >= index + capacity) {
+			MESSAGES.compareAndSet(messages, slot, null, message);
+		}
+	}
+
+	/**
+	 * Note the dropped events, then enter or leave scopes so that the next
+	 * event is delivered at the depth it was logged at.
+	 */
+	private void recoverFromGap(TreeLog<? super Message> sink, long gap, int targetDepth) {
+		sink.log(new LogMessage<Message>(gap + " events dropped", null));
+		while (deliveredDepth > targetDepth) {
+			sink.leave();
+			--deliveredDepth;
+		}
+		while (deliveredDepth < targetDepth) {
+			sink.enter(new LogMessage<Message>("Dropped events", null));
+			++deliveredDepth;
+		}
+	}
+
+	private void deliver(TreeLog<? super Message> sink, byte op, LogMessage<? extends Message> message) {
+		switch (op) {
+		case BinaryLogProtocol.ENTER:
+			sink.enter(message);
+			++deliveredDepth;
+			break;
+		case BinaryLogProtocol.LEAVE:
+			sink.leave();
+			if (deliveredDepth > 0) {
+				--deliveredDepth;
+			}
+			break;
+		case BinaryLogProtocol.RESET:
+			sink.reset();
+			deliveredDepth = 0;
+			break;
+		case BinaryLogProtocol.METADATA:
+			sink.metadata(message);
+			break;
+		case BinaryLogProtocol.LOG:
+			sink.log(message);
+			break;
+		default:
+			throw new AssertionError("Unknown op: " + op);
+		}
+	}
+
+	private void spill(byte op, LogMessage<? extends Message> message) {
+		synchronized (spillLock) {
+			if (closed) {
+				throw new IllegalStateException("Spilling to a closed buffer: " + spillFile);
+			}
+			try {
+				if (spillWriter == null) {
+					spillChannel = new RandomAccessFile(spillFile, "rw").getChannel();
+					spillChannel.truncate(0);
+					spillOutput = new FileOutputStream(spillFile, true);
+					spillWriter = new BinaryTreeLogWriter<Object>(spillOutput);
+					spillDecoder = new BinaryLogDecoder();
+					spillRead = BinaryLogProtocol.HEADER_LENGTH;
+				}
+			} catch (IOException e) {
+				throw new IllegalStateException("Unable to open spill file: " + spillFile, e);
+			}
+			switch (op) {
+			case BinaryLogProtocol.ENTER:
+				spillWriter.enter(message);
+				break;
+			case BinaryLogProtocol.LEAVE:
+				spillWriter.leave();
+				break;
+			case BinaryLogProtocol.RESET:
+				spillWriter.reset();
+				break;
+			case BinaryLogProtocol.METADATA:
+				spillWriter.metadata(message);
+				break;
+			case BinaryLogProtocol.LOG:
+				spillWriter.log(message);
+				break;
+			}
+			if (spillWriter.checkError()) {
+				throw new IllegalStateException("Unable to write spill file: " + spillFile, spillWriter.getError());
+			}
+			spilling = true;
+			spilled.incrementAndGet();
+		}
+	}
+
+	private int drainSpill(final TreeLog<? super Message> sink, int maxDrained) {
+		TreeLog<String> adapter = new TreeLog<String>() {
+			@Override
+			public void log(LogMessage<? extends String> message) {
+				sink.log(adapt(message));
+			}
+
+			@Override
+			public void metadata(LogMessage<? extends String> message) {
+				sink.metadata(adapt(message));
+			}
+
+			@Override
+			public void enter(LogMessage<? extends String> scope) {
+				sink.enter(adapt(scope));
+			}
+
+			@Override
+			public void leave() {
+				sink.leave();
+			}
+
+			@Override
+			public void reset() {
+				sink.reset();
+			}
+
+			private LogMessage<Message> adapt(LogMessage<? extends String> message) {
+				return message.changeMessage(messageParser.adapt(message.getMessage()));
+			}
+		};
+
+		int drained = 0;
+		try {
+			if (spillBuffer == null) {
+				spillBuffer = ByteBuffer.allocate(64 * 1024);
+			}
+			while (maxDrained <= 0 || drained < maxDrained) {
+				long written;
+				synchronized (spillLock) {
+					written = spillChannel.size();
+					if (spillRead == written && spillBuffer.position() == 0) {
+						// Caught up, so the producer can go back to the ring.
+						spillOutput.close();
+						spillOutput = null;
+						spillWriter = null;
+						spillChannel.truncate(0);
+						spillChannel.close();
+						spillChannel = null;
+						spilling = false;
+						if (closed) {
+							spillFile.delete();
+						}
+						break;
+					}
+				}
+				if (spillRead < written && spillBuffer.hasRemaining()) {
+					spillRead += spillChannel.read(spillBuffer, spillRead);
+				}
+				spillBuffer.flip();
+				while (maxDrained <= 0 || drained < maxDrained) {
+					int start = spillBuffer.position();
+					int length = BinaryLogProtocol.peekVarInt(spillBuffer, start, spillBuffer.limit());
+					if (length < 0) {
+						break;
+					}
+					int frameStart = start + BinaryLogProtocol.varIntLength(length);
+					int frameEnd = frameStart + length;
+					if (frameEnd > spillBuffer.limit()) {
+						if (frameEnd - start > spillBuffer.capacity()) {
+							ByteBuffer grown = ByteBuffer.allocate(frameEnd - start);
+							grown.put(spillBuffer);
+							grown.flip();
+							spillBuffer = grown;
+						}
+						break;
+					}
+					int limit = spillBuffer.limit();
+					spillBuffer.limit(frameEnd).position(frameStart);
+					spillDecoder.decodeFrame(adapter, spillBuffer);
+					spillBuffer.limit(limit).position(frameEnd);
+					++drained;
+				}
+				spillBuffer.compact();
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to read spill file: " + spillFile, e);
+		}
+		return drained;
+	}
+
+	/**
+	 * Release this buffer's spill file once the producer is done with it.
+	 * If events are still spilled, the file is deleted when the consumer has
+	 * drained them; otherwise it is deleted now. Only the producer may call
+	 * this, and it must not log to a spilling buffer afterward.
+	 */
+	@Override
+	public void close() {
+		if (spillFile == null) {
+			return;
+		}
+		synchronized (spillLock) {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			if (!spilling) {
+				spillFile.delete();
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "RingBufferTreeLog[" + (tail.get() - head.get()) + " of " + capacity + ", " + policy + "]";
+	}
+}
@@ -0,0 +1,123 @@
+/**
+ * Copyright (c) 2013 Aaron Faanes
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package logging;
+
+/**
+ * Describes how a {@link SamplingTreeLog} thins out the scopes of one
+ * category.
+ * <p>
+ * Policies are immutable, so one policy can be shared by many logs. The
+ * counters and token buckets that a policy needs are kept by each log.
+ * 
+ * @see SamplingTreeLog
+ */
+public final class SamplingPolicy {
+
+	public enum Kind {
+		/**
+		 * Keep the first of every {@code limit} scopes.
+		 */
+		KEEP_ONE_IN,
+
+		/**
+		 * Keep at most {@code limit} scopes per second, using a token bucket
+		 * that holds one second's worth of scopes.
+		 */
+		SCOPES_PER_SECOND,
+
+		/**
+		 * Keep every scope, but only the first {@code limit} children of each
+		 * scope. The remaining children are replaced by a single node that
+		 * counts them.
+		 */
+		FIRST_CHILDREN
+	}
+
+	public static SamplingPolicy keepOneIn(int n) {
+		return new SamplingPolicy(Kind.KEEP_ONE_IN, n);
+	}
+
+	public static SamplingPolicy scopesPerSecond(int rate) {
+		return new SamplingPolicy(Kind.SCOPES_PER_SECOND, rate);
+	}
+
+	public static SamplingPolicy firstChildren(int k) {
+		return new SamplingPolicy(Kind.FIRST_CHILDREN, k);
+	}
+
+	private final Kind kind;
+
+	private final int limit;
+
+	public SamplingPolicy(Kind kind, int limit) {
+		if (kind == null) {
+			throw new NullPointerException("kind must not be null");
+		}
+		if (limit < 1 && kind != Kind.FIRST_CHILDREN) {
+			throw new IllegalArgumentException("limit must be positive. Limit: " + limit);
+		}
+		if (limit < 0) {
+			throw new IllegalArgumentException("limit must not be negative. Limit: " + limit);
+		}
+		this.kind = kind;
+		this.limit = limit;
+	}
+
+	public Kind getKind() {
+		return kind;
+	}
+
+	public int getLimit() {
+		return limit;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (obj == this) {
+			return true;
+		}
+		if (!(obj instanceof SamplingPolicy)) {
+			return false;
+		}
+		SamplingPolicy other = (SamplingPolicy) obj;
+		return kind == other.kind && limit == other.limit;
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * kind.hashCode() + limit;
+	}
+
+	@Override
+	public String toString() {
+		switch (kind) {
+		case KEEP_ONE_IN:
+			return "Keep 1 in " + limit + " scopes";
+		case SCOPES_PER_SECOND:
+			return "Keep " + limit + " scopes per second";
+		case FIRST_CHILDREN:
+			return "Keep the first " + limit + " children";
+		default:
+			throw new AssertionError("Unhandled kind: " + kind);
+		}
+	}
+}
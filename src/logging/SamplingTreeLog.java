@@ -0,0 +1,259 @@
+/**
+ * Copyright (c) 2013 Aaron Faanes
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package logging;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A {@link TreeLog} that thins out noisy categories before they reach its
+ * sink, according to a {@link SamplingPolicy} for each category.
+ * <p>
+ * A scope's category decides whether the scope is kept. Dropped scopes are
+ * dropped along with everything logged within them, in the same way that
+ * {@link ScopeGuardedTreeLog} ignores unguarded scopes, so the sink always
+ * sees balanced enters and leaves. A {@link SamplingPolicy.Kind#FIRST_CHILDREN}
+ * policy instead limits the children of its scopes; when such a scope is left,
+ * a node such as {@code "12 more elided"} is logged in place of the children
+ * that were dropped.
+ * <p>
+ * The policy map may be shared, and modified by other threads, such as a
+ * viewer's menu. A policy change affects scopes that are entered afterwards.
+ * Timestamps of the entered scopes, rather than the clock, are used to refill
+ * token buckets, so replayed logs are sampled the same way as live ones.
+ * <p>
+ * Like the other proxies, this log itself is not thread-safe.
+ * 
+ * @param <T>
+ *            the type of log message
+ * @see SamplingPolicy
+ */
+public class SamplingTreeLog<T> extends ProxyTreeLog<T> {
+
+	private static class Counter {
+		final SamplingPolicy policy;
+
+		long seen;
+
+		double tokens;
+
+		long lastRefill;
+
+		Counter(SamplingPolicy policy, long timestamp) {
+			this.policy = policy;
+			this.tokens = policy.getLimit();
+			this.lastRefill = timestamp;
+		}
+	}
+
+	private final Map<String, SamplingPolicy> policies;
+
+	private final Map<String, Counter> counters = new HashMap<>();
+
+	/**
+	 * The number of dropped scopes that we're currently within.
+	 */
+	private int suppressedLevels;
+
+	private int depth;
+
+	/**
+	 * The child limit of each open scope, or -1 if the scope is unlimited.
+	 */
+	private int[] childLimits = new int[16];
+
+	private int[] childCounts = new int[16];
+
+	private int[] elidedCounts = new int[16];
+
+	private long lastTimestamp;
+
+	private long droppedScopes;
+
+	public SamplingTreeLog() {
+		this(new ConcurrentHashMap<String, SamplingPolicy>());
+	}
+
+	/**
+	 * Create a log that uses the specified, possibly shared, policies.
+	 * 
+	 * @param policies
+	 *            the policies, keyed by category. Modifications to this map
+	 *            will be observed by this log, so it should be thread-safe if
+	 *            it is modified while this log is in use.
+	 */
+	public SamplingTreeLog(Map<String, SamplingPolicy> policies) {
+		if (policies == null) {
+			throw new NullPointerException("policies must not be null");
+		}
+		this.policies = policies;
+	}
+
+	public Map<String, SamplingPolicy> getPolicies() {
+		return policies;
+	}
+
+	public void setPolicy(String category, SamplingPolicy policy) {
+		if (policy == null) {
+			policies.remove(category);
+		} else {
+			policies.put(category, policy);
+		}
+	}
+
+	public SamplingPolicy getPolicy(String category) {
+		if (category == null) {
+			return null;
+		}
+		return policies.get(category);
+	}
+
+	/**
+	 * Returns the number of scopes that have been dropped by a
+	 * {@link SamplingPolicy.Kind#KEEP_ONE_IN} or
+	 * {@link SamplingPolicy.Kind#SCOPES_PER_SECOND} policy.
+	 */
+	public long getDroppedScopeCount() {
+		return droppedScopes;
+	}
+
+	@Override
+	public void log(LogMessage<? extends T> message) {
+		if (suppressedLevels > 0 || !admitChild()) {
+			return;
+		}
+		lastTimestamp = message.getTimestamp();
+		super.log(message);
+	}
+
+	@Override
+	public void metadata(LogMessage<? extends T> message) {
+		if (suppressedLevels > 0) {
+			return;
+		}
+		super.metadata(message);
+	}
+
+	@Override
+	public void enter(LogMessage<? extends T> scope) {
+		if (suppressedLevels > 0 || !admitChild()) {
+			++suppressedLevels;
+			return;
+		}
+		SamplingPolicy policy = getPolicy(scope.getCategory());
+		if (policy != null && !admitScope(scope, policy)) {
+			++droppedScopes;
+			++suppressedLevels;
+			return;
+		}
+		if (depth == childLimits.length) {
+			childLimits = Arrays.copyOf(childLimits, depth * 2);
+			childCounts = Arrays.copyOf(childCounts, depth * 2);
+			elidedCounts = Arrays.copyOf(elidedCounts, depth * 2);
+		}
+		if (policy != null && policy.getKind() == SamplingPolicy.Kind.FIRST_CHILDREN) {
+			childLimits[depth] = policy.getLimit();
+		} else {
+			childLimits[depth] = -1;
+		}
+		childCounts[depth] = 0;
+		elidedCounts[depth] = 0;
+		++depth;
+		lastTimestamp = scope.getTimestamp();
+		super.enter(scope);
+	}
+
+	@Override
+	public void leave() {
+		if (suppressedLevels > 0) {
+			--suppressedLevels;
+			return;
+		}
+		if (depth == 0) {
+			// Unbalanced leaves are passed along, just as if we weren't here.
+			super.leave();
+			return;
+		}
+		--depth;
+		if (elidedCounts[depth] > 0) {
+			super.log(new LogMessage<T>(lastTimestamp, null, elidedCounts[depth] + " more elided", null));
+		}
+		super.leave();
+	}
+
+	@Override
+	public void reset() {
+		suppressedLevels = 0;
+		depth = 0;
+		super.reset();
+	}
+
+	/**
+	 * Count a new child of the current scope.
+	 * 
+	 * @return {@code true} if the child should be kept
+	 */
+	private boolean admitChild() {
+		if (depth == 0) {
+			return true;
+		}
+		int current = depth - 1;
+		int limit = childLimits[current];
+		if (limit < 0 || childCounts[current] < limit) {
+			++childCounts[current];
+			return true;
+		}
+		++elidedCounts[current];
+		return false;
+	}
+
+	private boolean admitScope(LogMessage<? extends T> scope, SamplingPolicy policy) {
+		if (policy.getKind() == SamplingPolicy.Kind.FIRST_CHILDREN) {
+			return true;
+		}
+		long timestamp = scope.getTimestamp();
+		Counter counter = counters.get(scope.getCategory());
+		if (counter == null || counter.policy != policy) {
+			counter = new Counter(policy, timestamp);
+			counters.put(scope.getCategory(), counter);
+		}
+		switch (policy.getKind()) {
+		case KEEP_ONE_IN:
+			return counter.seen++ % policy.getLimit() == 0;
+		case SCOPES_PER_SECOND:
+			if (timestamp > counter.lastRefill) {
+				double refill = (timestamp - counter.lastRefill) * policy.getLimit() / 1000.0;
+				counter.tokens = Math.min(policy.getLimit(), counter.tokens + refill);
+				counter.lastRefill = timestamp;
+			}
+			if (counter.tokens < 1) {
+				return false;
+			}
+			--counter.tokens;
+			return true;
+		default:
+			throw new AssertionError("Unhandled kind: " + policy.getKind());
+		}
+	}
+}
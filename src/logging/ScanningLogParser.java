@@ -0,0 +1,184 @@
+/**
+ * Copyright (c) 2013 Aaron Faanes
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package logging;
+
+/**
+ * A {@link LogParser} that recognizes the
+ * {@code >>> timestamp (category) [sender]@0xid message} grammar with a
+ * single hand-written pass over the line, rather than with a regular
+ * expression.
+ * <p>
+ * No {@link java.util.regex.Matcher} is created, the timestamp is parsed
+ * without boxing, and substrings are only taken for the fields that end up in
+ * the {@link LogMessage}. The rare lines whose message contains a line
+ * terminator, or whose timestamp overflows a {@code long}, are handed to the
+ * regular expression so that both parsers always agree.
+ *
+ * @see LogParser
+ */
+public class ScanningLogParser extends LogParser {
+
+	@Override
+	public boolean readLine(TreeLog<? super String> log, String line) {
+		return readLine(log, (CharSequence) line);
+	}
+
+	public boolean readLine(TreeLog<? super String> log, CharSequence line) {
+		final int length = line.length();
+		if (length == 5 && "CLOSE".contentEquals(line)) {
+			return false;
+		}
+
+		int i = skipWhitespace(line, 0, length);
+
+		char scope = 0;
+		if (i < length) {
+			char c = line.charAt(i);
+			if (c == '>' || c == '<' || c == '!' || c == '@') {
+				scope = c;
+				do {
+					++i;
+				} while (i < length && line.charAt(i) == c);
+			}
+		}
+		i = skipWhitespace(line, i, length);
+
+		boolean hasTimestamp = false;
+		long timestamp = 0;
+		while (i < length && isDigit(line.charAt(i))) {
+			int digit = line.charAt(i) - '0';
+			if (timestamp > (Long.MAX_VALUE - digit) / 10) {
+				return super.readLine(log, line.toString());
+			}
+			timestamp = timestamp * 10 + digit;
+			hasTimestamp = true;
+			++i;
+		}
+		i = skipWhitespace(line, i, length);
+
+		String category = null;
+		if (i < length && line.charAt(i) == '(') {
+			int start = skipRun(line, i, length, '(');
+			int end = indexOf(line, ')', start, length);
+			if (end >= 0) {
+				category = line.subSequence(start, end).toString();
+				i = skipRun(line, end, length, ')');
+			}
+		}
+		i = skipWhitespace(line, i, length);
+
+		Object sender = null;
+		if (i < length && line.charAt(i) == '[') {
+			int start = skipRun(line, i, length, '[');
+			int end = indexOf(line, ']', start, length);
+			if (end >= 0) {
+				sender = line.subSequence(start, end).toString();
+				i = skipRun(line, end, length, ']');
+				if (i < length && line.charAt(i) == '@') {
+					int idStart = i + 1;
+					if (idStart + 2 < length
+							&& line.charAt(idStart) == '0'
+							&& line.charAt(idStart + 1) == 'x'
+							&& isHexDigit(line.charAt(idStart + 2))) {
+						idStart += 2;
+					}
+					int idEnd = idStart;
+					while (idEnd < length && isHexDigit(line.charAt(idEnd))) {
+						++idEnd;
+					}
+					if (idEnd > idStart) {
+						sender = new SenderReference(line.subSequence(idStart, idEnd).toString(), sender);
+						i = idEnd;
+					}
+				}
+			}
+		}
+		i = skipWhitespace(line, i, length);
+
+		String message = null;
+		if (i < length) {
+			for (int j = i; j < length; ++j) {
+				if (isLineTerminator(line.charAt(j))) {
+					return super.readLine(log, line.toString());
+				}
+			}
+			message = line.subSequence(i, length).toString();
+		}
+
+		if (!hasTimestamp) {
+			timestamp = System.currentTimeMillis();
+		}
+
+		dispatch(log, scope, new LogMessage<String>(timestamp, sender, category, message));
+
+		return true;
+	}
+
+	private static int skipWhitespace(CharSequence line, int i, int length) {
+		while (i < length && isWhitespace(line.charAt(i))) {
+			++i;
+		}
+		return i;
+	}
+
+	private static int skipRun(CharSequence line, int i, int length, char c) {
+		while (i < length && line.charAt(i) == c) {
+			++i;
+		}
+		return i;
+	}
+
+	private static int indexOf(CharSequence line, char c, int i, int length) {
+		for (; i < length; ++i) {
+			if (line.charAt(i) == c) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Equivalent to the regular expression {@code \s}.
+	 */
+	private static boolean isWhitespace(char c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+	}
+
+	/**
+	 * Equivalent to the regular expression {@code \d}.
+	 */
+	private static boolean isDigit(char c) {
+		return c >= '0' && c <= '9';
+	}
+
+	private static boolean isHexDigit(char c) {
+		return isDigit(c) || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+	}
+
+	/**
+	 * Returns whether the specified character is one that the regular
+	 * expression {@code .} will not match.
+	 */
+	private static boolean isLineTerminator(char c) {
+		return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+	}
+}
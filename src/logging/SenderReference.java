@@ -0,0 +1,37 @@
+package logging;
+
+class SenderReference {
+	private final Object reference;
+	private final Object name;
+
+	public SenderReference(Object reference, Object name) {
+		this.reference = reference;
+		this.name = name;
+	}
+
+	public Object getReference() {
+		return reference;
+	}
+
+	@Override
+	public String toString() {
+		return name.toString();
+	}
+
+	@Override
+	public int hashCode() {
+		return reference.hashCode();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (obj == this) {
+			return true;
+		}
+		if (!(obj instanceof SenderReference)) {
+			return false;
+		}
+		SenderReference other = (SenderReference) obj;
+		return reference.equals(other.getReference());
+	}
+}
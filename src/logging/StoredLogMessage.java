@@ -0,0 +1,109 @@
+/**
+ * Copyright (c) 2013 Aaron Faanes
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package logging;
+
+/**
+ * A {@link LogMessage} that has been written to a {@link MappedLogStore}.
+ * <p>
+ * Stored messages are equal if they were written at the same address of the
+ * same store, so a message that is read back from the store can stand in for
+ * the one that was originally logged.
+ * <p>
+ * A message that a store received from another store keeps its
+ * {@link #getSource() source}, even once it has been read back, so that it
+ * can be found in the store it came from.
+ * 
+ * @param <T>
+ *            the type of message
+ * @see MappedLogStore
+ */
+public class StoredLogMessage<T> extends LogMessage<T> {
+
+	private final MappedLogStore<?> store;
+
+	private final long address;
+
+	private final LogMessage<? extends T> source;
+
+	/**
+	 * Create a stored message for a message that has just been written.
+	 */
+	public StoredLogMessage(MappedLogStore<?> store, long address, LogMessage<? extends T> source) {
+		super(source.getTimestamp(), source.getSender(), source.getCategory(), source.getMessage());
+		this.store = store;
+		this.address = address;
+		this.source = source;
+	}
+
+	/**
+	 * Create a stored message that was read back from the specified store.
+	 */
+	public StoredLogMessage(MappedLogStore<?> store, long address, long timestamp, Object sender, String category, T message) {
+		this(store, address, timestamp, sender, category, message, null);
+	}
+
+	/**
+	 * Create a stored message that was read back from the specified store,
+	 * and that the store received from the specified source.
+	 */
+	public StoredLogMessage(MappedLogStore<?> store, long address, long timestamp, Object sender, String category, T message, StoredLogMessage<? extends T> source) {
+		super(timestamp, sender, category, message);
+		this.store = store;
+		this.address = address;
+		this.source = source;
+	}
+
+	public MappedLogStore<?> getStore() {
+		return store;
+	}
+
+	public long getAddress() {
+		return address;
+	}
+
+	/**
+	 * Returns the message that was written to the store. If this message was
+	 * read back from the store, this is null unless the store received the
+	 * message from another store, in which case it is a stand-in for the
+	 * message in that store.
+	 */
+	public LogMessage<? extends T> getSource() {
+		return source;
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * System.identityHashCode(store) + Long.hashCode(address);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (obj == this) {
+			return true;
+		}
+		if (!(obj instanceof StoredLogMessage)) {
+			return false;
+		}
+		StoredLogMessage<?> other = (StoredLogMessage<?>) obj;
+		return store == other.store && address == other.address;
+	}
+}
@@ -1,9 +1,13 @@
 package logging;
 
 import java.io.InputStream;
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.EOFException;
 import java.io.InputStreamReader;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import logic.adapters.Adapter;
 
@@ -22,6 +26,26 @@ public class StreamLog<Message> implements Runnable {
         this.name = name;
     }
 
+    public LogParser getParser() {
+        return this.parser;
+    }
+
+    public void setParser(LogParser parser) {
+        if (parser == null) {
+            throw new NullPointerException("parser must not be null");
+        }
+        this.parser = parser;
+    }
+
+    /**
+     * Returns the log that parsed lines and frames are sent to. Parsed
+     * messages are always strings, so the stream's log must accept them.
+     */
+    @SuppressWarnings("unchecked")
+    private TreeLog<? super String> getParsedLog() {
+        return (TreeLog<? super String>) (TreeLog<?>) log;
+    }
+
     public void logString(String msg) {
         log.log(new LogMessage(messageParser.adapt(msg)));
     }
@@ -30,29 +54,100 @@ public class StreamLog<Message> implements Runnable {
     public void run() {
         log.enter(new LogMessage(messageParser.adapt("Connection received from " + name)));
         try {
-            BufferedReader in = new BufferedReader(new InputStreamReader(this.io));
-            while (true) {
-                String line = in.readLine();
-                if (line == null) {
-                    logString("Connection was abruptly closed by peer.");
+            BufferedInputStream in = new BufferedInputStream(this.io);
+            in.mark(1);
+            int first = in.read();
+            in.reset();
+            if (first == BinaryLogProtocol.MAGIC) {
+                readFrames(in);
+            } else {
+                readLines(in);
+            }
+        }
+        catch(IOException e) {
+            logString("StreamLog IOException: " + e.toString());
+        }
+        catch(IllegalArgumentException e) {
+            logString("Parser exception");
+            logString(e.toString());
+        }
+        log.leave();
+    }
+
+    private void readLines(InputStream io) throws IOException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(io));
+        while (true) {
+            String line = in.readLine();
+            if (line == null) {
+                logString("Connection was abruptly closed by peer.");
+                break;
+            }
+            try {
+                if (!parser.readLine(getParsedLog(), line)) {
+                    this.io.close();
+                    logString("Connection closed on client request.");
                     break;
                 }
-                try {
-                    if (!parser.readLine(log, line)) {
-                        this.io.close();
-                        logString("Connection closed on client request.");
-                        break;
-                    }
-                } catch (Exception ex) {
-                    logString("Parser exception");
-                    logString(ex.toString());
+            } catch (Exception ex) {
+                logString("Parser exception");
+                logString(ex.toString());
+                break;
+            }
+        }
+    }
+
+    private void readFrames(InputStream io) throws IOException {
+        DataInputStream in = new DataInputStream(io);
+        byte[] header = new byte[BinaryLogProtocol.HEADER_LENGTH];
+        in.readFully(header);
+        int version = BinaryLogProtocol.readVersion(ByteBuffer.wrap(header), 0);
+        if (version != BinaryLogProtocol.VERSION) {
+            logString("Unsupported log protocol version: " + version);
+            return;
+        }
+
+        BinaryLogDecoder decoder = new BinaryLogDecoder();
+        byte[] frame = new byte[256];
+        while (true) {
+            int length;
+            try {
+                length = readVarInt(in);
+            } catch (EOFException ex) {
+                logString("Connection was abruptly closed by peer.");
+                break;
+            }
+            try {
+                if (length < 1 || length > BinaryLogProtocol.MAX_FRAME_LENGTH) {
+                    throw new IllegalArgumentException("Invalid frame length: " + length);
+                }
+                if (frame.length < length) {
+                    frame = new byte[Math.max(length, frame.length * 2)];
+                }
+                in.readFully(frame, 0, length);
+                if (!decoder.decodeFrame(getParsedLog(), ByteBuffer.wrap(frame, 0, length))) {
+                    this.io.close();
+                    logString("Connection closed on client request.");
                     break;
                 }
+            } catch (IOException ex) {
+                throw ex;
+            } catch (Exception ex) {
+                logString("Parser exception");
+                logString(ex.toString());
+                break;
             }
         }
-        catch(IOException e) {
-            logString("StreamLog IOException: " + e.toString());
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = in.readByte();
+            value |= (b & 0x7f) << shift;
+            if (b >= 0) {
+                return value;
+            }
         }
-        log.leave();
+        throw new IOException("Malformed varint");
     }
 }
@@ -126,6 +126,35 @@ public abstract class ThreadLocalTreeLog<T, Log extends TreeLog<? super T>> impl
 		get().reset();
 	}
 
+	/**
+	 * Returns the log for the current thread, creating it if necessary.
+	 * 
+	 * @return the log for the current thread
+	 */
+	public Log getCurrentLog() {
+		return log.get();
+	}
+
+	/**
+	 * Make the current thread use the specified log until
+	 * {@link #stopImpersonating()} is called. This lets a worker thread log on
+	 * behalf of another thread.
+	 * 
+	 * @param log
+	 *            the log that the current thread will use
+	 */
+	public void impersonate(Log log) {
+		this.log.set(log);
+	}
+
+	/**
+	 * Undo a previous call to {@link #impersonate(TreeLog)}. The next message
+	 * from the current thread will create a new log for it.
+	 */
+	public void stopImpersonating() {
+		this.log.remove();
+	}
+
 	private TreeLog<? super T> get() {
 		return log.get();
 	}
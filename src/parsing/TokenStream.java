@@ -4,47 +4,197 @@
 package parsing;
 
 import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.Reader;
 import java.io.StringReader;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import logic.iterators.UnderlyingIOException;
 
 /**
- * A stream of tokens.
- * 
+ * A stream of tokens, read lazily from a {@link Reader}.
+ * <p>
+ * Subclasses implement {@link #readToken()}, consuming characters with
+ * {@link #read()} and {@link #peek()}. The stream keeps track of the line and
+ * column of the next character, so tokens can record where they were found.
+ * Every character is read exactly once, so a stream takes time linear in the
+ * length of its input.
+ * <p>
+ * {@code IOException}s that occur during iteration will be wrapped using
+ * {@link UnderlyingIOException}.
+ *
  * @author Aaron Faanes
- * 
+ * @param <T>
+ *            the type of token in this stream
+ * @param <V>
+ *            the type of visitor that can visit this stream's tokens
+ * @see Token
+ * @see TokenVisitor
  */
-public class TokenStream<T extends Token<V>, V extends TokenVisitor> {
+public abstract class TokenStream<T extends Token<V>, V extends TokenVisitor> implements Iterator<T> {
 
-	private final List<T> tokens = new LinkedList<T>();
+	private final BufferedReader reader;
 
-	@SuppressWarnings("unused")
-	private final Reader reader;
+	private boolean started = false;
+	private String line;
+	private int lineNumber = 0;
+	private int column = 0;
+
+	private T staged;
 
 	public TokenStream(String characters) {
 		if (characters == null) {
 			throw new NullPointerException("characters must not be null");
 		}
-		this.reader = new StringReader(characters);
+		this.reader = new BufferedReader(new StringReader(characters));
 	}
 
 	public TokenStream(final Reader reader) {
 		if (reader == null) {
 			throw new NullPointerException("reader must not be null");
 		}
-		if (reader.markSupported()) {
-			this.reader = reader;
+		if (reader instanceof BufferedReader) {
+			this.reader = (BufferedReader) reader;
 		} else {
 			this.reader = new BufferedReader(reader);
 		}
 	}
 
-	public void accept(V visitor) {
+	/**
+	 * Reads the next token from this stream.
+	 *
+	 * @return the next token, or {@code null} if no tokens remain
+	 * @throws IOException
+	 *             if the underlying reader fails
+	 */
+	protected abstract T readToken() throws IOException;
+
+	/**
+	 * Returns the next character of this stream without consuming it. Lines
+	 * are always terminated by {@code '\n'}, regardless of how they were
+	 * terminated in the underlying reader.
+	 *
+	 * @return the next character, or {@code -1} at the end of the stream
+	 * @throws IOException
+	 *             if the underlying reader fails
+	 */
+	protected int peek() throws IOException {
+		if (!this.started) {
+			this.advanceLine();
+		}
+		if (this.line == null) {
+			return -1;
+		}
+		if (this.column < this.line.length()) {
+			return this.line.charAt(this.column);
+		}
+		return '\n';
+	}
+
+	/**
+	 * Consumes the next character of this stream.
+	 *
+	 * @return the consumed character, or {@code -1} at the end of the stream
+	 * @throws IOException
+	 *             if the underlying reader fails
+	 * @see #peek()
+	 */
+	protected int read() throws IOException {
+		int c = this.peek();
+		if (c == -1) {
+			return -1;
+		}
+		if (this.column < this.line.length()) {
+			this.column++;
+		} else {
+			this.advanceLine();
+		}
+		return c;
+	}
+
+	private void advanceLine() throws IOException {
+		this.started = true;
+		this.line = this.reader.readLine();
+		this.lineNumber++;
+		this.column = 0;
+		if (this.line == null) {
+			this.reader.close();
+		}
+	}
+
+	/**
+	 * Returns the line containing the next character, without its line
+	 * terminator.
+	 *
+	 * @return the current line, or {@code null} at the end of the stream
+	 */
+	protected String getLine() throws IOException {
+		this.peek();
+		return this.line;
+	}
+
+	/**
+	 * Returns the one-based line number of the next character.
+	 */
+	protected int getLineNumber() throws IOException {
+		this.peek();
+		return this.lineNumber;
+	}
+
+	/**
+	 * Returns the zero-based column of the next character.
+	 */
+	protected int getColumn() throws IOException {
+		this.peek();
+		return this.column;
+	}
+
+	private T stage() throws IOException {
+		if (this.staged == null) {
+			this.staged = this.readToken();
+		}
+		return this.staged;
+	}
+
+	@Override
+	public boolean hasNext() throws UnderlyingIOException {
+		try {
+			return this.stage() != null;
+		} catch (IOException e) {
+			throw new UnderlyingIOException(e);
+		}
+	}
+
+	@Override
+	public T next() throws UnderlyingIOException {
+		if (!this.hasNext()) {
+			throw new NoSuchElementException("No more tokens are available");
+		}
+		T token = this.staged;
+		this.staged = null;
+		return token;
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException("Removal is not supported");
+	}
+
+	/**
+	 * Visits every remaining token in this stream, consuming them.
+	 *
+	 * @param visitor
+	 *            the visitor of each token
+	 * @throws IOException
+	 *             if the underlying reader fails
+	 */
+	public void accept(V visitor) throws IOException {
 		if (visitor == null) {
 			throw new NullPointerException("visitor must not be null");
 		}
-		for (T token : this.tokens) {
+		for (T token = this.stage(); token != null; token = this.stage()) {
+			this.staged = null;
 			token.accept(visitor);
 		}
 	}
@@ -0,0 +1,74 @@
+package script;
+
+import inspect.Nodeable;
+import logging.Logs;
+import script.values.ScriptFunction;
+import script.values.ScriptTemplate_Abstract;
+import script.values.ScriptValue;
+
+/**
+ * The record of a single function invocation on a {@link ThreadStack}. Each
+ * call gets its own activation, so the frame of locals and the return value of
+ * one invocation are never visible to another, whether it is a recursive call
+ * or the same function running on a different thread.
+ */
+class Activation implements Nodeable {
+	private final ScriptTemplate_Abstract object;
+	private final ScriptFunction function;
+	private final int callerFrame;
+	private final int callerFrameDepth;
+
+	private ScriptValue returnValue;
+	private boolean returning;
+
+	public Activation(ScriptTemplate_Abstract object, ScriptFunction function, int callerFrame, int callerFrameDepth) {
+		this.object = object;
+		this.function = function;
+		this.callerFrame = callerFrame;
+		this.callerFrameDepth = callerFrameDepth;
+	}
+
+	public int getCallerFrame() {
+		return this.callerFrame;
+	}
+
+	public int getCallerFrameDepth() {
+		return this.callerFrameDepth;
+	}
+
+	public ScriptFunction getFunction() {
+		return this.function;
+	}
+
+	public ScriptTemplate_Abstract getObject() {
+		return this.object;
+	}
+
+	public ScriptValue getReturnValue() {
+		return this.returnValue;
+	}
+
+	public boolean isReturning() {
+		return this.returning;
+	}
+
+	@Override
+	public void nodificate() {
+		assert Logs.openNode("Activation");
+		assert Logs.addSnapNode("Object", this.object);
+		assert Logs.addSnapNode("Function", this.function);
+		if (this.returning) {
+			assert Logs.addSnapNode("Returning", this.returnValue);
+		}
+		assert Logs.closeNode();
+	}
+
+	/**
+	 * Completes this invocation with the given value. Statements that execute
+	 * nested statements must stop once this has been called.
+	 */
+	public void setReturnValue(ScriptValue value) {
+		this.returnValue = value;
+		this.returning = true;
+	}
+}
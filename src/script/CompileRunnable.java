@@ -8,6 +8,7 @@ import java.util.List;
 import gui.script.ScriptEditor;
 import logging.Logs;
 import script.parsing.Parser;
+import script.parsing.PreparsedFile;
 
 public class CompileRunnable implements Runnable {
 	public static final String COMPILETHREADSTRING = "Compilation";
@@ -35,12 +36,14 @@ public class CompileRunnable implements Runnable {
 		try {
 			Logs.hitStopWatch();
 			this.scriptEnvironment.reset();
-			Parser.clearPreparseLists();
-			if (!scriptEditor.compileAll()) {
-				this.scriptEditor.setStatus("One or more files had errors during compilation.");
-				return;
+			List<PreparsedFile> files = scriptEditor.compileAll();
+			for (PreparsedFile file : files) {
+				if (file.hasErrors()) {
+					this.scriptEditor.setStatus("One or more files had errors during compilation.");
+					return;
+				}
 			}
-			List<Exception> exceptions = Parser.parseElements(this.scriptEnvironment);
+			List<Exception> exceptions = Parser.parseElements(this.scriptEnvironment, files);
 
 			if (exceptions.isEmpty()) {
 				this.scriptEditor.canExecute(true);
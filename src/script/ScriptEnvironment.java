@@ -3,14 +3,17 @@ package script;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 import javax.swing.JOptionPane;
 
 import gui.style.Stylesheet;
 import inspect.Inspectable;
+import logging.LogCategory;
 import logging.Logs;
 import script.exceptions.InternalException;
 import script.exceptions.TemplateAlreadyDefinedException;
@@ -53,9 +56,14 @@ import asset.Asset;
 
 @Inspectable
 public class ScriptEnvironment {
+	private static final LogCategory VARIABLE_RETRIEVALS = LogCategory.get("Variable Retrievals");
+
 	private final Map<String, ScriptValueType> variableTypes = new HashMap<String, ScriptValueType>();
 	private final Map<String, ScriptTemplate_Abstract> templates = new HashMap<String, ScriptTemplate_Abstract>();
-	private final List<javax.swing.Timer> timers = new LinkedList<javax.swing.Timer>();
+	private final List<javax.swing.Timer> timers = new CopyOnWriteArrayList<javax.swing.Timer>();
+	private final AtomicInteger functionVersion = new AtomicInteger();
+	private final LongAdder functionCacheHits = new LongAdder();
+	private final LongAdder functionCacheMisses = new LongAdder();
 	private final ThreadLocal<ThreadStack> threads = new ThreadLocal<ThreadStack>() {
 		@Override
 		protected ThreadStack initialValue() {
@@ -142,6 +150,7 @@ public class ScriptEnvironment {
 			throw new TemplateAlreadyDefinedException(ref, name);
 		}
 		this.templates.put(name, template);
+		this.invalidateFunctions();
 	}
 
 	public ScriptTemplate_Abstract getTemplate(ScriptValueType code) {
@@ -161,6 +170,38 @@ public class ScriptEnvironment {
 		return this.templates.get(name);
 	}
 
+	// Function-cache functions
+	public int getFunctionVersion() {
+		return this.functionVersion.get();
+	}
+
+	/**
+	 * Discards every function cached by a call site. This must be called
+	 * whenever a template's functions change, or a template is added, since
+	 * either can change which function a call resolves to.
+	 */
+	public void invalidateFunctions() {
+		this.functionVersion.incrementAndGet();
+	}
+
+	@Inspectable
+	public long getFunctionCacheHits() {
+		return this.functionCacheHits.sum();
+	}
+
+	@Inspectable
+	public long getFunctionCacheMisses() {
+		return this.functionCacheMisses.sum();
+	}
+
+	public void recordFunctionCacheHit() {
+		this.functionCacheHits.increment();
+	}
+
+	public void recordFunctionCacheMiss() {
+		this.functionCacheMisses.increment();
+	}
+
 	// Variable-type functions
 	public void addType(Referenced ref, String name) throws ScriptException {
 		this.addType(ref, name, new ScriptValueType(this));
@@ -203,10 +244,22 @@ public class ScriptEnvironment {
 		return this.threads.get().getCurrentObject();
 	}
 
+	public ScriptValue getReturnValue() {
+		return this.threads.get().getReturnValue();
+	}
+
 	public ScriptValue_Variable getVariableFromStack(String name) {
 		return this.threads.get().getVariableFromStack(name);
 	}
 
+	public ScriptValue_Variable getVariableFromStack(int slot, String name) {
+		return this.threads.get().getVariableFromStack(slot, name);
+	}
+
+	public boolean isReturning() {
+		return this.threads.get().isReturning();
+	}
+
 	public void retreatNestedStack() {
 		this.threads.get().retreatNestedStack();
 	}
@@ -215,6 +268,10 @@ public class ScriptEnvironment {
 		this.threads.get().retreatStack();
 	}
 
+	public void setReturnValue(ScriptValue value) {
+		this.threads.get().setReturnValue(value);
+	}
+
 	public void clearStacks() {
 		this.threads.set(new ThreadStack());
 	}
@@ -273,32 +330,33 @@ public class ScriptEnvironment {
 
 	// Variable functions
 	public ScriptValue_Variable retrieveVariable(String name) throws ScriptException {
-		assert Logs.openNode("Variable Retrievals", "Retrieving Variable (" + name + ")");
+		Logs.openNode(VARIABLE_RETRIEVALS, "Retrieving Variable (%s)", name);
 		ScriptValue_Variable value = null;
 		if (value == null) {
-			assert Logs.addSnapNode("Checking current variable stack", this.threads.get());
+			Logs.addSnapNode(VARIABLE_RETRIEVALS, "Checking current variable stack", this.threads.get());
 			value = this.getVariableFromStack(name);
 		}
 		if (value == null) {
-			assert Logs.openNode("Checking current object for valid variable");
-			assert Logs.addNode(this.getCurrentObject());
+			Logs.openNode(VARIABLE_RETRIEVALS, "Checking current object for valid variable");
+			Logs.addNode(VARIABLE_RETRIEVALS, this.getCurrentObject());
 			value = this.getCurrentObject().getVariable(name);
-			assert Logs.closeNode();
+			Logs.closeNode(VARIABLE_RETRIEVALS);
 		}
 		if (value == null) {
-			assert Logs.openNode("Checking static template stack");
-			assert Logs.addNode(this.getTemplate(name));
-			if (this.getTemplate(name) != null) {
-				value = this.getTemplate(name).getStaticReference();
+			ScriptTemplate_Abstract template = this.getTemplate(name);
+			Logs.openNode(VARIABLE_RETRIEVALS, "Checking static template stack");
+			Logs.addNode(VARIABLE_RETRIEVALS, template);
+			if (template != null) {
+				value = template.getStaticReference();
 			}
-			assert Logs.closeNode();
+			Logs.closeNode(VARIABLE_RETRIEVALS);
 		}
 		if (value == null) {
-			assert Logs.addNode("Value not found");
+			Logs.addNode(VARIABLE_RETRIEVALS, "Value not found");
 		} else {
-			assert Logs.addSnapNode("Value found", value);
+			Logs.addSnapNode(VARIABLE_RETRIEVALS, "Value found", value);
 		}
-		assert Logs.closeNode();
+		Logs.closeNode(VARIABLE_RETRIEVALS);
 		return value;
 	}
 
@@ -317,6 +375,7 @@ public class ScriptEnvironment {
 		assert Logs.openNode("Resetting Environment");
 		this.variableTypes.clear();
 		this.templates.clear();
+		this.invalidateFunctions();
 		this.clearStacks();
 		System.gc();
 		this.initialize();
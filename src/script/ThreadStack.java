@@ -7,102 +7,119 @@ import java.util.ArrayDeque;
 import java.util.Deque;
 
 import inspect.Nodeable;
+import logging.LogCategory;
 import logging.Logs;
 import script.exceptions.ScriptException;
 import script.values.ScriptFunction;
 import script.values.ScriptTemplate_Abstract;
+import script.values.ScriptValue;
 import script.values.ScriptValue_Variable;
 
+/**
+ * The call stack of a single thread. Each thread of a {@link ScriptEnvironment}
+ * has its own, so it is never shared and needs no locking.
+ */
 class ThreadStack implements Nodeable {
-	private VariableTable variableTable = new VariableTable();
-	private Deque<ScriptTemplate_Abstract> objectStack = new ArrayDeque<ScriptTemplate_Abstract>(); // Stack of called objects
-	private Deque<ScriptFunction> functionStack = new ArrayDeque<ScriptFunction>(); // Stack of called functions
+	private static final LogCategory STACK_ADVANCEMENTS = LogCategory.get("Stack Advancements and Retreats");
+	private static final LogCategory VARIABLE_ADDITIONS = LogCategory.get("Variable Stack Additions");
+	private static final LogCategory UNDEFINED_VARIABLE_ADDITIONS = LogCategory.get("Undefined Variable Stack Additions");
+
+	private Deque<Activation> activations = new ArrayDeque<Activation>(); // Stack of function invocations
+	private VariableStack variables = new VariableStack(); // Locals of every invocation
 
-	public synchronized void addVariable(String name, ScriptValue_Variable variable) {
+	public void addVariable(String name, ScriptValue_Variable variable) {
 		if (variable == null) {
-			assert Logs.openNode("Undefined Variable Stack Additions", "Adding Undefined Variable to the Stack (" + name + ")");
-		} else {
-			assert Logs.openNode("Variable Stack Additions", "Adding Variable to the Stack (" + name + ")");
-			assert Logs.addNode(variable);
+			Logs.openNode(UNDEFINED_VARIABLE_ADDITIONS, "Adding Undefined Variable to the Stack (%s)", name);
+			Logs.addNode(UNDEFINED_VARIABLE_ADDITIONS, this);
+			this.variables.addVariable(name, variable);
+			Logs.closeNode(UNDEFINED_VARIABLE_ADDITIONS);
+			return;
 		}
-		assert Logs.addNode(this);
-		this.variableTable.addVariable(name, variable);
-		assert Logs.closeNode();
+		Logs.openNode(VARIABLE_ADDITIONS, "Adding Variable to the Stack (%s)", name);
+		Logs.addNode(VARIABLE_ADDITIONS, variable);
+		Logs.addNode(VARIABLE_ADDITIONS, this);
+		this.variables.addVariable(name, variable);
+		Logs.closeNode(VARIABLE_ADDITIONS);
 	}
 
-	public synchronized void advanceNestedStack() {
-		this.variableTable.advanceNestedStack();
+	public void advanceNestedStack() {
+		this.variables.advanceNestedStack();
 	}
 
-	public synchronized void advanceStack(ScriptTemplate_Abstract template, ScriptFunction fxn) throws ScriptException {
-		assert Logs.openNode("Stack Advancements and Retreats", "Advancing Stack (Stack size before advance: " + this.functionStack.size() + ")");
-		assert (this.functionStack.size() == this.objectStack.size()) && (this.objectStack.size() == this.variableTable.getStacks().size()) : "Stacks unequal: Function-stack: " + this.functionStack.size() + " Object-stack: " + this.objectStack.size() + " Variable-stack: " + this.variableTable.getStacks().size();
+	public void advanceStack(ScriptTemplate_Abstract template, ScriptFunction fxn) throws ScriptException {
+		Logs.openNode(STACK_ADVANCEMENTS, "Advancing Stack (Stack size before advance: %d)", this.activations.size());
 		if (template != null) {
-			assert Logs.addSnapNode("Advancing object", template);
+			Logs.addSnapNode(STACK_ADVANCEMENTS, "Advancing object", template);
 		}
-		assert Logs.addSnapNode("Advancing function", fxn);
+		Logs.addSnapNode(STACK_ADVANCEMENTS, "Advancing function", fxn);
 		if (template == null) {
 			template = this.getCurrentObject();
 		}
 		if (template != null) {
-			this.objectStack.push((ScriptTemplate_Abstract) template.getValue());
-		} else {
-			this.objectStack.push(null);
+			template = (ScriptTemplate_Abstract) template.getValue();
 		}
-		this.functionStack.push(fxn);
-		this.variableTable.advanceStack();
-		assert Logs.closeNode();
+		this.activations.push(new Activation(template, fxn, this.variables.getFrame(), this.variables.getFrameDepth()));
+		this.variables.advanceFrame();
+		Logs.closeNode(STACK_ADVANCEMENTS);
 	}
 
-	public synchronized ScriptFunction getCurrentFunction() {
-		if (this.functionStack.size() == 0) {
-			throw new IllegalStateException("No call stack");
-		}
-		return this.functionStack.peek();
+	public ScriptFunction getCurrentFunction() {
+		return this.getCurrentActivation().getFunction();
 	}
 
-	public synchronized ScriptTemplate_Abstract getCurrentObject() {
-		if (this.objectStack.size() == 0) {
-			throw new IllegalStateException("No call stack");
-		}
-		return this.objectStack.peek();
+	public ScriptTemplate_Abstract getCurrentObject() {
+		return this.getCurrentActivation().getObject();
+	}
+
+	public ScriptValue getReturnValue() {
+		return this.getCurrentActivation().getReturnValue();
 	}
 
 	public ScriptValue_Variable getVariableFromStack(String name) {
-		return this.variableTable.getVariableFromStack(name);
+		return this.variables.getVariableFromStack(name);
+	}
+
+	public ScriptValue_Variable getVariableFromStack(int slot, String name) {
+		return this.variables.getVariableFromStack(slot, name);
+	}
+
+	public boolean isReturning() {
+		return this.getCurrentActivation().isReturning();
 	}
 
 	@Override
-	public synchronized void nodificate() {
+	public void nodificate() {
 		assert Logs.openNode("Thread Stack");
-		assert Logs.addNode(this.variableTable);
-		assert Logs.addSnapNode("Object stack (" + this.objectStack.size() + ")", this.objectStack);
-		assert Logs.addSnapNode("Function stack (" + this.functionStack.size() + ")", this.functionStack);
+		assert Logs.addSnapNode("Activations (" + this.activations.size() + ")", this.activations);
+		assert Logs.addNode(this.variables);
 		assert Logs.closeNode();
 	}
 
-	public synchronized void retreatNestedStack() {
-		this.variableTable.retreatNestedStack();
+	public void retreatNestedStack() {
+		this.variables.retreatNestedStack();
 	}
 
-	public synchronized void retreatStack() {
-		assert Logs.openNode("Stack Advancements and Retreats", "Retreating Stack (Stack size before retreat: " + this.functionStack.size() + ")");
-		assert (this.functionStack.size() == this.objectStack.size()) && (this.objectStack.size() == this.variableTable.getStacks().size()) : "Stacks unequal: Function-stack: " + this.functionStack.size() + " Object-stack: " + this.objectStack.size() + " Variable-stack: " + this.variableTable.getStacks().size();
-		if (this.variableTable.getStacks().size() > 0) {
-			this.variableTable.retreatStack();
-		}
-		if (this.objectStack.size() > 0) {
-			this.objectStack.pop();
-			if (this.objectStack.size() > 0) {
-				assert Logs.addSnapNode("New Current Object", this.objectStack.peek());
+	public void retreatStack() {
+		Logs.openNode(STACK_ADVANCEMENTS, "Retreating Stack (Stack size before retreat: %d)", this.activations.size());
+		if (this.activations.size() > 0) {
+			Activation activation = this.activations.pop();
+			this.variables.retreatFrame(activation.getCallerFrame(), activation.getCallerFrameDepth());
+			if (this.activations.size() > 0) {
+				Logs.addSnapNode(STACK_ADVANCEMENTS, "New Current Object", this.activations.peek().getObject());
+				Logs.addSnapNode(STACK_ADVANCEMENTS, "New Current Function", this.activations.peek().getFunction());
 			}
 		}
-		if (this.functionStack.size() > 0) {
-			this.functionStack.pop();
-			if (this.functionStack.size() > 0) {
-				assert Logs.addSnapNode("New Current Function", this.functionStack.peek());
-			}
+		Logs.closeNode(STACK_ADVANCEMENTS);
+	}
+
+	public void setReturnValue(ScriptValue value) {
+		this.getCurrentActivation().setReturnValue(value);
+	}
+
+	private Activation getCurrentActivation() {
+		if (this.activations.isEmpty()) {
+			throw new IllegalStateException("No call stack");
 		}
-		assert Logs.closeNode();
+		return this.activations.peek();
 	}
 }
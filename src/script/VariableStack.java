@@ -1,62 +1,133 @@
 /**
- * 
+ *
  */
 package script;
 
-import java.util.ArrayDeque;
-import java.util.Deque;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 
 import inspect.Nodeable;
+import logging.LogCategory;
 import logging.Logs;
 import script.values.ScriptValue_Variable;
 
+/**
+ * The local variables of every function call on one thread, kept in a single
+ * array. Each call's variables start at its frame, and each nested scope is the
+ * range from where it was entered to the top of the stack, so entering and
+ * leaving a scope only moves an index.
+ * <p>
+ * Variables are pushed in the order they are declared, which is the order
+ * {@link script.parsing.ScriptCompiler} numbers them in, so a compiled local
+ * can be read by its slot. Variables are also named, so anything that was not
+ * compiled can still be found by name.
+ */
 class VariableStack implements Nodeable {
-	private Deque<Map<String, ScriptValue_Variable>> nestedStacks = new ArrayDeque<Map<String, ScriptValue_Variable>>();
+	private static final LogCategory STACK_ADVANCEMENTS = LogCategory.get("Stack Advancements and Retreats");
+
+	private ScriptValue_Variable[] variables = new ScriptValue_Variable[64];
+	private String[] names = new String[64];
+	private int size;
+
+	private int[] scopes = new int[16];
+	private int depth;
+
+	private int frame;
+	private int frameDepth;
 
-	public VariableStack() {
-		this.nestedStacks.push(new HashMap<String, ScriptValue_Variable>());
+	public void addVariable(String name, ScriptValue_Variable variable) {
+		if (this.size == this.variables.length) {
+			this.variables = Arrays.copyOf(this.variables, this.size * 2);
+			this.names = Arrays.copyOf(this.names, this.size * 2);
+		}
+		this.names[this.size] = name;
+		this.variables[this.size] = variable;
+		this.size++;
 	}
 
-	public synchronized void addVariable(String name, ScriptValue_Variable variable) {
-		this.nestedStacks.peek().put(name, variable);
+	/**
+	 * Starts the frame of a new function call. The caller's frame must be
+	 * recorded beforehand, so that it can be restored by
+	 * {@link #retreatFrame(int, int)}.
+	 */
+	public void advanceFrame() {
+		this.frame = this.size;
+		this.frameDepth = this.depth;
 	}
 
-	public synchronized void advanceNestedStack() {
-		assert Logs.openNode("Stack Advancements and Retreats", "Advancing Nested Stack (Nested stack size before advance: " + this.nestedStacks.size() + ")");
-		assert Logs.addNode(this);
-		this.nestedStacks.push(new HashMap<String, ScriptValue_Variable>());
-		assert Logs.closeNode();
+	public void advanceNestedStack() {
+		Logs.openNode(STACK_ADVANCEMENTS, "Advancing Nested Stack (Nested stack size before advance: %d)", this.depth - this.frameDepth);
+		if (this.depth == this.scopes.length) {
+			this.scopes = Arrays.copyOf(this.scopes, this.depth * 2);
+		}
+		this.scopes[this.depth++] = this.size;
+		Logs.closeNode(STACK_ADVANCEMENTS);
+	}
+
+	public int getFrame() {
+		return this.frame;
 	}
 
-	public synchronized ScriptValue_Variable getVariableFromStack(String name) {
-		for (Map<String, ScriptValue_Variable> map : this.nestedStacks) {
-			if (map.containsKey(name)) {
-				return map.get(name);
+	public int getFrameDepth() {
+		return this.frameDepth;
+	}
+
+	public ScriptValue_Variable getVariableFromStack(String name) {
+		for (int i = this.size - 1; i >= this.frame; i--) {
+			if (name.equals(this.names[i])) {
+				return this.variables[i];
 			}
 		}
 		return null;
 	}
 
+	/**
+	 * Returns the variable in the given slot of the current frame, or looks it
+	 * up by name if that slot does not hold it.
+	 */
+	public ScriptValue_Variable getVariableFromStack(int slot, String name) {
+		int index = this.frame + slot;
+		if (index < this.size && name.equals(this.names[index])) {
+			return this.variables[index];
+		}
+		return this.getVariableFromStack(name);
+	}
+
 	@Override
-	public synchronized void nodificate() {
+	public void nodificate() {
 		assert Logs.openNode("Variable Stack");
-		assert Logs.openNode("Nested Stacks (" + this.nestedStacks.size() + " stack(s))");
-		for (Map<String, ScriptValue_Variable> map : this.nestedStacks) {
-			assert Logs.openNode("Stack (" + map.size() + " variable(s))");
-			assert Logs.addNode(map);
-			assert Logs.closeNode();
+		assert Logs.openNode("Current Frame (" + (this.size - this.frame) + " variable(s), " + (this.depth - this.frameDepth) + " nested stack(s))");
+		for (int i = this.frame; i < this.size; i++) {
+			assert Logs.addSnapNode(i - this.frame + ": " + this.names[i], this.variables[i]);
 		}
 		assert Logs.closeNode();
 		assert Logs.closeNode();
 	}
 
-	public synchronized void retreatNestedStack() {
-		assert this.nestedStacks.size() > 0;
-		assert Logs.openNode("Stack Advancements and Retreats", "Retreating Nested Stack (Nested stack size before retreat: " + this.nestedStacks.size() + ")");
-		assert Logs.addNode(this);
-		this.nestedStacks.pop();
-		assert Logs.closeNode();
+	/**
+	 * Discards the current frame, and restores the given caller's frame.
+	 */
+	public void retreatFrame(int callerFrame, int callerFrameDepth) {
+		Arrays.fill(this.variables, this.frame, this.size, null);
+		Arrays.fill(this.names, this.frame, this.size, null);
+		this.size = this.frame;
+		this.depth = this.frameDepth;
+		this.frame = callerFrame;
+		this.frameDepth = callerFrameDepth;
+	}
+
+	/**
+	 * Discards the innermost nested scope of the current frame, and the
+	 * variables declared in it.
+	 */
+	public void retreatNestedStack() {
+		if (this.depth == this.frameDepth) {
+			throw new IllegalStateException("The current frame has no nested stack to retreat from");
+		}
+		Logs.openNode(STACK_ADVANCEMENTS, "Retreating Nested Stack (Nested stack size before retreat: %d)", this.depth - this.frameDepth);
+		int scopeStart = this.scopes[--this.depth];
+		Arrays.fill(this.variables, scopeStart, this.size, null);
+		Arrays.fill(this.names, scopeStart, this.size, null);
+		this.size = scopeStart;
+		Logs.closeNode(STACK_ADVANCEMENTS);
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,149 @@
+package script.operations;
+
+import java.util.Arrays;
+import java.util.List;
+
+import inspect.Nodeable;
+import logging.Logs;
+import script.ScriptEnvironment;
+import script.exceptions.FunctionNotFoundScriptException;
+import script.exceptions.ScriptException;
+import script.parsing.Referenced;
+import script.values.RiffScriptFunction;
+import script.values.ScriptFunction;
+import script.values.ScriptTemplate_Abstract;
+import script.values.ScriptValue;
+import script.values.ScriptValueType;
+
+/**
+ * A place that calls a function by name, and remembers which function each
+ * combination of receiver and parameter types resolved to. Script calls get
+ * one per {@link ScriptExecutable_CallFunction}, and code that calls into
+ * scripts repeatedly, like a scheduler or a pathfinder, can keep its own.
+ * <p>
+ * Cached functions are discarded whenever the environment's function version
+ * changes. The cache is replaced rather than modified, so a call site may be
+ * shared between threads.
+ */
+public class FunctionCallSite implements Nodeable {
+	// Past this many receiver and parameter types, a call site stops caching
+	private static final int MAX_CACHED_TYPES = 4;
+
+	private static final class CachedFunction {
+		final int receiverType;
+		final int[] paramTypes;
+		final ScriptFunction function;
+		final ScriptTemplate_Abstract functionTemplate;
+
+		CachedFunction(int receiverType, int[] paramTypes, ScriptFunction function, ScriptTemplate_Abstract functionTemplate) {
+			this.receiverType = receiverType;
+			this.paramTypes = paramTypes;
+			this.function = function;
+			this.functionTemplate = functionTemplate;
+		}
+
+		boolean matches(int receiverType, List<ScriptValue> baseList) throws ScriptException {
+			if (this.receiverType != receiverType || this.paramTypes.length != baseList.size()) {
+				return false;
+			}
+			for (int i = 0; i < this.paramTypes.length; i++) {
+				if (this.paramTypes[i] != getTypeIdentifier(baseList.get(i).getType())) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	private static final class FunctionCache {
+		static final FunctionCache EMPTY = new FunctionCache(null, -1, new CachedFunction[0]);
+
+		final ScriptEnvironment environment;
+		final int version;
+		final CachedFunction[] entries;
+
+		FunctionCache(ScriptEnvironment env, int version, CachedFunction[] entries) {
+			this.environment = env;
+			this.version = version;
+			this.entries = entries;
+		}
+	}
+
+	/**
+	 * Returns the identifier of the given type, or -1 if it has none.
+	 */
+	private static int getTypeIdentifier(ScriptValueType type) throws ScriptException {
+		if (type == null) {
+			return -1;
+		}
+		return type.getType();
+	}
+
+	private final String name;
+	private volatile FunctionCache cache = FunctionCache.EMPTY;
+
+	public FunctionCallSite(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Calls this site's function on the given object, resolving it only if no
+	 * previous call had the same receiver and parameter types.
+	 *
+	 * @param ref
+	 *            the script element making the call, or null if it is made
+	 *            from outside of a script
+	 */
+	public ScriptValue call(ScriptEnvironment env, Referenced ref, ScriptTemplate_Abstract object, List<ScriptValue> params) throws ScriptException {
+		assert Logs.openNode("Function Calls", "Calling Function (" + RiffScriptFunction.getDisplayableFunctionName(this.name) + ")");
+		assert Logs.openNode("Function Call Details");
+		List<ScriptValue> baseList = ScriptExecutable_CallFunction.getBaseValues(params);
+		int receiverType = getTypeIdentifier(object.getType());
+		FunctionCache cache = this.cache;
+		int version = env.getFunctionVersion();
+		if (cache.environment == env && cache.version == version) {
+			for (CachedFunction entry : cache.entries) {
+				if (entry.matches(receiverType, baseList)) {
+					env.recordFunctionCacheHit();
+					return ScriptExecutable_CallFunction.callResolvedFunction(env, ref, object, this.name, params, entry.function, entry.functionTemplate, baseList);
+				}
+			}
+		} else {
+			cache = FunctionCache.EMPTY;
+		}
+		env.recordFunctionCacheMiss();
+		ScriptFunction function = object.getFunction(this.name, baseList);
+		if (function == null) {
+			if (ref == null) {
+				throw new FunctionNotFoundScriptException(env, this.name, params);
+			} else {
+				throw new FunctionNotFoundScriptException(ref, this.name, params);
+			}
+		}
+		ScriptTemplate_Abstract functionTemplate = object.getFunctionTemplate(function);
+		if (cache.entries.length < MAX_CACHED_TYPES) {
+			int[] paramTypes = new int[baseList.size()];
+			for (int i = 0; i < paramTypes.length; i++) {
+				paramTypes[i] = getTypeIdentifier(baseList.get(i).getType());
+			}
+			CachedFunction[] entries = Arrays.copyOf(cache.entries, cache.entries.length + 1);
+			entries[cache.entries.length] = new CachedFunction(receiverType, paramTypes, function, functionTemplate);
+			this.cache = new FunctionCache(env, version, entries);
+		}
+		return ScriptExecutable_CallFunction.callResolvedFunction(env, ref, object, this.name, params, function, functionTemplate, baseList);
+	}
+
+	public String getName() {
+		return this.name;
+	}
+
+	@Override
+	public void nodificate() {
+		assert Logs.openNode("Function Call Site (" + RiffScriptFunction.getDisplayableFunctionName(this.name) + ")");
+		// Only name the cached functions, since their bodies may contain this call
+		for (CachedFunction entry : this.cache.entries) {
+			assert Logs.addNode("Cached the function in " + entry.functionTemplate.getType().getName());
+		}
+		assert Logs.closeNode();
+	}
+}
@@ -1,11 +1,14 @@
 package script.operations;
 
 import script.exceptions.ScriptException;
+import script.parsing.ScriptCompiler;
 import script.parsing.ScriptElement;
 import script.values.ScriptValue;
 
 public interface ScriptExecutable {
 
+	public void compile(ScriptCompiler compiler) throws ScriptException;
+
 	public ScriptValue execute() throws ScriptException;
 
 	public ScriptElement getDebugReference();
@@ -4,6 +4,7 @@ import inspect.Nodeable;
 import logging.Logs;
 import script.exceptions.ScriptException;
 import script.parsing.Referenced;
+import script.parsing.ScriptCompiler;
 import script.parsing.ScriptElement;
 import script.values.ScriptValue;
 import script.values.ScriptValueType;
@@ -24,6 +25,12 @@ public class ScriptExecutable_AssignValue extends ScriptElement implements Scrip
 	}
 
 	// ScriptExecutable implementation
+	@Override
+	public void compile(ScriptCompiler compiler) throws ScriptException {
+		compiler.compile(this.value);
+		compiler.compile(this.variable);
+	}
+
 	@Override
 	public ScriptValue execute() throws ScriptException {
 		assert Logs.openNode("Value-Assignment Expressions", "Assigning Value");
@@ -70,10 +77,9 @@ public class ScriptExecutable_AssignValue extends ScriptElement implements Scrip
 	@Override
 	public ScriptValue setValue(Referenced ref, ScriptValue value) throws ScriptException {
 		assert Logs.openNode("Value Assignments", "Setting assigment-expression's right-side value");
-		assert Logs.addSnapNode("Former value", this.value);
-		this.value = value.castToType(this, this.getType());
-		assert Logs.addSnapNode("New value", this.value);
-		ScriptValue returning = this.execute();
+		value = value.castToType(this, this.getType());
+		assert Logs.addSnapNode("New value", value);
+		ScriptValue returning = this.variable.setValue(this, value);
 		assert Logs.closeNode();
 		return returning;
 	}
@@ -4,6 +4,7 @@ import inspect.Nodeable;
 import logging.Logs;
 import script.exceptions.ScriptException;
 import script.parsing.Referenced;
+import script.parsing.ScriptCompiler;
 import script.parsing.ScriptElement;
 import script.parsing.ScriptOperatorType;
 import script.values.ScriptValue;
@@ -28,14 +29,19 @@ public class ScriptExecutable_AutoMathematicator extends ScriptElement implement
 	}
 
 	// ScriptExecutable implementation
+	@Override
+	public void compile(ScriptCompiler compiler) throws ScriptException {
+		compiler.compile(this.value);
+	}
+
 	@Override
 	public ScriptValue execute() throws ScriptException {
 		assert Logs.openNode("Auto-Mathematicator Executions", "Executing Auto-Mathematicator");
 		ScriptValue returning;
 		if (this.operator == ScriptOperatorType.INCREMENT) {
-			returning = ((ScriptValue_Numeric) this.value.getValue()).setNumericValue(((ScriptValue_Numeric) this.value.getValue()).increment(this));
+			returning = ((ScriptValue_Numeric) this.value.getValue()).increment(this);
 		} else {
-			returning = ((ScriptValue_Numeric) this.value.getValue()).setNumericValue(((ScriptValue_Numeric) this.value.getValue()).decrement(this));
+			returning = ((ScriptValue_Numeric) this.value.getValue()).decrement(this);
 		}
 		assert Logs.closeNode();
 		return returning;
@@ -11,10 +11,11 @@ import script.exceptions.FunctionNotFoundScriptException;
 import script.exceptions.IllegalNullReturnValueException;
 import script.exceptions.ScriptException;
 import script.parsing.Referenced;
+import script.parsing.ScriptCompiler;
 import script.parsing.ScriptElement;
 import script.values.RiffScriptFunction;
 import script.values.ScriptFunction;
-import script.values.ScriptFunction_Faux;
+import script.values.ScriptTemplate;
 import script.values.ScriptTemplate_Abstract;
 import script.values.ScriptValue;
 import script.values.ScriptValueType;
@@ -33,17 +34,9 @@ public class ScriptExecutable_CallFunction extends ScriptElement implements Scri
 			assert Logs.closeNode("Core value", object);
 		}
 		// Convert our values of questionable nestingness down to pure values
-		List<ScriptValue> baseList = new ArrayList<ScriptValue>();
-		if (params != null && !params.isEmpty()) {
-			assert Logs.openNode("Getting parameters' core values");
-			for (ScriptValue param : params) {
-				baseList.add(param.getValue());
-			}
-			assert Logs.closeNode("Core value params", baseList);
-		}
+		List<ScriptValue> baseList = getBaseValues(params);
 		// Get our function
 		ScriptFunction function = ((ScriptTemplate_Abstract) object).getFunction(name, baseList);
-		ScriptTemplate_Abstract functionTemplate = ((ScriptTemplate_Abstract) object).getFunctionTemplate(function);
 		if (function == null) {
 			if (ref == null) {
 				throw new FunctionNotFoundScriptException(env, name, params);
@@ -51,8 +44,13 @@ public class ScriptExecutable_CallFunction extends ScriptElement implements Scri
 				throw new FunctionNotFoundScriptException(ref, name, params);
 			}
 		}
+		ScriptTemplate_Abstract functionTemplate = ((ScriptTemplate_Abstract) object).getFunctionTemplate(function);
+		return callResolvedFunction(env, ref, (ScriptTemplate_Abstract) object, name, params, function, functionTemplate, baseList);
+	}
+
+	static ScriptValue callResolvedFunction(ScriptEnvironment env, Referenced ref, ScriptTemplate_Abstract object, String name, List<ScriptValue> params, ScriptFunction function, ScriptTemplate_Abstract functionTemplate, List<ScriptValue> baseList) throws ScriptException {
 		if (functionTemplate.getType().equals(object.getType()) && !function.isStatic()) {
-			functionTemplate = (ScriptTemplate_Abstract) object;
+			functionTemplate = object;
 		}
 		assert Logs.addSnapNode("Function", function);
 		assert Logs.addSnapNode("Function's Template", functionTemplate);
@@ -63,23 +61,36 @@ public class ScriptExecutable_CallFunction extends ScriptElement implements Scri
 			throw new FunctionNotFoundScriptException(ref, name, params);
 		}
 		// Execute that function
-		if (function instanceof ScriptFunction_Faux) {
-			((ScriptFunction_Faux) function).setFauxTemplate(functionTemplate);
-			((ScriptFunction_Faux) function).setTemplate((ScriptTemplate_Abstract) object);
-		}
 		assert Logs.closeNode();
-		env.advanceStack((ScriptTemplate_Abstract) object, function);
-		env.getCurrentFunction().execute(ref, baseList);
-		ScriptValue returning = env.getCurrentFunction().getReturnValue();
-		if (returning == null && !env.getCurrentFunction().getReturnType().equals(ScriptValueType.VOID)) {
+		ScriptValue returning = invokeFunction(env, ref, object, function, baseList);
+		assert Logs.closeNode();
+		return returning;
+	}
+
+	static List<ScriptValue> getBaseValues(List<ScriptValue> params) throws ScriptException {
+		if (params == null || params.isEmpty()) {
+			return new ArrayList<ScriptValue>(0);
+		}
+		List<ScriptValue> baseList = new ArrayList<ScriptValue>(params.size());
+		assert Logs.openNode("Getting parameters' core values");
+		for (ScriptValue param : params) {
+			baseList.add(param.getValue());
+		}
+		assert Logs.closeNode("Core value params", baseList);
+		return baseList;
+	}
+
+	private static ScriptValue invokeFunction(ScriptEnvironment env, Referenced ref, ScriptTemplate_Abstract object, ScriptFunction function, List<ScriptValue> baseList) throws ScriptException {
+		env.advanceStack(object, function);
+		ScriptValue returning = function.execute(ref, baseList);
+		if (returning == null && !function.getReturnType().equals(ScriptValueType.VOID)) {
 			if (ref == null) {
-				throw new IllegalNullReturnValueException(env, env.getCurrentFunction());
+				throw new IllegalNullReturnValueException(env, function);
 			} else {
-				throw new IllegalNullReturnValueException(ref, env.getCurrentFunction());
+				throw new IllegalNullReturnValueException(ref, function);
 			}
 		}
 		env.retreatStack();
-		assert Logs.closeNode();
 		return returning;
 	}
 
@@ -88,11 +99,19 @@ public class ScriptExecutable_CallFunction extends ScriptElement implements Scri
 
 	private ScriptValue object;
 
+	// Set during compilation if this call can only ever reach one function
+	private ScriptFunction function;
+	private ScriptTemplate functionTemplate;
+
+	// Otherwise, the functions this call has resolved to so far
+	private final FunctionCallSite callSite;
+
 	public ScriptExecutable_CallFunction(Referenced ref, ScriptValue object, String functionName, List<ScriptValue> params) {
 		super(ref);
 		this.object = object;
 		this.functionName = functionName;
 		this.params = params;
+		this.callSite = new FunctionCallSite(functionName);
 	}
 
 	@Override
@@ -101,14 +120,48 @@ public class ScriptExecutable_CallFunction extends ScriptElement implements Scri
 	}
 
 	// ScriptExecutable implementation
+	@Override
+	public void compile(ScriptCompiler compiler) throws ScriptException {
+		compiler.compile(this.object);
+		compiler.compileAll(this.params);
+		this.functionTemplate = compiler.resolveFunction(this.object, this.functionName, this.params);
+		if (this.functionTemplate != null) {
+			this.function = this.functionTemplate.getFunctions(this.functionName).get(0);
+		}
+	}
+
 	@Override
 	public ScriptValue execute() throws ScriptException {
-		return callFunction(this.getEnvironment(), this, this.object, this.functionName, this.params);
+		if (this.function == null) {
+			ScriptTemplate_Abstract object;
+			if (this.object == null) {
+				object = this.getEnvironment().getCurrentObject();
+			} else {
+				object = (ScriptTemplate_Abstract) this.object.getValue();
+			}
+			return this.callSite.call(this.getEnvironment(), this, object, this.params);
+		}
+		assert Logs.openNode("Function Calls", "Calling Compiled Function (" + RiffScriptFunction.getDisplayableFunctionName(this.functionName) + ")");
+		ScriptTemplate_Abstract object;
+		if (this.object == null) {
+			object = this.getEnvironment().getCurrentObject();
+		} else {
+			object = (ScriptTemplate_Abstract) this.object.getValue();
+		}
+		if (!this.function.isStatic() && !(object.isObject() && this.functionTemplate.getType().equals(object.getType()))) {
+			throw new FunctionNotFoundScriptException(this, this.functionName, this.params);
+		}
+		ScriptValue returning = invokeFunction(this.getEnvironment(), this, object, this.function, getBaseValues(this.params));
+		assert Logs.closeNode();
+		return returning;
 	}
 
 	// ScriptValue_Abstract implementation
 	@Override
 	public ScriptValueType getType() {
+		if (this.function != null) {
+			return this.function.getReturnType();
+		}
 		try {
 			return ((ScriptTemplate_Abstract) this.object.getValue()).getFunction(this.functionName, this.params).getReturnType();
 		} catch (ScriptException ex) {
@@ -130,6 +183,12 @@ public class ScriptExecutable_CallFunction extends ScriptElement implements Scri
 	public void nodificate() {
 		assert Logs.openNode("Function Call (" + RiffScriptFunction.getDisplayableFunctionName(this.functionName) + ")");
 		assert Logs.addSnapNode("Parameters", this.params);
+		if (this.function != null) {
+			// Only name the function, since its body may contain this call
+			assert Logs.addNode("Compiled to the function in " + this.functionTemplate.getType().getName());
+		} else {
+			assert Logs.addNode(this.callSite);
+		}
 		assert Logs.closeNode();
 	}
 
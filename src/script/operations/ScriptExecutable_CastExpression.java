@@ -4,6 +4,7 @@ import inspect.Nodeable;
 import logging.Logs;
 import script.exceptions.ScriptException;
 import script.parsing.Referenced;
+import script.parsing.ScriptCompiler;
 import script.parsing.ScriptElement;
 import script.values.ScriptValue;
 import script.values.ScriptValueType;
@@ -24,6 +25,11 @@ public class ScriptExecutable_CastExpression extends ScriptElement implements Sc
 	}
 
 	// ScriptExecutable implementation
+	@Override
+	public void compile(ScriptCompiler compiler) throws ScriptException {
+		compiler.compile(this.castExpression);
+	}
+
 	@Override
 	public ScriptValue execute() throws ScriptException {
 		ScriptValue left = this.castExpression.execute().getValue();
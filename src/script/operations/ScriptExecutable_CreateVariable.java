@@ -5,6 +5,7 @@ import logging.Logs;
 import script.ScriptEnvironment;
 import script.exceptions.ScriptException;
 import script.parsing.Referenced;
+import script.parsing.ScriptCompiler;
 import script.parsing.ScriptElement;
 import script.parsing.ScriptKeywordType;
 import script.values.ScriptValue;
@@ -29,6 +30,11 @@ public class ScriptExecutable_CreateVariable extends ScriptValue_Variable implem
 	}
 
 	// ScriptExecutable implementation
+	@Override
+	public void compile(ScriptCompiler compiler) throws ScriptException {
+		compiler.declareVariable(this.name);
+	}
+
 	@Override
 	public ScriptValue execute() throws ScriptException {
 		assert Logs.openNode("Creating Variable (" + this.name + ")");
@@ -5,6 +5,7 @@ import logging.Logs;
 import script.exceptions.ClassCastScriptException;
 import script.exceptions.ScriptException;
 import script.parsing.Referenced;
+import script.parsing.ScriptCompiler;
 import script.parsing.ScriptElement;
 import script.parsing.ScriptOperatorType;
 import script.values.ScriptValue;
@@ -32,6 +33,12 @@ public class ScriptExecutable_EvaluateBoolean extends ScriptElement implements S
 	}
 
 	// ScriptExecutable implementation
+	@Override
+	public void compile(ScriptCompiler compiler) throws ScriptException {
+		compiler.compile(this.lhs);
+		compiler.compile(this.rhs);
+	}
+
 	@Override
 	public ScriptValue execute() throws ScriptException {
 		assert Logs.openNode("Boolean Evaluations", "Executing Boolean Evaluation");
@@ -5,6 +5,7 @@ import logging.Logs;
 import script.exceptions.ClassCastScriptException;
 import script.exceptions.ScriptException;
 import script.parsing.Referenced;
+import script.parsing.ScriptCompiler;
 import script.parsing.ScriptElement;
 import script.parsing.ScriptOperatorType;
 import script.values.ScriptValue;
@@ -34,6 +35,12 @@ public class ScriptExecutable_EvaluateComboBoolean extends ScriptElement impleme
 	}
 
 	// ScriptExecutable implementation
+	@Override
+	public void compile(ScriptCompiler compiler) throws ScriptException {
+		compiler.compile(this.lhs);
+		compiler.compile(this.rhs);
+	}
+
 	@Override
 	public ScriptValue execute() throws ScriptException {
 		assert Logs.openNode("Combo-Boolean Evaluations", "Evaluating Combo-Boolean Expression (" + this.operator + ")");
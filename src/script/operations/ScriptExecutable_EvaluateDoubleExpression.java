@@ -0,0 +1,45 @@
+package script.operations;
+
+import script.exceptions.ScriptException;
+import script.parsing.Referenced;
+import script.parsing.ScriptOperatorType;
+import script.values.ScriptValue;
+import script.values.ScriptValueType;
+import script.values.ScriptValue_Numeric;
+
+/**
+ * An arithmetic expression whose left side is always a double, so it is
+ * evaluated on primitive doubles.
+ *
+ * @see ScriptExecutable_EvaluateMathExpression#create(Referenced, ScriptValue, ScriptValue, ScriptOperatorType)
+ */
+public class ScriptExecutable_EvaluateDoubleExpression extends ScriptExecutable_EvaluateMathExpression {
+	public ScriptExecutable_EvaluateDoubleExpression(Referenced ref, ScriptValue lhs, ScriptValue rhs, ScriptOperatorType expressionType) {
+		super(ref, lhs, rhs, expressionType);
+	}
+
+	@Override
+	protected double doubleValue() throws ScriptException {
+		return ScriptValue_Numeric.evaluate(this, this.getOperator(), getDoubleValue(this.getLeft()), getDoubleValue(this.getRight()));
+	}
+
+	@Override
+	public ScriptValueType getType() {
+		return ScriptValueType.DOUBLE;
+	}
+
+	@Override
+	public ScriptValue getValue() throws ScriptException {
+		return new ScriptValue_Numeric(this.getEnvironment(), this.doubleValue());
+	}
+
+	@Override
+	protected int intValue() throws ScriptException {
+		return (int) this.doubleValue();
+	}
+
+	@Override
+	protected long longValue() throws ScriptException {
+		return (long) this.doubleValue();
+	}
+}
@@ -0,0 +1,45 @@
+package script.operations;
+
+import script.exceptions.ScriptException;
+import script.parsing.Referenced;
+import script.parsing.ScriptOperatorType;
+import script.values.ScriptValue;
+import script.values.ScriptValueType;
+import script.values.ScriptValue_Numeric;
+
+/**
+ * An arithmetic expression whose left side is always an int, so it is
+ * evaluated on primitive ints.
+ *
+ * @see ScriptExecutable_EvaluateMathExpression#create(Referenced, ScriptValue, ScriptValue, ScriptOperatorType)
+ */
+public class ScriptExecutable_EvaluateIntExpression extends ScriptExecutable_EvaluateMathExpression {
+	public ScriptExecutable_EvaluateIntExpression(Referenced ref, ScriptValue lhs, ScriptValue rhs, ScriptOperatorType expressionType) {
+		super(ref, lhs, rhs, expressionType);
+	}
+
+	@Override
+	protected double doubleValue() throws ScriptException {
+		return this.intValue();
+	}
+
+	@Override
+	public ScriptValueType getType() {
+		return ScriptValueType.INT;
+	}
+
+	@Override
+	public ScriptValue getValue() throws ScriptException {
+		return new ScriptValue_Numeric(this.getEnvironment(), this.intValue());
+	}
+
+	@Override
+	protected int intValue() throws ScriptException {
+		return ScriptValue_Numeric.evaluate(this, this.getOperator(), getIntValue(this.getLeft()), getIntValue(this.getRight()));
+	}
+
+	@Override
+	protected long longValue() throws ScriptException {
+		return this.intValue();
+	}
+}
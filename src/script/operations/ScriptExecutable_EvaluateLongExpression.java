@@ -0,0 +1,45 @@
+package script.operations;
+
+import script.exceptions.ScriptException;
+import script.parsing.Referenced;
+import script.parsing.ScriptOperatorType;
+import script.values.ScriptValue;
+import script.values.ScriptValueType;
+import script.values.ScriptValue_Numeric;
+
+/**
+ * An arithmetic expression whose left side is always a long, so it is
+ * evaluated on primitive longs.
+ *
+ * @see ScriptExecutable_EvaluateMathExpression#create(Referenced, ScriptValue, ScriptValue, ScriptOperatorType)
+ */
+public class ScriptExecutable_EvaluateLongExpression extends ScriptExecutable_EvaluateMathExpression {
+	public ScriptExecutable_EvaluateLongExpression(Referenced ref, ScriptValue lhs, ScriptValue rhs, ScriptOperatorType expressionType) {
+		super(ref, lhs, rhs, expressionType);
+	}
+
+	@Override
+	protected double doubleValue() throws ScriptException {
+		return this.longValue();
+	}
+
+	@Override
+	public ScriptValueType getType() {
+		return ScriptValueType.LONG;
+	}
+
+	@Override
+	public ScriptValue getValue() throws ScriptException {
+		return new ScriptValue_Numeric(this.getEnvironment(), this.longValue());
+	}
+
+	@Override
+	protected int intValue() throws ScriptException {
+		return (int) this.longValue();
+	}
+
+	@Override
+	protected long longValue() throws ScriptException {
+		return ScriptValue_Numeric.evaluate(this, this.getOperator(), getLongValue(this.getLeft()), getLongValue(this.getRight()));
+	}
+}
@@ -3,9 +3,9 @@ package script.operations;
 import inspect.Nodeable;
 import logging.Logs;
 import script.exceptions.InternalException;
-import script.exceptions.DivisionByZeroScriptException;
 import script.exceptions.ScriptException;
 import script.parsing.Referenced;
+import script.parsing.ScriptCompiler;
 import script.parsing.ScriptElement;
 import script.parsing.ScriptOperatorType;
 import script.values.ScriptValue;
@@ -13,6 +13,82 @@ import script.values.ScriptValueType;
 import script.values.ScriptValue_Numeric;
 
 public class ScriptExecutable_EvaluateMathExpression extends ScriptElement implements ScriptValue, ScriptExecutable, Nodeable {
+	/**
+	 * Creates an expression for the given operator. If the left side is known
+	 * to be an int, long or double, the expression is specialized to that type
+	 * and evaluates without wrapping any intermediate results.
+	 */
+	public static ScriptExecutable_EvaluateMathExpression create(Referenced ref, ScriptValue lhs, ScriptValue rhs, ScriptOperatorType expressionType) {
+		ScriptValueType type = getStaticType(lhs);
+		if (type == ScriptValueType.INT) {
+			return new ScriptExecutable_EvaluateIntExpression(ref, lhs, rhs, expressionType);
+		}
+		if (type == ScriptValueType.LONG) {
+			return new ScriptExecutable_EvaluateLongExpression(ref, lhs, rhs, expressionType);
+		}
+		if (type == ScriptValueType.DOUBLE) {
+			return new ScriptExecutable_EvaluateDoubleExpression(ref, lhs, rhs, expressionType);
+		}
+		return new ScriptExecutable_EvaluateMathExpression(ref, lhs, rhs, expressionType);
+	}
+
+	protected static double getDoubleValue(ScriptValue value) throws ScriptException {
+		if (value instanceof ScriptExecutable_EvaluateMathExpression) {
+			return ((ScriptExecutable_EvaluateMathExpression) value).doubleValue();
+		}
+		return ((ScriptValue_Numeric) value.getValue()).doubleValue();
+	}
+
+	protected static int getIntValue(ScriptValue value) throws ScriptException {
+		if (value instanceof ScriptExecutable_EvaluateMathExpression) {
+			return ((ScriptExecutable_EvaluateMathExpression) value).intValue();
+		}
+		return ((ScriptValue_Numeric) value.getValue()).intValue();
+	}
+
+	protected static long getLongValue(ScriptValue value) throws ScriptException {
+		if (value instanceof ScriptExecutable_EvaluateMathExpression) {
+			return ((ScriptExecutable_EvaluateMathExpression) value).longValue();
+		}
+		return ((ScriptValue_Numeric) value.getValue()).longValue();
+	}
+
+	/**
+	 * Returns the primitive numeric type the given value will always have, or
+	 * null if it can't be known without executing it.
+	 */
+	private static ScriptValueType getStaticType(ScriptValue value) {
+		ScriptValueType type;
+		if (value instanceof ScriptExecutable_EvaluateMathExpression) {
+			// Arithmetic is performed in the type of the left side
+			return getStaticType(((ScriptExecutable_EvaluateMathExpression) value).getLeft());
+		} else if (value instanceof ScriptValue_Numeric) {
+			type = value.getType();
+		} else if (value instanceof ScriptExecutable_RetrieveVariable) {
+			try {
+				type = value.getType();
+			} catch (RuntimeException ex) {
+				// Types of templates that are not yet parsed are not available
+				return null;
+			}
+		} else {
+			return null;
+		}
+		if (type == null) {
+			return null;
+		}
+		switch (type.getKeywordType()) {
+		case INT:
+			return ScriptValueType.INT;
+		case LONG:
+			return ScriptValueType.LONG;
+		case DOUBLE:
+			return ScriptValueType.DOUBLE;
+		default:
+			return null;
+		}
+	}
+
 	private ScriptValue lhs, rhs;
 	private final ScriptOperatorType operator;
 	private ScriptValueType type;
@@ -41,11 +117,33 @@ public class ScriptExecutable_EvaluateMathExpression extends ScriptElement imple
 	}
 
 	// ScriptExecutable implementation
+	@Override
+	public void compile(ScriptCompiler compiler) throws ScriptException {
+		compiler.compile(this.lhs);
+		compiler.compile(this.rhs);
+	}
+
+	protected double doubleValue() throws ScriptException {
+		return ((ScriptValue_Numeric) this.getValue()).doubleValue();
+	}
+
 	@Override
 	public ScriptValue execute() throws ScriptException {
 		return this.getValue();
 	}
 
+	protected ScriptValue getLeft() {
+		return this.lhs;
+	}
+
+	protected ScriptOperatorType getOperator() {
+		return this.operator;
+	}
+
+	protected ScriptValue getRight() {
+		return this.rhs;
+	}
+
 	// ScriptValue_Abstract implementation
 	@Override
 	public ScriptValueType getType() {
@@ -58,38 +156,24 @@ public class ScriptExecutable_EvaluateMathExpression extends ScriptElement imple
 		assert Logs.addNode(this);
 		ScriptValue_Numeric left = (ScriptValue_Numeric) this.lhs.getValue();
 		ScriptValue_Numeric right = (ScriptValue_Numeric) this.rhs.getValue();
-		if ((this.operator == ScriptOperatorType.DIVIDE || this.operator == ScriptOperatorType.MODULUS) && right.getNumericValue().doubleValue() == 0.0d) {
-			throw new DivisionByZeroScriptException(this);
-		}
-		ScriptValue returning = null;
-		switch (this.operator) {
-		case PLUS:
-			returning = new ScriptValue_Numeric(this.getEnvironment(), left.increment(this, right));
-			break;
-		case MINUS:
-			returning = new ScriptValue_Numeric(this.getEnvironment(), left.decrement(this, right));
-			break;
-		case MODULUS:
-			returning = new ScriptValue_Numeric(this.getEnvironment(), left.modulus(this, right));
-			break;
-		case MULTIPLY:
-			returning = new ScriptValue_Numeric(this.getEnvironment(), left.multiply(this, right));
-			break;
-		case DIVIDE:
-			returning = new ScriptValue_Numeric(this.getEnvironment(), left.divide(this, right));
-			break;
-		default:
-			throw new AssertionError("Unexpected default");
-		}
+		ScriptValue returning = left.evaluate(this, this.operator, right);
 		assert Logs.closeNode();
 		return returning;
 	}
 
+	protected int intValue() throws ScriptException {
+		return ((ScriptValue_Numeric) this.getValue()).intValue();
+	}
+
 	@Override
 	public boolean isConvertibleTo(ScriptValueType type) {
 		return this.lhs.isConvertibleTo(type);
 	}
 
+	protected long longValue() throws ScriptException {
+		return ((ScriptValue_Numeric) this.getValue()).longValue();
+	}
+
 	@Override
 	public void nodificate() {
 		assert Logs.openNode("Mathematical Expression Evaluator (" + this.operator + ")");
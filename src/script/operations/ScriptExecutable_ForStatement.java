@@ -6,6 +6,7 @@ import inspect.Nodeable;
 import logging.Logs;
 import script.exceptions.ScriptException;
 import script.parsing.Referenced;
+import script.parsing.ScriptCompiler;
 import script.parsing.ScriptElement;
 import script.values.Returnable;
 import script.values.ScriptValue;
@@ -13,8 +14,6 @@ import script.values.ScriptValue_Boolean;
 
 public class ScriptExecutable_ForStatement extends ScriptElement implements ScriptExecutable, Returnable, Nodeable {
 	private ScriptExecutable initializer, tester, repeater;
-	private boolean shouldReturn = false;
-	private ScriptValue returnValue;
 	private List<ScriptExecutable> expressions;
 
 	public ScriptExecutable_ForStatement(ScriptExecutable initializer, ScriptExecutable tester, ScriptExecutable repeater, List<ScriptExecutable> expressions) {
@@ -26,6 +25,18 @@ public class ScriptExecutable_ForStatement extends ScriptElement implements Scri
 	}
 
 	// ScriptExecutable implementation
+	@Override
+	public void compile(ScriptCompiler compiler) throws ScriptException {
+		compiler.advanceScope();
+		compiler.compile(this.initializer);
+		compiler.compile(this.tester);
+		compiler.advanceScope();
+		compiler.compileAll(this.expressions);
+		compiler.retreatScope();
+		compiler.compile(this.repeater);
+		compiler.retreatScope();
+	}
+
 	@Override
 	public ScriptValue execute() throws ScriptException {
 		assert Logs.openNode("For-Statement Executions", "Executing For-Statement");
@@ -38,9 +49,10 @@ public class ScriptExecutable_ForStatement extends ScriptElement implements Scri
 			this.getEnvironment().advanceNestedStack();
 			for (ScriptExecutable exec : this.expressions) {
 				exec.execute();
-				if (exec instanceof Returnable && ((Returnable) exec).shouldReturn()) {
-					this.returnValue = ((Returnable) exec).getReturnValue();
-					this.shouldReturn = true;
+				if (exec instanceof Returnable && this.getEnvironment().isReturning()) {
+					this.getEnvironment().retreatNestedStack();
+					this.getEnvironment().retreatNestedStack();
+					assert Logs.closeNode();
 					assert Logs.closeNode();
 					return null;
 				}
@@ -56,14 +68,6 @@ public class ScriptExecutable_ForStatement extends ScriptElement implements Scri
 		return null;
 	}
 
-	@Override
-	public ScriptValue getReturnValue() throws ScriptException {
-		if (this.returnValue != null) {
-			this.returnValue = this.returnValue.getValue();
-		}
-		return this.returnValue;
-	}
-
 	@Override
 	public void nodificate() {
 		assert Logs.openNode("Script For-Statement");
@@ -73,10 +77,4 @@ public class ScriptExecutable_ForStatement extends ScriptElement implements Scri
 		assert Logs.addSnapNode("Expressions", this.expressions);
 		assert Logs.closeNode();
 	}
-
-	// Returnable implementation
-	@Override
-	public boolean shouldReturn() {
-		return this.shouldReturn;
-	}
 }
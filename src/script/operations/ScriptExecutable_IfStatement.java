@@ -6,6 +6,7 @@ import inspect.Nodeable;
 import logging.Logs;
 import script.exceptions.ScriptException;
 import script.parsing.Referenced;
+import script.parsing.ScriptCompiler;
 import script.parsing.ScriptElement;
 import script.values.Returnable;
 import script.values.ScriptValue;
@@ -15,8 +16,6 @@ public class ScriptExecutable_IfStatement extends ScriptElement implements Scrip
 	private ScriptValue testingValue;
 	private List<ScriptExecutable> expressions;
 	private ScriptExecutable_IfStatement elseStatement;
-	private boolean shouldReturn = false;
-	private ScriptValue returnValue;
 
 	public ScriptExecutable_IfStatement(Referenced ref, ScriptValue test, List<ScriptExecutable> list) {
 		super(ref);
@@ -25,6 +24,15 @@ public class ScriptExecutable_IfStatement extends ScriptElement implements Scrip
 	}
 
 	// ScriptExecutable implementation
+	@Override
+	public void compile(ScriptCompiler compiler) throws ScriptException {
+		compiler.compile(this.testingValue);
+		compiler.advanceScope();
+		compiler.compileAll(this.expressions);
+		compiler.retreatScope();
+		compiler.compile(this.elseStatement);
+	}
+
 	@Override
 	public ScriptValue execute() throws ScriptException {
 		assert Logs.openNode("If-Statement Executions", "Executing If-Statements");
@@ -32,11 +40,8 @@ public class ScriptExecutable_IfStatement extends ScriptElement implements Scrip
 			this.getEnvironment().advanceNestedStack();
 			for (ScriptExecutable exec : this.expressions) {
 				exec.execute();
-				if (exec instanceof Returnable && ((Returnable) exec).shouldReturn()) {
-					this.returnValue = ((Returnable) exec).getReturnValue();
-					this.shouldReturn = true;
-					assert Logs.closeNode();
-					return null;
+				if (exec instanceof Returnable && this.getEnvironment().isReturning()) {
+					break;
 				}
 			}
 			this.getEnvironment().retreatNestedStack();
@@ -49,14 +54,6 @@ public class ScriptExecutable_IfStatement extends ScriptElement implements Scrip
 		return null;
 	}
 
-	@Override
-	public ScriptValue getReturnValue() throws ScriptException {
-		if (this.returnValue != null) {
-			this.returnValue = this.returnValue.getValue();
-		}
-		return this.returnValue;
-	}
-
 	@Override
 	public void nodificate() {
 		assert Logs.openNode("Script If-Statement");
@@ -73,10 +70,4 @@ public class ScriptExecutable_IfStatement extends ScriptElement implements Scrip
 			this.elseStatement = statement;
 		}
 	}
-
-	// Returnable implementation
-	@Override
-	public boolean shouldReturn() {
-		return this.shouldReturn;
-	}
 }
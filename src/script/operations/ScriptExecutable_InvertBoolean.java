@@ -4,6 +4,7 @@ import inspect.Nodeable;
 import logging.Logs;
 import script.exceptions.ScriptException;
 import script.parsing.Referenced;
+import script.parsing.ScriptCompiler;
 import script.parsing.ScriptElement;
 import script.values.ScriptValue;
 import script.values.ScriptValueType;
@@ -23,6 +24,11 @@ public class ScriptExecutable_InvertBoolean extends ScriptElement implements Scr
 	}
 
 	// ScriptExecutable implementation
+	@Override
+	public void compile(ScriptCompiler compiler) throws ScriptException {
+		compiler.compile(this.value);
+	}
+
 	@Override
 	public ScriptValue execute() throws ScriptException {
 		return new ScriptValue_Boolean(this.getEnvironment(), !((ScriptValue_Boolean) this.value.execute()).getBooleanValue());
@@ -6,6 +6,7 @@ import inspect.Nodeable;
 import logging.Logs;
 import script.exceptions.ScriptException;
 import script.parsing.Referenced;
+import script.parsing.ScriptCompiler;
 import script.parsing.ScriptElement;
 import script.parsing.ScriptGroup;
 import script.parsing.ScriptKeywordType;
@@ -54,13 +55,18 @@ public class ScriptExecutable_ParseFunction extends ScriptElement implements Scr
 	}
 
 	// ScriptExecutable implementation
+	@Override
+	public void compile(ScriptCompiler compiler) throws ScriptException {
+		throw new UnsupportedOperationException("Invalid call in unparsed function");
+	}
+
 	@Override
 	public ScriptValue execute() throws ScriptException {
 		throw new UnsupportedOperationException("Invalid call in unparsed function");
 	}
 
 	@Override
-	public void execute(Referenced ref, List<ScriptValue> valuesGiven) throws ScriptException {
+	public ScriptValue execute(Referenced ref, List<ScriptValue> valuesGiven) throws ScriptException {
 		throw new UnsupportedOperationException("Invalid call in unparsed function");
 	}
 
@@ -87,11 +93,6 @@ public class ScriptExecutable_ParseFunction extends ScriptElement implements Scr
 		return this.returnType;
 	}
 
-	@Override
-	public ScriptValue getReturnValue() {
-		throw new UnsupportedOperationException("Invalid call in unparsed function");
-	}
-
 	// ScriptFunction implementation
 	@Override
 	public boolean isAbstract() {
@@ -110,9 +111,4 @@ public class ScriptExecutable_ParseFunction extends ScriptElement implements Scr
 		assert Logs.addSnapNode("Body", this.body);
 		assert Logs.closeNode();
 	}
-
-	@Override
-	public void setReturnValue(Referenced element, ScriptValue value) {
-		throw new UnsupportedOperationException("Invalid call in unparsed function");
-	}
 }
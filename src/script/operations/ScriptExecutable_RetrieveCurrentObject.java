@@ -5,6 +5,7 @@ import logging.Logs;
 import script.ScriptEnvironment;
 import script.exceptions.ScriptException;
 import script.parsing.Referenced;
+import script.parsing.ScriptCompiler;
 import script.parsing.ScriptElement;
 import script.parsing.ScriptKeywordType;
 import script.values.ScriptValue;
@@ -25,6 +26,10 @@ public class ScriptExecutable_RetrieveCurrentObject extends ScriptValue_Variable
 	}
 
 	// ScriptExecutable implementation
+	@Override
+	public void compile(ScriptCompiler compiler) throws ScriptException {
+	}
+
 	@Override
 	public ScriptValue execute() throws ScriptException {
 		return this.getValue();
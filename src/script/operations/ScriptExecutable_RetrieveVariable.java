@@ -5,8 +5,10 @@ import logging.Logs;
 import script.ScriptEnvironment;
 import script.exceptions.ScriptException;
 import script.parsing.Referenced;
+import script.parsing.ScriptCompiler;
 import script.parsing.ScriptElement;
 import script.parsing.ScriptKeywordType;
+import script.parsing.VariableBinding;
 import script.values.ScriptTemplate_Abstract;
 import script.values.ScriptValue;
 import script.values.ScriptValueType;
@@ -16,6 +18,9 @@ public class ScriptExecutable_RetrieveVariable extends ScriptValue_Variable impl
 	private String name;
 	private ScriptValue template;
 	private ScriptElement reference;
+	private VariableBinding binding = VariableBinding.DYNAMIC;
+	private int slot = -1;
+	private ScriptTemplate_Abstract boundTemplate;
 
 	public ScriptExecutable_RetrieveVariable(Referenced ref, ScriptValue template, String name, ScriptValueType type) throws ScriptException {
 		super(ref.getEnvironment(), type, ScriptKeywordType.PRIVATE);
@@ -30,6 +35,20 @@ public class ScriptExecutable_RetrieveVariable extends ScriptValue_Variable impl
 	}
 
 	// ScriptExecutable implementation
+	@Override
+	public void compile(ScriptCompiler compiler) throws ScriptException {
+		if (this.template != null) {
+			compiler.compile(this.template);
+			return;
+		}
+		this.binding = compiler.resolveVariable(this.name);
+		if (this.binding == VariableBinding.LOCAL) {
+			this.slot = compiler.getLocalSlot(this.name);
+		} else if (this.binding == VariableBinding.TEMPLATE) {
+			this.boundTemplate = compiler.getEnvironment().getTemplate(this.name);
+		}
+	}
+
 	@Override
 	public ScriptValue execute() throws ScriptException {
 		return this.getValue();
@@ -46,6 +65,10 @@ public class ScriptExecutable_RetrieveVariable extends ScriptValue_Variable impl
 		return this.getDebugReference().getEnvironment();
 	}
 
+	public VariableBinding getBinding() {
+		return this.binding;
+	}
+
 	// Overloaded ScriptValue_Variable functions
 	@Override
 	public ScriptKeywordType getPermission() throws ScriptException {
@@ -59,8 +82,25 @@ public class ScriptExecutable_RetrieveVariable extends ScriptValue_Variable impl
 
 	public ScriptValue_Variable getVariable() throws ScriptException {
 		assert Logs.openNode("Executing Variable Retrieval (" + this.name + ")");
-		ScriptValue_Variable variable;
-		if (this.template != null) {
+		ScriptValue_Variable variable = null;
+		switch (this.binding) {
+		case LOCAL:
+			variable = this.getEnvironment().getVariableFromStack(this.slot, this.name);
+			break;
+		case MEMBER:
+			variable = this.getEnvironment().getCurrentObject().getVariable(this.name);
+			break;
+		case TEMPLATE:
+			variable = this.boundTemplate.getStaticReference();
+			break;
+		case DYNAMIC:
+			break;
+		default:
+			throw new AssertionError("Unexpected binding");
+		}
+		if (variable != null) {
+			assert Logs.addSnapNode("Compiled binding (" + this.binding + ")", variable);
+		} else if (this.template != null) {
 			assert Logs.addSnapNode("Template", this.template);
 			variable = ((ScriptTemplate_Abstract) this.template.getValue()).getVariable(this.name);
 		} else {
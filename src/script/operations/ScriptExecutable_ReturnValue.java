@@ -4,6 +4,7 @@ import inspect.Nodeable;
 import logging.Logs;
 import script.exceptions.ScriptException;
 import script.parsing.Referenced;
+import script.parsing.ScriptCompiler;
 import script.parsing.ScriptElement;
 import script.values.Returnable;
 import script.values.ScriptValue;
@@ -17,29 +18,24 @@ public class ScriptExecutable_ReturnValue extends ScriptElement implements Scrip
 	}
 
 	// ScriptExecutable implementation
+	@Override
+	public void compile(ScriptCompiler compiler) throws ScriptException {
+		compiler.compile(this.value);
+	}
+
 	@Override
 	public ScriptValue execute() throws ScriptException {
 		assert Logs.openNode("Executing returnable script-value");
 		ScriptValue value = this.value.getValue();
+		this.getEnvironment().setReturnValue(value);
 		assert Logs.closeNode();
 		return value;
 	}
 
-	@Override
-	public ScriptValue getReturnValue() throws ScriptException {
-		return this.value.getValue();
-	}
-
 	@Override
 	public void nodificate() {
 		assert Logs.openNode("Returnable Script-Value");
 		assert Logs.addSnapNode("Returned Value", this.value);
 		assert Logs.closeNode();
 	}
-
-	// Returnabled implementation
-	@Override
-	public boolean shouldReturn() {
-		return true;
-	}
 }
@@ -0,0 +1,217 @@
+package script.parsing;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import script.exceptions.ScriptException;
+import script.exceptions.UnenclosedBracketException;
+import script.exceptions.UnenclosedStringLiteralException;
+import script.parsing.tokens.RiffToken;
+import script.values.ScriptValue_Numeric;
+import script.values.ScriptValue_String;
+
+/**
+ * Assembles a file's tokens into the nested lists of elements that templates
+ * are parsed from. There is one builder for each group that is open, and each
+ * token is handled once, as it is read.
+ * <p>
+ * Numbers are read as several tokens, so they are joined here. A number
+ * absorbs a period and a following fraction, a period before it, and a minus
+ * before either unless that minus follows another number. A whole number
+ * followed by a percent sign is a float instead.
+ *
+ * @see script.parsing.tokens.RiffTokenStream
+ */
+final class ElementBuilder {
+
+	/**
+	 * Reads every token, returning the elements of the file.
+	 */
+	public static List<Object> build(Iterator<RiffToken> tokens) throws ScriptException {
+		ElementBuilder builder = new ElementBuilder(null, null);
+		while (tokens.hasNext()) {
+			RiffToken token = tokens.next();
+			if (token instanceof ScriptBracket) {
+				ScriptBracket bracket = (ScriptBracket) token;
+				if (bracket.isOpening()) {
+					builder = new ElementBuilder(builder, bracket);
+					continue;
+				}
+				if (builder.opening == null || builder.opening.getType() != bracket.getType()) {
+					throw new UnenclosedBracketException(bracket);
+				}
+				ScriptGroup group = new ScriptGroup(builder.opening, builder.finish(), bracket.getType());
+				builder = builder.parent;
+				builder.add(group);
+			} else if (token instanceof ScriptQuote) {
+				ScriptQuote quote = (ScriptQuote) token;
+				if (!quote.isEnclosed()) {
+					throw new UnenclosedStringLiteralException(quote);
+				}
+				builder.add(new ScriptValue_String(quote.getEnvironment(), quote.getString()));
+			} else {
+				builder.add(token);
+			}
+		}
+		if (builder.opening != null) {
+			throw new UnenclosedBracketException(builder.opening);
+		}
+		return builder.finish();
+	}
+
+	private final ElementBuilder parent;
+	private final ScriptBracket opening;
+	private final List<Object> elements = new ArrayList<Object>();
+
+	// A number that is waiting for the element after it
+	private ScriptLine number;
+	private String numberString;
+	private ScriptOperator period;
+
+	private ElementBuilder(ElementBuilder parent, ScriptBracket opening) {
+		this.parent = parent;
+		this.opening = opening;
+	}
+
+	private void add(Object element) {
+		if (this.number != null && this.resolveNumber(element)) {
+			return;
+		}
+		if (element instanceof ScriptLine) {
+			ScriptLine line = (ScriptLine) element;
+			String string = line.getString();
+			if (isPixels(string)) {
+				this.elements.add(new ScriptValue_Numeric(line.getEnvironment(), Short.parseShort(string.substring(0, string.length() - 2))));
+				return;
+			}
+			if (isNumber(string)) {
+				this.number = line;
+				return;
+			}
+		}
+		this.elements.add(element);
+	}
+
+	private List<Object> finish() {
+		if (this.number != null) {
+			this.resolveNumber(null);
+		}
+		return this.elements;
+	}
+
+	/**
+	 * Resolves the waiting number, now that the element after it is known.
+	 *
+	 * @param next
+	 *            the element after the number, or null if there is none
+	 * @return true if the element became part of the number
+	 */
+	private boolean resolveNumber(Object next) {
+		ScriptLine line = this.number;
+		if (this.period != null) {
+			ScriptOperator period = this.period;
+			this.number = null;
+			this.period = null;
+			if (next instanceof ScriptLine && isFraction(((ScriptLine) next).getString())) {
+				this.elements.add(createNumber(line, this.numberString + "." + ((ScriptLine) next).getString()));
+				return true;
+			}
+			this.elements.add(createNumber(line, this.numberString));
+			this.elements.add(period);
+			return false;
+		}
+		String string = line.getString();
+		if (isDigits(string, 0, string.length()) && isOperator(next, ScriptOperatorType.MODULUS)) {
+			this.number = null;
+			this.elements.add(new ScriptValue_Numeric(line.getEnvironment(), Float.parseFloat(string)));
+			return false;
+		}
+		if (this.isLast(ScriptOperatorType.PERIOD)) {
+			this.elements.remove(this.elements.size() - 1);
+			string = "." + string;
+		}
+		if (this.isLast(ScriptOperatorType.MINUS)) {
+			int minus = this.elements.size() - 1;
+			if (minus == 0 || !(this.elements.get(minus - 1) instanceof ScriptValue_Numeric)) {
+				this.elements.remove(minus);
+				string = "-" + string;
+			}
+		}
+		if (isOperator(next, ScriptOperatorType.PERIOD) && string.indexOf('.') == -1) {
+			this.numberString = string;
+			this.period = (ScriptOperator) next;
+			return true;
+		}
+		this.number = null;
+		this.elements.add(createNumber(line, string));
+		return false;
+	}
+
+	private boolean isLast(ScriptOperatorType type) {
+		return !this.elements.isEmpty() && isOperator(this.elements.get(this.elements.size() - 1), type);
+	}
+
+	private static boolean isOperator(Object element, ScriptOperatorType type) {
+		return element instanceof ScriptOperator && ((ScriptOperator) element).getType() == type;
+	}
+
+	private static ScriptValue_Numeric createNumber(ScriptLine line, String number) {
+		int length = number.length();
+		if (length > 3 && number.endsWith("em")) {
+			return new ScriptValue_Numeric(line.getEnvironment(), Float.parseFloat(number.substring(0, length - 2)) * 14);
+		}
+		char last = number.charAt(length - 1);
+		if (last == 'f') {
+			return new ScriptValue_Numeric(line.getEnvironment(), Float.parseFloat(number));
+		}
+		if (last == 'd' || number.indexOf('.') != -1) {
+			return new ScriptValue_Numeric(line.getEnvironment(), Double.parseDouble(number));
+		}
+		if (length < 5) {
+			return new ScriptValue_Numeric(line.getEnvironment(), Short.parseShort(number));
+		}
+		if (length < 10) {
+			return new ScriptValue_Numeric(line.getEnvironment(), Integer.parseInt(number));
+		}
+		return new ScriptValue_Numeric(line.getEnvironment(), Long.parseLong(number));
+	}
+
+	private static boolean isDigits(String string, int start, int end) {
+		if (start >= end) {
+			return false;
+		}
+		for (int i = start; i < end; i++) {
+			char c = string.charAt(i);
+			if (c < '0' || c > '9') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns whether the string is a whole number, optionally suffixed with
+	 * {@code f} or {@code d}.
+	 */
+	private static boolean isNumber(String string) {
+		int length = string.length();
+		char last = string.charAt(length - 1);
+		if (last == 'f' || last == 'd') {
+			length--;
+		}
+		return isDigits(string, 0, length);
+	}
+
+	/**
+	 * Returns whether the string can follow a number's period, which also
+	 * allows an {@code em} suffix.
+	 */
+	private static boolean isFraction(String string) {
+		return isNumber(string) || string.endsWith("em") && isDigits(string, 0, string.length() - 2);
+	}
+
+	private static boolean isPixels(String string) {
+		return string.endsWith("px") && isDigits(string, 0, string.length() - 2);
+	}
+}
@@ -4,17 +4,11 @@
 package script.parsing;
 
 import java.awt.Color;
-import java.io.BufferedReader;
-import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.ListIterator;
 
-import logic.iterators.LineIterator;
-import logic.iterators.UnderlyingIOException;
 import gui.style.Stylesheet;
 import gui.style.StylesheetBackgroundColorElement;
 import gui.style.StylesheetBorderElement;
@@ -33,7 +27,6 @@ import logging.Logs;
 import script.ScriptEnvironment;
 import script.exceptions.InternalException;
 import script.exceptions.TemplateNotFoundException;
-import script.exceptions.UnenclosedBracketException;
 import script.exceptions.UnexpectedTypeException;
 import script.exceptions.UnknownModifierException;
 import script.exceptions.UnparseableElementException;
@@ -55,8 +48,7 @@ import script.operations.ScriptExecutable_ParseFunction;
 import script.operations.ScriptExecutable_RetrieveCurrentObject;
 import script.operations.ScriptExecutable_RetrieveVariable;
 import script.operations.ScriptExecutable_ReturnValue;
-import script.parsing.parsers.CommentRemover;
-import script.parsing.parsers.QuoteTokenizer;
+import script.parsing.tokens.RiffTokenStream;
 import script.proxies.FauxTemplate_Object;
 import script.values.NoopScriptFunction;
 import script.values.RiffScriptFunction;
@@ -75,10 +67,10 @@ import script.values.ScriptValue_Variable;
  * A collection of static methods that parse RiffScript code.
  * 
  * <ol>
- * <li>File --> List of naked strings
- * <li>List of naked strings --> Comments-removed naked strings
- * <li>Comments-removed naked strings --> Curly Bracket Groupings
- * <li>Curly Bracket Groupings --> Lists of line of code
+ * <li>File --> Stream of tokens
+ * <li>Stream of tokens --> Nested groupings of elements
+ * <li>Groupings of elements --> Templates
+ * <li>Templates --> Lists of executables
  * </ol>
  * 
  * @author Aaron Faanes
@@ -90,47 +82,20 @@ public final class Parser {
 		throw new AssertionError("Instantiation is not allowed");
 	}
 
-	private static final List<TemplateParams> classParams = new LinkedList<TemplateParams>();
-
-	public static void clearPreparseLists() {
-		classParams.clear();
-	}
-
-	public static List<Exception> preparseFile(ScriptEnvironment env, String filename, BufferedReader reader) throws IOException {
-		try {
-			Iterator<String> iter = new LineIterator(reader);
-			List<Object> strings = new ArrayList<Object>();
-			int i = 1;
-			while (iter.hasNext()) {
-				strings.add(new ScriptLine(env, filename, i++, iter.next()));
-			}
-			return preparseFile(env, filename, strings);
-		} catch (UnderlyingIOException ex) {
-			// Unwrap and throw the IOException
-			throw ex.getCause();
-		}
-	}
-
-	private static List<Object> preparseList(List<Object> stringList) throws ScriptException {
-		new CommentRemover().apply(stringList);
-		stringList = new QuoteTokenizer().apply(stringList);
-		stringList = createGroupings(stringList, CharacterGroup.CURLY_BRACES);
-		stringList = createGroupings(stringList, CharacterGroup.PARENTHESES);
-		stringList = parseOperators(stringList);
-		stringList = removeEmptyScriptLines(stringList);
-		stringList = splitByWhitespace(stringList);
-		stringList = removeEmptyScriptLines(stringList);
-		stringList = extractKeywords(stringList);
-		stringList = extractNumbers(stringList);
-		return stringList;
-	}
-
-	private static List<Exception> preparseFile(ScriptEnvironment env, String filename, List<Object> stringList) {
+	/**
+	 * Preparses the given file. This only reads the file's contents, so any
+	 * number of files may be preparsed at once.
+	 *
+	 * @see #parseElements(ScriptEnvironment, List)
+	 * @see PreparseCache
+	 */
+	public static PreparsedFile preparseFile(ScriptEnvironment env, String filename, String source) {
 		List<Exception> exceptions = new ArrayList<Exception>();
+		List<Object> elements = null;
 		assert Logs.openNode("File Preparsing", "Preparsing file (" + filename + ")");
 		try {
-			assert Logs.addSnapNode(CommonString.ELEMENTS, stringList);
-			preparseElements(env, preparseList(stringList));
+			elements = ElementBuilder.build(new RiffTokenStream(env, filename, source));
+			assert Logs.addSnapNode(CommonString.ELEMENTS, elements);
 			assert Logs.addNode("Preparsed successfully");
 		} catch (ScriptException ex) {
 			Logs.printException(ex);
@@ -141,7 +106,10 @@ public final class Parser {
 		} finally {
 			assert Logs.closeNode();
 		}
-		return exceptions;
+		if (!exceptions.isEmpty()) {
+			elements = null;
+		}
+		return new PreparsedFile(filename, source, elements, exceptions);
 	}
 
 	private static ScriptExecutable_ParseFunction preparseFunction(ScriptEnvironment env, final ScriptTemplate_Abstract object, List<Object> modifiers, ScriptGroup paramGroup, ScriptGroup body, String name) throws ScriptException {
@@ -233,280 +201,6 @@ public final class Parser {
 		return function;
 	}
 
-	private static List<Object> createGroupings(List<Object> stringList, CharacterGroup group) throws ScriptException {
-		assert Logs.openNode("Character-Group Parsing", "Creating Groupings (" + group + ")");
-		assert Logs.addSnapNode(CommonString.ELEMENTS, stringList);
-		assert Logs.addSnapNode("Character Group", group);
-		stringList = removeSingleLineGroupings(stringList, group);
-		boolean foundGroup = false;
-		for (int i = 0; i < stringList.size(); i++) {
-			Object obj = stringList.get(i);
-			if (obj instanceof ScriptGroup) {
-				if (group.isRecursive()) {
-					assert Logs.openNode("Group found - recursing to parse");
-					((ScriptGroup) obj).setElements(createGroupings(((ScriptGroup) obj).getElements(), group));
-					assert Logs.closeNode();
-				}
-				continue;
-			}
-			if (!(obj instanceof ScriptLine)) {
-				continue;
-			}
-			ScriptLine scriptLine = (ScriptLine) obj;
-			int j = scriptLine.getString().indexOf(group.getEnd());
-			if (j == -1) {
-				continue;
-			}
-			assert Logs.addSnapNode("Found closing character - searching backwards for opening character", scriptLine);
-			assert foundGroup = true;
-			List<Object> newList = new LinkedList<Object>();
-			newList.add(new ScriptLine(scriptLine.getString().substring(0, j), scriptLine, (short) 0));
-			scriptLine.setString(scriptLine.getString().substring(j + group.getEnd().length()));
-			for (int q = i - 1; q >= 0; q--) {
-				if (!(stringList.get(q) instanceof ScriptLine)) {
-					newList.add(stringList.get(q));
-					stringList.remove(q);
-					i--;
-					continue;
-				}
-				ScriptLine backwardScriptLine = (ScriptLine) stringList.get(q);
-				int x = backwardScriptLine.getString().lastIndexOf(group.getStart());
-				if (x == -1) {
-					if (q == 0) {
-						throw new UnenclosedBracketException(scriptLine);
-					}
-					newList.add(backwardScriptLine);
-					stringList.remove(q);
-					i--;
-					continue;
-				}
-				assert Logs.addSnapNode("Found opening character", backwardScriptLine);
-				newList.add(new ScriptLine(
-						backwardScriptLine.getString().substring(x + group.getStart().length()),
-						backwardScriptLine,
-						x + group.getStart().length()
-						));
-				backwardScriptLine.setString(backwardScriptLine.getString().substring(0, x));
-				Collections.reverse(newList);
-				assert Logs.openNode("Recursing to parse elements in newly created group");
-				stringList.add(i, new ScriptGroup((Referenced) newList.get(0), createGroupings(newList, group), group));
-				assert Logs.closeNode();
-				assert Logs.openNode("Recursing to parse remaining elements");
-				List<Object> list = createGroupings(stringList, group);
-				assert Logs.closeNode();
-				assert Logs.closeNode();
-				return list;
-			}
-		}
-		if (!foundGroup) {
-			assert Logs.closeNode("No group found - naturally returning");
-		}
-		return stringList;
-	}
-
-	private static List<Object> parseOperator(ScriptLine line, String operator) {
-		int location = line.getString().indexOf(operator);
-		if (location == -1) {
-			return null;
-		}
-		assert Logs.openNode("Operator Parsing", ScriptOperatorType.parse(operator) + " found in script-line: " + line.getString());
-		assert Logs.addNode(line);
-		List<Object> list = new LinkedList<Object>();
-		String string = line.getString().substring(0, location).trim();
-		String originalString = line.getString();
-		if (string.length() > 0) {
-			list.add(line);
-			line.setString(string);
-		}
-		list.add(new ScriptOperator(new ScriptLine(operator, line, location), ScriptOperatorType.parse(operator)));
-		string = originalString.substring(location + operator.length()).trim();
-		if (string.length() > 0) {
-			list.add(new ScriptLine(string, line, (short) (location + operator.length())));
-		}
-		assert Logs.closeNode("Split-string list formed from operator parse", list);
-		return list;
-	}
-
-	private static List<Object> parseOperators(List<Object> list) {
-		for (int i = 0; i < list.size(); i++) {
-			Object element = list.get(i);
-			if (element instanceof ScriptGroup) {
-				((ScriptGroup) element).setElements(parseOperators(((ScriptGroup) element).getElements()));
-				continue;
-			}
-			if (!(element instanceof ScriptLine)) {
-				continue;
-			}
-			list.remove(i);
-			list.addAll(i, parseOperators((ScriptLine) element));
-		}
-		return list;
-	}
-
-	private static List<Object> parseOperators(ScriptLine line) {
-		List<Object> list = parseOperator(line, ";");
-		if (list != null) {
-			return parseOperators(list);
-		}
-		list = parseOperator(line, ",");
-		if (list != null) {
-			return parseOperators(list);
-		}
-		list = parseOperator(line, ".");
-		if (list != null) {
-			return parseOperators(list);
-		}
-		list = parseOperator(line, ":");
-		if (list != null) {
-			return parseOperators(list);
-		}
-		list = parseOperator(line, "#");
-		if (list != null) {
-			return parseOperators(list);
-		}
-		// Comparision operations
-		list = parseOperator(line, "==");
-		if (list != null) {
-			return parseOperators(list);
-		}
-		list = parseOperator(line, "!=");
-		if (list != null) {
-			return parseOperators(list);
-		}
-		list = parseOperator(line, ">=");
-		if (list != null) {
-			return parseOperators(list);
-		}
-		list = parseOperator(line, "<=");
-		if (list != null) {
-			return parseOperators(list);
-		}
-		list = parseOperator(line, ">");
-		if (list != null) {
-			return parseOperators(list);
-		}
-		list = parseOperator(line, "<");
-		if (list != null) {
-			return parseOperators(list);
-		}
-		// Boolean operations
-		list = parseOperator(line, "!");
-		if (list != null) {
-			return parseOperators(list);
-		}
-		list = parseOperator(line, "&&");
-		if (list != null) {
-			return parseOperators(list);
-		}
-		list = parseOperator(line, "||");
-		if (list != null) {
-			return parseOperators(list);
-		}
-		// Single-line equation operations
-		list = parseOperator(line, "++");
-		if (list != null) {
-			return parseOperators(list);
-		}
-		list = parseOperator(line, "--");
-		if (list != null) {
-			return parseOperators(list);
-		}
-		list = parseOperator(line, "+=");
-		if (list != null) {
-			return parseOperators(list);
-		}
-		list = parseOperator(line, "-=");
-		if (list != null) {
-			return parseOperators(list);
-		}
-		list = parseOperator(line, "*=");
-		if (list != null) {
-			return parseOperators(list);
-		}
-		list = parseOperator(line, "/=");
-		if (list != null) {
-			return parseOperators(list);
-		}
-		list = parseOperator(line, "%=");
-		if (list != null) {
-			return parseOperators(list);
-		}
-		// Assignment operation
-		list = parseOperator(line, "=");
-		if (list != null) {
-			return parseOperators(list);
-		}
-		// Mathematical operations.
-		list = parseOperator(line, "-");
-		if (list != null) {
-			return parseOperators(list);
-		}
-		list = parseOperator(line, "+");
-		if (list != null) {
-			return parseOperators(list);
-		}
-		list = parseOperator(line, "*");
-		if (list != null) {
-			return parseOperators(list);
-		}
-		list = parseOperator(line, "/");
-		if (list != null) {
-			return parseOperators(list);
-		}
-		list = parseOperator(line, "%");
-		if (list != null) {
-			return parseOperators(list);
-		}
-		return Collections.<Object> singletonList(line);
-	}
-
-	private static List<Object> removeEmptyScriptLines(List<Object> list) {
-		assert Logs.openNode("Empty Script-Line Removals", "Empty Script-Line Removal");
-		assert Logs.addSnapNode(CommonString.ELEMENTS, list);
-		Iterator<Object> iter = list.iterator();
-		while (iter.hasNext()) {
-			Object element = iter.next();
-			if (element instanceof ScriptGroup) {
-				assert Logs.openNode("Found script-group - recursing to parse");
-				((ScriptGroup) element).setElements(removeEmptyScriptLines(((ScriptGroup) element).getElements()));
-				assert Logs.closeNode();
-				continue;
-			}
-			if (!(element instanceof ScriptLine)) {
-				continue;
-			}
-			if (((ScriptLine) element).getString().trim().length() == 0) {
-				assert Logs.addSnapNode("Removing line", element);
-				iter.remove();
-			}
-		}
-		assert Logs.closeNode();
-		return list;
-	}
-
-	private static List<Object> extractKeywords(List<Object> lineList) throws ScriptException {
-		ListIterator<Object> iter = lineList.listIterator();
-		while (iter.hasNext()) {
-			Object line = iter.next();
-			if (line instanceof ScriptGroup) {
-				ScriptGroup group = (ScriptGroup) line;
-				group.setElements(extractKeywords(group.getElements()));
-				continue;
-			}
-			if (!(line instanceof ScriptLine)) {
-				continue;
-			}
-			ScriptLine scriptLine = (ScriptLine) line;
-			ScriptKeywordType keyword = ScriptKeywordType.fromCanonical(scriptLine.getString());
-			if (keyword == null) {
-				continue;
-			}
-			iter.remove();
-			iter.add(new ScriptKeyword(scriptLine, keyword));
-		}
-		return lineList;
-	}
-
 	// Procedural parsing functions
 	private static List<Object> extractNumbers(List<Object> lineList) {
 		for (int i = 0; i < lineList.size(); i++) {
@@ -630,10 +324,18 @@ public final class Parser {
 		return statementBodyList;
 	}
 
-	public static List<Exception> parseElements(ScriptEnvironment env) {
+	/**
+	 * Parses the templates declared by the given files into the given
+	 * environment. Every file must have been preparsed without errors.
+	 */
+	public static List<Exception> parseElements(ScriptEnvironment env, List<PreparsedFile> files) {
 		List<Exception> exceptions = new ArrayList<Exception>();
 		assert Logs.openNode("Element Parsing", "Parsing Elements");
 		try {
+			List<TemplateParams> classParams = new ArrayList<TemplateParams>();
+			for (PreparsedFile file : files) {
+				preparseElements(env, file.getElements(env), classParams);
+			}
 			List<ScriptTemplate_Abstract> queuedTemplates = new LinkedList<ScriptTemplate_Abstract>();
 			for (TemplateParams params : classParams) {
 				ScriptTemplate_Abstract template = preparseTemplate(params.getDebugReference(), env, params.getModifiers(), params.getBody(), params.getName());
@@ -643,6 +345,7 @@ public final class Parser {
 			for (int i = 0; i < queuedTemplates.size(); i++) {
 				queuedTemplates.get(i).initializeFunctions(classParams.get(i).getDebugReference());
 			}
+			ScriptCompiler.compile(env);
 		} catch (ScriptException ex) {
 			Logs.printException(ex);
 			exceptions.add(ex);
@@ -879,9 +582,9 @@ public final class Parser {
 					list.remove(0);
 					//public ScriptExecutable_EvaluateMathExpression(Referenced ref, ScriptValue_Abstract lhs, ScriptValue_Abstract rhs,ScriptOperatorType expressionType)
 					if (list.size() == 1 && list.get(0) instanceof ScriptValue) {
-						returnValue = new ScriptExecutable_EvaluateMathExpression((Referenced) obj, left, (ScriptValue) list.get(0), ((ScriptOperator) obj).getType());
+						returnValue = ScriptExecutable_EvaluateMathExpression.create((Referenced) obj, left, (ScriptValue) list.get(0), ((ScriptOperator) obj).getType());
 					} else {
-						returnValue = new ScriptExecutable_EvaluateMathExpression((Referenced) obj, left, (ScriptValue) parseExpression(env, list, automaticallyAddToStack, type), ((ScriptOperator) obj).getType());
+						returnValue = ScriptExecutable_EvaluateMathExpression.create((Referenced) obj, left, (ScriptValue) parseExpression(env, list, automaticallyAddToStack, type), ((ScriptOperator) obj).getType());
 					}
 					assert Logs.addSnapNode("Expression Parsing", "Mathematical expression parsed", returnValue);
 					return returnValue;
@@ -1081,7 +784,7 @@ public final class Parser {
 		if (function.getName() == null || function.getName().equals("")) {
 			fxn = new ScriptFunction_Constructor(function.getReturnType(), function.getParameters(), function.getPermission());
 		} else {
-			fxn = new RiffScriptFunction(function.getReturnType(), function.getParameters(), function.getPermission(), function.isAbstract(), function.isStatic());
+			fxn = new RiffScriptFunction(function.getEnvironment(), function.getReturnType(), function.getParameters(), function.getPermission(), function.isAbstract(), function.isStatic());
 		}
 		fxn.addExpressions(parseBodyList(function.getEnvironment(), function.getBody().getElements(), type));
 		assert Logs.closeNode();
@@ -1363,7 +1066,7 @@ public final class Parser {
 	}
 
 	// Object-oriented parsing functions
-	private static void preparseElements(ScriptEnvironment env, List<Object> lineList) throws ScriptException {
+	private static void preparseElements(ScriptEnvironment env, List<Object> lineList, List<TemplateParams> classParams) throws ScriptException {
 		assert Logs.openNode("Preparsing Elements", "Preparsing Elements (" + lineList.size() + " element(s))");
 		assert Logs.addSnapNode(CommonString.ELEMENTS, lineList);
 		List<Object> modifiers = new LinkedList<Object>();
@@ -1507,120 +1210,6 @@ public final class Parser {
 		return template;
 	}
 
-	private static List<Object> removeSingleLineGroupings(List<Object> lineList, CharacterGroup group) {
-		for (int i = 0; i < lineList.size(); i++) {
-			if (lineList.get(i) instanceof ScriptGroup) {
-				if (group.isRecursive()) {
-					((ScriptGroup) lineList.get(i)).setElements(removeSingleLineGroupings(((ScriptGroup) lineList.get(i)).getElements(), group));
-				}
-				continue;
-			}
-			if (!(lineList.get(i) instanceof ScriptLine)) {
-				continue;
-			}
-			List<Object> returnedList = removeSingleLineGroupings((ScriptLine) lineList.get(i), group);
-			lineList.remove(i);
-			lineList.addAll(i, returnedList);
-		}
-		return lineList;
-	}
-
-	private static List<Object> removeSingleLineGroupings(ScriptLine line, CharacterGroup group) {
-		String openChar = group.getStart();
-		String closingChar = group.getEnd();
-		boolean recurse = group.isRecursive();
-		int endGroup = -1;
-		int beginGroup = -1;
-		int offset = 0;
-		String string;
-		while (true) {
-			endGroup = line.getString().indexOf(closingChar, offset);
-			if (endGroup == -1) {
-				List<Object> list = new LinkedList<Object>();
-				list.add(line);
-				return list;
-			}
-			string = line.getString().substring(0, endGroup);
-			beginGroup = string.lastIndexOf(openChar);
-			if (beginGroup != -1) {
-				break;
-			}
-			offset = endGroup + 1;
-		}
-		assert Logs.openNode("Single-Line Grouping Removals", "Removing Single-Line Groupings (Syntax: " + openChar + "..." + closingChar + " )");
-		assert Logs.addNode(line);
-		assert Logs.addNode("Allowed to Recurse: " + recurse);
-		List<Object> list = new LinkedList<Object>();
-		List<Object> itemList = new LinkedList<Object>();
-		ScriptLine newGroup = new ScriptLine(string.substring(beginGroup + openChar.length()), line, (short) (beginGroup + openChar.length()));
-		assert Logs.openNode("Recursing for left-side groups.");
-		list.addAll(removeSingleLineGroupings(
-				new ScriptLine(line.getString().substring(0, beginGroup), line, (short) 0),
-				group));
-		assert Logs.closeNode();
-		itemList.add(newGroup);
-		list.add(new ScriptGroup(line, itemList, group));
-		assert Logs.openNode("Recursing for right-side groups.");
-		list.addAll(removeSingleLineGroupings(
-				new ScriptLine(line.getString().substring(endGroup + closingChar.length()), line, (short) (endGroup + closingChar.length())),
-				group));
-		assert Logs.closeNode();
-		assert Logs.closeNode();
-		return list;
-	}
-
-	private static List<Object> splitByWhitespace(List<Object> list) {
-		assert Logs.openNode("Split-By-Whitespace List Operations", "Splitting lines in list by whitespace (" + list.size() + " element(s))");
-		assert Logs.addSnapNode("Elements", list);
-		for (int i = 0; i < list.size(); i++) {
-			Object obj = list.get(i);
-			if (obj instanceof ScriptGroup) {
-				((ScriptGroup) obj).setElements(splitByWhitespace(((ScriptGroup) obj).getElements()));
-				continue;
-			}
-			if (!(obj instanceof ScriptLine)) {
-				continue;
-			}
-			list.remove(i);
-			list.addAll(i, splitByWhitespace((ScriptLine) obj));
-		}
-		assert Logs.closeNode();
-		return list;
-	}
-
-	private static List<Object> splitByWhitespace(ScriptLine line) {
-		assert Logs.openNode("Split-By-Whitespace Operations", "Splitting line by whitespace (" + line.getLineNumber() + ":'" + line.getString() + "')");
-		assert Logs.addSnapNode("Line", line);
-		List<Object> list = new LinkedList<Object>();
-		if (line.getString().indexOf(" ") == -1 && line.getString().indexOf("\t") == -1) {
-			list.add(line);
-			assert Logs.closeNode("Line contains no whitespace.");
-			return list;
-		}
-		String string = line.getString();
-		String nextWord = "";
-		int offset = 0;
-		while (string.length() > 0) {
-			if (string.indexOf(" ") == 0 || string.indexOf("\t") == 0) {
-				if (nextWord.length() > 0) {
-					list.add(line = new ScriptLine(nextWord, line, offset));
-					offset = nextWord.length();
-					nextWord = "";
-				}
-				offset++;
-				string = string.substring(1);
-			} else {
-				nextWord += string.charAt(0);
-				string = string.substring(1);
-			}
-		}
-		if (nextWord.length() > 0) {
-			list.add(new ScriptLine(nextWord, line, offset));
-		}
-		assert Logs.closeNode("Returning list", list);
-		return list;
-	}
-
 }
 
 class StylesheetParams {
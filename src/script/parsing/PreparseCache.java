@@ -0,0 +1,69 @@
+package script.parsing;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import script.ScriptEnvironment;
+
+/**
+ * Keeps the preparsed form of each file between compilations, so that only
+ * files whose contents have changed are preparsed again. Files are preparsed
+ * independently of one another, so they are preparsed in parallel.
+ */
+public class PreparseCache {
+	private final ForkJoinPool pool;
+	private final Map<String, PreparsedFile> files = new ConcurrentHashMap<String, PreparsedFile>();
+
+	public PreparseCache() {
+		this(ForkJoinPool.commonPool());
+	}
+
+	public PreparseCache(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	/**
+	 * Returns the preparsed form of the given file, preparsing it only if its
+	 * contents have changed since it was last preparsed.
+	 */
+	public PreparsedFile preparse(ScriptEnvironment env, String filename, String source) {
+		PreparsedFile file = this.files.get(filename);
+		if (file != null && file.isPreparsedFrom(filename, source)) {
+			return file;
+		}
+		file = Parser.preparseFile(env, filename, source);
+		this.files.put(filename, file);
+		return file;
+	}
+
+	/**
+	 * Preparses every given file in parallel. Files that are not given are
+	 * discarded from this cache.
+	 *
+	 * @param sources
+	 *            the contents of each file, by filename
+	 * @return the preparsed files, by filename, in the order they were given
+	 */
+	public Map<String, PreparsedFile> preparseAll(final ScriptEnvironment env, Map<String, String> sources) {
+		List<ForkJoinTask<PreparsedFile>> tasks = new ArrayList<ForkJoinTask<PreparsedFile>>(sources.size());
+		for (final Map.Entry<String, String> source : sources.entrySet()) {
+			tasks.add(this.pool.submit(() -> this.preparse(env, source.getKey(), source.getValue())));
+		}
+		Map<String, PreparsedFile> preparsed = new LinkedHashMap<String, PreparsedFile>();
+		for (ForkJoinTask<PreparsedFile> task : tasks) {
+			PreparsedFile file = task.join();
+			preparsed.put(file.getFilename(), file);
+		}
+		this.files.keySet().retainAll(sources.keySet());
+		return preparsed;
+	}
+
+	public int size() {
+		return this.files.size();
+	}
+}
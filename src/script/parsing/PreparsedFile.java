@@ -0,0 +1,97 @@
+package script.parsing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import script.ScriptEnvironment;
+import script.values.ScriptValue_Numeric;
+import script.values.ScriptValue_String;
+
+/**
+ * A file whose comments, quotes, groupings, operators, keywords, and numbers
+ * have been parsed. This only depends on the file's contents, so a file that
+ * has not changed can be reused by later compilations.
+ * <p>
+ * Parsing templates modifies their elements, so the preparsed elements are
+ * never handed out. Instead, {@link #getElements(ScriptEnvironment)} copies
+ * them into the environment being compiled.
+ *
+ * @see Parser#preparseFile(ScriptEnvironment, String, String)
+ * @see PreparseCache
+ */
+public class PreparsedFile {
+	private static List<Object> copyElements(ScriptEnvironment env, List<Object> elements) {
+		List<Object> copies = new ArrayList<Object>(elements.size());
+		for (Object element : elements) {
+			if (element instanceof ScriptGroup) {
+				ScriptGroup group = (ScriptGroup) element;
+				copies.add(new ScriptGroup(env, group, copyElements(env, group.getElements())));
+			} else if (element instanceof ScriptLine) {
+				copies.add(new ScriptLine(env, (ScriptLine) element));
+			} else if (element instanceof ScriptKeyword) {
+				copies.add(new ScriptKeyword(env, (ScriptKeyword) element));
+			} else if (element instanceof ScriptOperator) {
+				copies.add(new ScriptOperator(env, (ScriptOperator) element));
+			} else if (element instanceof ScriptValue_Numeric) {
+				copies.add(new ScriptValue_Numeric(env, ((ScriptValue_Numeric) element).getNumericValue()));
+			} else if (element instanceof ScriptValue_String) {
+				copies.add(new ScriptValue_String(env, ((ScriptValue_String) element).getStringValue()));
+			} else {
+				throw new IllegalStateException("Unexpected preparsed element: " + element);
+			}
+		}
+		return copies;
+	}
+
+	private final String filename;
+	private final String source;
+	private final int hash;
+	private final List<Object> elements;
+	private final List<Exception> exceptions;
+
+	PreparsedFile(String filename, String source, List<Object> elements, List<Exception> exceptions) {
+		this.filename = filename;
+		this.source = source;
+		this.hash = source.hashCode();
+		this.elements = elements;
+		this.exceptions = Collections.unmodifiableList(exceptions);
+	}
+
+	/**
+	 * Returns a copy of this file's elements, bound to the given environment.
+	 */
+	public List<Object> getElements(ScriptEnvironment env) {
+		if (this.elements == null) {
+			throw new IllegalStateException("File has errors: " + this.filename);
+		}
+		return copyElements(env, this.elements);
+	}
+
+	/**
+	 * Returns the errors that prevented this file from being preparsed, if any.
+	 */
+	public List<Exception> getExceptions() {
+		return this.exceptions;
+	}
+
+	public String getFilename() {
+		return this.filename;
+	}
+
+	public boolean hasErrors() {
+		return !this.exceptions.isEmpty();
+	}
+
+	/**
+	 * Returns whether this is the preparsed form of the given file contents.
+	 */
+	public boolean isPreparsedFrom(String filename, String source) {
+		return this.hash == source.hashCode() && this.filename.equals(filename) && this.source.equals(source);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("PreparsedFile[%s]", this.filename);
+	}
+}
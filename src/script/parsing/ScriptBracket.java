@@ -0,0 +1,44 @@
+package script.parsing;
+
+import inspect.Inspectable;
+import script.parsing.tokens.RiffToken;
+import script.parsing.tokens.RiffTokenVisitor;
+
+/**
+ * The opening or closing bracket of a {@link ScriptGroup}.
+ */
+@Inspectable
+public class ScriptBracket extends ScriptElement implements RiffToken {
+	private final CharacterGroup type;
+	private final boolean opening;
+
+	public ScriptBracket(ScriptLine line, int oLO, CharacterGroup type, boolean opening) {
+		super(line, oLO, opening ? type.getStart().length() : type.getEnd().length());
+		this.type = type;
+		this.opening = opening;
+	}
+
+	@Inspectable
+	public CharacterGroup getType() {
+		return this.type;
+	}
+
+	@Inspectable
+	public boolean isOpening() {
+		return this.opening;
+	}
+
+	@Override
+	public String toString() {
+		return this.getFilename() + "@" + this.getLineNumber() + ": " + (this.opening ? this.type.getStart() : this.type.getEnd());
+	}
+
+	@Override
+	public void accept(RiffTokenVisitor visitor) {
+		if (this.opening) {
+			visitor.visitGroupStart(this.getType());
+		} else {
+			visitor.visitGroupEnd(this.getType());
+		}
+	}
+}
@@ -0,0 +1,267 @@
+package script.parsing;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import logging.Logs;
+import script.ScriptEnvironment;
+import script.exceptions.ScriptException;
+import script.operations.ScriptExecutable;
+import script.operations.ScriptExecutable_RetrieveVariable;
+import script.values.RiffScriptFunction;
+import script.values.ScriptFunction;
+import script.values.ScriptTemplate;
+import script.values.ScriptTemplate_Abstract;
+import script.values.ScriptValue;
+import script.values.ScriptValueType;
+
+/**
+ * Resolves the names used by parsed templates before they are executed.
+ * <p>
+ * Parsing leaves every variable reference and function call to be looked up by
+ * name each time it runs. Once all templates are known, this pass walks their
+ * preconstructors and function bodies and binds what it can: variable
+ * references learn whether they name a local, a member, or a template, and
+ * function calls that can only ever reach one function are bound to it
+ * directly. Anything else is left to the dynamic lookup at execution time.
+ *
+ * @see Parser#parseElements(ScriptEnvironment, List)
+ */
+public class ScriptCompiler {
+	public static void compile(ScriptEnvironment env) throws ScriptException {
+		assert Logs.openNode("Script Compilation", "Compiling Templates");
+		try {
+			ScriptCompiler compiler = new ScriptCompiler(env);
+			for (ScriptTemplate_Abstract template : env.getTemplates().values()) {
+				if (template instanceof ScriptTemplate) {
+					compiler.compileTemplate((ScriptTemplate) template);
+				}
+			}
+			assert Logs.addNode("Resolved variables: " + compiler.getResolvedVariableCount());
+			assert Logs.addNode("Resolved function calls: " + compiler.getResolvedFunctionCount());
+			assert Logs.addNode("Dynamic references: " + compiler.getDynamicReferenceCount());
+		} finally {
+			assert Logs.closeNode();
+		}
+	}
+
+	private final ScriptEnvironment environment;
+	private final Deque<Map<String, Integer>> scopes = new ArrayDeque<Map<String, Integer>>();
+	private final Set<String> members = new HashSet<String>();
+	private int nextSlot;
+	private ScriptTemplate template;
+
+	private int resolvedVariables;
+	private int resolvedFunctions;
+	private int dynamicReferences;
+
+	public ScriptCompiler(ScriptEnvironment env) {
+		this.environment = env;
+	}
+
+	public void advanceScope() {
+		this.scopes.push(new HashMap<String, Integer>());
+	}
+
+	public void compile(ScriptExecutable exec) throws ScriptException {
+		if (exec != null) {
+			exec.compile(this);
+		}
+	}
+
+	public void compile(ScriptValue value) throws ScriptException {
+		if (value instanceof ScriptExecutable) {
+			((ScriptExecutable) value).compile(this);
+		}
+	}
+
+	public void compileAll(Iterable<?> values) throws ScriptException {
+		if (values == null) {
+			return;
+		}
+		for (Object value : values) {
+			if (value instanceof ScriptExecutable) {
+				((ScriptExecutable) value).compile(this);
+			}
+		}
+	}
+
+	public void compileTemplate(ScriptTemplate template) throws ScriptException {
+		assert this.scopes.isEmpty() && this.nextSlot == 0;
+		assert Logs.openNode("Template Compilations", "Compiling Template (" + template.getType() + ")");
+		ScriptTemplate previous = this.template;
+		this.template = template;
+		this.members.clear();
+		try {
+			template.compile(this);
+		} finally {
+			this.template = previous;
+			this.members.clear();
+			assert Logs.closeNode();
+		}
+	}
+
+	/**
+	 * Records a variable declaration. Declarations outside of any scope are
+	 * preconstructor expressions, and so declare members of the current
+	 * template.
+	 * <p>
+	 * Locals are numbered in the order they are declared within a function,
+	 * and a scope's numbers are reused once it is retreated from. This is the
+	 * order the variables are pushed onto the stack when the function runs.
+	 *
+	 * @return the local's slot in its function's frame, or -1 for a member
+	 */
+	public int declareVariable(String name) {
+		if (this.scopes.isEmpty()) {
+			this.members.add(name);
+			return -1;
+		}
+		Integer slot = this.scopes.peek().get(name);
+		if (slot == null) {
+			slot = this.nextSlot++;
+			this.scopes.peek().put(name, slot);
+		}
+		return slot;
+	}
+
+	public int getDynamicReferenceCount() {
+		return this.dynamicReferences;
+	}
+
+	public ScriptEnvironment getEnvironment() {
+		return this.environment;
+	}
+
+	public int getResolvedFunctionCount() {
+		return this.resolvedFunctions;
+	}
+
+	public int getResolvedVariableCount() {
+		return this.resolvedVariables;
+	}
+
+	/**
+	 * Returns the slot of the named local in the current function's frame, or
+	 * -1 if no enclosing scope declares it.
+	 */
+	public int getLocalSlot(String name) {
+		for (Map<String, Integer> scope : this.scopes) {
+			Integer slot = scope.get(name);
+			if (slot != null) {
+				return slot;
+			}
+		}
+		return -1;
+	}
+
+	public ScriptTemplate getTemplate() {
+		return this.template;
+	}
+
+	/**
+	 * Returns the template that declares the only function a call could reach,
+	 * or null if the call must be dispatched dynamically.
+	 * <p>
+	 * A call is resolved when the first template in the receiver's hierarchy to
+	 * declare the name declares exactly one, non-abstract script function by
+	 * that name that accepts the given parameters. Unless the receiver is a
+	 * template itself, no template extending the receiver's type may declare
+	 * that name either.
+	 *
+	 * @param object
+	 *            the receiver of the call, or null for the current object
+	 */
+	public ScriptTemplate resolveFunction(ScriptValue object, String name, List<ScriptValue> params) {
+		ScriptTemplate_Abstract receiver = this.template;
+		boolean exact = false;
+		if (object != null) {
+			receiver = this.getTemplate(object.getType());
+			exact = object instanceof ScriptExecutable_RetrieveVariable && ((ScriptExecutable_RetrieveVariable) object).getBinding() == VariableBinding.TEMPLATE;
+		}
+		if (params == null) {
+			params = Collections.emptyList();
+		}
+		for (ScriptTemplate_Abstract current = receiver; current instanceof ScriptTemplate; current = current.getExtendedClass()) {
+			List<ScriptFunction> candidates = ((ScriptTemplate) current).getFunctions(name);
+			if (candidates.isEmpty()) {
+				continue;
+			}
+			if (candidates.size() == 1 && this.isDirectlyCallable(candidates.get(0), params) && (exact || !this.isOverridden(receiver, name))) {
+				this.resolvedFunctions++;
+				return (ScriptTemplate) current;
+			}
+			break;
+		}
+		this.dynamicReferences++;
+		return null;
+	}
+
+	public VariableBinding resolveVariable(String name) {
+		for (Map<String, Integer> scope : this.scopes) {
+			if (scope.containsKey(name)) {
+				this.resolvedVariables++;
+				return VariableBinding.LOCAL;
+			}
+		}
+		if (this.members.contains(name)) {
+			this.resolvedVariables++;
+			return VariableBinding.MEMBER;
+		}
+		if (this.environment.isTemplateDefined(name)) {
+			this.resolvedVariables++;
+			return VariableBinding.TEMPLATE;
+		}
+		this.dynamicReferences++;
+		return VariableBinding.DYNAMIC;
+	}
+
+	public void retreatScope() {
+		assert !this.scopes.isEmpty();
+		this.nextSlot -= this.scopes.pop().size();
+	}
+
+	private ScriptTemplate_Abstract getTemplate(ScriptValueType type) {
+		if (type == null) {
+			return null;
+		}
+		try {
+			return this.environment.getTemplate(type);
+		} catch (IllegalArgumentException ex) {
+			// Unnamed types have no template
+			return null;
+		}
+	}
+
+	private boolean isDirectlyCallable(ScriptFunction function, List<ScriptValue> params) {
+		if (!(function instanceof RiffScriptFunction) || function.isAbstract()) {
+			return false;
+		}
+		try {
+			return function.areParametersConvertible(params);
+		} catch (RuntimeException ex) {
+			// Some parameters can only report their type once executed
+			return false;
+		}
+	}
+
+	private boolean isOverridden(ScriptTemplate_Abstract receiver, String name) {
+		for (ScriptTemplate_Abstract candidate : this.environment.getTemplates().values()) {
+			if (candidate == receiver || !(candidate instanceof ScriptTemplate) || ((ScriptTemplate) candidate).getFunctions(name).isEmpty()) {
+				continue;
+			}
+			for (ScriptTemplate_Abstract parent = candidate.getExtendedClass(); parent != null; parent = parent.getExtendedClass()) {
+				if (parent == receiver) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+}
@@ -3,6 +3,7 @@ package script.parsing;
 import java.util.List;
 
 import inspect.Inspectable;
+import script.ScriptEnvironment;
 import script.parsing.tokens.RiffToken;
 import script.parsing.tokens.RiffTokenVisitor;
 
@@ -17,6 +18,16 @@ public class ScriptGroup extends ScriptElement implements RiffToken {
 		this.type = type;
 	}
 
+	/**
+	 * Copies the given group into another environment, with the given copy of
+	 * its elements.
+	 */
+	public ScriptGroup(ScriptEnvironment env, ScriptGroup group, List<Object> elements) {
+		super(env, group, 0, group.getLength());
+		this.elements = elements;
+		this.type = group.getType();
+	}
+
 	@Inspectable
 	public CharacterGroup getType() {
 		return this.type;
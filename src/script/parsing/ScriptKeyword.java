@@ -1,18 +1,28 @@
 package script.parsing;
 
 import inspect.Inspectable;
-import script.exceptions.ScriptException;
+import script.ScriptEnvironment;
+import script.parsing.tokens.RiffToken;
+import script.parsing.tokens.RiffTokenVisitor;
 import script.values.ScriptValueType;
 
 @Inspectable
-public class ScriptKeyword extends ScriptElement {
+public class ScriptKeyword extends ScriptElement implements RiffToken {
 	private final ScriptKeywordType type;
 
-	public ScriptKeyword(final Referenced ref, final ScriptKeywordType type) throws ScriptException {
+	public ScriptKeyword(final Referenced ref, final ScriptKeywordType type) {
 		super(ref);
 		this.type = type;
 	}
 
+	/**
+	 * Copies the given keyword into another environment.
+	 */
+	public ScriptKeyword(ScriptEnvironment env, ScriptKeyword keyword) {
+		super(env, keyword, 0, keyword.getLength());
+		this.type = keyword.getType();
+	}
+
 	@Inspectable
 	public ScriptKeywordType getType() {
 		return this.type;
@@ -50,4 +60,9 @@ public class ScriptKeyword extends ScriptElement {
 	public String toString() {
 		return this.getType().toString();
 	}
+
+	@Override
+	public void accept(RiffTokenVisitor visitor) {
+		visitor.visitKeyword(this.getType());
+	}
 }
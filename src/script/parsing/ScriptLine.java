@@ -19,6 +19,14 @@ public class ScriptLine extends ScriptElement implements RiffToken {
 		this.string = string;
 	}
 
+	/**
+	 * Copies the given line into another environment.
+	 */
+	public ScriptLine(ScriptEnvironment env, ScriptLine line) {
+		super(env, line, 0, line.getLength());
+		this.string = line.getString();
+	}
+
 	@Inspectable
 	public String getString() {
 		return this.string;
@@ -1,6 +1,7 @@
 package script.parsing;
 
 import inspect.Inspectable;
+import script.ScriptEnvironment;
 import script.parsing.tokens.RiffToken;
 import script.parsing.tokens.RiffTokenVisitor;
 
@@ -14,6 +15,14 @@ public class ScriptOperator extends ScriptElement implements RiffToken {
 		this.type = type;
 	}
 
+	/**
+	 * Copies the given operator into another environment.
+	 */
+	public ScriptOperator(ScriptEnvironment env, ScriptOperator operator) {
+		super(env, operator, 0, operator.getLength());
+		this.type = operator.getType();
+	}
+
 	@Inspectable
 	public ScriptOperatorType getType() {
 		return this.type;
@@ -0,0 +1,45 @@
+package script.parsing;
+
+import inspect.Inspectable;
+import script.parsing.tokens.RiffToken;
+import script.parsing.tokens.RiffTokenVisitor;
+
+/**
+ * A quoted string, as it was read from a script. The string is kept exactly as
+ * it appeared between its quotes.
+ */
+@Inspectable
+public class ScriptQuote extends ScriptElement implements RiffToken {
+	private final String string;
+	private final boolean enclosed;
+
+	/**
+	 * @param enclosed
+	 *            whether the quote was closed before the end of its line
+	 */
+	public ScriptQuote(String string, ScriptLine line, int oLO, boolean enclosed) {
+		super(line, oLO, string.length());
+		this.string = string;
+		this.enclosed = enclosed;
+	}
+
+	@Inspectable
+	public String getString() {
+		return this.string;
+	}
+
+	@Inspectable
+	public boolean isEnclosed() {
+		return this.enclosed;
+	}
+
+	@Override
+	public String toString() {
+		return this.getFilename() + "@" + this.getLineNumber() + ": \"" + this.string + '"';
+	}
+
+	@Override
+	public void accept(RiffTokenVisitor visitor) {
+		visitor.visitString(this.getString());
+	}
+}
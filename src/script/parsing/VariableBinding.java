@@ -0,0 +1,25 @@
+package script.parsing;
+
+/**
+ * Describes where a variable reference was found to live during compilation.
+ *
+ * @see ScriptCompiler
+ */
+public enum VariableBinding {
+	/**
+	 * The reference could not be resolved ahead of time, so it must be looked up by name whenever it is executed.
+	 */
+	DYNAMIC,
+	/**
+	 * The reference names a parameter or a local declared in an enclosing scope of the current function, and is read from its slot in the function's frame.
+	 */
+	LOCAL,
+	/**
+	 * The reference names a member (or static member) of the template that declared the current function.
+	 */
+	MEMBER,
+	/**
+	 * The reference names a template.
+	 */
+	TEMPLATE
+}
@@ -6,6 +6,7 @@ package script.parsing.tokens;
 import java.util.ArrayDeque;
 import java.util.Deque;
 
+import script.parsing.CharacterGroup;
 import script.parsing.ScriptGroup;
 import script.parsing.ScriptKeywordType;
 import script.parsing.ScriptOperatorType;
@@ -52,6 +53,21 @@ public class AbstractRiffTokenVisitor implements RiffTokenVisitor {
 		// Do nothing
 	}
 
+	@Override
+	public void visitString(String string) {
+		// Do nothing
+	}
+
+	@Override
+	public void visitGroupStart(CharacterGroup group) {
+		// Do nothing
+	}
+
+	@Override
+	public void visitGroupEnd(CharacterGroup group) {
+		// Do nothing
+	}
+
 	@Override
 	public void exitContext(Cursor cursor) {
 		this.cursors.removeLast();
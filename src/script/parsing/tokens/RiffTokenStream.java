@@ -0,0 +1,296 @@
+/**
+ * 
+ */
+package script.parsing.tokens;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import parsing.TokenStream;
+import script.ScriptEnvironment;
+import script.parsing.CharacterGroup;
+import script.parsing.ScriptBracket;
+import script.parsing.ScriptKeyword;
+import script.parsing.ScriptKeywordType;
+import script.parsing.ScriptLine;
+import script.parsing.ScriptOperator;
+import script.parsing.ScriptOperatorType;
+import script.parsing.ScriptQuote;
+
+/**
+ * Splits RiffScript code into tokens in a single pass over its characters.
+ * Comments and whitespace are skipped, and every other character ends up in
+ * exactly one token:
+ * <ul>
+ * <li>{@link ScriptBracket} for curly braces and parentheses
+ * <li>{@link ScriptQuote} for single- and double-quoted strings
+ * <li>{@link ScriptOperator} for operators, preferring the longest match
+ * <li>{@link ScriptKeyword} for words that are keywords
+ * <li>{@link ScriptLine} for any other word, including numbers
+ * </ul>
+ * Each token refers to the line it was found on, so errors can be reported at
+ * their original position.
+ *
+ * @see script.parsing.Parser#preparseFile(ScriptEnvironment, String, String)
+ */
+public class RiffTokenStream extends TokenStream<RiffToken, RiffTokenVisitor> {
+
+	private final ScriptEnvironment environment;
+	private final String filename;
+
+	private ScriptLine line;
+
+	// An operator that was read while ending the previous word
+	private RiffToken pending;
+
+	public RiffTokenStream(ScriptEnvironment env, String filename, String source) {
+		super(source);
+		this.environment = env;
+		this.filename = filename;
+	}
+
+	public RiffTokenStream(ScriptEnvironment env, String filename, Reader reader) {
+		super(reader);
+		this.environment = env;
+		this.filename = filename;
+	}
+
+	@Override
+	protected RiffToken readToken() throws IOException {
+		if (this.pending != null) {
+			RiffToken token = this.pending;
+			this.pending = null;
+			return token;
+		}
+		while (true) {
+			int c = this.peek();
+			if (c == -1) {
+				return null;
+			}
+			if (isWhitespace(c)) {
+				this.read();
+				continue;
+			}
+			ScriptLine line = this.getScriptLine();
+			int column = this.getColumn();
+			this.read();
+			switch (c) {
+			case '/':
+				if (this.peek() == '/') {
+					this.skipLine();
+					continue;
+				}
+				if (this.peek() == '*') {
+					this.read();
+					this.skipBlockComment();
+					continue;
+				}
+				break;
+			case '"':
+			case '\'':
+				return this.readQuote((char) c, line, column);
+			case '{':
+				return new ScriptBracket(line, column, CharacterGroup.CURLY_BRACES, true);
+			case '}':
+				return new ScriptBracket(line, column, CharacterGroup.CURLY_BRACES, false);
+			case '(':
+				return new ScriptBracket(line, column, CharacterGroup.PARENTHESES, true);
+			case ')':
+				return new ScriptBracket(line, column, CharacterGroup.PARENTHESES, false);
+			}
+			ScriptOperatorType operator = this.readOperator(c);
+			if (operator != null) {
+				return new ScriptOperator(new ScriptLine(operator.getOperator(), line, column), operator);
+			}
+			return this.readWord(c, line, column);
+		}
+	}
+
+	/**
+	 * Returns the line that the next character is on.
+	 */
+	private ScriptLine getScriptLine() throws IOException {
+		if (this.line == null || this.line.getLineNumber() != this.getLineNumber()) {
+			this.line = new ScriptLine(this.environment, this.filename, this.getLineNumber(), this.getLine());
+		}
+		return this.line;
+	}
+
+	private void skipLine() throws IOException {
+		while (this.peek() != '\n' && this.peek() != -1) {
+			this.read();
+		}
+	}
+
+	private void skipBlockComment() throws IOException {
+		int c = this.read();
+		while (c != -1) {
+			if (c == '*' && this.peek() == '/') {
+				this.read();
+				return;
+			}
+			c = this.read();
+		}
+	}
+
+	/**
+	 * Reads a quoted string. Double quotes are not closed by a quote that
+	 * follows a backslash, though the backslash is kept. Quotes never span
+	 * lines.
+	 */
+	private ScriptQuote readQuote(char quote, ScriptLine line, int column) throws IOException {
+		StringBuilder string = new StringBuilder();
+		int previous = quote;
+		while (true) {
+			int c = this.peek();
+			if (c == '\n' || c == -1) {
+				return new ScriptQuote(string.toString(), line, column, false);
+			}
+			this.read();
+			if (c == quote && (quote != '"' || previous != '\\')) {
+				return new ScriptQuote(string.toString(), line, column, true);
+			}
+			string.append((char) c);
+			previous = c;
+		}
+	}
+
+	/**
+	 * Reads the operator that begins with the given character, or returns null
+	 * if the character does not begin an operator.
+	 */
+	private ScriptOperatorType readOperator(int c) throws IOException {
+		int next = this.peek();
+		switch (c) {
+		case ';':
+			return ScriptOperatorType.SEMICOLON;
+		case ',':
+			return ScriptOperatorType.COMMA;
+		case '.':
+			return ScriptOperatorType.PERIOD;
+		case ':':
+			return ScriptOperatorType.COLON;
+		case '#':
+			return ScriptOperatorType.POUNDSIGN;
+		case '=':
+			return this.readOperator(next == '=', ScriptOperatorType.EQUIVALENCY, ScriptOperatorType.ASSIGNMENT);
+		case '!':
+			return this.readOperator(next == '=', ScriptOperatorType.NONEQUIVALENCY, ScriptOperatorType.NOT);
+		case '>':
+			return this.readOperator(next == '=', ScriptOperatorType.GREATEREQUALS, ScriptOperatorType.GREATER);
+		case '<':
+			return this.readOperator(next == '=', ScriptOperatorType.LESSEQUALS, ScriptOperatorType.LESS);
+		case '&':
+			return this.readOperator(next == '&', ScriptOperatorType.AND, null);
+		case '|':
+			return this.readOperator(next == '|', ScriptOperatorType.OR, null);
+		case '+':
+			if (next == '+') {
+				this.read();
+				return ScriptOperatorType.INCREMENT;
+			}
+			return this.readOperator(next == '=', ScriptOperatorType.PLUSEQUALS, ScriptOperatorType.PLUS);
+		case '-':
+			if (next == '-') {
+				this.read();
+				return ScriptOperatorType.DECREMENT;
+			}
+			return this.readOperator(next == '=', ScriptOperatorType.MINUSEQUALS, ScriptOperatorType.MINUS);
+		case '*':
+			return this.readOperator(next == '=', ScriptOperatorType.MULTIPLYEQUALS, ScriptOperatorType.MULTIPLY);
+		case '/':
+			return this.readOperator(next == '=', ScriptOperatorType.DIVIDEEQUALS, ScriptOperatorType.DIVIDE);
+		case '%':
+			return this.readOperator(next == '=', ScriptOperatorType.MODULUSEQUALS, ScriptOperatorType.MODULUS);
+		default:
+			return null;
+		}
+	}
+
+	private ScriptOperatorType readOperator(boolean isLong, ScriptOperatorType longOperator, ScriptOperatorType shortOperator) throws IOException {
+		if (isLong) {
+			this.read();
+			return longOperator;
+		}
+		return shortOperator;
+	}
+
+	/**
+	 * Reads a word, which continues until whitespace or the start of any other
+	 * token.
+	 */
+	private RiffToken readWord(int first, ScriptLine line, int column) throws IOException {
+		StringBuilder word = new StringBuilder();
+		word.append((char) first);
+		while (true) {
+			int c = this.peek();
+			if (c == -1 || isWhitespace(c) || isDelimiter(c)) {
+				break;
+			}
+			this.read();
+			if ((c == '&' || c == '|') && this.peek() == c) {
+				return this.splitWord(word, line, column, (char) c);
+			}
+			word.append((char) c);
+		}
+		return this.createWord(word.toString(), line, column);
+	}
+
+	/**
+	 * Ends a word at a two-character operator whose first character has
+	 * already been consumed. The operator is returned by the next call to
+	 * {@link #readToken()}.
+	 */
+	private RiffToken splitWord(StringBuilder word, ScriptLine line, int column, char c) throws IOException {
+		int operatorColumn = this.getColumn() - 1;
+		this.read();
+		ScriptOperatorType operator = c == '&' ? ScriptOperatorType.AND : ScriptOperatorType.OR;
+		this.pending = new ScriptOperator(new ScriptLine(operator.getOperator(), line, operatorColumn), operator);
+		return this.createWord(word.toString(), line, column);
+	}
+
+	private RiffToken createWord(String word, ScriptLine line, int column) {
+		ScriptLine scriptLine = new ScriptLine(word, line, column);
+		ScriptKeywordType keyword = ScriptKeywordType.fromCanonical(word);
+		if (keyword != null) {
+			return new ScriptKeyword(scriptLine, keyword);
+		}
+		return scriptLine;
+	}
+
+	private static boolean isWhitespace(int c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+	}
+
+	/**
+	 * Returns whether the given character always ends a word. Ampersands and
+	 * vertical bars only end a word when they are doubled.
+	 */
+	private static boolean isDelimiter(int c) {
+		switch (c) {
+		case '"':
+		case '\'':
+		case '{':
+		case '}':
+		case '(':
+		case ')':
+		case ';':
+		case ',':
+		case '.':
+		case ':':
+		case '#':
+		case '=':
+		case '!':
+		case '>':
+		case '<':
+		case '+':
+		case '-':
+		case '*':
+		case '/':
+		case '%':
+			return true;
+		default:
+			return false;
+		}
+	}
+}
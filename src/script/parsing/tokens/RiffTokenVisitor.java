@@ -4,6 +4,7 @@
 package script.parsing.tokens;
 
 import parsing.TokenVisitor;
+import script.parsing.CharacterGroup;
 import script.parsing.ScriptGroup;
 import script.parsing.ScriptKeywordType;
 import script.parsing.ScriptOperatorType;
@@ -22,5 +23,11 @@ public interface RiffTokenVisitor extends TokenVisitor {
 
 	public void visitOperator(ScriptOperatorType operator);
 
+	public void visitString(String string);
+
+	public void visitGroupStart(CharacterGroup group);
+
+	public void visitGroupEnd(CharacterGroup group);
+
 	public void exitContext(Cursor cursor);
 }
@@ -0,0 +1,25 @@
+package script.proxies;
+
+import java.util.List;
+
+import script.exceptions.ScriptException;
+import script.parsing.Referenced;
+import script.values.ScriptTemplate_Abstract;
+import script.values.ScriptValue;
+
+/**
+ * The body of a native function, bound to it when its faux template is
+ * initialized. Calling a bound function runs its body directly, instead of
+ * searching its template's {@link FauxTemplate#execute} for its name.
+ *
+ * @see FauxTemplate#addFauxFunction(String, script.values.ScriptValueType, List, script.parsing.ScriptKeywordType, boolean, FauxMethod)
+ */
+@FunctionalInterface
+public interface FauxMethod {
+	/**
+	 * @param template
+	 *            the object the function was called on, or the faux template
+	 *            itself for a static function
+	 */
+	ScriptValue execute(Referenced ref, List<ScriptValue> params, ScriptTemplate_Abstract template) throws ScriptException;
+}
@@ -43,12 +43,21 @@ public abstract class FauxTemplate extends ScriptTemplate implements ScriptValue
 		this.addFunction(null, name, new ScriptFunction_Faux(this, name, returnType, params, permission, isAbstract, isStatic));
 	}
 
+	/**
+	 * Adds a native function with the given body. Each overload is bound
+	 * separately, so a body never needs to check how many parameters it was
+	 * given.
+	 */
+	public void addFauxFunction(String name, ScriptValueType returnType, List<ScriptValue> params, ScriptKeywordType permission, boolean isStatic, FauxMethod method) throws ScriptException {
+		this.addFunction(null, name, new ScriptFunction_Faux(this, name, returnType, params, permission, isStatic, method));
+	}
+
 	@Override
 	public void addTemplatePreconstructorExpression(ScriptExecutable exec) throws ScriptException {
 		throw new InternalException(this.getEnvironment(), "Invalid call in FauxTemplate");
 	}
 
-	// Function bodies are contained via a series of if statements in execute
+	// Function bodies are contained via a series of if statements in execute, unless they were bound to a FauxMethod
 	// Template will be null if the object is exactly of this type and is constructing, and thus must be created then
 	public ScriptValue execute(Referenced ref, String name, List<ScriptValue> params, ScriptTemplate_Abstract rawTemplate) throws ScriptException {
 		assert Logs.openNode("Faux Template Executions", "Executing INSERTFAUXTEMPLATENAMEHERE Faux Template Function (" + RiffScriptFunction.getDisplayableFunctionName(name) + ")");
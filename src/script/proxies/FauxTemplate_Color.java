@@ -40,7 +40,7 @@ public class FauxTemplate_Color extends FauxTemplate implements ScriptConvertibl
 		return this.color;
 	}
 
-	// Function bodies are contained via a series of if statements in execute
+	// Only the constructors are executed here, along with any function not bound to its body in initialize
 	// Template will be null if the object is exactly of this type and is constructing, and thus must be created then
 	@Override
 	public ScriptValue execute(Referenced ref, String name, List<ScriptValue> params, ScriptTemplate_Abstract rawTemplate) throws ScriptException {
@@ -90,63 +90,29 @@ public class FauxTemplate_Color extends FauxTemplate implements ScriptConvertibl
 				}
 			}
 			params.clear();
-		} else if (name.equals("getRed")) {
-			returning = Conversions.wrapInt(this.getEnvironment(), template.getColor().getRed());
-			assert Logs.closeNode();
-			return returning;
-		} else if (name.equals("getGreen")) {
-			returning = Conversions.wrapInt(this.getEnvironment(), template.getColor().getGreen());
-			assert Logs.closeNode();
-			return returning;
-		} else if (name.equals("getBlue")) {
-			returning = Conversions.wrapInt(this.getEnvironment(), template.getColor().getBlue());
-			assert Logs.closeNode();
-			return returning;
-		} else if (name.equals("setRed")) {
-			int value = 0;
-			if (params.get(0).getType().equals(ScriptValueType.FLOAT)) {
-				value = (int) (Conversions.getFloat(this.getEnvironment(), params.get(0)) * 255.0d);
-			} else {
-				value = Conversions.getInteger(this.getEnvironment(), params.get(0));
-			}
-			template.setColor(new java.awt.Color(value, template.getColor().getGreen(), template.getColor().getBlue()));
-			assert Logs.closeNode();
-			return null;
-		} else if (name.equals("setGreen")) {
-			int value = 0;
-			if (params.get(0).getType().equals(ScriptValueType.FLOAT)) {
-				value = (int) (Conversions.getFloat(this.getEnvironment(), params.get(0)) * 255.0d);
-			} else {
-				value = Conversions.getInteger(this.getEnvironment(), params.get(0));
-			}
-			template.setColor(new java.awt.Color(template.getColor().getRed(), value, template.getColor().getBlue()));
-			assert Logs.closeNode();
-			return null;
-		} else if (name.equals("setBlue")) {
-			int value = 0;
-			if (params.get(0).getType().equals(ScriptValueType.FLOAT)) {
-				value = (int) (Conversions.getFloat(this.getEnvironment(), params.get(0)) * 255.0d);
-			} else {
-				value = Conversions.getInteger(this.getEnvironment(), params.get(0));
-			}
-			template.setColor(new java.awt.Color(template.getColor().getRed(), template.getColor().getGreen(), value));
-			assert Logs.closeNode();
-			return null;
-		} else if (name.equals("setColor")) {
-			template.setColor(Stylesheets.getColor(Conversions.getString(this.getEnvironment(), params.get(0))));
-			assert Logs.closeNode();
-			return null;
 		}
 		returning = this.getExtendedFauxClass().execute(ref, name, params, template);
 		assert Logs.closeNode();
 		return returning;
 	}
 
+	private static java.awt.Color color(ScriptTemplate_Abstract template) {
+		return ((FauxTemplate_Color) template).getColor();
+	}
+
+	// Color components are given either as an int, or as a float fraction of 255
+	private int getComponent(ScriptValue value) throws ScriptException {
+		if (value.getType().equals(ScriptValueType.FLOAT)) {
+			return (int) (Conversions.getFloat(this.getEnvironment(), value) * 255.0d);
+		}
+		return Conversions.getInteger(this.getEnvironment(), value);
+	}
+
 	public java.awt.Color getColor() {
 		return this.color;
 	}
 
-	// All functions must be defined here. All function bodies are defined in 'execute'.
+	// All functions must be defined here. Function bodies are bound here, or else defined in 'execute'.
 	@Override
 	public void initialize() throws ScriptException {
 		assert Logs.openNode("Faux Template Initializations", "Initializing color faux template");
@@ -167,25 +133,43 @@ public class FauxTemplate_Color extends FauxTemplate implements ScriptConvertibl
 		this.disableFullCreation();
 		this.getExtendedClass().initialize();
 		fxnParams = new LinkedList<ScriptValue>();
-		this.addFauxFunction("getRed", ScriptValueType.INT, fxnParams, ScriptKeywordType.PUBLIC, false, false);
-		this.addFauxFunction("getGreen", ScriptValueType.INT, fxnParams, ScriptKeywordType.PUBLIC, false, false);
-		this.addFauxFunction("getBlue", ScriptValueType.INT, fxnParams, ScriptKeywordType.PUBLIC, false, false);
+		this.addFauxFunction("getRed", ScriptValueType.INT, fxnParams, ScriptKeywordType.PUBLIC, false, (ref, params, template) -> Conversions.wrapInt(this.getEnvironment(), color(template).getRed()));
+		this.addFauxFunction("getGreen", ScriptValueType.INT, fxnParams, ScriptKeywordType.PUBLIC, false, (ref, params, template) -> Conversions.wrapInt(this.getEnvironment(), color(template).getGreen()));
+		this.addFauxFunction("getBlue", ScriptValueType.INT, fxnParams, ScriptKeywordType.PUBLIC, false, (ref, params, template) -> Conversions.wrapInt(this.getEnvironment(), color(template).getBlue()));
 		this.addFauxFunction("getRedOpacity", ScriptValueType.FLOAT, fxnParams, ScriptKeywordType.PUBLIC, false, false);
 		this.addFauxFunction("getGreenOpacity", ScriptValueType.FLOAT, fxnParams, ScriptKeywordType.PUBLIC, false, false);
 		this.addFauxFunction("getBlueOpacity", ScriptValueType.FLOAT, fxnParams, ScriptKeywordType.PUBLIC, false, false);
+		FauxMethod setRed = (ref, params, template) -> {
+			java.awt.Color color = color(template);
+			((FauxTemplate_Color) template).setColor(new java.awt.Color(this.getComponent(params.get(0)), color.getGreen(), color.getBlue()));
+			return null;
+		};
+		FauxMethod setGreen = (ref, params, template) -> {
+			java.awt.Color color = color(template);
+			((FauxTemplate_Color) template).setColor(new java.awt.Color(color.getRed(), this.getComponent(params.get(0)), color.getBlue()));
+			return null;
+		};
+		FauxMethod setBlue = (ref, params, template) -> {
+			java.awt.Color color = color(template);
+			((FauxTemplate_Color) template).setColor(new java.awt.Color(color.getRed(), color.getGreen(), this.getComponent(params.get(0))));
+			return null;
+		};
 		fxnParams = new LinkedList<ScriptValue>();
 		fxnParams.add(new ScriptValue_Faux(this.getEnvironment(), ScriptValueType.INT));
-		this.addFauxFunction("setRed", ScriptValueType.VOID, fxnParams, ScriptKeywordType.PUBLIC, false, false);
-		this.addFauxFunction("setGreen", ScriptValueType.VOID, fxnParams, ScriptKeywordType.PUBLIC, false, false);
-		this.addFauxFunction("setBlue", ScriptValueType.VOID, fxnParams, ScriptKeywordType.PUBLIC, false, false);
+		this.addFauxFunction("setRed", ScriptValueType.VOID, fxnParams, ScriptKeywordType.PUBLIC, false, setRed);
+		this.addFauxFunction("setGreen", ScriptValueType.VOID, fxnParams, ScriptKeywordType.PUBLIC, false, setGreen);
+		this.addFauxFunction("setBlue", ScriptValueType.VOID, fxnParams, ScriptKeywordType.PUBLIC, false, setBlue);
 		fxnParams = new LinkedList<ScriptValue>();
 		fxnParams.add(new ScriptValue_Faux(this.getEnvironment(), ScriptValueType.FLOAT));
-		this.addFauxFunction("setRed", ScriptValueType.VOID, fxnParams, ScriptKeywordType.PUBLIC, false, false);
-		this.addFauxFunction("setGreen", ScriptValueType.VOID, fxnParams, ScriptKeywordType.PUBLIC, false, false);
-		this.addFauxFunction("setBlue", ScriptValueType.VOID, fxnParams, ScriptKeywordType.PUBLIC, false, false);
+		this.addFauxFunction("setRed", ScriptValueType.VOID, fxnParams, ScriptKeywordType.PUBLIC, false, setRed);
+		this.addFauxFunction("setGreen", ScriptValueType.VOID, fxnParams, ScriptKeywordType.PUBLIC, false, setGreen);
+		this.addFauxFunction("setBlue", ScriptValueType.VOID, fxnParams, ScriptKeywordType.PUBLIC, false, setBlue);
 		fxnParams = new LinkedList<ScriptValue>();
 		fxnParams.add(new ScriptValue_Faux(this.getEnvironment(), ScriptValueType.STRING));
-		this.addFauxFunction("setColor", ScriptValueType.VOID, fxnParams, ScriptKeywordType.PUBLIC, false, false);
+		this.addFauxFunction("setColor", ScriptValueType.VOID, fxnParams, ScriptKeywordType.PUBLIC, false, (ref, params, template) -> {
+			((FauxTemplate_Color) template).setColor(Stylesheets.getColor(Conversions.getString(this.getEnvironment(), params.get(0))));
+			return null;
+		});
 		assert Logs.closeNode();
 	}
 
@@ -41,7 +41,7 @@ public class FauxTemplate_DiscreteRegion extends FauxTemplate_GraphicalElement i
 		return this.region;
 	}
 
-	// Function bodies are contained via a series of if statements in execute
+	// Only the constructors are executed here; every other function is bound to its body in initialize
 	// Template will be null if the object is exactly of this type and is constructing, and thus must be created then
 	@Override
 	public ScriptValue execute(Referenced ref, String name, List<ScriptValue> params, ScriptTemplate_Abstract rawTemplate) throws ScriptException {
@@ -55,49 +55,21 @@ public class FauxTemplate_DiscreteRegion extends FauxTemplate_GraphicalElement i
 			}
 			template.setRegion(this.region = new DiscreteRegion(this.getEnvironment()));
 			params.clear();
-		} else if (name.equals("add")) {
-			//region.addPoint(Parser.getPoint(aaron is a sand jewparams.get(0)));
-			if (params.size() == 1) {
-				template.getRegion().addPoint(Conversions.getPoint(this.getEnvironment(), params.get(0)));
-				assert Logs.closeNode();
-				return null;
-			}
-		} else if (name.equals("addAsset")) {
-			if (template.getRegion().getProperty("Archetypes") == null) {
-				template.getRegion().setProperty("Archetypes", ArchetypeMapNode.createTree(Conversions.getAsset(this.getEnvironment(), params.get(0))));
-			} else {
-				((ArchetypeMapNode) template.getRegion().getProperty("Archetypes")).addAsset(Conversions.getAsset(this.getEnvironment(), params.get(0)));
-			}
-			assert Logs.closeNode();
-			return null;
-		} else if (name.equals("setProperty")) {
-			if (params.size() == 2) {
-				template.getRegion().setProperty(Conversions.getString(this.getEnvironment(), params.get(0)), Conversions.getObject(this.getEnvironment(), params.get(1)));
-				assert Logs.closeNode();
-				return null;
-			}
-		} else if (name.equals("getProperty")) {
-			if (params.size() == 1) {
-				ScriptValue returning = (ScriptValue) Conversions.convert(this.getEnvironment(), template.getRegion().getProperty(Conversions.getString(this.getEnvironment(), params.get(0))));
-				assert Logs.addSnapNode("Retrieved property", returning);
-				assert Logs.closeNode();
-				return returning;
-			}
-		} else if (name.equals("getCenter")) {
-			ScriptValue returning = Conversions.wrapPoint(this.getEnvironment(), template.getRegion().getCenter());
-			assert Logs.closeNode();
-			return returning;
 		}
 		ScriptValue returning = this.getExtendedFauxClass().execute(ref, name, params, template);
 		assert Logs.closeNode();
 		return returning;
 	}
 
+	private static DiscreteRegion region(ScriptTemplate_Abstract template) {
+		return ((FauxTemplate_DiscreteRegion) template).getRegion();
+	}
+
 	public DiscreteRegion getRegion() {
 		return this.region;
 	}
 
-	// All functions must be defined here. All function bodies are defined in 'execute'.
+	// All functions must be defined here, and are bound to their bodies. Only the constructors are defined in 'execute'.
 	@Override
 	public void initialize() throws ScriptException {
 		assert Logs.openNode("Faux Template Initializations", "Initializing discrete region faux template");
@@ -109,19 +81,37 @@ public class FauxTemplate_DiscreteRegion extends FauxTemplate_GraphicalElement i
 		this.getExtendedClass().initialize();
 		fxnParams = new LinkedList<ScriptValue>();
 		fxnParams.add(new ScriptValue_Faux(this.getEnvironment(), ScriptValueType.createType(this.getEnvironment(), FauxTemplate_Point.POINTSTRING)));
-		this.addFauxFunction("add", ScriptValueType.VOID, fxnParams, ScriptKeywordType.PUBLIC, false, false);
+		this.addFauxFunction("add", ScriptValueType.VOID, fxnParams, ScriptKeywordType.PUBLIC, false, (ref, params, template) -> {
+			region(template).addPoint(Conversions.getPoint(this.getEnvironment(), params.get(0)));
+			return null;
+		});
 		fxnParams = new LinkedList<ScriptValue>();
 		fxnParams.add(new ScriptValue_Faux(this.getEnvironment(), ScriptValueType.createType(this.getEnvironment(), FauxTemplate_Asset.ASSETSTRING)));
-		this.addFauxFunction("addAsset", ScriptValueType.VOID, fxnParams, ScriptKeywordType.PUBLIC, false, false);
+		this.addFauxFunction("addAsset", ScriptValueType.VOID, fxnParams, ScriptKeywordType.PUBLIC, false, (ref, params, template) -> {
+			DiscreteRegion region = region(template);
+			if (region.getProperty("Archetypes") == null) {
+				region.setProperty("Archetypes", ArchetypeMapNode.createTree(Conversions.getAsset(this.getEnvironment(), params.get(0))));
+			} else {
+				((ArchetypeMapNode) region.getProperty("Archetypes")).addAsset(Conversions.getAsset(this.getEnvironment(), params.get(0)));
+			}
+			return null;
+		});
 		fxnParams = new LinkedList<ScriptValue>();
 		fxnParams.add(new ScriptValue_Faux(this.getEnvironment(), ScriptValueType.STRING));
 		fxnParams.add(new ScriptValue_Faux(this.getEnvironment(), ScriptValueType.getObjectType(this.getEnvironment())));
-		this.addFauxFunction("setProperty", ScriptValueType.VOID, fxnParams, ScriptKeywordType.PUBLIC, false, false);
+		this.addFauxFunction("setProperty", ScriptValueType.VOID, fxnParams, ScriptKeywordType.PUBLIC, false, (ref, params, template) -> {
+			region(template).setProperty(Conversions.getString(this.getEnvironment(), params.get(0)), Conversions.getObject(this.getEnvironment(), params.get(1)));
+			return null;
+		});
 		fxnParams = new LinkedList<ScriptValue>();
 		fxnParams.add(new ScriptValue_Faux(this.getEnvironment(), ScriptValueType.STRING));
-		this.addFauxFunction("getProperty", ScriptValueType.getObjectType(this.getEnvironment()), fxnParams, ScriptKeywordType.PUBLIC, false, false);
+		this.addFauxFunction("getProperty", ScriptValueType.getObjectType(this.getEnvironment()), fxnParams, ScriptKeywordType.PUBLIC, false, (ref, params, template) -> {
+			ScriptValue returning = (ScriptValue) Conversions.convert(this.getEnvironment(), region(template).getProperty(Conversions.getString(this.getEnvironment(), params.get(0))));
+			assert Logs.addSnapNode("Retrieved property", returning);
+			return returning;
+		});
 		fxnParams = new LinkedList<ScriptValue>();
-		this.addFauxFunction("getCenter", ScriptValueType.createType(this.getEnvironment(), FauxTemplate_Point.POINTSTRING), fxnParams, ScriptKeywordType.PUBLIC, false, false);
+		this.addFauxFunction("getCenter", ScriptValueType.createType(this.getEnvironment(), FauxTemplate_Point.POINTSTRING), fxnParams, ScriptKeywordType.PUBLIC, false, (ref, params, template) -> Conversions.wrapPoint(this.getEnvironment(), region(template).getCenter()));
 		assert Logs.closeNode();
 	}
 
@@ -5,6 +5,7 @@ import java.util.List;
 
 import inspect.Nodeable;
 import logging.Logs;
+import script.Conversions;
 import script.ScriptEnvironment;
 import script.exceptions.ScriptException;
 import script.parsing.Referenced;
@@ -51,6 +52,8 @@ public class FauxTemplate_MovementEvaluator extends FauxTemplate implements Node
 		params.add(new ScriptValue_Faux(this.getEnvironment(), ScriptValueType.createType(this.getEnvironment(), FauxTemplate_DiscreteRegion.DISCRETEREGIONSTRING)));
 		params.add(new ScriptValue_Faux(this.getEnvironment(), ScriptValueType.createType(this.getEnvironment(), FauxTemplate_Asset.ASSETSTRING)));
 		this.addFauxFunction("evaluateMovementCost", ScriptValueType.DOUBLE, params, ScriptKeywordType.PUBLIC, true, false);
+		// A lower bound for every value evaluateMovementCost returns; zero unless overridden
+		this.addFauxFunction("getMinimumMovementCost", ScriptValueType.DOUBLE, new LinkedList<ScriptValue>(), ScriptKeywordType.PUBLIC, false, (ref, fxnParams, template) -> Conversions.wrapDouble(this.getEnvironment(), 0));
 		assert Logs.closeNode();
 	}
 
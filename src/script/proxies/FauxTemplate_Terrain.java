@@ -39,7 +39,7 @@ public class FauxTemplate_Terrain extends FauxTemplate implements Nodeable, Scri
 		return this.terrain;
 	}
 
-	// Function bodies are contained via a series of if statements in execute
+	// Only the constructor is executed here; every other function is bound to its body in initialize
 	// Template will be null if the object is exactly of this type and is constructing, and thus must be created then
 	@Override
 	public ScriptValue execute(Referenced ref, String name, List<ScriptValue> params, ScriptTemplate_Abstract rawTemplate) throws ScriptException {
@@ -54,149 +54,108 @@ public class FauxTemplate_Terrain extends FauxTemplate implements Nodeable, Scri
 			}
 			assert Logs.closeNode();
 			return template;
-		} else if (name.equals("getBrushDensityWeight")) {
-			returning = Conversions.wrapDouble(ref.getEnvironment(), template.getTerrain().getBrushDensityWeight());
-			assert Logs.closeNode();
-			return returning;
-		} else if (name.equals("getElevationWeight")) {
-			returning = Conversions.wrapDouble(ref.getEnvironment(), template.getTerrain().getElevationWeight());
-			assert Logs.closeNode();
-			return returning;
-		} else if (name.equals("getGroundCohesionWeight")) {
-			returning = Conversions.wrapDouble(ref.getEnvironment(), template.getTerrain().getGroundCohesionWeight());
-			assert Logs.closeNode();
-			return returning;
-		} else if (name.equals("getTemperatureWeight")) {
-			returning = Conversions.wrapDouble(ref.getEnvironment(), template.getTerrain().getTemperatureWeight());
-			assert Logs.closeNode();
-			return returning;
-		} else if (name.equals("getWaterDepthWeight")) {
-			returning = Conversions.wrapDouble(ref.getEnvironment(), template.getTerrain().getWaterDepthWeight());
-			assert Logs.closeNode();
-			return returning;
-		} else if (name.equals("getBrushDensity")) {
-			returning = Conversions.wrapDouble(ref.getEnvironment(), template.getTerrain().getBrushDensity());
-			assert Logs.closeNode();
-			return returning;
-		} else if (name.equals("getElevation")) {
-			returning = Conversions.wrapDouble(ref.getEnvironment(), template.getTerrain().getElevation());
-			assert Logs.closeNode();
-			return returning;
-		} else if (name.equals("getGroundCohesion")) {
-			returning = Conversions.wrapDouble(ref.getEnvironment(), template.getTerrain().getGroundCohesion());
-			assert Logs.closeNode();
-			return returning;
-		} else if (name.equals("getTemperature")) {
-			returning = Conversions.wrapDouble(ref.getEnvironment(), template.getTerrain().getTemperature());
-			assert Logs.closeNode();
-			return returning;
-		} else if (name.equals("getWaterDepth")) {
-			returning = Conversions.wrapDouble(ref.getEnvironment(), template.getTerrain().getWaterDepth());
-			assert Logs.closeNode();
-			return returning;
-		} else if (name.equals("setBrushDensityWeight")) {
-			template.getTerrain().setBrushDensityWeight(Conversions.getDouble(this.getEnvironment(), params.get(0)));
-			assert Logs.closeNode();
-			return null;
-		} else if (name.equals("setElevationWeight")) {
-			template.getTerrain().setElevationWeight(Conversions.getDouble(this.getEnvironment(), params.get(0)));
-			assert Logs.closeNode();
-			return null;
-		} else if (name.equals("setGroundCohesionWeight")) {
-			template.getTerrain().setGroundCohesionWeight(Conversions.getDouble(this.getEnvironment(), params.get(0)));
-			assert Logs.closeNode();
-			return null;
-		} else if (name.equals("setTemperatureWeight")) {
-			template.getTerrain().setTemperatureWeight(Conversions.getDouble(this.getEnvironment(), params.get(0)));
-			assert Logs.closeNode();
-			return null;
-		} else if (name.equals("setWaterDepthWeight")) {
-			template.getTerrain().setWaterDepthWeight(Conversions.getDouble(this.getEnvironment(), params.get(0)));
-			assert Logs.closeNode();
-			return null;
-		} else if (name.equals("setBrushDensity")) {
-			template.getTerrain().setBrushDensity(Conversions.getDouble(this.getEnvironment(), params.get(0)));
-			if (params.size() == 2) {
-				template.getTerrain().setBrushDensityWeight(Conversions.getDouble(this.getEnvironment(), params.get(1)));
-			}
-			assert Logs.closeNode();
-			return null;
-		} else if (name.equals("setElevation")) {
-			template.getTerrain().setElevation(Conversions.getDouble(this.getEnvironment(), params.get(0)));
-			if (params.size() == 2) {
-				template.getTerrain().setElevationWeight(Conversions.getDouble(this.getEnvironment(), params.get(1)));
-			}
-			assert Logs.closeNode();
-			return null;
-		} else if (name.equals("setGroundCohesion")) {
-			template.getTerrain().setGroundCohesion(Conversions.getDouble(this.getEnvironment(), params.get(0)));
-			if (params.size() == 2) {
-				template.getTerrain().setGroundCohesionWeight(Conversions.getDouble(this.getEnvironment(), params.get(1)));
-			}
-			assert Logs.closeNode();
-			return null;
-		} else if (name.equals("setTemperature")) {
-			template.getTerrain().setTemperature(Conversions.getDouble(this.getEnvironment(), params.get(0)));
-			if (params.size() == 2) {
-				template.getTerrain().setTemperatureWeight(Conversions.getDouble(this.getEnvironment(), params.get(1)));
-			}
-			assert Logs.closeNode();
-			return null;
-		} else if (name.equals("setWaterDepth")) {
-			template.getTerrain().setWaterDepth(Conversions.getDouble(this.getEnvironment(), params.get(0)));
-			if (params.size() == 2) {
-				template.getTerrain().setWaterDepthWeight(Conversions.getDouble(this.getEnvironment(), params.get(1)));
-			}
-			assert Logs.closeNode();
-			return null;
 		}
 		returning = this.getExtendedFauxClass().execute(ref, name, params, template);
 		assert Logs.closeNode();
 		return returning;
 	}
 
+	private static Terrain terrain(ScriptTemplate_Abstract template) {
+		return ((FauxTemplate_Terrain) template).getTerrain();
+	}
+
 	public Terrain getTerrain() {
 		return this.terrain;
 	}
 
-	// addFauxFunction(name,ScriptValueType type,List<ScriptValue_Abstract>params,ScriptKeywordType permission,boolean isAbstract)
-	// All functions must be defined here. All function bodies are defined in 'execute'.
+	// All functions must be defined here, and are bound to their bodies. Only the constructor is defined in 'execute'.
 	@Override
 	public void initialize() throws ScriptException {
 		assert Logs.openNode("Faux Template Initializations", "Initializing terrain faux template");
 		this.addConstructor(this.getType());
 		this.disableFullCreation();
 		this.getExtendedClass().initialize();
-		this.addFauxFunction("getBrushDensityWeight", ScriptValueType.DOUBLE, Collections.<ScriptValue> emptyList(), ScriptKeywordType.PUBLIC, false, false);
-		this.addFauxFunction("getElevationWeight", ScriptValueType.DOUBLE, Collections.<ScriptValue> emptyList(), ScriptKeywordType.PUBLIC, false, false);
-		this.addFauxFunction("getGroundCohesionWeight", ScriptValueType.DOUBLE, Collections.<ScriptValue> emptyList(), ScriptKeywordType.PUBLIC, false, false);
-		this.addFauxFunction("getTemperatureWeight", ScriptValueType.DOUBLE, Collections.<ScriptValue> emptyList(), ScriptKeywordType.PUBLIC, false, false);
-		this.addFauxFunction("getWaterDepthWeight", ScriptValueType.DOUBLE, Collections.<ScriptValue> emptyList(), ScriptKeywordType.PUBLIC, false, false);
-		this.addFauxFunction("getBrushDensity", ScriptValueType.DOUBLE, Collections.<ScriptValue> emptyList(), ScriptKeywordType.PUBLIC, false, false);
-		this.addFauxFunction("getElevation", ScriptValueType.DOUBLE, Collections.<ScriptValue> emptyList(), ScriptKeywordType.PUBLIC, false, false);
-		this.addFauxFunction("getGroundCohesion", ScriptValueType.DOUBLE, Collections.<ScriptValue> emptyList(), ScriptKeywordType.PUBLIC, false, false);
-		this.addFauxFunction("getTemperature", ScriptValueType.DOUBLE, Collections.<ScriptValue> emptyList(), ScriptKeywordType.PUBLIC, false, false);
-		this.addFauxFunction("getWaterDepth", ScriptValueType.DOUBLE, Collections.<ScriptValue> emptyList(), ScriptKeywordType.PUBLIC, false, false);
-		List<ScriptValue> fxnParams = new LinkedList<ScriptValue>();
+		List<ScriptValue> fxnParams = Collections.<ScriptValue> emptyList();
+		this.addFauxFunction("getBrushDensityWeight", ScriptValueType.DOUBLE, fxnParams, ScriptKeywordType.PUBLIC, false, (ref, params, template) -> Conversions.wrapDouble(this.getEnvironment(), terrain(template).getBrushDensityWeight()));
+		this.addFauxFunction("getElevationWeight", ScriptValueType.DOUBLE, fxnParams, ScriptKeywordType.PUBLIC, false, (ref, params, template) -> Conversions.wrapDouble(this.getEnvironment(), terrain(template).getElevationWeight()));
+		this.addFauxFunction("getGroundCohesionWeight", ScriptValueType.DOUBLE, fxnParams, ScriptKeywordType.PUBLIC, false, (ref, params, template) -> Conversions.wrapDouble(this.getEnvironment(), terrain(template).getGroundCohesionWeight()));
+		this.addFauxFunction("getTemperatureWeight", ScriptValueType.DOUBLE, fxnParams, ScriptKeywordType.PUBLIC, false, (ref, params, template) -> Conversions.wrapDouble(this.getEnvironment(), terrain(template).getTemperatureWeight()));
+		this.addFauxFunction("getWaterDepthWeight", ScriptValueType.DOUBLE, fxnParams, ScriptKeywordType.PUBLIC, false, (ref, params, template) -> Conversions.wrapDouble(this.getEnvironment(), terrain(template).getWaterDepthWeight()));
+		this.addFauxFunction("getBrushDensity", ScriptValueType.DOUBLE, fxnParams, ScriptKeywordType.PUBLIC, false, (ref, params, template) -> Conversions.wrapDouble(this.getEnvironment(), terrain(template).getBrushDensity()));
+		this.addFauxFunction("getElevation", ScriptValueType.DOUBLE, fxnParams, ScriptKeywordType.PUBLIC, false, (ref, params, template) -> Conversions.wrapDouble(this.getEnvironment(), terrain(template).getElevation()));
+		this.addFauxFunction("getGroundCohesion", ScriptValueType.DOUBLE, fxnParams, ScriptKeywordType.PUBLIC, false, (ref, params, template) -> Conversions.wrapDouble(this.getEnvironment(), terrain(template).getGroundCohesion()));
+		this.addFauxFunction("getTemperature", ScriptValueType.DOUBLE, fxnParams, ScriptKeywordType.PUBLIC, false, (ref, params, template) -> Conversions.wrapDouble(this.getEnvironment(), terrain(template).getTemperature()));
+		this.addFauxFunction("getWaterDepth", ScriptValueType.DOUBLE, fxnParams, ScriptKeywordType.PUBLIC, false, (ref, params, template) -> Conversions.wrapDouble(this.getEnvironment(), terrain(template).getWaterDepth()));
+		fxnParams = new LinkedList<ScriptValue>();
 		fxnParams.add(new ScriptValue_Faux(this.getEnvironment(), ScriptValueType.DOUBLE));
-		this.addFauxFunction("setBrushDensityWeight", ScriptValueType.VOID, fxnParams, ScriptKeywordType.PUBLIC, false, false);
-		this.addFauxFunction("setElevationWeight", ScriptValueType.VOID, fxnParams, ScriptKeywordType.PUBLIC, false, false);
-		this.addFauxFunction("setGroundCohesionWeight", ScriptValueType.VOID, fxnParams, ScriptKeywordType.PUBLIC, false, false);
-		this.addFauxFunction("setTemperatureWeight", ScriptValueType.VOID, fxnParams, ScriptKeywordType.PUBLIC, false, false);
-		this.addFauxFunction("setWaterDepthWeight", ScriptValueType.VOID, fxnParams, ScriptKeywordType.PUBLIC, false, false);
-		this.addFauxFunction("setBrushDensity", ScriptValueType.VOID, fxnParams, ScriptKeywordType.PUBLIC, false, false);
-		this.addFauxFunction("setElevation", ScriptValueType.VOID, fxnParams, ScriptKeywordType.PUBLIC, false, false);
-		this.addFauxFunction("setGroundCohesion", ScriptValueType.VOID, fxnParams, ScriptKeywordType.PUBLIC, false, false);
-		this.addFauxFunction("setTemperature", ScriptValueType.VOID, fxnParams, ScriptKeywordType.PUBLIC, false, false);
-		this.addFauxFunction("setWaterDepth", ScriptValueType.VOID, fxnParams, ScriptKeywordType.PUBLIC, false, false);
+		this.addFauxFunction("setBrushDensityWeight", ScriptValueType.VOID, fxnParams, ScriptKeywordType.PUBLIC, false, (ref, params, template) -> {
+			terrain(template).setBrushDensityWeight(Conversions.getDouble(this.getEnvironment(), params.get(0)));
+			return null;
+		});
+		this.addFauxFunction("setElevationWeight", ScriptValueType.VOID, fxnParams, ScriptKeywordType.PUBLIC, false, (ref, params, template) -> {
+			terrain(template).setElevationWeight(Conversions.getDouble(this.getEnvironment(), params.get(0)));
+			return null;
+		});
+		this.addFauxFunction("setGroundCohesionWeight", ScriptValueType.VOID, fxnParams, ScriptKeywordType.PUBLIC, false, (ref, params, template) -> {
+			terrain(template).setGroundCohesionWeight(Conversions.getDouble(this.getEnvironment(), params.get(0)));
+			return null;
+		});
+		this.addFauxFunction("setTemperatureWeight", ScriptValueType.VOID, fxnParams, ScriptKeywordType.PUBLIC, false, (ref, params, template) -> {
+			terrain(template).setTemperatureWeight(Conversions.getDouble(this.getEnvironment(), params.get(0)));
+			return null;
+		});
+		this.addFauxFunction("setWaterDepthWeight", ScriptValueType.VOID, fxnParams, ScriptKeywordType.PUBLIC, false, (ref, params, template) -> {
+			terrain(template).setWaterDepthWeight(Conversions.getDouble(this.getEnvironment(), params.get(0)));
+			return null;
+		});
+		this.addFauxFunction("setBrushDensity", ScriptValueType.VOID, fxnParams, ScriptKeywordType.PUBLIC, false, (ref, params, template) -> {
+			terrain(template).setBrushDensity(Conversions.getDouble(this.getEnvironment(), params.get(0)));
+			return null;
+		});
+		this.addFauxFunction("setElevation", ScriptValueType.VOID, fxnParams, ScriptKeywordType.PUBLIC, false, (ref, params, template) -> {
+			terrain(template).setElevation(Conversions.getDouble(this.getEnvironment(), params.get(0)));
+			return null;
+		});
+		this.addFauxFunction("setGroundCohesion", ScriptValueType.VOID, fxnParams, ScriptKeywordType.PUBLIC, false, (ref, params, template) -> {
+			terrain(template).setGroundCohesion(Conversions.getDouble(this.getEnvironment(), params.get(0)));
+			return null;
+		});
+		this.addFauxFunction("setTemperature", ScriptValueType.VOID, fxnParams, ScriptKeywordType.PUBLIC, false, (ref, params, template) -> {
+			terrain(template).setTemperature(Conversions.getDouble(this.getEnvironment(), params.get(0)));
+			return null;
+		});
+		this.addFauxFunction("setWaterDepth", ScriptValueType.VOID, fxnParams, ScriptKeywordType.PUBLIC, false, (ref, params, template) -> {
+			terrain(template).setWaterDepth(Conversions.getDouble(this.getEnvironment(), params.get(0)));
+			return null;
+		});
 		fxnParams = new LinkedList<ScriptValue>();
 		fxnParams.add(new ScriptValue_Faux(this.getEnvironment(), ScriptValueType.DOUBLE));
 		fxnParams.add(new ScriptValue_Faux(this.getEnvironment(), ScriptValueType.DOUBLE));
-		this.addFauxFunction("setBrushDensity", ScriptValueType.VOID, fxnParams, ScriptKeywordType.PUBLIC, false, false);
-		this.addFauxFunction("setElevation", ScriptValueType.VOID, fxnParams, ScriptKeywordType.PUBLIC, false, false);
-		this.addFauxFunction("setGroundCohesion", ScriptValueType.VOID, fxnParams, ScriptKeywordType.PUBLIC, false, false);
-		this.addFauxFunction("setTemperature", ScriptValueType.VOID, fxnParams, ScriptKeywordType.PUBLIC, false, false);
-		this.addFauxFunction("setWaterDepth", ScriptValueType.VOID, fxnParams, ScriptKeywordType.PUBLIC, false, false);
+		this.addFauxFunction("setBrushDensity", ScriptValueType.VOID, fxnParams, ScriptKeywordType.PUBLIC, false, (ref, params, template) -> {
+			terrain(template).setBrushDensity(Conversions.getDouble(this.getEnvironment(), params.get(0)));
+			terrain(template).setBrushDensityWeight(Conversions.getDouble(this.getEnvironment(), params.get(1)));
+			return null;
+		});
+		this.addFauxFunction("setElevation", ScriptValueType.VOID, fxnParams, ScriptKeywordType.PUBLIC, false, (ref, params, template) -> {
+			terrain(template).setElevation(Conversions.getDouble(this.getEnvironment(), params.get(0)));
+			terrain(template).setElevationWeight(Conversions.getDouble(this.getEnvironment(), params.get(1)));
+			return null;
+		});
+		this.addFauxFunction("setGroundCohesion", ScriptValueType.VOID, fxnParams, ScriptKeywordType.PUBLIC, false, (ref, params, template) -> {
+			terrain(template).setGroundCohesion(Conversions.getDouble(this.getEnvironment(), params.get(0)));
+			terrain(template).setGroundCohesionWeight(Conversions.getDouble(this.getEnvironment(), params.get(1)));
+			return null;
+		});
+		this.addFauxFunction("setTemperature", ScriptValueType.VOID, fxnParams, ScriptKeywordType.PUBLIC, false, (ref, params, template) -> {
+			terrain(template).setTemperature(Conversions.getDouble(this.getEnvironment(), params.get(0)));
+			terrain(template).setTemperatureWeight(Conversions.getDouble(this.getEnvironment(), params.get(1)));
+			return null;
+		});
+		this.addFauxFunction("setWaterDepth", ScriptValueType.VOID, fxnParams, ScriptKeywordType.PUBLIC, false, (ref, params, template) -> {
+			terrain(template).setWaterDepth(Conversions.getDouble(this.getEnvironment(), params.get(0)));
+			terrain(template).setWaterDepthWeight(Conversions.getDouble(this.getEnvironment(), params.get(1)));
+			return null;
+		});
 		assert Logs.closeNode();
 	}
 
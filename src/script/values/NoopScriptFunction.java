@@ -51,8 +51,9 @@ public class NoopScriptFunction implements ScriptFunction {
 	}
 
 	@Override
-	public void execute(Referenced ref, List<ScriptValue> valuesGiven) throws ScriptException {
+	public ScriptValue execute(Referenced ref, List<ScriptValue> valuesGiven) throws ScriptException {
 		// Do nothing
+		return null;
 	}
 
 	@Override
@@ -70,11 +71,6 @@ public class NoopScriptFunction implements ScriptFunction {
 		return ScriptValueType.VOID;
 	}
 
-	@Override
-	public ScriptValue getReturnValue() {
-		return new ScriptValue_Null(null);
-	}
-
 	@Override
 	public boolean isAbstract() {
 		return false;
@@ -85,9 +81,4 @@ public class NoopScriptFunction implements ScriptFunction {
 		return true;
 	}
 
-	@Override
-	public void setReturnValue(Referenced element, ScriptValue value) throws ScriptException {
-		throw new UnsupportedOperationException("Return value must not be set");
-	}
-
 }
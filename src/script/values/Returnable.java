@@ -1,10 +1,9 @@
 package script.values;
 
-import script.exceptions.ScriptException;
-
+/**
+ * Marks an executable that may complete the function it runs in. After
+ * executing one, callers check {@link script.ScriptEnvironment#isReturning()}
+ * and stop executing the rest of the function if it is set.
+ */
 public interface Returnable {
-	public ScriptValue getReturnValue() throws ScriptException;
-
-	// Returnable implementation
-	public boolean shouldReturn();
 }
@@ -7,9 +7,11 @@ import java.util.List;
 import inspect.Nodeable;
 import logging.CommonString;
 import logging.Logs;
+import script.ScriptEnvironment;
 import script.exceptions.ScriptException;
 import script.operations.ScriptExecutable;
 import script.parsing.Referenced;
+import script.parsing.ScriptCompiler;
 import script.parsing.ScriptKeywordType;
 
 public class RiffScriptFunction implements Nodeable, ScriptFunction {
@@ -62,16 +64,17 @@ public class RiffScriptFunction implements Nodeable, ScriptFunction {
 		return name;
 	}
 
+	private final ScriptEnvironment environment;
 	private ScriptValueType type;
 	private List<ScriptValue> params;
 	private ScriptKeywordType permission;
-	private ScriptValue returnValue;
 
 	private boolean isAbstract, isStatic;
 
 	private List<ScriptExecutable> expressions = new LinkedList<ScriptExecutable>();
 
-	public RiffScriptFunction(ScriptValueType returnType, List<ScriptValue> params, ScriptKeywordType permission, boolean isAbstract, boolean isStatic) {
+	public RiffScriptFunction(ScriptEnvironment env, ScriptValueType returnType, List<ScriptValue> params, ScriptKeywordType permission, boolean isAbstract, boolean isStatic) {
+		this.environment = env;
 		this.type = returnType;
 		this.params = new ArrayList<ScriptValue>(params);
 		this.permission = permission;
@@ -113,8 +116,32 @@ public class RiffScriptFunction implements Nodeable, ScriptFunction {
 		return areParametersEqual(this.getParameters(), list);
 	}
 
+	/**
+	 * Converts a value returned by this function's body to its return type.
+	 */
+	protected ScriptValue castReturnValue(Referenced ref, ScriptValue value) throws ScriptException {
+		if (value == null || this.getReturnType().equals(ScriptKeywordType.VOID)) {
+			return null;
+		}
+		assert Logs.openNode("Setting Return-Value");
+		assert Logs.addSnapNode("Function", this);
+		assert Logs.addSnapNode("Value", value);
+		try {
+			return value.castToType(ref, this.getReturnType());
+		} finally {
+			assert Logs.closeNode();
+		}
+	}
+
+	public void compile(ScriptCompiler compiler) throws ScriptException {
+		compiler.advanceScope();
+		compiler.compileAll(this.params);
+		compiler.compileAll(this.expressions);
+		compiler.retreatScope();
+	}
+
 	@Override
-	public void execute(Referenced ref, List<ScriptValue> valuesGiven) throws ScriptException {
+	public ScriptValue execute(Referenced ref, List<ScriptValue> valuesGiven) throws ScriptException {
 		String currNode = "Executing Function Expressions (" + this.expressions.size() + " expressions)";
 		assert Logs.openNode("Function Expression Executions", currNode);
 		try {
@@ -128,16 +155,20 @@ public class RiffScriptFunction implements Nodeable, ScriptFunction {
 			}
 			for (ScriptExecutable exec : this.expressions) {
 				exec.execute();
-				if (exec instanceof Returnable && ((Returnable) exec).shouldReturn()) {
-					this.setReturnValue(exec.getDebugReference(), ((Returnable) exec).getReturnValue());
-					return;
+				if (exec instanceof Returnable && this.getEnvironment().isReturning()) {
+					return this.castReturnValue(exec.getDebugReference(), this.getEnvironment().getReturnValue());
 				}
 			}
+			return null;
 		} finally {
 			assert Logs.closeNode();
 		}
 	}
 
+	public ScriptEnvironment getEnvironment() {
+		return this.environment;
+	}
+
 	@Override
 	public List<ScriptValue> getParameters() {
 		return this.params;
@@ -153,11 +184,6 @@ public class RiffScriptFunction implements Nodeable, ScriptFunction {
 		return this.type;
 	}
 
-	@Override
-	public ScriptValue getReturnValue() {
-		return this.returnValue;
-	}
-
 	@Override
 	public boolean isAbstract() {
 		return this.isAbstract;
@@ -196,19 +222,6 @@ public class RiffScriptFunction implements Nodeable, ScriptFunction {
 		}
 		assert Logs.addNode("Abstract: " + this.isAbstract);
 		assert Logs.addNode("Static: " + this.isStatic);
-		assert Logs.addNode("Return Value Reference: " + this.returnValue);
-		assert Logs.closeNode();
-	}
-
-	@Override
-	public void setReturnValue(Referenced ref, ScriptValue value) throws ScriptException {
-		if (this.getReturnType().equals(ScriptKeywordType.VOID)) {
-			return;
-		}
-		assert Logs.openNode("Setting Return-Value");
-		assert Logs.addSnapNode("Function", this);
-		assert Logs.addSnapNode("Value", value);
-		this.returnValue = value.castToType(ref, this.getReturnType());
 		assert Logs.closeNode();
 	}
 }
@@ -16,7 +16,12 @@ public interface ScriptFunction {
 
 	public boolean areParametersEqual(List<ScriptValue> list);
 
-	public void execute(Referenced ref, List<ScriptValue> valuesGiven) throws ScriptException;
+	/**
+	 * Runs this function on the calling thread's current activation.
+	 * 
+	 * @return the value returned by the function, or null if it returned none
+	 */
+	public ScriptValue execute(Referenced ref, List<ScriptValue> valuesGiven) throws ScriptException;
 
 	public List<ScriptValue> getParameters();
 
@@ -24,12 +29,8 @@ public interface ScriptFunction {
 
 	public ScriptValueType getReturnType();
 
-	public ScriptValue getReturnValue();
-
 	// ScriptFunction implementation
 	public boolean isAbstract();
 
 	public boolean isStatic();
-
-	public void setReturnValue(Referenced element, ScriptValue value) throws ScriptException;
 }
@@ -8,17 +8,26 @@ import script.exceptions.ScriptException;
 import script.operations.ScriptExecutable;
 import script.parsing.Referenced;
 import script.parsing.ScriptKeywordType;
+import script.proxies.FauxMethod;
 import script.proxies.FauxTemplate;
 
 public class ScriptFunction_Faux extends RiffScriptFunction implements ScriptFunction, Nodeable {
-	private FauxTemplate fauxTemplate;
-	private ScriptTemplate_Abstract object;
-	private String name;
+	private final FauxTemplate fauxTemplate;
+	private final String name;
+	private final FauxMethod method;
 
 	public ScriptFunction_Faux(FauxTemplate template, String name, ScriptValueType type, List<ScriptValue> params, ScriptKeywordType permission, boolean isAbstract, boolean isStatic) {
-		super(type, params, permission, isAbstract, isStatic);
+		super(template.getEnvironment(), type, params, permission, isAbstract, isStatic);
 		this.fauxTemplate = template;
 		this.name = name;
+		this.method = null;
+	}
+
+	public ScriptFunction_Faux(FauxTemplate template, String name, ScriptValueType type, List<ScriptValue> params, ScriptKeywordType permission, boolean isStatic, FauxMethod method) {
+		super(template.getEnvironment(), type, params, permission, false, isStatic);
+		this.fauxTemplate = template;
+		this.name = name;
+		this.method = method;
 	}
 
 	@Override
@@ -31,16 +40,36 @@ public class ScriptFunction_Faux extends RiffScriptFunction implements ScriptFun
 		throw new UnsupportedOperationException("Invalid call in faux function");
 	}
 
+	/**
+	 * Runs the bound method, or else dispatches to the faux template by name.
+	 * Non-static calls go to the current object of the calling thread, so this
+	 * function holds no per-call state.
+	 */
 	@Override
-	public void execute(Referenced ref, List<ScriptValue> params) throws ScriptException {
+	public ScriptValue execute(Referenced ref, List<ScriptValue> params) throws ScriptException {
 		if (this.name.equals("")) {
-			this.setReturnValue(ref, this.fauxTemplate.execute(ref, this.name, params, null));
-		} else {
-			if (this.object == null) {
-				this.object = this.fauxTemplate;
+			return this.castReturnValue(ref, this.fauxTemplate.execute(ref, this.name, params, null));
+		}
+		ScriptTemplate_Abstract object = this.getEnvironment().getCurrentObject();
+		if (this.method != null) {
+			if (object == null) {
+				object = this.fauxTemplate;
 			}
-			this.setReturnValue(ref, this.fauxTemplate.execute(ref, this.name, params, this.object));
+			assert Logs.openNode("Faux Template Executions", "Executing bound faux function (" + RiffScriptFunction.getDisplayableFunctionName(this.name) + ")");
+			assert Logs.addSnapNode("Template provided", object);
+			assert Logs.addSnapNode("Parameters provided", params);
+			ScriptValue returning = this.castReturnValue(ref, this.method.execute(ref, params, object));
+			assert Logs.closeNode();
+			return returning;
+		}
+		FauxTemplate template = this.fauxTemplate;
+		if (!this.isStatic() && object instanceof FauxTemplate && object.getType().equals(this.fauxTemplate.getType())) {
+			template = (FauxTemplate) object;
+		}
+		if (object == null) {
+			object = this.fauxTemplate;
 		}
+		return this.castReturnValue(ref, template.execute(ref, this.name, params, object));
 	}
 
 	@Override
@@ -50,20 +79,4 @@ public class ScriptFunction_Faux extends RiffScriptFunction implements ScriptFun
 		assert Logs.addNode("Faux Template Type: " + this.fauxTemplate.getType());
 		assert Logs.closeNode();
 	}
-
-	public void setFauxTemplate(ScriptTemplate_Abstract template) {
-		assert Logs.openNode("Faux Function Referenced-Template Changes", "Changing Faux-Function Object");
-		assert Logs.addNode(this);
-		assert Logs.addSnapNode("New object", template);
-		this.fauxTemplate = (FauxTemplate) template;
-		assert Logs.closeNode();
-	}
-
-	public void setTemplate(ScriptTemplate_Abstract template) {
-		assert Logs.openNode("Faux Function Object Changes", "Changing Object");
-		assert Logs.addNode(this);
-		assert Logs.addSnapNode("New object", template);
-		this.object = template;
-		assert Logs.closeNode();
-	}
 }
@@ -1,5 +1,6 @@
 package script.values;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -20,6 +21,7 @@ import script.operations.ScriptExecutable_CreateVariable;
 import script.operations.ScriptExecutable_ParseFunction;
 import script.parsing.Parser;
 import script.parsing.Referenced;
+import script.parsing.ScriptCompiler;
 import script.parsing.ScriptKeywordType;
 
 public class ScriptTemplate extends ScriptTemplate_Abstract implements ScriptValue, Nodeable {
@@ -67,6 +69,7 @@ public class ScriptTemplate extends ScriptTemplate_Abstract implements ScriptVal
 			return;
 		}
 		assert Logs.openNode("Object Function Additions", "Adding Function to Object (" + RiffScriptFunction.getDisplayableFunctionName(name) + ")");
+		this.getEnvironment().invalidateFunctions();
 		assert Logs.addNode(this);
 		assert Logs.addNode(function);
 		if (!this.isFullCreation() && (name == null || name.equals(""))) {
@@ -153,6 +156,21 @@ public class ScriptTemplate extends ScriptTemplate_Abstract implements ScriptVal
 		return value;
 	}
 
+	public void compile(ScriptCompiler compiler) throws ScriptException {
+		if (this.functions == null) {
+			return;
+		}
+		compiler.compileAll(this.templatePreconstructors);
+		compiler.compileAll(this.preconstructors);
+		for (List<ScriptFunction> list : this.functions.values()) {
+			for (ScriptFunction function : list) {
+				if (function instanceof RiffScriptFunction) {
+					((RiffScriptFunction) function).compile(compiler);
+				}
+			}
+		}
+	}
+
 	@Override
 	public ScriptTemplate_Abstract createObject(Referenced ref, ScriptTemplate_Abstract object) throws ScriptException {
 		assert Logs.openNode("Object Creations", "Object Creation");
@@ -249,6 +267,13 @@ public class ScriptTemplate extends ScriptTemplate_Abstract implements ScriptVal
 		return functions;
 	}
 
+	public List<ScriptFunction> getFunctions(String name) {
+		if (this.functions == null || !this.functions.containsKey(name)) {
+			return Collections.emptyList();
+		}
+		return Collections.unmodifiableList(this.functions.get(name));
+	}
+
 	@Override
 	public ScriptTemplate_Abstract getFunctionTemplate(ScriptFunction fxn) {
 		if (this.getEnvironment().getTemplate(this.getType()) != null && this.getEnvironment().getTemplate(this.getType()) != this) {
@@ -379,6 +404,7 @@ public class ScriptTemplate extends ScriptTemplate_Abstract implements ScriptVal
 		for (Object obj : deleteList) {
 			this.functions.remove(obj);
 		}
+		this.getEnvironment().invalidateFunctions();
 		this.getEnvironment().retreatStack();
 		assert Logs.closeNode();
 	}
@@ -8,6 +8,9 @@ import script.parsing.ScriptKeywordType;
 import script.proxies.FauxTemplate_Object;
 
 public class ScriptValueType {
+	// Declared before the primitive types, so that initializing it does not reset their identifiers
+	private static int identifierSeed = 0;
+
 	public static final ScriptValueType VOID = new ScriptValueType();
 	public static final ScriptValueType BOOLEAN = new ScriptValueType();
 	public static final ScriptValueType SHORT = new ScriptValueType();
@@ -131,8 +134,6 @@ public class ScriptValueType {
 
 	private final int type;
 
-	private static int identifierSeed = 0;
-
 	private final ScriptEnvironment environment;
 
 	public ScriptValueType() {
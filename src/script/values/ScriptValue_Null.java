@@ -6,6 +6,7 @@ import script.exceptions.IncompatibleObjectsException;
 import script.exceptions.ScriptException;
 import script.operations.ScriptExecutable;
 import script.parsing.Referenced;
+import script.parsing.ScriptCompiler;
 import script.parsing.ScriptElement;
 
 public class ScriptValue_Null extends ScriptElement implements ScriptExecutable, ScriptValue, Nodeable {
@@ -18,6 +19,10 @@ public class ScriptValue_Null extends ScriptElement implements ScriptExecutable,
 		return this;
 	}
 
+	@Override
+	public void compile(ScriptCompiler compiler) throws ScriptException {
+	}
+
 	@Override
 	public ScriptValue execute() throws ScriptException {
 		return this;
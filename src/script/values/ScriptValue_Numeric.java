@@ -10,6 +10,7 @@ import script.exceptions.DivisionByZeroScriptException;
 import script.exceptions.ScriptException;
 import script.parsing.Referenced;
 import script.parsing.ScriptKeywordType;
+import script.parsing.ScriptOperatorType;
 
 public class ScriptValue_Numeric implements ScriptValue, ScriptConvertible<Number>, Nodeable {
 	// Static functions
@@ -49,35 +50,226 @@ public class ScriptValue_Numeric implements ScriptValue, ScriptConvertible<Numbe
 		return false;
 	}
 
+	private static final ScriptValue_Numeric ONE = new ScriptValue_Numeric(null, 1);
+
+	private static int compare(double left, double right) {
+		if (left == right) {
+			return 0;
+		}
+		if (left > right) {
+			return 1;
+		}
+		return -1;
+	}
+
+	private static ScriptKeywordType getKeywordType(Number number) {
+		if (number instanceof Integer) {
+			return ScriptKeywordType.INT;
+		}
+		if (number instanceof Double) {
+			return ScriptKeywordType.DOUBLE;
+		}
+		if (number instanceof Short) {
+			return ScriptKeywordType.SHORT;
+		}
+		if (number instanceof Long) {
+			return ScriptKeywordType.LONG;
+		}
+		if (number instanceof Float) {
+			return ScriptKeywordType.FLOAT;
+		}
+		throw new IllegalArgumentException("Invalid default");
+	}
+
+	/**
+	 * Returns the numeric value of the given value without copying it, unless
+	 * it must first be cast.
+	 */
+	private static ScriptValue_Numeric getNumeric(Referenced ref, ScriptValue value, ScriptValueType type) throws ScriptException {
+		ScriptValue base = value.getValue();
+		if (base instanceof ScriptValue_Numeric) {
+			return (ScriptValue_Numeric) base;
+		}
+		return (ScriptValue_Numeric) base.castToType(ref, type);
+	}
+
+	private static ScriptValueType getType(ScriptKeywordType keyword) {
+		switch (keyword) {
+		case SHORT:
+			return ScriptValueType.SHORT;
+		case INT:
+			return ScriptValueType.INT;
+		case LONG:
+			return ScriptValueType.LONG;
+		case FLOAT:
+			return ScriptValueType.FLOAT;
+		case DOUBLE:
+			return ScriptValueType.DOUBLE;
+		default:
+			throw new AssertionError("Invalid default");
+		}
+	}
+
+	/**
+	 * Applies an arithmetic operator to two primitives. These overloads are
+	 * how expressions of a known numeric type evaluate without wrapping their
+	 * intermediate results.
+	 */
+	public static int evaluate(Referenced ref, ScriptOperatorType operator, int left, int right) throws ScriptException {
+		switch (operator) {
+		case PLUS:
+		case PLUSEQUALS:
+			return left + right;
+		case MINUS:
+		case MINUSEQUALS:
+			return left - right;
+		case MULTIPLY:
+		case MULTIPLYEQUALS:
+			return left * right;
+		case DIVIDE:
+		case DIVIDEEQUALS:
+			if (right == 0) {
+				throw new DivisionByZeroScriptException(ref);
+			}
+			return left / right;
+		case MODULUS:
+		case MODULUSEQUALS:
+			if (right == 0) {
+				throw new DivisionByZeroScriptException(ref);
+			}
+			return left % right;
+		default:
+			throw new IllegalArgumentException("Operator must be an arithmetic operator");
+		}
+	}
+
+	public static long evaluate(Referenced ref, ScriptOperatorType operator, long left, long right) throws ScriptException {
+		switch (operator) {
+		case PLUS:
+		case PLUSEQUALS:
+			return left + right;
+		case MINUS:
+		case MINUSEQUALS:
+			return left - right;
+		case MULTIPLY:
+		case MULTIPLYEQUALS:
+			return left * right;
+		case DIVIDE:
+		case DIVIDEEQUALS:
+			if (right == 0) {
+				throw new DivisionByZeroScriptException(ref);
+			}
+			return left / right;
+		case MODULUS:
+		case MODULUSEQUALS:
+			if (right == 0) {
+				throw new DivisionByZeroScriptException(ref);
+			}
+			return left % right;
+		default:
+			throw new IllegalArgumentException("Operator must be an arithmetic operator");
+		}
+	}
+
+	public static float evaluate(Referenced ref, ScriptOperatorType operator, float left, float right) throws ScriptException {
+		switch (operator) {
+		case PLUS:
+		case PLUSEQUALS:
+			return left + right;
+		case MINUS:
+		case MINUSEQUALS:
+			return left - right;
+		case MULTIPLY:
+		case MULTIPLYEQUALS:
+			return left * right;
+		case DIVIDE:
+		case DIVIDEEQUALS:
+			if (right == 0) {
+				throw new DivisionByZeroScriptException(ref);
+			}
+			return left / right;
+		case MODULUS:
+		case MODULUSEQUALS:
+			if (right == 0) {
+				throw new DivisionByZeroScriptException(ref);
+			}
+			return left % right;
+		default:
+			throw new IllegalArgumentException("Operator must be an arithmetic operator");
+		}
+	}
+
+	public static double evaluate(Referenced ref, ScriptOperatorType operator, double left, double right) throws ScriptException {
+		switch (operator) {
+		case PLUS:
+		case PLUSEQUALS:
+			return left + right;
+		case MINUS:
+		case MINUSEQUALS:
+			return left - right;
+		case MULTIPLY:
+		case MULTIPLYEQUALS:
+			return left * right;
+		case DIVIDE:
+		case DIVIDEEQUALS:
+			if (right == 0) {
+				throw new DivisionByZeroScriptException(ref);
+			}
+			return left / right;
+		case MODULUS:
+		case MODULUSEQUALS:
+			if (right == 0) {
+				throw new DivisionByZeroScriptException(ref);
+			}
+			return left % right;
+		default:
+			throw new IllegalArgumentException("Operator must be an arithmetic operator");
+		}
+	}
+
 	private final ScriptEnvironment environment;
 	private final ScriptValueType type;
 
-	private Number number;
+	// The value is held in whichever of these suits its current type, so
+	// arithmetic never needs to box it.
+	private ScriptKeywordType keyword;
+	private long integer;
+	private double real;
 
 	public ScriptValue_Numeric(ScriptEnvironment env, double value) {
-		this(env, new Double(value));
+		this(env, ScriptKeywordType.DOUBLE);
+		this.real = value;
 	}
 
 	public ScriptValue_Numeric(ScriptEnvironment env, float value) {
-		this(env, new Float(value));
+		this(env, ScriptKeywordType.FLOAT);
+		this.real = value;
 	}
 
 	public ScriptValue_Numeric(ScriptEnvironment env, int value) {
-		this(env, new Integer(value));
+		this(env, ScriptKeywordType.INT);
+		this.integer = value;
 	}
 
 	public ScriptValue_Numeric(ScriptEnvironment env, long value) {
-		this(env, new Long(value));
+		this(env, ScriptKeywordType.LONG);
+		this.integer = value;
 	}
 
 	public ScriptValue_Numeric(ScriptEnvironment env, Number value) {
-		this.environment = env;
-		this.type = ScriptValueType.getType(value);
-		this.number = value;
+		this(env, getKeywordType(value));
+		this.setNumericValue(value);
 	}
 
 	public ScriptValue_Numeric(ScriptEnvironment env, short value) {
-		this(env, new Short(value));
+		this(env, ScriptKeywordType.SHORT);
+		this.integer = value;
+	}
+
+	private ScriptValue_Numeric(ScriptEnvironment env, ScriptKeywordType keyword) {
+		this.environment = env;
+		this.type = getType(keyword);
+		this.keyword = keyword;
 	}
 
 	@Override
@@ -90,19 +282,19 @@ public class ScriptValue_Numeric implements ScriptValue, ScriptConvertible<Numbe
 		}
 		switch (type.getKeywordType()) {
 		case SHORT:
-			value = new ScriptValue_Numeric(environment, new Short(this.number.shortValue()));
+			value = new ScriptValue_Numeric(environment, this.shortValue());
 			break;
 		case INT:
-			value = new ScriptValue_Numeric(environment, new Integer(this.number.intValue()));
+			value = new ScriptValue_Numeric(environment, this.intValue());
 			break;
 		case LONG:
-			value = new ScriptValue_Numeric(environment, new Long(this.number.longValue()));
+			value = new ScriptValue_Numeric(environment, this.longValue());
 			break;
 		case FLOAT:
-			value = new ScriptValue_Numeric(environment, new Float(this.number.floatValue()));
+			value = new ScriptValue_Numeric(environment, this.floatValue());
 			break;
 		case DOUBLE:
-			value = new ScriptValue_Numeric(environment, new Double(this.number.doubleValue()));
+			value = new ScriptValue_Numeric(environment, this.doubleValue());
 			break;
 		default:
 			throw new ClassCastScriptException(ref, this, type);
@@ -114,77 +306,78 @@ public class ScriptValue_Numeric implements ScriptValue, ScriptConvertible<Numbe
 	// Overloaded Functions
 	@Override
 	public Number convert(ScriptEnvironment env) {
-		return this.number;
+		return this.getNumericValue();
 	}
 
-	public Number decrement(Referenced ref) throws ScriptException {
-		return this.increment(ref, new ScriptValue_Numeric(this.getEnvironment(), 1.0d));
+	public ScriptValue_Numeric decrement(Referenced ref) throws ScriptException {
+		return this.evaluateAndAssign(ref, ScriptOperatorType.MINUSEQUALS, ONE);
 	}
 
-	public Number decrement(Referenced ref, ScriptValue value) throws ScriptException {
-		assert Logs.openNode("Numeric Value Decrements", "Decrementing Numeric Value");
-		assert Logs.addSnapNode("Number before decrement", value);
-		Number number = ((ScriptValue_Numeric) value.castToType(ref, this.getType())).getNumericValue();
-		switch (this.getType().getKeywordType()) {
+	// Extensions for number-stuff
+	public double doubleValue() {
+		if (this.isIntegral()) {
+			return this.integer;
+		}
+		return this.real;
+	}
+
+	/**
+	 * Returns a new value holding the result of this value and the given
+	 * value under the given operator. The given value is converted to this
+	 * value's type first, and shorts are widened to ints.
+	 */
+	public ScriptValue_Numeric evaluate(Referenced ref, ScriptOperatorType operator, ScriptValue_Numeric value) throws ScriptException {
+		ScriptEnvironment environment = this.getEnvironment();
+		switch (this.keyword) {
 		case SHORT:
-			number = new Integer(this.getNumericValue().intValue() - number.intValue());
-			break;
 		case INT:
-			number = new Integer(this.getNumericValue().intValue() - number.intValue());
-			break;
+			return new ScriptValue_Numeric(environment, evaluate(ref, operator, this.intValue(), value.intValue()));
 		case LONG:
-			number = new Long(this.getNumericValue().longValue() - number.longValue());
-			break;
+			return new ScriptValue_Numeric(environment, evaluate(ref, operator, this.longValue(), value.longValue()));
 		case FLOAT:
-			number = new Float(this.getNumericValue().floatValue() - number.floatValue());
-			break;
+			return new ScriptValue_Numeric(environment, evaluate(ref, operator, this.floatValue(), value.floatValue()));
 		case DOUBLE:
-			number = new Double(this.getNumericValue().doubleValue() - number.doubleValue());
-			break;
+			return new ScriptValue_Numeric(environment, evaluate(ref, operator, this.doubleValue(), value.doubleValue()));
 		default:
 			throw new ClassCastScriptException(ref, this, value);
 		}
-		assert Logs.closeNode("Number after decrement", "" + number);
-		return number;
 	}
 
-	public Number divide(Referenced ref, ScriptValue value) throws ScriptException {
-		assert Logs.openNode("Numeric Value Divisions", "Dividing Numeric Value");
-		assert Logs.addSnapNode("Number before division", value);
-		Number number = ((ScriptValue_Numeric) value.castToType(ref, this.getType())).getNumericValue();
-		if (number.doubleValue() == 0) {
-			throw new DivisionByZeroScriptException(ref);
-		}
-		switch (this.getType().getKeywordType()) {
+	/**
+	 * Like {@link #evaluate(Referenced, ScriptOperatorType, ScriptValue_Numeric)},
+	 * but stores the result in this value.
+	 */
+	public ScriptValue_Numeric evaluateAndAssign(Referenced ref, ScriptOperatorType operator, ScriptValue_Numeric value) throws ScriptException {
+		assert Logs.openNode("Numeric Value Assignments", "Evaluating and Assigning Numeric Value (" + operator + ")");
+		assert Logs.addSnapNode("Number before assignment", this);
+		assert Logs.addSnapNode("Operand", value);
+		switch (this.keyword) {
 		case SHORT:
-			number = new Integer(this.getNumericValue().intValue() / number.intValue());
-			break;
 		case INT:
-			number = new Integer(this.getNumericValue().intValue() / number.intValue());
+			this.integer = evaluate(ref, operator, this.intValue(), value.intValue());
+			this.keyword = ScriptKeywordType.INT;
 			break;
 		case LONG:
-			number = new Long(this.getNumericValue().longValue() / number.longValue());
+			this.integer = evaluate(ref, operator, this.longValue(), value.longValue());
 			break;
 		case FLOAT:
-			number = new Float(this.getNumericValue().floatValue() / number.floatValue());
+			this.real = evaluate(ref, operator, this.floatValue(), value.floatValue());
 			break;
 		case DOUBLE:
-			number = new Double(this.getNumericValue().doubleValue() / number.doubleValue());
+			this.real = evaluate(ref, operator, this.doubleValue(), value.doubleValue());
 			break;
 		default:
 			throw new ClassCastScriptException(ref, this, value);
 		}
-		assert Logs.closeNode("Number after division", "" + number);
-		return number;
-	}
-
-	// Extensions for number-stuff
-	public double doubleValue() {
-		return this.getNumericValue().doubleValue();
+		assert Logs.closeNode("Number after assignment", this);
+		return this;
 	}
 
 	public float floatValue() {
-		return this.getNumericValue().floatValue();
+		if (this.isIntegral()) {
+			return this.integer;
+		}
+		return (float) this.real;
 	}
 
 	// Required ScriptValue_Abstract implementation
@@ -193,13 +386,31 @@ public class ScriptValue_Numeric implements ScriptValue, ScriptConvertible<Numbe
 		return this.environment;
 	}
 
+	/**
+	 * Returns this value as a {@link Number}. Small integers come from the
+	 * wrapper caches, but anything else is boxed on every call, so arithmetic
+	 * should use the primitive accessors instead.
+	 */
 	public Number getNumericValue() {
-		return this.number;
+		switch (this.keyword) {
+		case SHORT:
+			return Short.valueOf((short) this.integer);
+		case INT:
+			return Integer.valueOf((int) this.integer);
+		case LONG:
+			return Long.valueOf(this.integer);
+		case FLOAT:
+			return Float.valueOf((float) this.real);
+		case DOUBLE:
+			return Double.valueOf(this.real);
+		default:
+			throw new AssertionError("Invalid default");
+		}
 	}
 
 	@Override
 	public ScriptValueType getType() {
-		return ScriptValueType.getType(this.number);
+		return getType(this.keyword);
 	}
 
 	@Override
@@ -207,39 +418,15 @@ public class ScriptValue_Numeric implements ScriptValue, ScriptConvertible<Numbe
 		return this;
 	}
 
-	public Number increment(Referenced ref) throws ScriptException {
-		return this.increment(ref, new ScriptValue_Numeric(this.getEnvironment(), 1.0d));
-	}
-
-	public Number increment(Referenced ref, ScriptValue value) throws ScriptException {
-		assert Logs.openNode("Numeric Value Increments", "Incrementing Numeric Value");
-		assert Logs.addSnapNode("Number before increment", value);
-		Number number = ((ScriptValue_Numeric) value.castToType(ref, this.getType())).getNumericValue();
-		switch (this.getType().getKeywordType()) {
-		case SHORT:
-			number = new Integer(this.getNumericValue().intValue() + number.intValue());
-			break;
-		case INT:
-			number = new Integer(this.getNumericValue().intValue() + number.intValue());
-			break;
-		case LONG:
-			number = new Long(this.getNumericValue().longValue() + number.longValue());
-			break;
-		case FLOAT:
-			number = new Float(this.getNumericValue().floatValue() + number.floatValue());
-			break;
-		case DOUBLE:
-			number = new Double(this.getNumericValue().doubleValue() + number.doubleValue());
-			break;
-		default:
-			throw new ClassCastScriptException(ref, this, value);
-		}
-		assert Logs.closeNode("Number after increment", "" + number);
-		return number;
+	public ScriptValue_Numeric increment(Referenced ref) throws ScriptException {
+		return this.evaluateAndAssign(ref, ScriptOperatorType.PLUSEQUALS, ONE);
 	}
 
 	public int intValue() {
-		return this.getNumericValue().intValue();
+		if (this.isIntegral()) {
+			return (int) this.integer;
+		}
+		return (int) this.real;
 	}
 
 	@Override
@@ -247,70 +434,20 @@ public class ScriptValue_Numeric implements ScriptValue, ScriptConvertible<Numbe
 		return ScriptValueType.isConvertibleTo(this.getEnvironment(), this.getType(), type);
 	}
 
-	public long longValue() {
-		return this.getNumericValue().longValue();
-	}
-
-	public Number modulus(Referenced ref, ScriptValue value) throws ScriptException {
-		assert Logs.openNode("Numeric Value Modulations", "Modulating Numeric Value");
-		assert Logs.addSnapNode("Number before modulus", value);
-		Number number = ((ScriptValue_Numeric) value.castToType(ref, this.getType())).getNumericValue();
-		if (number.doubleValue() == 0) {
-			throw new DivisionByZeroScriptException(ref);
-		}
-		switch (this.getType().getKeywordType()) {
-		case SHORT:
-			number = new Integer(this.getNumericValue().intValue() % number.intValue());
-			break;
-		case INT:
-			number = new Integer(this.getNumericValue().intValue() % number.intValue());
-			break;
-		case LONG:
-			number = new Long(this.getNumericValue().longValue() % number.longValue());
-			break;
-		case FLOAT:
-			number = new Float(this.getNumericValue().floatValue() % number.floatValue());
-			break;
-		case DOUBLE:
-			number = new Double(this.getNumericValue().doubleValue() % number.doubleValue());
-			break;
-		default:
-			throw new ClassCastScriptException(ref, this, value);
-		}
-		assert Logs.closeNode("Number after modulus", "" + number);
-		return number;
+	private boolean isIntegral() {
+		return this.keyword != ScriptKeywordType.FLOAT && this.keyword != ScriptKeywordType.DOUBLE;
 	}
 
-	public Number multiply(Referenced ref, ScriptValue value) throws ScriptException {
-		assert Logs.openNode("Numeric Value Multiplications", "Multiplying Numeric Value");
-		assert Logs.addSnapNode("Number before multiplication", value);
-		Number number = ((ScriptValue_Numeric) value.castToType(ref, this.getType())).getNumericValue();
-		switch (this.getType().getKeywordType()) {
-		case SHORT:
-			number = new Integer(this.getNumericValue().intValue() * number.intValue());
-			break;
-		case INT:
-			number = new Integer(this.getNumericValue().intValue() * number.intValue());
-			break;
-		case LONG:
-			number = new Long(this.getNumericValue().longValue() * number.longValue());
-			break;
-		case FLOAT:
-			number = new Float(this.getNumericValue().floatValue() * number.floatValue());
-			break;
-		case DOUBLE:
-			number = new Double(this.getNumericValue().doubleValue() * number.doubleValue());
-			break;
-		default:
-			throw new ClassCastScriptException(ref, this, value);
+	public long longValue() {
+		if (this.isIntegral()) {
+			return this.integer;
 		}
-		assert Logs.closeNode("Number after multiplication", "" + number);
-		return number;
+		return (long) this.real;
 	}
 
 	@Override
 	public void nodificate() {
-		switch (this.getType().getKeywordType()) {
+		switch (this.keyword) {
 		case SHORT:
 			assert Logs.openNode(CommonString.NUMERICSCRIPTVALUESHORT);
 			break;
@@ -329,59 +466,67 @@ public class ScriptValue_Numeric implements ScriptValue, ScriptConvertible<Numbe
 		default:
 			throw new AssertionError("Invalid default");
 		}
-		if (this.number == null) {
-			assert Logs.addNode("Numeric value: null");
-		} else {
-			assert Logs.addNode("Numeric value: " + this.number.doubleValue());
-		}
+		assert Logs.addNode("Numeric value: " + this.doubleValue());
 		assert Logs.addNode("Reference: " + this);
 		assert Logs.closeNode();
 	}
 
 	public ScriptValue setNumericValue(Number value) {
-		this.number = value;
+		this.keyword = getKeywordType(value);
+		if (this.isIntegral()) {
+			this.integer = value.longValue();
+		} else {
+			this.real = value.doubleValue();
+		}
 		return this;
 	}
 
 	@Override
 	public ScriptValue setValue(Referenced ref, ScriptValue value) throws ScriptException {
-		Number number = ((ScriptValue_Numeric) value.castToType(ref, this.getType())).getNumericValue();
+		ScriptValue_Numeric number = getNumeric(ref, value, this.getType());
 		switch (this.type.getKeywordType()) {
 		case SHORT:
-			this.number = new Short(number.shortValue());
+			this.integer = number.shortValue();
 			break;
 		case INT:
-			this.number = new Integer(number.intValue());
+			this.integer = number.intValue();
 			break;
 		case LONG:
-			this.number = new Long(number.longValue());
+			this.integer = number.longValue();
 			break;
 		case FLOAT:
-			this.number = new Float(number.floatValue());
+			this.real = number.floatValue();
 			break;
 		case DOUBLE:
-			this.number = new Double(number.doubleValue());
+			this.real = number.doubleValue();
 			break;
 		default:
 			throw new ClassCastScriptException(ref, this, value);
 		}
+		this.keyword = this.type.getKeywordType();
 		return this;
 	}
 
 	public short shortValue() {
-		return this.getNumericValue().shortValue();
+		return (short) this.intValue();
 	}
 
 	@Override
 	public int valuesCompare(Referenced ref, ScriptValue rhs) throws ScriptException {
-		ScriptValue_Numeric right = (ScriptValue_Numeric) rhs.castToType(ref, this.getType());
-		if (this.number.equals(right.getNumericValue())) {
-			return 0;
-		}
-		if (this.number.doubleValue() > right.getNumericValue().doubleValue()) {
-			return 1;
+		ScriptValue_Numeric right = getNumeric(ref, rhs, this.getType());
+		switch (this.keyword) {
+		case SHORT:
+		case INT:
+			return Integer.compare(this.intValue(), right.intValue());
+		case LONG:
+			return Long.compare(this.longValue(), right.longValue());
+		case FLOAT:
+			return compare(this.floatValue(), right.floatValue());
+		case DOUBLE:
+			return compare(this.doubleValue(), right.doubleValue());
+		default:
+			throw new ClassCastScriptException(ref, rhs, this.getType());
 		}
-		return -1;
 	}
 
 	@Override
@@ -0,0 +1,71 @@
+package asset;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class IndexHeapTest {
+
+	@Test
+	public void testPopsInPriorityOrder() {
+		Random random = new Random(42);
+		IndexHeap heap = new IndexHeap();
+		double[] priorities = new double[100];
+		for (int i = 0; i < priorities.length; i++) {
+			priorities[i] = random.nextDouble();
+			heap.push(i, priorities[i]);
+		}
+		assertThat(heap.size(), is(priorities.length));
+		double[] sorted = priorities.clone();
+		Arrays.sort(sorted);
+		for (double priority : sorted) {
+			assertThat(priorities[heap.pop()], is(priority));
+		}
+		assertThat(heap.isEmpty(), is(true));
+	}
+
+	/**
+	 * @see IndexHeap#push(int, double)
+	 */
+	@Test
+	public void testChangingPriorities() {
+		IndexHeap heap = new IndexHeap();
+		for (int i = 0; i < 10; i++) {
+			heap.push(i, i);
+		}
+		heap.push(7, -1);
+		heap.push(0, 20);
+		assertThat(heap.size(), is(10));
+		assertThat(heap.pop(), is(7));
+		assertThat(heap.pop(), is(1));
+		assertThat(heap.contains(7), is(false));
+		assertThat(heap.contains(0), is(true));
+		for (int i = 2; i < 10; i++) {
+			if (i != 7) {
+				assertThat(heap.pop(), is(i));
+			}
+		}
+		assertThat(heap.pop(), is(0));
+	}
+
+	@Test
+	public void testSparseIndices() {
+		IndexHeap heap = new IndexHeap();
+		heap.push(1000, 2);
+		heap.push(5, 3);
+		heap.push(40, 1);
+		assertThat(heap.contains(999), is(false));
+		assertThat(heap.pop(), is(40));
+		assertThat(heap.pop(), is(1000));
+		assertThat(heap.pop(), is(5));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testPopEmpty() {
+		new IndexHeap().pop();
+	}
+}
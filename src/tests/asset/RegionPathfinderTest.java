@@ -0,0 +1,146 @@
+package asset;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import geom.DiscreteRegion;
+import geom.DiscreteRegionBSPSnapshot;
+import geom.RegionAdjacencyIndex;
+import geom.points.EuclideanPoint;
+import geom.points.Point;
+import script.ScriptEnvironment;
+import script.operations.ScriptExecutable_CallFunction;
+import script.parsing.Parser;
+import script.proxies.FauxTemplate_DiscreteRegion;
+import script.proxies.FauxTemplate_Terrain;
+import script.values.ScriptTemplate_Abstract;
+import script.values.ScriptValue;
+
+import org.junit.Test;
+
+public class RegionPathfinderTest {
+
+	private static DiscreteRegion rectangle(double x, double y, double width, double height) {
+		DiscreteRegion region = new DiscreteRegion();
+		region.addPoint(new EuclideanPoint(x, y, 0));
+		region.addPoint(new EuclideanPoint(x + width, y, 0));
+		region.addPoint(new EuclideanPoint(x + width, y + height, 0));
+		region.addPoint(new EuclideanPoint(x, y + height, 0));
+		return region;
+	}
+
+	/**
+	 * Returns a three by three grid of ten by ten regions, indexed by row and
+	 * then column, with their neighbors set.
+	 */
+	private static DiscreteRegion[][] grid() {
+		DiscreteRegion[][] grid = new DiscreteRegion[3][3];
+		List<DiscreteRegion> regions = new ArrayList<DiscreteRegion>();
+		for (int row = 0; row < 3; row++) {
+			for (int column = 0; column < 3; column++) {
+				grid[row][column] = rectangle(column * 10, row * 10, 10, 10);
+				regions.add(grid[row][column]);
+			}
+		}
+		new RegionAdjacencyIndex().update(regions);
+		return grid;
+	}
+
+	private static MovementCosts costs(final Map<DiscreteRegion, Double> costs) {
+		return region -> costs.containsKey(region) ? costs.get(region) : 1;
+	}
+
+	@Test
+	public void testStraightRoute() throws Exception {
+		DiscreteRegion[][] grid = grid();
+		Map<DiscreteRegion, Double> costs = new IdentityHashMap<DiscreteRegion, Double>();
+		Point destination = new EuclideanPoint(25, 15, 0);
+		RegionPathfinder pathfinder = new RegionPathfinder(costs(costs), grid[1][2], destination, 1);
+		assertThat(pathfinder.findRegions(grid[1][0], new EuclideanPoint(5, 15, 0)), is(Arrays.asList(grid[1][0], grid[1][1], grid[1][2])));
+	}
+
+	@Test
+	public void testAvoidsExpensiveRegion() throws Exception {
+		DiscreteRegion[][] grid = grid();
+		Map<DiscreteRegion, Double> costs = new IdentityHashMap<DiscreteRegion, Double>();
+		costs.put(grid[1][1], 100.0);
+		costs.put(grid[2][0], 50.0);
+		costs.put(grid[2][1], 50.0);
+		costs.put(grid[2][2], 50.0);
+		Point destination = new EuclideanPoint(25, 15, 0);
+		RegionPathfinder pathfinder = new RegionPathfinder(costs(costs), grid[1][2], destination, 1);
+		// Regions that share a corner are neighbors, so the route cuts across them
+		assertThat(pathfinder.findRegions(grid[1][0], new EuclideanPoint(5, 15, 0)), is(Arrays.asList(grid[1][0], grid[0][1], grid[1][2])));
+	}
+
+	@Test
+	public void testStartInDestination() throws Exception {
+		DiscreteRegion[][] grid = grid();
+		Point destination = new EuclideanPoint(8, 8, 0);
+		RegionPathfinder pathfinder = new RegionPathfinder(costs(new IdentityHashMap<DiscreteRegion, Double>()), grid[0][0], destination, 1);
+		assertThat(pathfinder.findRegions(grid[0][0], new EuclideanPoint(2, 2, 0)), is(Arrays.asList(grid[0][0])));
+	}
+
+	@Test
+	public void testUnreachableDestination() throws Exception {
+		DiscreteRegion[][] grid = grid();
+		DiscreteRegion island = rectangle(100, 100, 10, 10);
+		Point destination = new EuclideanPoint(105, 105, 0);
+		RegionPathfinder pathfinder = new RegionPathfinder(costs(new IdentityHashMap<DiscreteRegion, Double>()), island, destination, 1);
+		assertThat(pathfinder.findRegions(grid[0][0], new EuclideanPoint(5, 5, 0)), is(nullValue()));
+	}
+
+	/**
+	 * Costs evaluated by a script are evaluated again once a region's
+	 * properties change, and routes follow the new costs.
+	 */
+	@Test
+	public void testCostsFollowTerrainChanges() throws Exception {
+		ScriptEnvironment env = new ScriptEnvironment();
+		String script = ""
+				+ "class Walker extends MovementEvaluator {\n"
+				+ "	public Walker() {\n"
+				+ "	}\n"
+				+ "	public static Walker create() {\n"
+				+ "		return new Walker();\n"
+				+ "	}\n"
+				+ "	public double getMinimumMovementCost() {\n"
+				+ "		return 1.0;\n"
+				+ "	}\n"
+				+ "	public double evaluateMovementCost(DiscreteRegion region, Asset asset) {\n"
+				+ "		Terrain terrain = (Terrain) region.getProperty(\"Terrain\");\n"
+				+ "		return 1.0 + terrain.getWaterDepth();\n"
+				+ "	}\n"
+				+ "}\n";
+		Parser.parseElements(env, Collections.singletonList(Parser.preparseFile(env, "Walker", script)));
+		env.getTemplate(FauxTemplate_DiscreteRegion.DISCRETEREGIONSTRING).initialize();
+		env.getTemplate(FauxTemplate_Terrain.TERRAINSTRING).initialize();
+		ScriptTemplate_Abstract evaluator = (ScriptTemplate_Abstract) ScriptExecutable_CallFunction.callFunction(env, null, env.getTemplate("Walker"), "create", new ArrayList<ScriptValue>());
+		MovementCostCache costs = new MovementCostCache(env, evaluator, new Asset());
+		assertThat(costs.getMinimumCost(DiscreteRegionBSPSnapshot.EMPTY), is(1.0));
+		DiscreteRegion[][] grid = grid();
+		for (DiscreteRegion[] row : grid) {
+			for (DiscreteRegion region : row) {
+				region.setProperty("Terrain", new Terrain());
+			}
+		}
+		Point destination = new EuclideanPoint(25, 15, 0);
+		assertThat(costs.getCost(grid[1][1]), is(1.0));
+		assertThat(new RegionPathfinder(costs, grid[1][2], destination, 1).findRegions(grid[1][0], new EuclideanPoint(5, 15, 0)), is(Arrays.asList(grid[1][0], grid[1][1], grid[1][2])));
+		Terrain swamp = new Terrain();
+		swamp.setWaterDepth(99);
+		grid[1][1].setProperty("Terrain", swamp);
+		assertThat(costs.getCost(grid[1][1]), is(100.0));
+		List<DiscreteRegion> route = new RegionPathfinder(costs, grid[1][2], destination, 1).findRegions(grid[1][0], new EuclideanPoint(5, 15, 0));
+		assertThat(route.size(), is(3));
+		assertThat(route.contains(grid[1][1]), is(false));
+	}
+}
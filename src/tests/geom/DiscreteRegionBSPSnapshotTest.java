@@ -0,0 +1,111 @@
+package geom;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import geom.points.EuclideanPoint;
+import geom.points.Point;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class DiscreteRegionBSPSnapshotTest {
+
+	private DiscreteRegionBSPNode tree;
+
+	private static DiscreteRegion square(double x, double y, double size) {
+		DiscreteRegion region = new DiscreteRegion();
+		region.addPoint(new EuclideanPoint(x, y, 0));
+		region.addPoint(new EuclideanPoint(x + size, y, 0));
+		region.addPoint(new EuclideanPoint(x + size, y + size, 0));
+		region.addPoint(new EuclideanPoint(x, y + size, 0));
+		return region;
+	}
+
+	@Before
+	public void setUp() {
+		this.tree = new DiscreteRegionBSPNode(square(0, 0, 10));
+		this.tree.addRegion(square(10, 0, 10));
+		this.tree.addRegion(square(0, 10, 10));
+		this.tree.addRegion(square(10, 10, 10));
+	}
+
+	private List<Point> getGrid() {
+		List<Point> points = new ArrayList<Point>();
+		for (double x = -5; x <= 25; x += 2.5) {
+			for (double y = -5; y <= 25; y += 2.5) {
+				points.add(new EuclideanPoint(x, y, 0));
+			}
+		}
+		return points;
+	}
+
+	/**
+	 * @see DiscreteRegionBSPSnapshot#getRegions(Point)
+	 */
+	@Test
+	public void testGetRegionsMatchesTree() {
+		DiscreteRegionBSPSnapshot snapshot = this.tree.snapshot();
+		assertThat(new HashSet<DiscreteRegion>(snapshot.getRegionList()), is(this.tree.getRegionList()));
+		for (Point point : this.getGrid()) {
+			assertThat(point.toString(), new HashSet<DiscreteRegion>(snapshot.getRegions(point)), is(this.tree.getRegions(point)));
+		}
+	}
+
+	/**
+	 * @see DiscreteRegionBSPSnapshot#getRegions(List)
+	 */
+	@Test
+	public void testBatchMatchesSinglePoints() {
+		DiscreteRegionBSPSnapshot snapshot = this.tree.snapshot();
+		List<Point> points = this.getGrid();
+		List<List<DiscreteRegion>> regions = snapshot.getRegions(points);
+		assertThat(regions.size(), is(points.size()));
+		for (int i = 0; i < points.size(); i++) {
+			assertThat(points.get(i).toString(), regions.get(i), is(snapshot.getRegions(points.get(i))));
+		}
+	}
+
+	/**
+	 * @see DiscreteRegionBSPSnapshot#getRegions(double, double, double, double)
+	 */
+	@Test
+	public void testGetRegionsInRectangle() {
+		DiscreteRegionBSPSnapshot snapshot = this.tree.snapshot();
+		for (double x = -5; x <= 25; x += 2.5) {
+			for (double y = -5; y <= 25; y += 2.5) {
+				Set<DiscreteRegion> expected = new HashSet<DiscreteRegion>();
+				for (DiscreteRegion region : snapshot.getRegionList()) {
+					if (region.getRightExtreme() >= x && region.getLeftExtreme() <= x + 4 && region.getTopExtreme() >= y && region.getBottomExtreme() <= y + 4) {
+						expected.add(region);
+					}
+				}
+				List<DiscreteRegion> regions = snapshot.getRegions(x, x + 4, y, y + 4);
+				assertThat(regions.size(), is(expected.size()));
+				assertThat(new HashSet<DiscreteRegion>(regions), is(expected));
+			}
+		}
+		assertThat(snapshot.getRegions(30, 40, 30, 40).isEmpty(), is(true));
+		assertThat(DiscreteRegionBSPSnapshot.EMPTY.getRegions(0, 10, 0, 10).isEmpty(), is(true));
+	}
+
+	@Test
+	public void testSnapshotIgnoresLaterChanges() {
+		DiscreteRegionBSPSnapshot snapshot = this.tree.snapshot();
+		int size = snapshot.getRegionList().size();
+		this.tree.addRegion(square(20, 0, 10));
+		assertThat(snapshot.getRegionList().size(), is(size));
+		assertThat(snapshot.getRegions(new EuclideanPoint(25, 5, 0)).isEmpty(), is(true));
+	}
+
+	@Test
+	public void testEmptySnapshot() {
+		assertThat(DiscreteRegionBSPSnapshot.EMPTY.getRegionList().isEmpty(), is(true));
+		assertThat(DiscreteRegionBSPSnapshot.EMPTY.getRegions(new EuclideanPoint(0, 0, 0)).isEmpty(), is(true));
+	}
+}
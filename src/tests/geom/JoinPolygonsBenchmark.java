@@ -0,0 +1,181 @@
+package geom;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import geom.points.EuclideanPoint;
+import geom.points.Point;
+
+/**
+ * Compares {@link Polygons#joinPolygons(List)} against the pairwise join it
+ * replaced, on soups of triangles cut from jittered grids. Each soup covers a
+ * square, so every result should have the same total area as its input.
+ */
+public class JoinPolygonsBenchmark {
+
+	private static List<DiscreteRegion> createSoup(Random random, int size) {
+		Point[][] grid = new Point[size + 1][size + 1];
+		for (int i = 0; i <= size; i++) {
+			for (int j = 0; j <= size; j++) {
+				double x = i * 10;
+				double y = j * 10;
+				if (i > 0 && i < size && j > 0 && j < size) {
+					x += random.nextInt(7) - 3;
+					y += random.nextInt(7) - 3;
+				}
+				grid[i][j] = new EuclideanPoint(x, y, 0);
+			}
+		}
+		List<DiscreteRegion> soup = new ArrayList<DiscreteRegion>();
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j < size; j++) {
+				Point a = grid[i][j], b = grid[i + 1][j], c = grid[i + 1][j + 1], d = grid[i][j + 1];
+				if (random.nextBoolean()) {
+					soup.add(triangle(a, b, c));
+					soup.add(triangle(a, c, d));
+				} else {
+					soup.add(triangle(a, b, d));
+					soup.add(triangle(b, c, d));
+				}
+			}
+		}
+		Collections.shuffle(soup, random);
+		return soup;
+	}
+
+	private static DiscreteRegion triangle(Point a, Point b, Point c) {
+		DiscreteRegion region = new DiscreteRegion();
+		region.setPointList(java.util.Arrays.asList(a, b, c));
+		return region;
+	}
+
+	private static double getArea(List<DiscreteRegion> regions) {
+		double total = 0;
+		for (DiscreteRegion region : regions) {
+			List<Point> points = region.getPoints();
+			double area = 0;
+			for (int i = 0; i < points.size(); i++) {
+				Point a = points.get(i);
+				Point b = points.get((i + 1) % points.size());
+				area += a.getX() * b.getY() - b.getX() * a.getY();
+			}
+			total += Math.abs(area) / 2;
+		}
+		return total;
+	}
+
+	private static String describe(List<DiscreteRegion> regions, long elapsed) {
+		int concave = 0;
+		for (DiscreteRegion region : regions) {
+			if (!Polygons.isPolygonConvex(region)) {
+				concave++;
+			}
+		}
+		return String.format("%9.2f ms, %4d polygon(s), area %9.1f, %d not convex", elapsed / 1e6, regions.size(), getArea(regions), concave);
+	}
+
+	private static List<DiscreteRegion> copy(List<DiscreteRegion> regions) {
+		List<DiscreteRegion> copy = new LinkedList<DiscreteRegion>();
+		for (DiscreteRegion region : regions) {
+			copy.add(new DiscreteRegion(region));
+		}
+		return copy;
+	}
+
+	public static void main(String[] args) {
+		Random random = new Random(42);
+		// Warm up
+		for (int i = 0; i < 20; ++i) {
+			Polygons.joinPolygons(createSoup(random, 6));
+			pairwiseJoin(copy(createSoup(random, 3)));
+		}
+		boolean pairwise = true;
+		for (int size = 4; size <= 64; size *= 2) {
+			List<DiscreteRegion> soup = createSoup(random, size);
+			System.out.printf("%5d triangles, area %9.1f%n", soup.size(), getArea(soup));
+			long start = System.nanoTime();
+			List<DiscreteRegion> joined = Polygons.joinPolygons(copy(soup));
+			System.out.println("    joinPolygons: " + describe(joined, System.nanoTime() - start));
+			if (pairwise) {
+				start = System.nanoTime();
+				joined = pairwiseJoin(copy(soup));
+				long elapsed = System.nanoTime() - start;
+				System.out.println("    pairwise:     " + describe(joined, elapsed));
+				// Each doubling takes far longer than the last
+				pairwise = elapsed < 2e9;
+			}
+		}
+	}
+
+	/**
+	 * The join that {@link Polygons#joinPolygons(List)} used before it was
+	 * rewritten. It restarts from scratch after every join.
+	 */
+	private static List<DiscreteRegion> pairwiseJoin(List<DiscreteRegion> originals) {
+		List<DiscreteRegion> optimizedList = new LinkedList<DiscreteRegion>();
+		for (int i = 0; i < originals.size(); i++) {
+			for (int j = 0; j < originals.size(); j++) {
+				if (i == j) {
+					continue;
+				}
+				DiscreteRegion firstRegion = originals.get(i);
+				DiscreteRegion secondRegion = originals.get(j);
+				for (int q = 0; q < firstRegion.getPoints().size(); q++) {
+					for (int x = 0; x < secondRegion.getPoints().size(); x++) {
+						if (!firstRegion.getPoints().get(q).equals(secondRegion.getPoints().get(x)) && !firstRegion.getPoints().get((q + 1) % firstRegion.getPoints().size()).equals(secondRegion.getPoints().get(x))) {
+							continue;
+						}
+						if (!firstRegion.getPoints().get(q).equals(secondRegion.getPoints().get((x + 1) % secondRegion.getPoints().size())) && !firstRegion.getPoints().get((q + 1) % firstRegion.getPoints().size()).equals(secondRegion.getPoints().get((x + 1) % secondRegion.getPoints().size()))) {
+							continue;
+						}
+						DiscreteRegion testRegion = new DiscreteRegion(firstRegion.getEnvironment(), firstRegion.getProperties());
+						PointSideStruct struct = Polygons.getPointSideList(firstRegion, firstRegion.getPoints().get(q), firstRegion.getPoints().get((q + 1) % firstRegion.getPoints().size()));
+						if (struct.getLeftPoints().isEmpty()) {
+							int firstPoint = q;
+							if (q > (q + 1) % firstRegion.getPoints().size()) {
+								firstPoint = (q + 1) % firstRegion.getPoints().size();
+							}
+							for (int offsetPoint = 0; offsetPoint < firstRegion.getPoints().size(); offsetPoint++) {
+								testRegion.addPoint(firstRegion.getPoints().get((firstPoint + offsetPoint) % firstRegion.getPoints().size()));
+							}
+							firstPoint = x;
+							if (x > (x + 1) % secondRegion.getPoints().size()) {
+								firstPoint = (x + 1) % secondRegion.getPoints().size();
+							}
+							for (int offsetPoint = 1; offsetPoint < secondRegion.getPoints().size(); offsetPoint++) {
+								testRegion.addPoint(secondRegion.getPoints().get((firstPoint + offsetPoint) % secondRegion.getPoints().size()));
+							}
+						} else {
+							int firstPoint = x;
+							if (x > (x + 1) % secondRegion.getPoints().size()) {
+								firstPoint = (x + 1) % secondRegion.getPoints().size();
+							}
+							for (int offsetPoint = 0; offsetPoint < secondRegion.getPoints().size(); offsetPoint++) {
+								testRegion.addPoint(secondRegion.getPoints().get((firstPoint + offsetPoint) % secondRegion.getPoints().size()));
+							}
+							firstPoint = q;
+							if (q > (q + 1) % firstRegion.getPoints().size()) {
+								firstPoint = (q + 1) % firstRegion.getPoints().size();
+							}
+							for (int offsetPoint = 1; offsetPoint < firstRegion.getPoints().size(); offsetPoint++) {
+								testRegion.addPoint(firstRegion.getPoints().get((firstPoint + offsetPoint) % firstRegion.getPoints().size()));
+							}
+						}
+						if (!Polygons.isPolygonConvex(testRegion)) {
+							continue;
+						}
+						optimizedList.add(testRegion);
+						originals.remove(firstRegion);
+						originals.remove(secondRegion);
+						optimizedList.addAll(originals);
+						return pairwiseJoin(optimizedList);
+					}
+				}
+			}
+		}
+		return originals;
+	}
+}
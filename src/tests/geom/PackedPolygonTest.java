@@ -0,0 +1,135 @@
+package geom;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+
+import geom.points.EuclideanPoint;
+import geom.points.Point;
+
+import org.junit.Test;
+
+public class PackedPolygonTest {
+
+	private static PackedPolygon polygon(double... coordinates) {
+		PackedPolygon polygon = new PackedPolygon();
+		for (int i = 0; i < coordinates.length; i += 2) {
+			polygon.add(coordinates[i], coordinates[i + 1]);
+		}
+		return polygon;
+	}
+
+	private static DiscreteRegion region(double... coordinates) {
+		List<Point> points = new ArrayList<Point>();
+		for (int i = 0; i < coordinates.length; i += 2) {
+			points.add(new EuclideanPoint(coordinates[i], coordinates[i + 1], 0));
+		}
+		DiscreteRegion region = new DiscreteRegion();
+		region.setPointList(points);
+		return region;
+	}
+
+	/**
+	 * @see PackedPolygon#isConvex()
+	 */
+	@Test
+	public void testIsConvex() {
+		assertThat(polygon(0, 0, 10, 0, 10, 10, 0, 10).isConvex(), is(true));
+		assertThat(polygon(0, 0, 0, 10, 10, 10, 10, 0).isConvex(), is(true));
+		assertThat(polygon(0, 0, 10, 0, 10, 5, 5, 5, 5, 10, 0, 10).isConvex(), is(false));
+		// Repeated and colinear vertices don't make a polygon concave
+		assertThat(polygon(0, 0, 5, 0, 10, 0, 10, 0, 10, 10, 0, 10).isConvex(), is(true));
+		// A pentagram turns the same way at every vertex, but winds twice
+		PackedPolygon pentagram = new PackedPolygon();
+		for (int i = 0; i < 5; i++) {
+			double angle = 4 * Math.PI * i / 5;
+			pentagram.add(10 * Math.cos(angle), 10 * Math.sin(angle));
+		}
+		assertThat(pentagram.isConvex(), is(false));
+	}
+
+	/**
+	 * @see PackedPolygon#clip(PackedPolygon, PackedPolygon)
+	 */
+	@Test
+	public void testClip() {
+		PackedPolygon clip = PackedPolygon.fromRectangle(new Rectangle(0, 0, 10, 10));
+		PackedPolygon result = new PackedPolygon();
+		polygon(-5, -5, 5, -5, 5, 5, -5, 5).clip(clip, result);
+		assertThat(Math.abs(result.getSignedArea()), is(25.0));
+		assertThat(result.isConvex(), is(true));
+
+		// The clip may wind either way
+		polygon(5, 5, 15, 5, 15, 15, 5, 15).clip(polygon(0, 0, 10, 0, 10, 10, 0, 10), result);
+		assertThat(Math.abs(result.getSignedArea()), is(25.0));
+
+		polygon(20, 20, 30, 20, 30, 30).clip(clip, result);
+		assertThat(result.size(), is(0));
+
+		// Clipping into the clipped polygon itself
+		PackedPolygon triangle = polygon(0, 0, 20, 0, 0, 20);
+		triangle.clip(clip, triangle);
+		assertThat(triangle.getSignedArea(), is(100.0));
+	}
+
+	/**
+	 * @see Polygons#clip(DiscreteRegion, DiscreteRegion)
+	 */
+	@Test
+	public void testClipRegion() {
+		DiscreteRegion region = region(0, 0, 20, 0, 20, 20, 0, 20);
+		region.setProperty("Color", "red");
+		DiscreteRegion clipped = Polygons.clip(region, region(5, 5, 15, 5, 15, 15, 5, 15));
+		assertThat(Math.abs(PackedPolygon.fromRegion(clipped).getSignedArea()), is(100.0));
+		assertThat(clipped.getProperty("Color"), is((Object) "red"));
+		assertThat(Polygons.clip(region, region(30, 30, 40, 30, 40, 40)) == null, is(true));
+	}
+
+	/**
+	 * @see PackedPolygon#getSides(double, double, double, double)
+	 */
+	@Test
+	public void testGetSides() {
+		PackedPolygon square = polygon(0, 0, 10, 0, 10, 10, 0, 10);
+		assertThat(square.getSides(5, -10, 5, 20), is(PackedPolygon.LEFT | PackedPolygon.RIGHT));
+		assertThat(square.getSides(10, -10, 10, 20), is(PackedPolygon.LEFT | PackedPolygon.COLINEAR));
+		assertThat(square.getSides(10, 20, 10, -10), is(PackedPolygon.RIGHT | PackedPolygon.COLINEAR));
+		assertThat(square.getSides(20, -10, 20, 20), is(PackedPolygon.LEFT));
+	}
+
+	@Test
+	public void testContains() {
+		PackedPolygon square = polygon(0, 0, 10, 0, 10, 10, 0, 10);
+		assertThat(square.contains(5, 5), is(true));
+		assertThat(square.contains(15, 5), is(false));
+		assertThat(square.contains(-5, 5), is(false));
+		// A ray through a vertex crosses only once
+		assertThat(polygon(0, 0, 10, 5, 0, 10).contains(5, 5), is(true));
+	}
+
+	/**
+	 * @see PackedPolygon#getIntersection(double, double, double, double, double, double, double, double, double[])
+	 */
+	@Test
+	public void testGetIntersection() {
+		double[] intersection = new double[2];
+		assertThat(PackedPolygon.getIntersection(0, 0, 10, 10, 0, 10, 10, 0, intersection), is(true));
+		assertThat(intersection[0], is(5.0));
+		assertThat(intersection[1], is(5.0));
+		assertThat(PackedPolygon.getIntersection(0, 0, 10, 0, 0, 1, 10, 1, intersection), is(false));
+		assertThat(PackedPolygon.getIntersection(0, 0, 4, 4, 0, 10, 10, 0, intersection), is(false));
+	}
+
+	/**
+	 * @see PackedPolygon#toRegion(DiscreteRegion)
+	 */
+	@Test
+	public void testRegionRoundTrip() {
+		DiscreteRegion region = region(0, 0, 10, 0, 10, 10);
+		DiscreteRegion copy = PackedPolygon.fromRegion(region).toRegion(region);
+		assertThat(copy.getPoints(), is(region.getPoints()));
+	}
+}
@@ -0,0 +1,105 @@
+package geom;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import geom.points.EuclideanPoint;
+
+import org.junit.Test;
+
+public class RegionAdjacencyIndexTest {
+
+	private static DiscreteRegion rectangle(double x, double y, double width, double height) {
+		DiscreteRegion region = new DiscreteRegion();
+		region.addPoint(new EuclideanPoint(x, y, 0));
+		region.addPoint(new EuclideanPoint(x + width, y, 0));
+		region.addPoint(new EuclideanPoint(x + width, y + height, 0));
+		region.addPoint(new EuclideanPoint(x, y + height, 0));
+		return region;
+	}
+
+	private static HashSet<DiscreteRegion> setOf(DiscreteRegion... regions) {
+		return new HashSet<DiscreteRegion>(Arrays.asList(regions));
+	}
+
+	/**
+	 * @see RegionAdjacencyIndex#update(java.util.Collection)
+	 */
+	@Test
+	public void testUpdateMatchesAllPairs() {
+		List<DiscreteRegion> regions = new ArrayList<DiscreteRegion>();
+		for (int i = 0; i < 4; i++) {
+			for (int j = 0; j < 4; j++) {
+				// Offset every other row, so that rows only share parts of edges
+				regions.add(rectangle(i * 10 + (j % 2) * 5, j * 10, 10, 10));
+			}
+		}
+		new RegionAdjacencyIndex().update(regions);
+		List<HashSet<DiscreteRegion>> indexed = new ArrayList<HashSet<DiscreteRegion>>();
+		for (DiscreteRegion region : regions) {
+			indexed.add(new HashSet<DiscreteRegion>(region.getNeighbors()));
+			region.resetNeighbors();
+		}
+		for (DiscreteRegion region : regions) {
+			region.addRegionNeighbors(regions);
+		}
+		for (int i = 0; i < regions.size(); i++) {
+			assertThat(indexed.get(i), is(regions.get(i).getNeighbors()));
+		}
+	}
+
+	@Test
+	public void testSharedPartOfEdge() {
+		DiscreteRegion wide = rectangle(0, 0, 20, 10);
+		DiscreteRegion narrow = rectangle(5, 10, 5, 10);
+		DiscreteRegion apart = rectangle(30, 10, 5, 10);
+		new RegionAdjacencyIndex().update(Arrays.asList(wide, narrow, apart));
+		assertThat(wide.getNeighbors(), is(setOf(narrow)));
+		assertThat(narrow.getNeighbors(), is(setOf(wide)));
+		assertThat(apart.getNeighbors().isEmpty(), is(true));
+	}
+
+	@Test
+	public void testRemovedAndChangedRegions() {
+		DiscreteRegion left = rectangle(0, 0, 10, 10);
+		DiscreteRegion middle = rectangle(10, 0, 10, 10);
+		DiscreteRegion right = rectangle(20, 0, 10, 10);
+		RegionAdjacencyIndex index = new RegionAdjacencyIndex();
+		index.update(Arrays.asList(left, middle, right));
+		assertThat(middle.getNeighbors(), is(setOf(left, right)));
+
+		index.update(Arrays.asList(left, right));
+		assertThat(left.getNeighbors().isEmpty(), is(true));
+		assertThat(right.getNeighbors().isEmpty(), is(true));
+
+		// Stretch the left region until it reaches the right one
+		left.setPointList(rectangle(0, 0, 20, 10).getPoints());
+		index.update(Arrays.asList(left, right));
+		assertThat(left.getNeighbors(), is(setOf(right)));
+		assertThat(right.getNeighbors(), is(setOf(left)));
+	}
+
+	/**
+	 * Neighbor sets are replaced rather than changed, so a set that another
+	 * thread is reading never changes underneath it.
+	 */
+	@Test
+	public void testUpdateReplacesNeighborSets() {
+		DiscreteRegion left = rectangle(0, 0, 10, 10);
+		DiscreteRegion middle = rectangle(10, 0, 10, 10);
+		DiscreteRegion right = rectangle(20, 0, 10, 10);
+		RegionAdjacencyIndex index = new RegionAdjacencyIndex();
+		index.update(Arrays.asList(left, middle, right));
+		Set<DiscreteRegion> neighbors = middle.getNeighbors();
+
+		index.update(Arrays.asList(middle, right));
+		assertThat(neighbors, is(setOf(left, right)));
+		assertThat(middle.getNeighbors(), is(setOf(right)));
+	}
+}
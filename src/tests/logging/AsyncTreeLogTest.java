@@ -0,0 +1,142 @@
+package logging;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AsyncTreeLogTest {
+
+	/**
+	 * Records each event along with the context it was delivered in.
+	 */
+	private static class RecordingTreeLog implements TreeLog<Object> {
+		private final ThreadLocal<Object> context = new ThreadLocal<Object>();
+		private final Map<Object, List<String>> events = Collections.synchronizedMap(new HashMap<Object, List<String>>());
+
+		private void record(String event) {
+			List<String> list = events.get(context.get());
+			if (list == null) {
+				list = new ArrayList<String>();
+				events.put(context.get(), list);
+			}
+			list.add(event);
+		}
+
+		@Override
+		public void log(LogMessage<? extends Object> message) {
+			record("log " + message.getMessage());
+		}
+
+		@Override
+		public void metadata(LogMessage<? extends Object> message) {
+			record("metadata " + message.getMessage());
+		}
+
+		@Override
+		public void enter(LogMessage<? extends Object> scope) {
+			record("enter " + scope.getMessage());
+		}
+
+		@Override
+		public void leave() {
+			record("leave");
+		}
+
+		@Override
+		public void reset() {
+			record("reset");
+		}
+	}
+
+	private AsyncTreeLog<Object> createLog(final RecordingTreeLog sink) {
+		return new AsyncTreeLog<Object>(sink) {
+			@Override
+			protected Object captureContext() {
+				return Thread.currentThread().getName();
+			}
+
+			@Override
+			protected void enterContext(Object context) {
+				sink.context.set(context);
+			}
+
+			@Override
+			protected void leaveContext(Object context) {
+				sink.context.remove();
+			}
+		};
+	}
+
+	@Test
+	public void eventsArriveInOrderForEachThread() throws InterruptedException {
+		final RecordingTreeLog sink = new RecordingTreeLog();
+		final AsyncTreeLog<Object> log = createLog(sink);
+
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int t = 0; t < 4; ++t) {
+			Thread thread = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					for (int i = 0; i < 5000; ++i) {
+						log.enter(new LogMessage<Object>(i));
+						log.log(new LogMessage<Object>(i));
+						log.leave();
+					}
+				}
+			}, "producer " + t);
+			threads.add(thread);
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		Assert.assertThat(log.awaitQuiescence(10, TimeUnit.SECONDS), CoreMatchers.is(true));
+
+		for (Thread thread : threads) {
+			List<String> events = sink.events.get(thread.getName());
+			Assert.assertThat(events.size(), CoreMatchers.is(15000));
+			for (int i = 0; i < 5000; ++i) {
+				Assert.assertThat(events.get(3 * i), CoreMatchers.is("enter " + i));
+				Assert.assertThat(events.get(3 * i + 1), CoreMatchers.is("log " + i));
+				Assert.assertThat(events.get(3 * i + 2), CoreMatchers.is("leave"));
+			}
+		}
+		log.close();
+	}
+
+	@Test
+	public void flushWaitsForDelivery() {
+		RecordingTreeLog sink = new RecordingTreeLog();
+		AsyncTreeLog<Object> log = createLog(sink);
+		log.log(new LogMessage<Object>("Hello"));
+		log.flush();
+		Assert.assertThat(sink.events.get(Thread.currentThread().getName()).get(0), CoreMatchers.is("log Hello"));
+		log.close();
+	}
+
+	@Test
+	public void failingSinksDoNotRepeatEvents() {
+		final List<Object> seen = new ArrayList<Object>();
+		AsyncTreeLog<Object> log = new AsyncTreeLog<Object>(new RecordingTreeLog() {
+			@Override
+			public void log(LogMessage<? extends Object> message) {
+				seen.add(message.getMessage());
+				if ("bad".equals(message.getMessage())) {
+					throw new IllegalStateException("Intentional failure");
+				}
+			}
+		});
+		log.log(new LogMessage<Object>("bad"));
+		log.log(new LogMessage<Object>("good"));
+		log.flush();
+		Assert.assertThat(seen.size(), CoreMatchers.is(2));
+		log.close();
+	}
+}
@@ -0,0 +1,112 @@
+package logging;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Round-trips events through {@link BinaryTreeLogWriter} and
+ * {@link BinaryLogDecoder}.
+ */
+public class BinaryLogProtocolTest {
+
+	private static class RecordingTreeLog implements TreeLog<Object> {
+		private final List<String> events = new ArrayList<String>();
+
+		private String describe(LogMessage<?> message) {
+			Object sender = message.getSender();
+			if (sender instanceof SenderReference) {
+				sender = sender + "@" + ((SenderReference) sender).getReference();
+			}
+			return message.getTimestamp() + "|" + message.getCategory() + "|" + sender + "|" + message.getMessage();
+		}
+
+		@Override
+		public void log(LogMessage<? extends Object> message) {
+			events.add("log " + describe(message));
+		}
+
+		@Override
+		public void metadata(LogMessage<? extends Object> message) {
+			events.add("metadata " + describe(message));
+		}
+
+		@Override
+		public void enter(LogMessage<? extends Object> scope) {
+			events.add("enter " + describe(scope));
+		}
+
+		@Override
+		public void leave() {
+			events.add("leave");
+		}
+
+		@Override
+		public void reset() {
+			events.add("reset");
+		}
+	}
+
+	private List<String> replay(byte[] bytes) {
+		RecordingTreeLog log = new RecordingTreeLog();
+		new StreamLog<String>(log, new ByteArrayInputStream(bytes), "test", v -> v).run();
+		return log.events;
+	}
+
+	@Test
+	public void eventsSurviveARoundTrip() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		BinaryTreeLogWriter<String> writer = new BinaryTreeLogWriter<String>(bytes);
+		writer.metadata(new LogMessage<String>(1000, null, "Key", "Value"));
+		writer.enter(new LogMessage<String>(1005, "Script", "Function Calls", "Calling foo"));
+		writer.log(new LogMessage<String>(1003, "Script", "Function Calls", null));
+		writer.log(new LogMessage<String>(1003, null, null, "\u00fcnicode"));
+		writer.leave();
+		writer.reset();
+		writer.close();
+
+		List<String> events = replay(bytes.toByteArray());
+		Assert.assertThat(events.get(1), CoreMatchers.is("metadata 1000|Key|null|Value"));
+		Assert.assertThat(events.get(2), CoreMatchers.is("enter 1005|Function Calls|Script|Calling foo"));
+		Assert.assertThat(events.get(3), CoreMatchers.is("log 1003|Function Calls|Script|null"));
+		Assert.assertThat(events.get(4), CoreMatchers.is("log 1003|null|null|\u00fcnicode"));
+		Assert.assertThat(events.get(5), CoreMatchers.is("leave"));
+		Assert.assertThat(events.get(6), CoreMatchers.is("reset"));
+		Assert.assertThat(events.get(7).endsWith("|Connection closed on client request."), CoreMatchers.is(true));
+	}
+
+	@Test
+	public void nonStringSendersCarryAnId() throws IOException {
+		Object sender = new Object() {
+			@Override
+			public String toString() {
+				return "Sender";
+			}
+		};
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		BinaryTreeLogWriter<String> writer = new BinaryTreeLogWriter<String>(bytes);
+		writer.log(new LogMessage<String>(1, sender, null, "Hello"));
+		writer.close();
+
+		String id = Integer.toHexString(System.identityHashCode(sender));
+		Assert.assertThat(replay(bytes.toByteArray()).get(1), CoreMatchers.is("log 1|null|Sender@" + id + "|Hello"));
+	}
+
+	@Test
+	public void repeatedStringsAreInterned() throws IOException {
+		ByteArrayOutputStream first = new ByteArrayOutputStream();
+		BinaryTreeLogWriter<String> writer = new BinaryTreeLogWriter<String>(first);
+		writer.log(new LogMessage<String>(1, "A rather long sender name", "A rather long category", "x"));
+		writer.flush();
+		int once = first.size();
+		writer.log(new LogMessage<String>(2, "A rather long sender name", "A rather long category", "x"));
+		writer.flush();
+		Assert.assertThat(first.size() - once < 10, CoreMatchers.is(true));
+	}
+}
@@ -0,0 +1,210 @@
+/**
+ * Copyright (c) 2013 Aaron Faanes
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package logging;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
+import javax.swing.tree.TreeModel;
+
+import logic.adapters.Adapter;
+
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LazyTreeModelTest {
+
+	private static class CountingListener implements TreeModelListener {
+		int inserted;
+
+		int structureChanged;
+
+		@Override
+		public void treeNodesChanged(TreeModelEvent e) {
+		}
+
+		@Override
+		public void treeNodesInserted(TreeModelEvent e) {
+			++inserted;
+		}
+
+		@Override
+		public void treeNodesRemoved(TreeModelEvent e) {
+		}
+
+		@Override
+		public void treeStructureChanged(TreeModelEvent e) {
+			++structureChanged;
+		}
+	}
+
+	private void writeTree(TreeLog<String> log) {
+		log.enter(new LogMessage<String>("Calls", "first call"));
+		log.log(new LogMessage<String>("body"));
+		log.leave();
+		log.enter(new LogMessage<String>("Calls", "second call"));
+		log.enter(new LogMessage<String>("Retrievals", "nested"));
+		log.log(new LogMessage<String>("value"));
+		log.leave();
+		log.leave();
+		log.enter(new LogMessage<String>("Calls", "third call"));
+		log.leave();
+		log.log(new LogMessage<String>("done"));
+		log.leave();
+	}
+
+	private static String describe(TreeModel model, Object node) {
+		StringBuilder builder = new StringBuilder(node.toString());
+		int count = model.getChildCount(node);
+		if (count > 0) {
+			builder.append(" (");
+			for (int i = 0; i < count; ++i) {
+				if (i > 0) {
+					builder.append(", ");
+				}
+				Object child = model.getChild(node, i);
+				Assert.assertThat(model.getIndexOfChild(node, child), CoreMatchers.is(i));
+				builder.append(describe(model, child));
+			}
+			builder.append(")");
+		}
+		return builder.toString();
+	}
+
+	@Test
+	public void treesMatchTreeBuildingTreeLog() {
+		TreeBuildingTreeLog<String> eager = new TreeBuildingTreeLog<String>(null);
+		LazyTreeModel<String> lazy = new LazyTreeModel<String>(null, null);
+		writeTree(eager);
+		writeTree(lazy);
+
+		String expected = describe(eager.getModel(), eager.getModel().getRoot());
+		Assert.assertThat(describe(lazy, lazy.getRoot()).replaceFirst("^null", ""), CoreMatchers.is(expected.replaceFirst("^null", "")));
+		Assert.assertThat(lazy.getLevel(), CoreMatchers.is(eager.getLevel()));
+	}
+
+	@Test
+	public void storedMessagesAreReadOnDemand() throws IOException {
+		File directory = Files.createTempDirectory("LazyTreeModelTest").toFile();
+		directory.deleteOnExit();
+		MappedLogStore<String> store = new MappedLogStore<String>(directory, 4096, new Adapter<String, String>() {
+			@Override
+			public String adapt(String source) {
+				return source;
+			}
+		});
+		LazyTreeModel<String> lazy = new LazyTreeModel<String>(null, store);
+		store.setSink(lazy);
+		writeTree(store);
+
+		TreeBuildingTreeLog<String> eager = new TreeBuildingTreeLog<String>(null);
+		writeTree(eager);
+		String expected = describe(eager.getModel(), eager.getModel().getRoot());
+		Assert.assertThat(describe(lazy, lazy.getRoot()).replaceFirst("^null", ""), CoreMatchers.is(expected.replaceFirst("^null", "")));
+
+		LogMessage<String> replayed = store.read(store.getScopeStart(0));
+		LazyTreeModel.Node node = lazy.getNodeFor(replayed);
+		Assert.assertThat(node, CoreMatchers.notNullValue());
+		Assert.assertThat(node.toString(), CoreMatchers.is("first call"));
+		store.close();
+	}
+
+	/**
+	 * A child panel's store receives its messages from its parent's store,
+	 * both live and by replay. Messages read back from the child's store must
+	 * still be found in the parent's model.
+	 */
+	@Test
+	public void childMessagesAreFoundInTheParent() throws IOException {
+		Adapter<String, String> parser = new Adapter<String, String>() {
+			@Override
+			public String adapt(String source) {
+				return source;
+			}
+		};
+		MappedLogStore<String> parentStore = new MappedLogStore<String>(parser);
+		LazyTreeModel<String> parent = new LazyTreeModel<String>(null, parentStore);
+		CompositeTreeLog<String> parentLog = new CompositeTreeLog<String>();
+		parentLog.addListener(parent);
+		parentStore.setSink(parentLog);
+		parentStore.enter(new LogMessage<String>("replayed scope"));
+		parentStore.log(new LogMessage<String>("replayed message"));
+		parentStore.leave();
+
+		MappedLogStore<String> childStore = new MappedLogStore<String>(parser);
+		LazyTreeModel<String> child = new LazyTreeModel<String>(null, childStore);
+		childStore.setSink(child);
+		parentStore.play(childStore);
+		parentLog.addListener(childStore);
+		parentStore.log(new LogMessage<String>("live message"));
+
+		Assert.assertThat(child.getChildCount(child.getRoot()), CoreMatchers.is(2));
+		for (long address : childStore.getChildren(-1)) {
+			StoredLogMessage<String> message = childStore.read(address);
+			Assert.assertThat(child.getNodeFor(message), CoreMatchers.notNullValue());
+			LazyTreeModel.Node node = parent.getNodeFor(message);
+			Assert.assertThat(node, CoreMatchers.notNullValue());
+			Assert.assertThat(node.toString(), CoreMatchers.is(message.getMessage()));
+		}
+		childStore.close();
+		parentStore.close();
+	}
+
+	@Test
+	public void insertionsAreCoalescedUntilFlush() {
+		LazyTreeModel<String> lazy = new LazyTreeModel<String>(null, null);
+		CountingListener listener = new CountingListener();
+		lazy.addTreeModelListener(listener);
+
+		lazy.enter(new LogMessage<String>("scope"));
+		for (int i = 0; i < 1000; ++i) {
+			lazy.log(new LogMessage<String>("message " + i));
+		}
+		Assert.assertThat(listener.inserted, CoreMatchers.is(0));
+		lazy.flush();
+		// One event for the root, and one for the scope.
+		Assert.assertThat(listener.inserted, CoreMatchers.is(2));
+
+		lazy.log(new LogMessage<String>("another"));
+		lazy.flush();
+		Assert.assertThat(listener.inserted, CoreMatchers.is(3));
+		lazy.flush();
+		Assert.assertThat(listener.inserted, CoreMatchers.is(3));
+	}
+
+	@Test
+	public void groupingIsReportedAsAStructureChange() {
+		LazyTreeModel<String> lazy = new LazyTreeModel<String>(null, null);
+		CountingListener listener = new CountingListener();
+		lazy.addTreeModelListener(listener);
+		lazy.log(new LogMessage<String>("Calls", "first"));
+		lazy.flush();
+		lazy.log(new LogMessage<String>("Calls", "second"));
+		lazy.flush();
+		Assert.assertThat(listener.structureChanged, CoreMatchers.is(1));
+		Assert.assertThat(lazy.getChildCount(lazy.getRoot()), CoreMatchers.is(1));
+	}
+}
@@ -0,0 +1,137 @@
+/**
+ * Copyright (c) 2013 Aaron Faanes
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package logging;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import logic.handlers.Handler;
+
+import org.hamcrest.CoreMatchers;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LogCategoryTest {
+
+	private final List<Object> logged = new ArrayList<Object>();
+
+	private final Handler<LogMessage<? extends Object>> recorder = new Handler<LogMessage<? extends Object>>() {
+		@Override
+		public boolean handle(LogMessage<? extends Object> value) {
+			logged.add(value.getMessage());
+			return true;
+		}
+	};
+
+	@Before
+	public void setUp() {
+		Logs.addHandler(recorder);
+	}
+
+	@After
+	public void tearDown() {
+		Logs.removeHandler(recorder);
+	}
+
+	@Test
+	public void categoriesAreSharedByName() {
+		Assert.assertThat(LogCategory.get("Shared"), CoreMatchers.sameInstance(LogCategory.get("Shared")));
+		Assert.assertThat(LogCategory.getCategories().contains(LogCategory.get("Shared")), CoreMatchers.is(true));
+	}
+
+	@Test
+	public void disabledCategoriesLogNothing() {
+		LogCategory category = LogCategory.get("Disabled Test Category");
+		category.setEnabled(false);
+		Logs.openNode(category, "Value (%d)", 42);
+		Logs.addNode(category, "Hidden %s", "value");
+		Logs.closeNode(category);
+		Assert.assertThat(logged.isEmpty(), CoreMatchers.is(true));
+	}
+
+	@Test
+	public void enabledCategoriesFormatLazily() {
+		LogCategory category = LogCategory.get("Enabled Test Category");
+		category.setEnabled(true);
+		Logs.openNode(category, "Value (%d)", 42);
+		Logs.addNode(category, "Shown %s", "value");
+		Logs.closeNode(category);
+		Assert.assertThat(logged.size(), CoreMatchers.is(1));
+		Assert.assertThat(logged.get(0), CoreMatchers.instanceOf(FormattedMessage.class));
+		Assert.assertThat(logged.get(0).toString(), CoreMatchers.is("Shown value"));
+	}
+
+	@Test
+	public void togglingWithinAScopeKeepsItBalanced() {
+		LogCategory category = LogCategory.get("Toggled Test Category");
+		category.setEnabled(true);
+		Assert.assertThat(category.openScope(), CoreMatchers.is(true));
+		category.setEnabled(false);
+		Assert.assertThat(category.openScope(), CoreMatchers.is(false));
+		category.setEnabled(true);
+		Assert.assertThat(category.closeScope(), CoreMatchers.is(false));
+		category.setEnabled(false);
+		Assert.assertThat(category.closeScope(), CoreMatchers.is(true));
+
+		Assert.assertThat(category.openScope(), CoreMatchers.is(false));
+		category.setEnabled(true);
+		Assert.assertThat(category.closeScope(), CoreMatchers.is(false));
+	}
+
+	@Test
+	public void badFormatsDoNotThrow() {
+		FormattedMessage message = new FormattedMessage("Value (%d)", "not a number");
+		Assert.assertThat(message.toString(), CoreMatchers.is("Value (%d) [not a number]"));
+	}
+
+	/**
+	 * Compare the cost of a disabled category to the string concatenation it
+	 * replaces.
+	 */
+	public static void main(String[] args) {
+		LogCategory category = LogCategory.get("Benchmark");
+		category.setEnabled(false);
+		final int iterations = 50000000;
+		long sink = 0;
+		for (int round = 0; round < 5; ++round) {
+			long start = System.nanoTime();
+			for (int i = 0; i < iterations; ++i) {
+				Logs.openNode(category, "Advancing Stack (Stack size before advance: %d)", i);
+				Logs.closeNode(category);
+			}
+			long disabled = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			for (int i = 0; i < iterations; ++i) {
+				sink += ("Advancing Stack (Stack size before advance: " + i + ")").length();
+			}
+			long concatenated = System.nanoTime() - start;
+
+			System.out.printf("disabled category: %.2f ns/call, concatenation: %.2f ns/call%n",
+					(double) disabled / iterations,
+					(double) concatenated / iterations);
+		}
+		System.out.println(sink);
+	}
+}
@@ -0,0 +1,126 @@
+package logging;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Conformance tests that run the same lines through {@link LogParser} and
+ * {@link ScanningLogParser}.
+ */
+public class LogParserTest {
+
+	/**
+	 * A {@link TreeLog} that records every event as a string.
+	 */
+	private static class RecordingTreeLog implements TreeLog<Object> {
+		private final List<String> events = new ArrayList<String>();
+
+		private String describe(LogMessage<?> message) {
+			Object sender = message.getSender();
+			if (sender instanceof SenderReference) {
+				sender = sender + "@" + ((SenderReference) sender).getReference();
+			}
+			return message.getCategory() + "|" + sender + "|" + message.getMessage();
+		}
+
+		@Override
+		public void log(LogMessage<? extends Object> message) {
+			events.add("log " + describe(message));
+		}
+
+		@Override
+		public void metadata(LogMessage<? extends Object> message) {
+			events.add("metadata " + describe(message));
+		}
+
+		@Override
+		public void enter(LogMessage<? extends Object> scope) {
+			events.add("enter " + describe(scope));
+		}
+
+		@Override
+		public void leave() {
+			events.add("leave");
+		}
+
+		@Override
+		public void reset() {
+			events.add("reset");
+		}
+	}
+
+	private static final String[] LINES = {
+			"",
+			"   ",
+			"Hello, world!",
+			">>> 123 (Category) [Sender]@0x1f Entered",
+			">> 123 (Category) [Sender]@1f Entered",
+			"< 123",
+			"<<< 123 (Category) Left with a message",
+			"!!! 123",
+			"! 123 Reset with a message",
+			"@ 123 (Key) Value",
+			"123 (cat)[sender]message",
+			"123 ((cat)) [[sender]] message  ",
+			"123 () [] empty fields",
+			"123 (unclosed category",
+			"123 [unclosed sender",
+			"123 [sender]@ no id",
+			"123 [sender]@0xyz partial id",
+			"123 [sender]@0x no digits",
+			"123 [sender]@xyz not an id",
+			"123 [sender]@ABCdef0123 id",
+			"123 [sender] (cat) out of order",
+			"123abc",
+			"<> arrows",
+			"\t> \t123\t(cat)\t[sender]\tmessage",
+			"(a [b] c) [d (e) f] g",
+	};
+
+	private List<String> parse(LogParser parser, String line) {
+		RecordingTreeLog log = new RecordingTreeLog();
+		Assert.assertThat(parser.readLine(log, line), CoreMatchers.is(true));
+		return log.events;
+	}
+
+	@Test
+	public void scanningParserMatchesRegexParser() {
+		for (String line : LINES) {
+			Assert.assertThat(line, parse(new ScanningLogParser(), line), CoreMatchers.is(parse(new LogParser(), line)));
+		}
+	}
+
+	@Test
+	public void scanningParserReadsTimestamps() {
+		final List<Long> timestamps = new ArrayList<Long>();
+		TreeLog<Object> log = new RecordingTreeLog() {
+			@Override
+			public void enter(LogMessage<? extends Object> scope) {
+				timestamps.add(scope.getTimestamp());
+			}
+		};
+		new LogParser().readLine(log, ">>> 1234567890123 (Category) Entered");
+		new ScanningLogParser().readLine(log, ">>> 1234567890123 (Category) Entered");
+		Assert.assertThat(timestamps.get(1), CoreMatchers.is(timestamps.get(0)));
+		Assert.assertThat(timestamps.get(1), CoreMatchers.is(1234567890123L));
+	}
+
+	@Test
+	public void closeEndsTheSession() {
+		RecordingTreeLog log = new RecordingTreeLog();
+		Assert.assertThat(new LogParser().readLine(log, "CLOSE"), CoreMatchers.is(false));
+		Assert.assertThat(new ScanningLogParser().readLine(log, "CLOSE"), CoreMatchers.is(false));
+		Assert.assertThat(log.events.isEmpty(), CoreMatchers.is(true));
+	}
+
+	@Test
+	public void scanningParserReadsSenderReferences() {
+		RecordingTreeLog log = new RecordingTreeLog();
+		new ScanningLogParser().readLine(log, ">>> 42 (Function Calls) [Script]@0xdeadBEEF Calling foo");
+		Assert.assertThat(log.events.get(0), CoreMatchers.is("enter Function Calls|Script@deadBEEF|Calling foo"));
+	}
+}
@@ -0,0 +1,210 @@
+/**
+ * Copyright (c) 2013 Aaron Faanes
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package logging;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import logic.adapters.Adapter;
+
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MappedLogStoreTest {
+
+	private static final Adapter<String, String> IDENTITY = new Adapter<String, String>() {
+		@Override
+		public String adapt(String source) {
+			return source;
+		}
+	};
+
+	private static final int DEFAULT_SEGMENT_SIZE = MappedLogStore.DEFAULT_SEGMENT_SIZE;
+
+	private static class RecordingTreeLog implements TreeLog<String> {
+		final List<String> events = new ArrayList<String>();
+
+		final List<LogMessage<? extends String>> messages = new ArrayList<LogMessage<? extends String>>();
+
+		@Override
+		public void log(LogMessage<? extends String> message) {
+			messages.add(message);
+			events.add("log " + message);
+		}
+
+		@Override
+		public void metadata(LogMessage<? extends String> message) {
+			events.add("metadata " + message);
+		}
+
+		@Override
+		public void enter(LogMessage<? extends String> scope) {
+			messages.add(scope);
+			events.add("enter " + scope);
+		}
+
+		@Override
+		public void leave() {
+			events.add("leave");
+		}
+
+		@Override
+		public void reset() {
+			events.add("reset");
+		}
+	}
+
+	private MappedLogStore<String> createStore(int segmentSize) throws IOException {
+		File directory = Files.createTempDirectory("MappedLogStoreTest").toFile();
+		directory.deleteOnExit();
+		return new MappedLogStore<String>(directory, segmentSize, IDENTITY);
+	}
+
+	private void writeTree(TreeLog<String> log) {
+		log.enter(new LogMessage<String>(1, null, "Calls", "outer"));
+		log.log(new LogMessage<String>(2, null, null, "first"));
+		log.enter(new LogMessage<String>(3, new SenderReference("abc", "Sender"), "Calls", "inner"));
+		log.log(new LogMessage<String>(4, null, null, "nested"));
+		log.leave();
+		log.log(new LogMessage<String>(5, null, null, "last"));
+		log.leave();
+		log.log(new LogMessage<String>(6, null, null, "root"));
+	}
+
+	@Test
+	public void replayMatchesTheOriginalStream() throws IOException {
+		MappedLogStore<String> store = createStore(64);
+		RecordingTreeLog live = new RecordingTreeLog();
+		store.setSink(live);
+		writeTree(store);
+
+		RecordingTreeLog replayed = new RecordingTreeLog();
+		Assert.assertThat(store.play(replayed), CoreMatchers.is(8));
+		Assert.assertThat(replayed.events, CoreMatchers.is(live.events));
+		for (int i = 0; i < live.messages.size(); ++i) {
+			LogMessage<? extends String> original = live.messages.get(i);
+			LogMessage<? extends String> copy = replayed.messages.get(i);
+			Assert.assertThat(copy, CoreMatchers.is((Object) original));
+			Assert.assertThat(copy.getTimestamp(), CoreMatchers.is(original.getTimestamp()));
+			Assert.assertThat(copy.getCategory(), CoreMatchers.is(original.getCategory()));
+		}
+		Assert.assertThat(replayed.messages.get(2).getSender(), CoreMatchers.is((Object) new SenderReference("abc", "Sender")));
+		store.close();
+	}
+
+	@Test
+	public void replayKeepsSenders() throws IOException {
+		MappedLogStore<String> store = createStore(DEFAULT_SEGMENT_SIZE);
+		store.setSink(new RecordingTreeLog());
+		Object sender = new Object() {
+			@Override
+			public String toString() {
+				return "Sender";
+			}
+		};
+		store.log(new LogMessage<String>(1, sender, null, "first"));
+		store.log(new LogMessage<String>(2, "Sender", null, "second"));
+
+		RecordingTreeLog replayed = new RecordingTreeLog();
+		store.play(replayed);
+		Assert.assertThat(replayed.messages.get(0).getSender(), CoreMatchers.sameInstance(sender));
+		Assert.assertThat(replayed.messages.get(1).getSender(), CoreMatchers.is((Object) "Sender"));
+		store.close();
+	}
+
+	@Test
+	public void scopesAreIndexed() throws IOException {
+		MappedLogStore<String> store = createStore(DEFAULT_SEGMENT_SIZE);
+		store.setSink(new RecordingTreeLog());
+		writeTree(store);
+
+		Assert.assertThat(store.getScopeCount(), CoreMatchers.is(2));
+		Assert.assertThat(store.getScopeDepth(1), CoreMatchers.is(1));
+		Assert.assertThat(store.getScopeParent(1), CoreMatchers.is(0));
+		Assert.assertThat(store.getScopeParent(0), CoreMatchers.is(-1));
+
+		long[] roots = store.getChildren(-1);
+		Assert.assertThat(roots.length, CoreMatchers.is(2));
+		Assert.assertThat(store.read(roots[0]).getMessage(), CoreMatchers.is("outer"));
+		Assert.assertThat(store.read(roots[1]).getMessage(), CoreMatchers.is("root"));
+
+		long[] children = store.getChildren(store.getScope(roots[0]));
+		Assert.assertThat(children.length, CoreMatchers.is(3));
+		Assert.assertThat(store.read(children[1]).getMessage(), CoreMatchers.is("inner"));
+		Assert.assertThat(store.getChildren(store.getScope(children[1])).length, CoreMatchers.is(1));
+		Assert.assertThat(store.getScope(children[0]), CoreMatchers.is(-1));
+		store.close();
+	}
+
+	@Test
+	public void scopesCanBeReplayedAcrossSegments() throws IOException {
+		MappedLogStore<String> store = createStore(64);
+		store.setSink(new RecordingTreeLog());
+		store.log(new LogMessage<String>("before"));
+		store.enter(new LogMessage<String>("scope"));
+		for (int i = 0; i < 100; ++i) {
+			store.log(new LogMessage<String>("child " + i));
+		}
+		store.leave();
+		store.log(new LogMessage<String>("after"));
+
+		RecordingTreeLog replayed = new RecordingTreeLog();
+		Assert.assertThat(store.playScope(replayed, 0), CoreMatchers.is(102));
+		Assert.assertThat(replayed.events.get(0), CoreMatchers.is("enter scope"));
+		Assert.assertThat(replayed.events.get(100), CoreMatchers.is("log child 99"));
+		Assert.assertThat(replayed.events.get(101), CoreMatchers.is("leave"));
+		Assert.assertThat(store.getChildren(0).length, CoreMatchers.is(100));
+		Assert.assertThat(store.getChildren(-1).length, CoreMatchers.is(3));
+		store.close();
+	}
+
+	@Test
+	public void openScopesExtendToTheEnd() throws IOException {
+		MappedLogStore<String> store = createStore(DEFAULT_SEGMENT_SIZE);
+		store.setSink(new RecordingTreeLog());
+		store.enter(new LogMessage<String>("open"));
+		store.log(new LogMessage<String>("child"));
+
+		Assert.assertThat(store.getScopeEnd(0), CoreMatchers.is(-1L));
+		Assert.assertThat(store.getChildren(0).length, CoreMatchers.is(1));
+		RecordingTreeLog replayed = new RecordingTreeLog();
+		Assert.assertThat(store.playScope(replayed, 0), CoreMatchers.is(2));
+		store.close();
+	}
+
+	@Test
+	public void clearDiscardsEvents() throws IOException {
+		MappedLogStore<String> store = createStore(64);
+		store.setSink(new RecordingTreeLog());
+		writeTree(store);
+		store.clear();
+		Assert.assertThat(store.getScopeCount(), CoreMatchers.is(0));
+		Assert.assertThat(store.play(new RecordingTreeLog()), CoreMatchers.is(0));
+		store.log(new LogMessage<String>("again"));
+		Assert.assertThat(store.getChildren(-1).length, CoreMatchers.is(1));
+		store.close();
+	}
+}
@@ -0,0 +1,201 @@
+package logging;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+import logging.RingBufferTreeLog.OverflowPolicy;
+
+public class RingBufferTreeLogTest {
+
+	/**
+	 * Records messages and checks that scopes stay balanced.
+	 */
+	private static class CheckingTreeLog implements TreeLog<Object> {
+		private final List<Object> messages = new ArrayList<Object>();
+		private int depth;
+
+		@Override
+		public void log(LogMessage<? extends Object> message) {
+			if (message.getMessage() != null) {
+				messages.add(message.getMessage());
+			}
+		}
+
+		@Override
+		public void metadata(LogMessage<? extends Object> message) {
+			log(message);
+		}
+
+		@Override
+		public void enter(LogMessage<? extends Object> scope) {
+			++depth;
+		}
+
+		@Override
+		public void leave() {
+			--depth;
+			Assert.assertThat(depth >= 0, CoreMatchers.is(true));
+		}
+
+		@Override
+		public void reset() {
+			depth = 0;
+		}
+	}
+
+	private static void produce(TreeLog<Object> log, int count) {
+		for (int i = 0; i < count; ++i) {
+			log.enter(new LogMessage<Object>("scope"));
+			log.log(new LogMessage<Object>(Integer.valueOf(i)));
+			log.leave();
+		}
+	}
+
+	@Test
+	public void capacityIsRoundedToAPowerOfTwo() {
+		Assert.assertThat(new RingBufferTreeLog<Object>(1000, OverflowPolicy.BLOCK).getCapacity(), CoreMatchers.is(1024));
+	}
+
+	@Test
+	public void drainPreservesOrder() {
+		RingBufferTreeLog<Object> buffer = new RingBufferTreeLog<Object>(64, OverflowPolicy.BLOCK);
+		produce(buffer, 10);
+		CheckingTreeLog sink = new CheckingTreeLog();
+		Assert.assertThat(buffer.drain(sink, 0), CoreMatchers.is(30));
+		Assert.assertThat(buffer.isEmpty(), CoreMatchers.is(true));
+		for (int i = 0; i < 10; ++i) {
+			Assert.assertThat(sink.messages.get(i), CoreMatchers.is((Object) Integer.valueOf(i)));
+		}
+	}
+
+	@Test
+	public void droppingKeepsScopesBalanced() {
+		RingBufferTreeLog<Object> buffer = new RingBufferTreeLog<Object>(16, OverflowPolicy.DROP_OLDEST);
+		buffer.enter(new LogMessage<Object>("outer"));
+		produce(buffer, 100);
+		buffer.leave();
+
+		Assert.assertThat(buffer.getDroppedCount() > 0, CoreMatchers.is(true));
+		CheckingTreeLog sink = new CheckingTreeLog();
+		buffer.drain(sink, 0);
+		Assert.assertThat(sink.depth, CoreMatchers.is(0));
+		Assert.assertThat(sink.messages.get(sink.messages.size() - 1), CoreMatchers.is((Object) Integer.valueOf(99)));
+		Assert.assertThat(buffer.getDroppedCount(), CoreMatchers.is(302L - 15));
+	}
+
+	@Test
+	public void blockingLosesNothingAcrossThreads() throws InterruptedException {
+		final RingBufferTreeLog<Object> buffer = new RingBufferTreeLog<Object>(8, OverflowPolicy.BLOCK);
+		Thread producer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				produce(buffer, 10000);
+			}
+		});
+		producer.start();
+		CheckingTreeLog sink = new CheckingTreeLog();
+		while (producer.isAlive() || !buffer.isEmpty()) {
+			buffer.drain(sink, 5);
+		}
+		Assert.assertThat(sink.messages.size(), CoreMatchers.is(10000));
+		Assert.assertThat(sink.messages.get(9999), CoreMatchers.is((Object) Integer.valueOf(9999)));
+		Assert.assertThat(buffer.getDroppedCount(), CoreMatchers.is(0L));
+	}
+
+	@Test
+	public void spillingLosesNothing() throws IOException {
+		File spillFile = File.createTempFile("ringbuffer", ".spill");
+		spillFile.deleteOnExit();
+		RingBufferTreeLog<Object> buffer = new RingBufferTreeLog<Object>(16, spillFile, v -> v);
+		produce(buffer, 100);
+		Assert.assertThat(buffer.getSpilledCount() > 0, CoreMatchers.is(true));
+
+		CheckingTreeLog sink = new CheckingTreeLog();
+		buffer.drain(sink, 0);
+		Assert.assertThat(buffer.isEmpty(), CoreMatchers.is(true));
+		Assert.assertThat(sink.messages.size(), CoreMatchers.is(100));
+		Assert.assertThat(sink.messages.get(99), CoreMatchers.is((Object) "99"));
+
+		// Once drained, the buffer goes back to memory.
+		produce(buffer, 1);
+		buffer.drain(sink, 0);
+		Assert.assertThat(sink.messages.get(100), CoreMatchers.is((Object) Integer.valueOf(0)));
+		Assert.assertThat(sink.depth, CoreMatchers.is(0));
+	}
+
+	@Test
+	public void spillingKeepsOrderAcrossThreads() throws Exception {
+		File spillFile = File.createTempFile("ringbuffer", ".spill");
+		spillFile.deleteOnExit();
+		final RingBufferTreeLog<Object> buffer = new RingBufferTreeLog<Object>(8, spillFile, v -> v);
+		Thread producer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				produce(buffer, 20000);
+			}
+		});
+		producer.start();
+		CheckingTreeLog sink = new CheckingTreeLog();
+		while (producer.isAlive() || !buffer.isEmpty()) {
+			buffer.drain(sink, 7);
+		}
+		producer.join();
+		Assert.assertThat(sink.messages.size(), CoreMatchers.is(20000));
+		for (int i = 0; i < 20000; ++i) {
+			// Spilled messages come back as strings
+			Assert.assertThat(String.valueOf(sink.messages.get(i)), CoreMatchers.is(String.valueOf(i)));
+		}
+		Assert.assertThat(sink.depth, CoreMatchers.is(0));
+	}
+
+	@Test
+	public void drainedMessagesCanBeCollected() {
+		RingBufferTreeLog<Object> buffer = new RingBufferTreeLog<Object>(16, OverflowPolicy.DROP_OLDEST);
+		Object message = new Object();
+		WeakReference<Object> reference = new WeakReference<Object>(message);
+		buffer.log(new LogMessage<Object>(message));
+		buffer.drain(new CheckingTreeLog(), 0);
+		message = null;
+		for (int i = 0; i < 10 && reference.get() != null; ++i) {
+			System.gc();
+		}
+		Assert.assertThat(reference.get() == null, CoreMatchers.is(true));
+	}
+
+	@Test
+	public void closingDeletesTheSpillFile() throws IOException {
+		File spillFile = File.createTempFile("ringbuffer", ".spill");
+		spillFile.deleteOnExit();
+		RingBufferTreeLog<Object> buffer = new RingBufferTreeLog<Object>(16, spillFile, v -> v);
+		produce(buffer, 2);
+		buffer.close();
+		Assert.assertThat(spillFile.exists(), CoreMatchers.is(false));
+
+		CheckingTreeLog sink = new CheckingTreeLog();
+		buffer.drain(sink, 0);
+		Assert.assertThat(sink.messages.size(), CoreMatchers.is(2));
+	}
+
+	@Test
+	public void closingKeepsSpilledEventsUntilDrained() throws IOException {
+		File spillFile = File.createTempFile("ringbuffer", ".spill");
+		spillFile.deleteOnExit();
+		RingBufferTreeLog<Object> buffer = new RingBufferTreeLog<Object>(16, spillFile, v -> v);
+		produce(buffer, 100);
+		buffer.close();
+		Assert.assertThat(spillFile.exists(), CoreMatchers.is(true));
+
+		CheckingTreeLog sink = new CheckingTreeLog();
+		buffer.drain(sink, 0);
+		Assert.assertThat(sink.messages.size(), CoreMatchers.is(100));
+		Assert.assertThat(sink.messages.get(99), CoreMatchers.is((Object) "99"));
+		Assert.assertThat(spillFile.exists(), CoreMatchers.is(false));
+	}
+}
@@ -0,0 +1,150 @@
+/**
+ * Copyright (c) 2013 Aaron Faanes
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package logging;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SamplingTreeLogTest {
+
+	private final List<String> events = new ArrayList<String>();
+
+	private SamplingTreeLog<String> log;
+
+	@Before
+	public void setUp() {
+		log = new SamplingTreeLog<String>();
+		log.setSink(new TreeLog<String>() {
+			@Override
+			public void log(LogMessage<? extends String> message) {
+				events.add("log " + message);
+			}
+
+			@Override
+			public void metadata(LogMessage<? extends String> message) {
+				events.add("metadata " + message);
+			}
+
+			@Override
+			public void enter(LogMessage<? extends String> scope) {
+				events.add("enter " + scope);
+			}
+
+			@Override
+			public void leave() {
+				events.add("leave");
+			}
+
+			@Override
+			public void reset() {
+				events.add("reset");
+			}
+		});
+	}
+
+	private void scope(long timestamp, String category, String message) {
+		log.enter(new LogMessage<String>(timestamp, null, category, message));
+		log.log(new LogMessage<String>(timestamp, null, null, "child of " + message));
+		log.leave();
+	}
+
+	private int count(String event) {
+		int count = 0;
+		for (String candidate : events) {
+			if (candidate.equals(event)) {
+				++count;
+			}
+		}
+		return count;
+	}
+
+	@Test
+	public void unconfiguredCategoriesPassThrough() {
+		scope(0, "Calls", "a");
+		Assert.assertThat(events.size(), CoreMatchers.is(3));
+	}
+
+	@Test
+	public void keepOneInDropsWholeScopes() {
+		log.setPolicy("Calls", SamplingPolicy.keepOneIn(3));
+		for (int i = 0; i < 9; ++i) {
+			scope(0, "Calls", "call " + i);
+		}
+		Assert.assertThat(count("enter call 0"), CoreMatchers.is(1));
+		Assert.assertThat(count("enter call 1"), CoreMatchers.is(0));
+		Assert.assertThat(count("enter call 3"), CoreMatchers.is(1));
+		Assert.assertThat(count("log child of call 1"), CoreMatchers.is(0));
+		Assert.assertThat(count("leave"), CoreMatchers.is(3));
+		Assert.assertThat(log.getDroppedScopeCount(), CoreMatchers.is(6L));
+	}
+
+	@Test
+	public void scopesPerSecondRefillsOverTime() {
+		log.setPolicy("Calls", SamplingPolicy.scopesPerSecond(2));
+		for (int i = 0; i < 5; ++i) {
+			scope(1000, "Calls", "early");
+		}
+		Assert.assertThat(count("enter early"), CoreMatchers.is(2));
+		scope(1500, "Calls", "later");
+		scope(1500, "Calls", "later");
+		Assert.assertThat(count("enter later"), CoreMatchers.is(1));
+		Assert.assertThat(count("leave"), CoreMatchers.is(3));
+	}
+
+	@Test
+	public void firstChildrenElidesTheRest() {
+		log.setPolicy("Loops", SamplingPolicy.firstChildren(2));
+		log.enter(new LogMessage<String>("Loops", "loop"));
+		for (int i = 0; i < 5; ++i) {
+			log.enter(new LogMessage<String>("Iterations", "iteration " + i));
+			log.log(new LogMessage<String>("body " + i));
+			log.leave();
+		}
+		log.log(new LogMessage<String>("done"));
+		log.leave();
+
+		Assert.assertThat(count("enter iteration 1"), CoreMatchers.is(1));
+		Assert.assertThat(count("enter iteration 2"), CoreMatchers.is(0));
+		Assert.assertThat(count("log body 4"), CoreMatchers.is(0));
+		Assert.assertThat(count("log done"), CoreMatchers.is(0));
+		Assert.assertThat(events.get(events.size() - 2), CoreMatchers.is("log 4 more elided"));
+		Assert.assertThat(count("leave"), CoreMatchers.is(3));
+	}
+
+	@Test
+	public void policyChangesKeepScopesBalanced() {
+		log.enter(new LogMessage<String>("Calls", "open"));
+		log.setPolicy("Calls", SamplingPolicy.keepOneIn(2));
+		log.enter(new LogMessage<String>("Calls", "kept"));
+		log.enter(new LogMessage<String>("Calls", "dropped"));
+		log.setPolicy("Calls", null);
+		log.leave();
+		log.leave();
+		log.leave();
+		Assert.assertThat(count("leave"), CoreMatchers.is(2));
+	}
+}
@@ -0,0 +1,113 @@
+package script;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+
+import script.operations.ScriptExecutable_CallFunction;
+import script.parsing.Parser;
+import script.values.ScriptValue;
+import script.values.ScriptValue_Numeric;
+
+import org.junit.Test;
+
+public class ActivationTest {
+
+	/**
+	 * Runs the static {@code run()} function of a class with the specified
+	 * body. Script operators have no precedence, so the scripts parenthesize
+	 * mixed expressions.
+	 */
+	private static int run(String body) throws Exception {
+		ScriptEnvironment env = new ScriptEnvironment();
+		String script = "class Test {\n" + body + "}\n";
+		Parser.parseElements(env, Collections.singletonList(Parser.preparseFile(env, "Test", script)));
+		ScriptValue result = ScriptExecutable_CallFunction.callFunction(env, null, env.getTemplate("Test"), "run", new ArrayList<ScriptValue>());
+		return ((ScriptValue_Numeric) result).intValue();
+	}
+
+	/**
+	 * @see Activation
+	 */
+	@Test
+	public void testRecursiveCalls() throws Exception {
+		assertThat(run(""
+				+ "	public static int factorial(int n) {\n"
+				+ "		if (n < 2) {\n"
+				+ "			return 1;\n"
+				+ "		}\n"
+				+ "		int rest = factorial(n + -1);\n"
+				+ "		return n * rest;\n"
+				+ "	}\n"
+				+ "	public static int run() {\n"
+				+ "		return factorial(10);\n"
+				+ "	}\n"), is(3628800));
+	}
+
+	/**
+	 * Each call's locals must survive the calls it makes.
+	 *
+	 * @see Activation
+	 */
+	@Test
+	public void testReturnFromElseBranch() throws Exception {
+		assertThat(run(""
+				+ "	public static int fib(int n) {\n"
+				+ "		if (n < 2) {\n"
+				+ "			return n;\n"
+				+ "		} else {\n"
+				+ "			int a = n + -1;\n"
+				+ "			int b = n + -2;\n"
+				+ "			int r = fib(a);\n"
+				+ "			return r + fib(b);\n"
+				+ "		}\n"
+				+ "	}\n"
+				+ "	public static int run() {\n"
+				+ "		return fib(15);\n"
+				+ "	}\n"), is(610));
+	}
+
+	/**
+	 * @see Activation
+	 */
+	@Test
+	public void testReturnFromForLoop() throws Exception {
+		assertThat(run(""
+				+ "	public static int firstMultiple(int n, int limit) {\n"
+				+ "		for (int i = 1; i < limit; i++) {\n"
+				+ "			if ((i % n) == 0) {\n"
+				+ "				return i;\n"
+				+ "			}\n"
+				+ "		}\n"
+				+ "		return -1;\n"
+				+ "	}\n"
+				+ "	public static int run() {\n"
+				+ "		int first = firstMultiple(7, 100);\n"
+				+ "		int missing = firstMultiple(200, 100);\n"
+				+ "		return (first * 1000) + missing;\n"
+				+ "	}\n"), is(6999));
+	}
+
+	/**
+	 * A branch that returned once must not return on later calls.
+	 *
+	 * @see Activation
+	 */
+	@Test
+	public void testReturnOnlyAffectsItsCall() throws Exception {
+		assertThat(run(""
+				+ "	public static int sign(int n) {\n"
+				+ "		if (n < 0) {\n"
+				+ "			return -1;\n"
+				+ "		}\n"
+				+ "		return 1;\n"
+				+ "	}\n"
+				+ "	public static int run() {\n"
+				+ "		int negative = sign(-5);\n"
+				+ "		int positive = sign(5);\n"
+				+ "		return (negative * 10) + positive;\n"
+				+ "	}\n"), is(-9));
+	}
+}
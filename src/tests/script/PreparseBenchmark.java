@@ -0,0 +1,56 @@
+package script;
+
+import script.parsing.Parser;
+import script.parsing.PreparsedFile;
+
+/**
+ * Times preparsing generated scripts of doubling size. Preparsing should take
+ * time linear in the size of the script, so the time per kilobyte should stay
+ * flat as the scripts grow.
+ */
+public class PreparseBenchmark {
+	private static String generateScript(int functions) {
+		StringBuilder script = new StringBuilder();
+		script.append("class Generated {\n");
+		script.append("	// A generated script with ").append(functions).append(" functions\n");
+		script.append("	int total = 0;\n");
+		for (int i = 0; i < functions; ++i) {
+			script.append("	/* Function ").append(i).append(" */\n");
+			script.append("	public int function").append(i).append("(int x, double y) {\n");
+			script.append("		String name = \"function").append(i).append("\";\n");
+			script.append("		for (int j = 0; j < ").append(i % 17 + 1).append("; j++) {\n");
+			script.append("			if (x >= j && y != -1.5 || !(x == 0)) {\n");
+			script.append("				x += j * 31 % 7 - (y / 2.5f);\n");
+			script.append("			}\n");
+			script.append("		}\n");
+			script.append("		this.total = this.total + x; // running total\n");
+			script.append("		return x;\n");
+			script.append("	}\n");
+		}
+		script.append("}\n");
+		return script.toString();
+	}
+
+	public static void main(String[] args) {
+		ScriptEnvironment env = new ScriptEnvironment();
+		// Warm up
+		for (int i = 0; i < 5; ++i) {
+			Parser.preparseFile(env, "Warmup", generateScript(500));
+		}
+		for (int functions = 250; functions <= 16000; functions *= 2) {
+			String script = generateScript(functions);
+			long best = Long.MAX_VALUE;
+			for (int round = 0; round < 5; ++round) {
+				long start = System.nanoTime();
+				PreparsedFile file = Parser.preparseFile(env, "Generated", script);
+				long elapsed = System.nanoTime() - start;
+				if (file.hasErrors()) {
+					throw new AssertionError(file.getExceptions());
+				}
+				best = Math.min(best, elapsed);
+			}
+			double kilobytes = script.length() / 1024.0;
+			System.out.printf("%6d functions, %8.1f KB: %8.2f ms (%.2f us/KB)%n", functions, kilobytes, best / 1e6, best / 1e3 / kilobytes);
+		}
+	}
+}
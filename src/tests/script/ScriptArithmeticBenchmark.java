@@ -0,0 +1,42 @@
+package script;
+
+import java.util.ArrayList;
+import java.util.Collections;
+
+import script.operations.ScriptExecutable_CallFunction;
+import script.parsing.Parser;
+import script.values.ScriptValue;
+import script.values.ScriptValue_Numeric;
+
+/**
+ * Times a tight arithmetic loop in a script, which mostly measures how much
+ * numeric expressions allocate.
+ */
+public class ScriptArithmeticBenchmark {
+	private static final String SCRIPT = "class Benchmark {\n"
+			+ "	public static int run() {\n"
+			+ "		int x = 1;\n"
+			+ "		double d = 1.0;\n"
+			+ "		long y = 1;\n"
+			+ "		for (int i = 0; i < 200000; i++) {\n"
+			+ "			x = x * 31 + i % 7;\n"
+			+ "			x = x % 65521;\n"
+			+ "			d = d * 1.0001 + 0.5;\n"
+			+ "			y = y * 7 % 1000003;\n"
+			+ "		}\n"
+			+ "		return x;\n"
+			+ "	}\n"
+			+ "}\n";
+
+	public static void main(String[] args) throws Exception {
+		ScriptEnvironment env = new ScriptEnvironment();
+		Parser.parseElements(env, Collections.singletonList(Parser.preparseFile(env, "Benchmark", SCRIPT)));
+		for (int round = 0; round < 10; ++round) {
+			env.clearStacks();
+			long start = System.nanoTime();
+			ScriptValue result = ScriptExecutable_CallFunction.callFunction(env, null, env.getTemplate("Benchmark"), "run", new ArrayList<ScriptValue>());
+			long elapsed = System.nanoTime() - start;
+			System.out.printf("round %d: %.1f ms (result %d)%n", round, elapsed / 1e6, ((ScriptValue_Numeric) result).intValue());
+		}
+	}
+}
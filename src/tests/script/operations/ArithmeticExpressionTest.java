@@ -0,0 +1,196 @@
+package script.operations;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+
+import script.ScriptEnvironment;
+import script.exceptions.DivisionByZeroScriptException;
+import script.parsing.Parser;
+import script.parsing.ScriptElement;
+import script.parsing.ScriptOperatorType;
+import script.values.ScriptValue;
+import script.values.ScriptValue_Numeric;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks that the int, long and double expressions evaluate exactly as the
+ * generic {@link ScriptExecutable_EvaluateMathExpression} does.
+ */
+public class ArithmeticExpressionTest {
+	private static final ScriptOperatorType[] OPERATORS = {
+			ScriptOperatorType.PLUS,
+			ScriptOperatorType.MINUS,
+			ScriptOperatorType.MULTIPLY,
+			ScriptOperatorType.DIVIDE,
+			ScriptOperatorType.MODULUS
+	};
+
+	private ScriptEnvironment env;
+	private ScriptElement ref;
+
+	@Before
+	public void setUp() {
+		this.env = new ScriptEnvironment();
+		this.ref = new ScriptElement(this.env);
+	}
+
+	private ScriptValue_Numeric number(Number value) {
+		return new ScriptValue_Numeric(this.env, value);
+	}
+
+	/**
+	 * Evaluates the given operands with both a specialized and a generic
+	 * expression, and returns the result once both agree. Returns null if
+	 * both divided by zero.
+	 */
+	private Number evaluate(ScriptValue lhs, ScriptOperatorType operator, ScriptValue rhs) throws Exception {
+		ScriptExecutable_EvaluateMathExpression specialized = ScriptExecutable_EvaluateMathExpression.create(this.ref, lhs, rhs, operator);
+		ScriptExecutable_EvaluateMathExpression generic = new ScriptExecutable_EvaluateMathExpression(this.ref, lhs, rhs, operator);
+		assertThat(specialized.getClass() == ScriptExecutable_EvaluateMathExpression.class, is(false));
+		Number expected = null;
+		try {
+			expected = ((ScriptValue_Numeric) generic.getValue()).getNumericValue();
+		} catch (DivisionByZeroScriptException ex) {
+			try {
+				specialized.getValue();
+				fail(specialized.getClass().getSimpleName() + " did not divide by zero");
+			} catch (DivisionByZeroScriptException specializedEx) {
+				return null;
+			}
+		}
+		ScriptValue_Numeric actual = (ScriptValue_Numeric) specialized.getValue();
+		assertThat(actual.getType(), is(specialized.getType()));
+		assertThat(actual.getNumericValue(), is(expected));
+		return expected;
+	}
+
+	private Number evaluate(Number lhs, ScriptOperatorType operator, Number rhs) throws Exception {
+		return this.evaluate(this.number(lhs), operator, this.number(rhs));
+	}
+
+	@Test
+	public void testMixedOperands() throws Exception {
+		Number[] lefts = { 7, 7L, 7.5, -7 };
+		Number[] rights = { 2, 3L, 2.5, -3, 0.5 };
+		for (Number lhs : lefts) {
+			for (Number rhs : rights) {
+				for (ScriptOperatorType operator : OPERATORS) {
+					this.evaluate(lhs, operator, rhs);
+				}
+			}
+		}
+		// The right side is converted to the left side's type first
+		assertThat(this.evaluate(7, ScriptOperatorType.MULTIPLY, 2.5), is((Number) 14));
+		assertThat(this.evaluate(7.0, ScriptOperatorType.MULTIPLY, 2), is((Number) 14.0));
+		assertThat(this.evaluate(7L, ScriptOperatorType.DIVIDE, 2.5), is((Number) 3L));
+		assertThat(this.evaluate(-7, ScriptOperatorType.MODULUS, 3L), is((Number) (-1)));
+		assertThat(this.evaluate(7.5, ScriptOperatorType.MODULUS, 2), is((Number) 1.5));
+	}
+
+	/**
+	 * Specialized expressions read nested expressions as primitives instead
+	 * of wrapping them, which must not change what they convert to.
+	 */
+	@Test
+	public void testNestedMixedExpressions() throws Exception {
+		ScriptValue[] operands = {
+				this.number(9),
+				this.number(9L),
+				this.number(2.75),
+				ScriptExecutable_EvaluateMathExpression.create(this.ref, this.number(5), this.number(2.9), ScriptOperatorType.MULTIPLY),
+				ScriptExecutable_EvaluateMathExpression.create(this.ref, this.number(3000000000L), this.number(7), ScriptOperatorType.PLUS),
+				ScriptExecutable_EvaluateMathExpression.create(this.ref, this.number(1.5), this.number(4L), ScriptOperatorType.DIVIDE)
+		};
+		for (ScriptValue lhs : operands) {
+			for (ScriptValue rhs : operands) {
+				for (ScriptOperatorType operator : OPERATORS) {
+					this.evaluate(lhs, operator, rhs);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testDivisionByZero() throws Exception {
+		Number[] lefts = { 7, 7L, 7.5 };
+		Number[] zeroes = { 0, 0L, 0.0, 0.5 };
+		for (Number lhs : lefts) {
+			for (Number zero : zeroes) {
+				if (lhs instanceof Double && zero.doubleValue() != 0) {
+					continue;
+				}
+				assertThat(this.evaluate(lhs, ScriptOperatorType.DIVIDE, zero), is((Number) null));
+				assertThat(this.evaluate(lhs, ScriptOperatorType.MODULUS, zero), is((Number) null));
+			}
+		}
+	}
+
+	@Test
+	public void testOverflow() throws Exception {
+		assertThat(this.evaluate(Integer.MAX_VALUE, ScriptOperatorType.PLUS, 1), is((Number) Integer.MIN_VALUE));
+		assertThat(this.evaluate(Integer.MIN_VALUE, ScriptOperatorType.MINUS, 1), is((Number) Integer.MAX_VALUE));
+		assertThat(this.evaluate(65536, ScriptOperatorType.MULTIPLY, 65536), is((Number) 0));
+		assertThat(this.evaluate(Integer.MIN_VALUE, ScriptOperatorType.DIVIDE, -1), is((Number) Integer.MIN_VALUE));
+		assertThat(this.evaluate(Long.MAX_VALUE, ScriptOperatorType.PLUS, 1), is((Number) Long.MIN_VALUE));
+		assertThat(this.evaluate(Long.MIN_VALUE, ScriptOperatorType.DIVIDE, -1L), is((Number) Long.MIN_VALUE));
+		assertThat(this.evaluate(Double.MAX_VALUE, ScriptOperatorType.MULTIPLY, 2), is((Number) Double.POSITIVE_INFINITY));
+		// An int expression keeps only the low bits of a long operand
+		assertThat(this.evaluate(1, ScriptOperatorType.PLUS, 1L << 32), is((Number) 1));
+		// Widening to long happens only when the left side is a long
+		assertThat(this.evaluate((long) Integer.MAX_VALUE, ScriptOperatorType.PLUS, 1), is((Number) (Integer.MAX_VALUE + 1L)));
+	}
+
+	private Number run(String body) throws Exception {
+		ScriptEnvironment env = new ScriptEnvironment();
+		String script = "class Test {\n" + body + "}\n";
+		Parser.parseElements(env, Collections.singletonList(Parser.preparseFile(env, "Test", script)));
+		ScriptValue result = ScriptExecutable_CallFunction.callFunction(env, null, env.getTemplate("Test"), "run", new ArrayList<ScriptValue>());
+		return ((ScriptValue_Numeric) result).getNumericValue();
+	}
+
+	/**
+	 * Runs the given statements both as written and with each compound
+	 * assignment spelled out, and returns the result once both agree.
+	 */
+	private Number runAssignments(String type, String initial, String... statements) throws Exception {
+		StringBuilder compound = new StringBuilder();
+		StringBuilder expanded = new StringBuilder();
+		for (String statement : statements) {
+			compound.append("		x " + statement + ";\n");
+			expanded.append("		x = x " + statement.replaceFirst("=", "") + ";\n");
+		}
+		String header = "	public static " + type + " run() {\n		" + type + " x = " + initial + ";\n";
+		String footer = "		return x;\n	}\n";
+		Number expected = this.run(header + expanded + footer);
+		assertThat(this.run(header + compound + footer), is(expected));
+		return expected;
+	}
+
+	@Test
+	public void testCompoundAssignment() throws Exception {
+		assertThat(this.runAssignments("int", "7", "+= 5", "*= 3", "%= 5"), is((Number) 1));
+		assertThat(this.runAssignments("long", "2147483647", "+= 1", "*= 3", "%= 1000"), is((Number) ((2147483648L * 3) % 1000)));
+		assertThat(this.runAssignments("double", "1.5", "+= 2", "*= 3", "%= 4"), is((Number) 2.5));
+		// Mixed operands are converted to the variable's type first
+		assertThat(this.runAssignments("int", "7", "*= 2.5", "+= 3000000000"), is((Number) (14 + (int) 3000000000L)));
+		assertThat(this.runAssignments("double", "7", "*= 2", "%= 2.5"), is((Number) 1.5));
+		assertThat(this.runAssignments("int", "2147483647", "+= 1"), is((Number) Integer.MIN_VALUE));
+		assertThat(this.runAssignments("int", "65536", "*= 65536"), is((Number) 0));
+	}
+
+	@Test(expected = DivisionByZeroScriptException.class)
+	public void testCompoundModulusByZero() throws Exception {
+		this.run("	public static int run() {\n		int x = 7;\n		int zero = 0;\n		x %= zero;\n		return x;\n	}\n");
+	}
+
+	@Test(expected = DivisionByZeroScriptException.class)
+	public void testCompoundDivisionByZero() throws Exception {
+		this.run("	public static double run() {\n		double x = 7.5;\n		x /= 0;\n		return x;\n	}\n");
+	}
+}
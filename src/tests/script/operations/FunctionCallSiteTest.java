@@ -0,0 +1,141 @@
+package script.operations;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import script.Conversions;
+import script.ScriptEnvironment;
+import script.parsing.ScriptKeywordType;
+import script.proxies.FauxTemplate;
+import script.values.ScriptValue;
+import script.values.ScriptValueType;
+import script.values.ScriptValue_Faux;
+import script.values.ScriptValue_Numeric;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class FunctionCallSiteTest {
+
+	/**
+	 * A template whose functions return a fixed number, so each test can see
+	 * which function a call resolved to.
+	 */
+	private static final class Probe extends FauxTemplate {
+		Probe(ScriptEnvironment env) {
+			super(env, ScriptValueType.createType(env, "Probe"), ScriptValueType.getObjectType(env), new LinkedList<ScriptValueType>(), false);
+		}
+
+		void define(String name, final int result, ScriptValueType... paramTypes) throws Exception {
+			List<ScriptValue> params = new LinkedList<ScriptValue>();
+			for (ScriptValueType type : paramTypes) {
+				params.add(new ScriptValue_Faux(this.getEnvironment(), type));
+			}
+			this.addFauxFunction(name, ScriptValueType.INT, params, ScriptKeywordType.PUBLIC, true, (ref, fxnParams, template) -> Conversions.wrapInt(this.getEnvironment(), result));
+		}
+	}
+
+	private ScriptEnvironment env;
+	private Probe probe;
+
+	@Before
+	public void setUp() throws Exception {
+		this.env = new ScriptEnvironment();
+		this.probe = new Probe(this.env);
+		this.env.addType(null, "Probe", this.probe);
+	}
+
+	private int call(FunctionCallSite site, ScriptValue... params) throws Exception {
+		ScriptValue result = site.call(this.env, null, this.probe, new LinkedList<ScriptValue>(Arrays.asList(params)));
+		return ((ScriptValue_Numeric) result).intValue();
+	}
+
+	private long hits() {
+		return this.env.getFunctionCacheHits();
+	}
+
+	private long misses() {
+		return this.env.getFunctionCacheMisses();
+	}
+
+	@Test
+	public void testRepeatedCallHitsCache() throws Exception {
+		this.probe.define("f", 1, ScriptValueType.INT);
+		FunctionCallSite site = new FunctionCallSite("f");
+		long hits = this.hits(), misses = this.misses();
+		assertThat(this.call(site, Conversions.wrapInt(this.env, 7)), is(1));
+		assertThat(this.call(site, Conversions.wrapInt(this.env, 8)), is(1));
+		assertThat(this.misses() - misses, is(1L));
+		assertThat(this.hits() - hits, is(1L));
+	}
+
+	@Test
+	public void testNewParameterTypeMissesCache() throws Exception {
+		this.probe.define("f", 1, ScriptValueType.INT);
+		this.probe.define("f", 2, ScriptValueType.STRING);
+		FunctionCallSite site = new FunctionCallSite("f");
+		long hits = this.hits(), misses = this.misses();
+		assertThat(this.call(site, Conversions.wrapInt(this.env, 7)), is(1));
+		assertThat(this.call(site, Conversions.wrapString(this.env, "a")), is(2));
+		assertThat(this.misses() - misses, is(2L));
+		assertThat(this.hits() - hits, is(0L));
+		// Both types are cached now
+		assertThat(this.call(site, Conversions.wrapString(this.env, "b")), is(2));
+		assertThat(this.call(site, Conversions.wrapInt(this.env, 8)), is(1));
+		assertThat(this.hits() - hits, is(2L));
+	}
+
+	/**
+	 * Only the first four parameter types are cached. Calls with any other
+	 * type are still resolved correctly, just every time.
+	 */
+	@Test
+	public void testCachesAtMostFourTypes() throws Exception {
+		this.probe.define("f", 1, ScriptValueType.INT);
+		this.probe.define("f", 2, ScriptValueType.LONG);
+		this.probe.define("f", 3, ScriptValueType.STRING);
+		this.probe.define("f", 4, ScriptValueType.BOOLEAN);
+		this.probe.define("f", 5);
+		FunctionCallSite site = new FunctionCallSite("f");
+		ScriptValue[][] calls = new ScriptValue[][] {
+				{ Conversions.wrapInt(this.env, 1) },
+				{ Conversions.wrapLong(this.env, 1) },
+				{ Conversions.wrapString(this.env, "a") },
+				{ Conversions.wrapBoolean(this.env, true) },
+				{}
+		};
+		long hits = this.hits(), misses = this.misses();
+		for (int i = 0; i < calls.length; i++) {
+			assertThat(this.call(site, calls[i]), is(i + 1));
+		}
+		assertThat(this.misses() - misses, is(5L));
+		for (int i = 0; i < calls.length; i++) {
+			assertThat(this.call(site, calls[i]), is(i + 1));
+		}
+		assertThat(this.hits() - hits, is(4L));
+		assertThat(this.misses() - misses, is(6L));
+	}
+
+	/**
+	 * Redefining a function bumps the environment's function version, so a
+	 * call site never calls the function it replaced.
+	 */
+	@Test
+	public void testRedefinitionDiscardsCachedFunction() throws Exception {
+		this.probe.define("f", 1, ScriptValueType.INT);
+		FunctionCallSite site = new FunctionCallSite("f");
+		assertThat(this.call(site, Conversions.wrapInt(this.env, 7)), is(1));
+		assertThat(this.call(site, Conversions.wrapInt(this.env, 7)), is(1));
+		int version = this.env.getFunctionVersion();
+		this.probe.define("f", 2, ScriptValueType.INT);
+		assertThat(this.env.getFunctionVersion() == version, is(false));
+		long hits = this.hits(), misses = this.misses();
+		assertThat(this.call(site, Conversions.wrapInt(this.env, 7)), is(2));
+		assertThat(this.misses() - misses, is(1L));
+		assertThat(this.hits() - hits, is(0L));
+	}
+}
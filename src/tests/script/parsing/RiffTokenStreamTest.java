@@ -0,0 +1,175 @@
+package script.parsing;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.List;
+
+import script.ScriptEnvironment;
+import script.exceptions.ScriptException;
+import script.exceptions.UnenclosedBracketException;
+import script.exceptions.UnenclosedStringLiteralException;
+import script.parsing.tokens.RiffTokenStream;
+import script.values.ScriptValue_Numeric;
+import script.values.ScriptValue_String;
+
+import org.junit.Test;
+
+/**
+ * Checks the elements that {@link RiffTokenStream} and
+ * {@link ElementBuilder} preparse a file into. Elements are written out
+ * separated by spaces, with strings in double quotes, numbers prefixed with
+ * their type, and groups in their own brackets.
+ */
+public class RiffTokenStreamTest {
+
+	private static String preparse(String source) throws ScriptException {
+		return describe(ElementBuilder.build(new RiffTokenStream(new ScriptEnvironment(), "Test", source)));
+	}
+
+	private static String describe(List<Object> elements) {
+		StringBuilder builder = new StringBuilder();
+		for (Object element : elements) {
+			if (builder.length() > 0) {
+				builder.append(' ');
+			}
+			if (element instanceof ScriptGroup) {
+				ScriptGroup group = (ScriptGroup) element;
+				boolean curly = group.getType() == CharacterGroup.CURLY_BRACES;
+				builder.append(curly ? '{' : '(');
+				if (!group.getElements().isEmpty()) {
+					builder.append(' ').append(describe(group.getElements()));
+				}
+				builder.append(curly ? " }" : " )");
+			} else if (element instanceof ScriptValue_String) {
+				builder.append('"').append(((ScriptValue_String) element).getStringValue()).append('"');
+			} else if (element instanceof ScriptValue_Numeric) {
+				ScriptValue_Numeric number = (ScriptValue_Numeric) element;
+				builder.append(number.getType().getKeywordType().canonical()).append(':').append(number.getNumericValue());
+			} else if (element instanceof ScriptOperator) {
+				builder.append(((ScriptOperator) element).getType().getOperator());
+			} else if (element instanceof ScriptKeyword) {
+				builder.append(((ScriptKeyword) element).getType().canonical());
+			} else {
+				builder.append(((ScriptLine) element).getString());
+			}
+		}
+		return builder.toString();
+	}
+
+	@Test
+	public void testLineComments() throws Exception {
+		assertThat(preparse("a // b c\nd"), is("a d"));
+		assertThat(preparse("a b //"), is("a b"));
+		assertThat(preparse("a/b"), is("a / b"));
+	}
+
+	@Test
+	public void testBlockComments() throws Exception {
+		assertThat(preparse("a /* b */ c"), is("a c"));
+		assertThat(preparse("a /* b\n c\n */ d"), is("a d"));
+		assertThat(preparse("a/**/b"), is("a b"));
+		assertThat(preparse("a /* b // c */ d"), is("a d"));
+		assertThat(preparse("a /* b"), is("a"));
+	}
+
+	/**
+	 * Comment markers inside strings are part of the string. The tokenizer
+	 * that stripped comments before finding strings used to reject
+	 * {@code "a // b"} as an unenclosed string.
+	 */
+	@Test
+	public void testCommentsInsideStrings() throws Exception {
+		assertThat(preparse("x = \"a // b\";"), is("x = \"a // b\" ;"));
+		assertThat(preparse("x = \"a /* b */ c\";"), is("x = \"a /* b */ c\" ;"));
+		assertThat(preparse("'//' // c"), is("\"//\""));
+	}
+
+	/**
+	 * A backslash keeps a double quote from closing its string, and the
+	 * backslash itself is kept. Single quotes cannot be escaped.
+	 */
+	@Test
+	public void testEscapedQuotes() throws Exception {
+		assertThat(preparse("\"say \\\"hi\\\"\""), is("\"say \\\"hi\\\"\""));
+		assertThat(preparse("\"a\\\"\" b"), is("\"a\\\"\" b"));
+		assertThat(preparse("'a\\' b"), is("\"a\\\" b"));
+		assertThat(preparse("\"it's\""), is("\"it's\""));
+	}
+
+	@Test
+	public void testNestedGroups() throws Exception {
+		assertThat(preparse("if (a) { b(c, (d)); }"), is("if ( a ) { b ( c , ( d ) ) ; }"));
+		assertThat(preparse("{{}}()"), is("{ { } } ( )"));
+		assertThat(preparse("f(\")\")"), is("f ( \")\" )"));
+	}
+
+	@Test
+	public void testTwoCharacterOperators() throws Exception {
+		String[] operators = { "==", "!=", "<=", ">=", "&&", "||", "++", "--", "+=", "-=", "*=", "/=", "%=" };
+		for (String operator : operators) {
+			assertThat(preparse("a " + operator + " b"), is("a " + operator + " b"));
+			assertThat(preparse("a" + operator + "b"), is("a " + operator + " b"));
+		}
+		assertThat(preparse("a+++b"), is("a ++ + b"));
+		assertThat(preparse("a=!b"), is("a = ! b"));
+		assertThat(preparse("a<b>c"), is("a < b > c"));
+	}
+
+	/**
+	 * Doubled ampersands and bars end a word, but a single one is part of it.
+	 */
+	@Test
+	public void testLogicalOperatorsGluedToWords() throws Exception {
+		assertThat(preparse("a&&b||c"), is("a && b || c"));
+		assertThat(preparse("(a)&&(b)"), is("( a ) && ( b )"));
+		assertThat(preparse("a&&!b"), is("a && ! b"));
+		assertThat(preparse("a&b"), is("a&b"));
+		assertThat(preparse("a|b||c"), is("a|b || c"));
+	}
+
+	@Test
+	public void testNumbers() throws Exception {
+		assertThat(preparse("1.5"), is("double:1.5"));
+		assertThat(preparse("-2"), is("short:-2"));
+		assertThat(preparse("4.0d"), is("double:4.0"));
+		assertThat(preparse("5f"), is("float:5.0"));
+		assertThat(preparse(".5"), is("double:0.5"));
+		assertThat(preparse("123456"), is("int:123456"));
+		assertThat(preparse("3000000000"), is("long:3000000000"));
+		assertThat(preparse("x = -1.5;"), is("x = double:-1.5 ;"));
+		// A minus after a number is subtraction
+		assertThat(preparse("3 -2"), is("short:3 - short:2"));
+		assertThat(preparse("a.b(1.5)"), is("a . b ( double:1.5 )"));
+	}
+
+	@Test(expected = UnenclosedStringLiteralException.class)
+	public void testUnclosedString() throws Exception {
+		preparse("x = \"abc;");
+	}
+
+	@Test(expected = UnenclosedStringLiteralException.class)
+	public void testStringAcrossLines() throws Exception {
+		preparse("x = \"abc\ndef\";");
+	}
+
+	@Test(expected = UnenclosedStringLiteralException.class)
+	public void testEscapedClosingQuote() throws Exception {
+		preparse("x = \"abc\\\";");
+	}
+
+	@Test(expected = UnenclosedBracketException.class)
+	public void testUnclosedBracket() throws Exception {
+		preparse("{ a (b) ");
+	}
+
+	@Test(expected = UnenclosedBracketException.class)
+	public void testMismatchedBracket() throws Exception {
+		preparse("{ a (b } )");
+	}
+
+	@Test(expected = UnenclosedBracketException.class)
+	public void testUnopenedBracket() throws Exception {
+		preparse("a )");
+	}
+}